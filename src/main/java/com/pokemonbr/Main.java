@@ -24,17 +24,24 @@ public class Main extends JavaPlugin {
     private PlayerDataManager playerDataManager;
     private WorldManager worldManager;
     private WorldTemplateManager worldTemplateManager;
+    private ChunkPreloadManager chunkPreloadManager;
+    private LatencyMetrics latencyMetrics;
     private RewardManager rewardManager;
     private ScoreboardManager scoreboardManager;
     private BorderShrinkManager borderShrinkManager;
     private VictoryEffectManager victoryEffectManager;
     private InviteManager inviteManager;
+    private FederationManager federationManager;
+    private QueueAuditor queueAuditor;
+    private MatchHistoryWriter matchHistoryWriter;
+    private GameTickScheduler gameTickScheduler;
     private LootChestManager lootChestManager;
     private LootGUIManager lootGUIManager;
     // 已移除：自定义品类管理器已整合到LootGUI中
     private WorldConfigManager worldConfigManager;
     private PermissionManager permissionManager;
     private com.pokemonbr.listeners.PixelmonBattleListener pixelmonBattleListener;
+    private PartyStateTracker partyStateTracker;
 
     @Override
     public void onEnable() {
@@ -103,6 +110,7 @@ public class Main extends JavaPlugin {
 
             // 6. 初始化世界模板管理器
             getLogger().info("§e[6/15] 正在初始化世界模板管理器...");
+            latencyMetrics = new LatencyMetrics(this);
             worldTemplateManager = new WorldTemplateManager(this);
 
             // 7. 初始化匹配队列管理器
@@ -112,6 +120,7 @@ public class Main extends JavaPlugin {
             // 8. 初始化游戏管理器
             getLogger().info("§e[8/15] 正在初始化游戏管理器...");
             gameManager = new GameManager(this);
+            chunkPreloadManager = new ChunkPreloadManager(this);
 
             // 9. 初始化奖励管理器
             getLogger().info("§e[9/15] 正在初始化奖励管理器...");
@@ -129,10 +138,28 @@ public class Main extends JavaPlugin {
             getLogger().info("§e[12/15] 正在初始化胜利特效管理器...");
             victoryEffectManager = new VictoryEffectManager(this);
 
+            // 统一游戏调度器（游戏状态、缩圈、边界伤害、计分板和队列倒计时）
+            gameTickScheduler = new GameTickScheduler(this);
+            gameTickScheduler.start();
+
             // 13. 初始化邀请管理器
             getLogger().info("§e[13/15] 正在初始化邀请管理器...");
             inviteManager = new InviteManager(this);
 
+            // 跨服队列（可选，需要 MySQL）
+            federationManager = new FederationManager(this);
+            federationManager.start();
+
+            // 队列一致性检查
+            queueAuditor = new QueueAuditor(this);
+            queueAuditor.start();
+
+            // 对局记录写入（仅 MySQL 模式）
+            if (databaseManager.isMySQLStorage()
+                    && getConfig().getBoolean("database.match-history.enabled", true)) {
+                matchHistoryWriter = new MatchHistoryWriter(this);
+            }
+
             // 14. 初始化战利品系统（GUI + 箱子，品类管理已整合到LootGUI）
             getLogger().info("§e[14/15] 正在初始化战利品系统...");
             lootGUIManager = new LootGUIManager(this);
@@ -263,11 +290,23 @@ public class Main extends JavaPlugin {
         getServer().getPluginManager().registerEvents(
                 new com.pokemonbr.listeners.GameRestrictionListener(this), this);
 
+        // 注册世界克隆监听器（保护硬链接模板）
+        getServer().getPluginManager().registerEvents(
+                new com.pokemonbr.listeners.WorldCloneListener(this), this);
+
+        // 注册世界重置监听器（记录被修改的区块）
+        getServer().getPluginManager().registerEvents(
+                new com.pokemonbr.listeners.WorldResetListener(this), this);
+
         // 注册Pixelmon战斗监听器（如果Pixelmon可用）
         if (getServer().getPluginManager().getPlugin("Pixelmon") != null) {
             pixelmonBattleListener = new com.pokemonbr.listeners.PixelmonBattleListener(this);
             getServer().getPluginManager().registerEvents(pixelmonBattleListener, this);
             getLogger().info("§aPixelmon战斗监听器已注册");
+
+            // 队伍状态跟踪（队伍变空时立即淘汰）
+            partyStateTracker = new PartyStateTracker(this);
+            partyStateTracker.start();
         }
 
         // 注册幸运方块兼容性监听器（如果检测到幸运方块插件）
@@ -299,46 +338,85 @@ public class Main extends JavaPlugin {
 
     /**
      * 清理资源
+     * 插件此时已被标记为禁用，不能再调度任务；每一步单独捕获异常，任何一步失败都不会跳过后续的保存和关闭数据库
      */
     private void cleanup() {
-        try {
-            // 取消所有定时任务
-            getServer().getScheduler().cancelTasks(this);
+        // 取消所有定时任务
+        cleanupStep("取消定时任务", () -> getServer().getScheduler().cancelTasks(this));
 
-            // 保存所有玩家数据
-            if (playerDataManager != null) {
-                playerDataManager.saveAllCachedData();
-            }
+        // 结束所有进行中的游戏（同步结算奖励和对局记录，必须在保存数据和关闭写入器之前）
+        if (gameManager != null) {
+            cleanupStep("结束进行中的游戏", gameManager::stopAllGames);
+        }
 
-            // 关闭数据库连接
-            if (databaseManager != null) {
-                databaseManager.close();
-            }
+        // 保存所有玩家数据
+        if (playerDataManager != null) {
+            cleanupStep("保存玩家数据", playerDataManager::saveAllCachedData);
+        }
 
-            // 保存所有配置
-            if (configManager != null) {
-                configManager.saveConfigs();
-            }
+        // 注销跨服节点（必须在关闭数据库之前）
+        if (federationManager != null) {
+            cleanupStep("注销跨服节点", federationManager::shutdown);
+        }
 
-            // 结束所有进行中的游戏
-            if (gameManager != null) {
-                gameManager.stopAllGames();
-            }
+        // 写完积压的对局记录（必须在关闭数据库之前）
+        if (matchHistoryWriter != null) {
+            cleanupStep("写入对局记录", matchHistoryWriter::shutdown);
+        }
 
-            // 停止边界缩圈管理器
-            if (borderShrinkManager != null) {
-                borderShrinkManager.shutdown();
-            }
+        // 关闭数据库连接
+        if (databaseManager != null) {
+            cleanupStep("关闭数据库连接", databaseManager::close);
+        }
 
-            // 关闭所有玩家的物品管理GUI
-            if (lootGUIManager != null) {
-                lootGUIManager.closeAll();
-            }
+        // 保存所有配置
+        if (configManager != null) {
+            cleanupStep("保存配置", configManager::saveConfigs);
+        }
+
+        // 关闭世界文件I/O线程池
+        if (worldTemplateManager != null) {
+            cleanupStep("关闭世界文件线程池", worldTemplateManager::shutdown);
+        }
 
-            getLogger().info("§a资源清理完成");
+        // 停止区块预加载并释放票据
+        if (chunkPreloadManager != null) {
+            cleanupStep("停止区块预加载", chunkPreloadManager::shutdown);
+        }
+
+        // 停止统一游戏调度器
+        if (gameTickScheduler != null) {
+            cleanupStep("停止游戏调度器", gameTickScheduler::shutdown);
+        }
 
+        // 停止队伍状态扫描
+        if (partyStateTracker != null) {
+            cleanupStep("停止队伍状态扫描", partyStateTracker::shutdown);
+        }
+
+        // 停止边界缩圈管理器
+        if (borderShrinkManager != null) {
+            cleanupStep("停止边界缩圈", borderShrinkManager::shutdown);
+        }
+
+        // 关闭所有玩家的物品管理GUI
+        if (lootGUIManager != null) {
+            cleanupStep("关闭物品管理GUI", lootGUIManager::closeAll);
+        }
+
+        getLogger().info("§a资源清理完成");
+    }
+
+    /**
+     * 执行一步清理，失败时记录错误并继续后续步骤
+     * @param name 步骤名称
+     * @param step 清理操作
+     */
+    private void cleanupStep(String name, Runnable step) {
+        try {
+            step.run();
         } catch (Exception e) {
-            getLogger().severe("§c资源清理过程中发生错误：" + e.getMessage());
+            getLogger().severe("§c资源清理过程中发生错误 (" + name + ")：" + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -404,6 +482,26 @@ public class Main extends JavaPlugin {
         return worldTemplateManager;
     }
 
+    public ChunkPreloadManager getChunkPreloadManager() {
+        return chunkPreloadManager;
+    }
+
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
+    }
+
+    public QueueAuditor getQueueAuditor() {
+        return queueAuditor;
+    }
+
+    public MatchHistoryWriter getMatchHistoryWriter() {
+        return matchHistoryWriter;
+    }
+
+    public GameTickScheduler getGameTickScheduler() {
+        return gameTickScheduler;
+    }
+
     public RewardManager getRewardManager() {
         return rewardManager;
     }
@@ -424,6 +522,10 @@ public class Main extends JavaPlugin {
         return inviteManager;
     }
 
+    public FederationManager getFederationManager() {
+        return federationManager;
+    }
+
     public LootChestManager getLootChestManager() {
         return lootChestManager;
     }
@@ -454,4 +556,12 @@ public class Main extends JavaPlugin {
     public com.pokemonbr.listeners.PixelmonBattleListener getPixelmonBattleListener() {
         return pixelmonBattleListener;
     }
+
+    /**
+     * 获取队伍状态跟踪器
+     * @return 跟踪器，未安装 Pixelmon 时为 null
+     */
+    public PartyStateTracker getPartyStateTracker() {
+        return partyStateTracker;
+    }
 }
@@ -1,12 +1,26 @@
 package com.pokemonbr.commands;
 
 import com.pokemonbr.Main;
+import com.pokemonbr.managers.GameTickScheduler;
+import com.pokemonbr.managers.LatencyHistogram;
+import com.pokemonbr.managers.LatencyMetrics;
+import com.pokemonbr.managers.MatchHistoryWriter;
+import com.pokemonbr.managers.QueueAuditor;
+import com.pokemonbr.managers.QueueDemandTracker;
+import com.pokemonbr.managers.WorldCloner;
+import com.pokemonbr.managers.WorldTemplateManager;
+import com.pokemonbr.models.QueueType;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 管理员指令处理器
  *
@@ -63,6 +77,21 @@ public class AdminCommands implements CommandExecutor {
             case "restore":
                 return handleRestoreWorld(sender, args);
 
+            case "latency":
+                return handleLatency(sender, args);
+
+            case "audit":
+                return handleAudit(sender);
+
+            case "tick":
+                return handleTick(sender, args);
+
+            case "history":
+                return handleHistory(sender);
+
+            case "worlds":
+                return handleWorlds(sender);
+
             default:
                 sendHelp(sender);
                 return true;
@@ -84,6 +113,11 @@ public class AdminCommands implements CommandExecutor {
         sender.sendMessage(ChatColor.AQUA + "  简写: /pbr csd <世界名> <1|2>");
         sender.sendMessage(ChatColor.YELLOW + "/pbradmin backup <世界名> " + ChatColor.GRAY + "- 备份游戏世界");
         sender.sendMessage(ChatColor.YELLOW + "/pbradmin restore <世界名> " + ChatColor.GRAY + "- 还原游戏世界");
+        sender.sendMessage(ChatColor.YELLOW + "/pbradmin latency [reset|dump] " + ChatColor.GRAY + "- 查看排队与世界准备延迟");
+        sender.sendMessage(ChatColor.YELLOW + "/pbradmin audit " + ChatColor.GRAY + "- 检查队列与世界状态一致性");
+        sender.sendMessage(ChatColor.YELLOW + "/pbradmin tick [reset] " + ChatColor.GRAY + "- 查看游戏调度器耗时");
+        sender.sendMessage(ChatColor.YELLOW + "/pbradmin history " + ChatColor.GRAY + "- 查看对局记录写入状态");
+        sender.sendMessage(ChatColor.YELLOW + "/pbradmin worlds " + ChatColor.GRAY + "- 查看世界复制、I/O与删除状态");
         sender.sendMessage(ChatColor.GOLD + "================================");
     }
 
@@ -151,6 +185,10 @@ public class AdminCommands implements CommandExecutor {
             // 2. 重载所有子配置文件 (ConfigManager 管理的)
             plugin.getConfigManager().reloadConfigs();
 
+            // 重新生成队列倒计时消息
+            plugin.getQueueManager().reloadCountdownFrames();
+            plugin.getGameTickScheduler().reloadConfig();
+
             // 3. 重载 LootGUI 配置
             if (plugin.getLootGUIManager() != null) {
                 plugin.getLootGUIManager().reloadConfig();
@@ -161,6 +199,9 @@ public class AdminCommands implements CommandExecutor {
             if (plugin.getWorldConfigManager() != null) {
                 plugin.getWorldConfigManager().reloadAllWorldConfigs();
                 plugin.getLogger().info("§a已重载所有世界配置");
+
+                // 地图权重可能已变化，按新权重调整预热池
+                plugin.getWorldTemplateManager().getWorldPool().refillAll();
             }
 
             // 5. 自定义品类配置已整合到LootGUI中，通过LootGUI重载即可
@@ -366,6 +407,167 @@ public class AdminCommands implements CommandExecutor {
         return true;
     }
 
+    /**
+     * 查看、清空或导出延迟统计
+     * 用法: /pbradmin latency [reset|dump]
+     */
+    private boolean handleLatency(CommandSender sender, String[] args) {
+        LatencyMetrics metrics = plugin.getLatencyMetrics();
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sender.sendMessage(ChatColor.GREEN + "延迟统计已清空");
+            return true;
+        }
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("dump")) {
+            try {
+                File file = metrics.dump();
+                sender.sendMessage(ChatColor.GREEN + "延迟统计已导出: " + file.getPath());
+            } catch (IOException e) {
+                sender.sendMessage(ChatColor.RED + "延迟统计导出失败: " + e.getMessage());
+            }
+            return true;
+        }
+
+        long minutes = (System.currentTimeMillis() - metrics.getSince()) / 60000;
+        sender.sendMessage(ChatColor.GOLD + "========== 延迟统计 (最近 " + minutes + " 分钟) ==========");
+
+        boolean empty = true;
+        for (String stage : metrics.getStages()) {
+            Map<String, LatencyHistogram> histograms = metrics.getHistograms(stage);
+            if (histograms.isEmpty()) {
+                continue;
+            }
+
+            empty = false;
+            sender.sendMessage(ChatColor.YELLOW + stage);
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                sender.sendMessage(ChatColor.GRAY + "  " + entry.getKey() + ": "
+                        + ChatColor.WHITE + histogram.getCount() + " 次"
+                        + ChatColor.GRAY + ", p50 " + ChatColor.WHITE + formatMillis(histogram.getValueAtPercentile(50))
+                        + ChatColor.GRAY + ", p90 " + ChatColor.WHITE + formatMillis(histogram.getValueAtPercentile(90))
+                        + ChatColor.GRAY + ", p99 " + ChatColor.WHITE + formatMillis(histogram.getValueAtPercentile(99))
+                        + ChatColor.GRAY + ", 最大 " + ChatColor.WHITE + formatMillis(histogram.getMax()));
+            }
+        }
+
+        if (empty) {
+            sender.sendMessage(ChatColor.GRAY + "暂无数据");
+        }
+
+        // 队列需求与合并统计
+        QueueDemandTracker demandTracker = plugin.getQueueManager().getDemandTracker();
+        sender.sendMessage(ChatColor.YELLOW + "队列需求");
+        for (QueueType queueType : QueueType.values()) {
+            sender.sendMessage(ChatColor.GRAY + "  " + queueType.getDisplayName() + " 加入速率: "
+                    + ChatColor.WHITE + String.format("%.1f", demandTracker.getArrivalRatePerMinute(queueType)) + " 人/分钟");
+        }
+        sender.sendMessage(ChatColor.GRAY + "  世界准备耗时: "
+                + ChatColor.WHITE + String.format("%.1fs", demandTracker.getProvisionSeconds()));
+        sender.sendMessage(ChatColor.GRAY + "  队列合并: " + ChatColor.WHITE + demandTracker.getMergeCount() + " 次"
+                + ChatColor.GRAY + ", 移动玩家 " + ChatColor.WHITE + demandTracker.getMergedPlayers()
+                + ChatColor.GRAY + ", 世界回到预热池 " + ChatColor.WHITE + demandTracker.getWorldsReturnedToPool());
+
+        sender.sendMessage(ChatColor.GOLD + "================================");
+        return true;
+    }
+
+    /**
+     * 立即执行一次队列一致性检查，并显示累计结果
+     * 用法: /pbradmin audit
+     */
+    private boolean handleAudit(CommandSender sender) {
+        QueueAuditor auditor = plugin.getQueueAuditor();
+        List<String> violations = auditor.audit();
+
+        sender.sendMessage(ChatColor.GOLD + "========== 队列一致性检查 ==========");
+        if (violations.isEmpty()) {
+            sender.sendMessage(ChatColor.GREEN + "本次检查未发现问题");
+        } else {
+            sender.sendMessage(ChatColor.RED + "本次发现 " + violations.size() + " 个问题:");
+            for (String violation : violations) {
+                sender.sendMessage(ChatColor.GRAY + "  " + violation);
+            }
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "累计检查 " + auditor.getAuditCount() + " 次");
+        for (Map.Entry<String, Long> entry : auditor.getViolationCounts().entrySet()) {
+            sender.sendMessage(ChatColor.GRAY + "  " + entry.getKey() + ": " + ChatColor.WHITE + entry.getValue());
+        }
+        sender.sendMessage(ChatColor.GOLD + "================================");
+        return true;
+    }
+
+    /**
+     * 查看或清空游戏调度器统计
+     * 用法: /pbradmin tick [reset]
+     */
+    private boolean handleTick(CommandSender sender, String[] args) {
+        GameTickScheduler scheduler = plugin.getGameTickScheduler();
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            scheduler.resetStats();
+            sender.sendMessage(ChatColor.GREEN + "调度器统计已清空");
+            return true;
+        }
+
+        sender.sendMessage(ChatColor.GOLD + "========== 游戏调度器 ==========");
+        for (String line : scheduler.getStatus()) {
+            sender.sendMessage(ChatColor.GRAY + line);
+        }
+        sender.sendMessage(ChatColor.GOLD + "================================");
+        return true;
+    }
+
+    /**
+     * 查看世界复制统计、世界I/O线程池与世界删除队列状态
+     * 用法: /pbradmin worlds
+     */
+    private boolean handleWorlds(CommandSender sender) {
+        WorldTemplateManager worldTemplateManager = plugin.getWorldTemplateManager();
+        WorldCloner cloner = worldTemplateManager.getWorldCloner();
+
+        sender.sendMessage(ChatColor.GOLD + "========== 世界复制与I/O ==========");
+        sender.sendMessage(ChatColor.YELLOW + "克隆方式: " + ChatColor.WHITE + cloner.getCloneMode());
+        sender.sendMessage(ChatColor.YELLOW + "复制次数: " + ChatColor.WHITE + cloner.getTotalCopies()
+                + ChatColor.GRAY + " (累计 " + WorldCloner.formatBytes(cloner.getTotalCopiedBytes())
+                + ", 平均 " + cloner.getAverageCopyMillis() + "ms/次)");
+        sender.sendMessage(ChatColor.YELLOW + "复制速度: " + ChatColor.WHITE
+                + WorldCloner.formatBytes(cloner.getLastBytesPerSecond()) + "/s" + ChatColor.GRAY + " (最近一次), "
+                + ChatColor.WHITE + WorldCloner.formatBytes(cloner.getAverageBytesPerSecond()) + "/s"
+                + ChatColor.GRAY + " (平均)");
+        sender.sendMessage(ChatColor.YELLOW + "I/O线程池: " + ChatColor.GRAY + worldTemplateManager.getIoExecutorStatus());
+        sender.sendMessage(ChatColor.YELLOW + "世界删除: " + ChatColor.GRAY + worldTemplateManager.getDeletionScheduler().getStatus());
+        sender.sendMessage(ChatColor.GOLD + "================================");
+        return true;
+    }
+
+    /**
+     * 查看对局记录写入状态
+     * 用法: /pbradmin history
+     */
+    private boolean handleHistory(CommandSender sender) {
+        MatchHistoryWriter writer = plugin.getMatchHistoryWriter();
+        if (writer == null) {
+            sender.sendMessage(ChatColor.RED + "对局记录写入未启用（需要 storage.type: MYSQL）");
+            return true;
+        }
+
+        sender.sendMessage(ChatColor.GOLD + "========== 对局记录写入 ==========");
+        sender.sendMessage(ChatColor.GRAY + writer.getStatus());
+        sender.sendMessage(ChatColor.GOLD + "================================");
+        return true;
+    }
+
+    /**
+     * 格式化毫秒（超过1秒时显示为秒）
+     */
+    private String formatMillis(long millis) {
+        return millis < 1000 ? millis + "ms" : String.format("%.1fs", millis / 1000.0);
+    }
+
     /**
      * 获取消息
      */
@@ -80,7 +80,7 @@ public class TabCompleter implements org.bukkit.command.TabCompleter {
         if (args.length == 1) {
             // 第一级子指令
             List<String> subCommands = Arrays.asList(
-                    "start", "stop", "reload", "setlobby", "backup", "restore"
+                    "start", "stop", "reload", "setlobby", "backup", "restore", "latency", "audit", "tick", "history", "worlds"
             );
             return filterStartsWith(subCommands, args[0]);
         } else if (args.length == 2) {
@@ -96,6 +96,10 @@ public class TabCompleter implements org.bukkit.command.TabCompleter {
                         .map(world -> world.getName())
                         .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
                         .collect(Collectors.toList());
+            } else if (subCmd.equals("latency")) {
+                return filterStartsWith(Arrays.asList("reset", "dump"), args[1]);
+            } else if (subCmd.equals("tick")) {
+                return filterStartsWith(Arrays.asList("reset"), args[1]);
             }
         }
 
@@ -0,0 +1,507 @@
+package com.pokemonbr.database;
+
+import com.pokemonbr.Main;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * 跨服队列数据访问对象
+ * 各节点通过共享的 MySQL 表发布排队玩家，主节点（通过行锁选举）决定由哪个节点承办下一场比赛
+ *
+ * 所有方法都会阻塞，只能在异步线程调用
+ * 心跳和转服分配使用节点本地的毫秒时间戳；主节点租约使用数据库时钟（UNIX_TIMESTAMP，与时区无关）
+ * SQL 只使用 H2 的 MySQL 兼容模式也支持的语法，便于本地测试
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class FederationDAO {
+
+    // 主节点锁的名称
+    private static final String LEADER_LOCK = "matchmaker";
+
+    // 数据库当前时间（毫秒），用于主节点租约
+    private static final String DB_NOW_MILLIS = "ROUND(UNIX_TIMESTAMP(NOW(3)) * 1000.0)";
+
+    // 排队表按节点查询的索引
+    private static final String QUEUE_NODE_INDEX = "idx_fed_queue_node";
+
+    private final Main plugin;
+    private final DatabaseManager databaseManager;
+
+    public FederationDAO(Main plugin) {
+        this.plugin = plugin;
+        this.databaseManager = plugin.getDatabaseManager();
+    }
+
+    /**
+     * 排队玩家条目类
+     */
+    public static class QueueEntry {
+        private final UUID playerUuid;
+        private final String playerName;
+        private final String queueType;
+        private final long joinedAt;
+
+        public QueueEntry(UUID playerUuid, String playerName, String queueType, long joinedAt) {
+            this.playerUuid = playerUuid;
+            this.playerName = playerName;
+            this.queueType = queueType;
+            this.joinedAt = joinedAt;
+        }
+
+        public UUID getPlayerUuid() {
+            return playerUuid;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public String getQueueType() {
+            return queueType;
+        }
+
+        public long getJoinedAt() {
+            return joinedAt;
+        }
+    }
+
+    /**
+     * 转服指令类
+     */
+    public static class Transfer {
+        private final UUID playerUuid;
+        private final String targetNode;
+        private final String matchId;
+
+        public Transfer(UUID playerUuid, String targetNode, String matchId) {
+            this.playerUuid = playerUuid;
+            this.targetNode = targetNode;
+            this.matchId = matchId;
+        }
+
+        public UUID getPlayerUuid() {
+            return playerUuid;
+        }
+
+        public String getTargetNode() {
+            return targetNode;
+        }
+
+        public String getMatchId() {
+            return matchId;
+        }
+    }
+
+    /**
+     * 创建跨服队列相关的表
+     */
+    public void createTables() throws SQLException {
+        String nodes = "CREATE TABLE IF NOT EXISTS `pbr_fed_nodes` (" +
+                "`node_id` VARCHAR(64) NOT NULL PRIMARY KEY," +
+                "`queued_players` INT NOT NULL DEFAULT 0," +
+                "`online_players` INT NOT NULL DEFAULT 0," +
+                "`last_heartbeat` BIGINT NOT NULL" +
+                ")";
+
+        String queue = "CREATE TABLE IF NOT EXISTS `pbr_fed_queue` (" +
+                "`player_uuid` VARCHAR(36) NOT NULL PRIMARY KEY," +
+                "`player_name` VARCHAR(16) NOT NULL," +
+                "`node_id` VARCHAR(64) NOT NULL," +
+                "`queue_type` VARCHAR(16) NOT NULL," +
+                "`joined_at` BIGINT NOT NULL," +
+                "`match_id` VARCHAR(36) NULL," +
+                "`target_node` VARCHAR(64) NULL," +
+                "`assigned_at` BIGINT NULL" +
+                ")";
+
+        String lock = "CREATE TABLE IF NOT EXISTS `pbr_fed_lock` (" +
+                "`lock_name` VARCHAR(32) NOT NULL PRIMARY KEY," +
+                "`holder` VARCHAR(64) NULL," +
+                "`expires_at` BIGINT NOT NULL DEFAULT 0" +
+                ")";
+
+        try (Connection conn = databaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(nodes);
+            stmt.executeUpdate(queue);
+            stmt.executeUpdate(lock);
+
+            // MySQL 不支持 CREATE INDEX IF NOT EXISTS，先通过元数据检查索引是否存在
+            if (!hasIndex(conn, "pbr_fed_queue", QUEUE_NODE_INDEX)) {
+                stmt.executeUpdate("CREATE INDEX `" + QUEUE_NODE_INDEX + "` ON `pbr_fed_queue` (`node_id`)");
+            }
+        }
+
+        // 预先插入锁行，之后只需条件 UPDATE
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "INSERT INTO `pbr_fed_lock` (`lock_name`, `holder`, `expires_at`) VALUES (?, NULL, 0)")) {
+            stmt.setString(1, LEADER_LOCK);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            // 锁行已存在
+        }
+    }
+
+    /**
+     * 检查表上是否存在指定索引（MySQL 对应 information_schema.statistics）
+     * @param conn 数据库连接
+     * @param table 表名
+     * @param indexName 索引名
+     * @return 是否存在
+     */
+    private boolean hasIndex(Connection conn, String table, String indexName) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 更新节点心跳
+     * @param nodeId 节点ID
+     * @param queuedPlayers 本节点排队人数
+     * @param onlinePlayers 本节点在线人数
+     */
+    public void heartbeat(String nodeId, int queuedPlayers, int onlinePlayers) throws SQLException {
+        long now = System.currentTimeMillis();
+
+        try (Connection conn = databaseManager.getConnection()) {
+            try (PreparedStatement update = conn.prepareStatement(
+                    "UPDATE `pbr_fed_nodes` SET `queued_players` = ?, `online_players` = ?, `last_heartbeat` = ? WHERE `node_id` = ?")) {
+                update.setInt(1, queuedPlayers);
+                update.setInt(2, onlinePlayers);
+                update.setLong(3, now);
+                update.setString(4, nodeId);
+
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            }
+
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO `pbr_fed_nodes` (`node_id`, `queued_players`, `online_players`, `last_heartbeat`) VALUES (?, ?, ?, ?)")) {
+                insert.setString(1, nodeId);
+                insert.setInt(2, queuedPlayers);
+                insert.setInt(3, onlinePlayers);
+                insert.setLong(4, now);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * 发布本节点的排队玩家（替换本节点所有未分配的条目）
+     * @param nodeId 节点ID
+     * @param entries 排队玩家
+     */
+    public void publishQueue(String nodeId, List<QueueEntry> entries) throws SQLException {
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                try (PreparedStatement delete = conn.prepareStatement(
+                        "DELETE FROM `pbr_fed_queue` WHERE `node_id` = ? AND `match_id` IS NULL")) {
+                    delete.setString(1, nodeId);
+                    delete.executeUpdate();
+                }
+
+                // 已分配比赛的玩家（包括其他节点记录的）保留原条目，等待转服
+                Set<String> assigned = new HashSet<>();
+                try (PreparedStatement select = conn.prepareStatement(
+                        "SELECT `player_uuid` FROM `pbr_fed_queue`")) {
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            assigned.add(rs.getString("player_uuid"));
+                        }
+                    }
+                }
+
+                try (PreparedStatement insert = conn.prepareStatement(
+                        "INSERT INTO `pbr_fed_queue` (`player_uuid`, `player_name`, `node_id`, `queue_type`, `joined_at`) VALUES (?, ?, ?, ?, ?)")) {
+                    for (QueueEntry entry : entries) {
+                        if (assigned.contains(entry.playerUuid.toString())) {
+                            continue;
+                        }
+                        insert.setString(1, entry.playerUuid.toString());
+                        insert.setString(2, entry.playerName);
+                        insert.setString(3, nodeId);
+                        insert.setString(4, entry.queueType);
+                        insert.setLong(5, entry.joinedAt);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * 尝试成为主节点（租约过期或已持有时获得/续约）
+     * 租约的写入和比较都使用数据库时钟，节点之间的时钟偏差不会让两个节点同时认为自己持有租约
+     * 判断与更新在同一条 UPDATE 中完成，由锁行上的行锁保证原子性
+     * @param nodeId 节点ID
+     * @param leaseMillis 租约时长
+     * @return 是否为主节点
+     */
+    public boolean tryAcquireLeadership(String nodeId, long leaseMillis) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement update = conn.prepareStatement(
+                     "UPDATE `pbr_fed_lock` SET `holder` = ?, `expires_at` = " + DB_NOW_MILLIS + " + ? " +
+                             "WHERE `lock_name` = ? AND (`holder` IS NULL OR `holder` = ? OR `expires_at` < " + DB_NOW_MILLIS + ")")) {
+            update.setString(1, nodeId);
+            update.setLong(2, leaseMillis);
+            update.setString(3, LEADER_LOCK);
+            update.setString(4, nodeId);
+            return update.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * 释放主节点身份
+     * @param nodeId 节点ID
+     */
+    public void releaseLeadership(String nodeId) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE `pbr_fed_lock` SET `holder` = NULL, `expires_at` = 0 WHERE `lock_name` = ? AND `holder` = ?")) {
+            stmt.setString(1, LEADER_LOCK);
+            stmt.setString(2, nodeId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 整合各节点的排队玩家（仅主节点调用）
+     * 某个队列类型的玩家分散在多个存活节点、任何一个节点都凑不齐最少人数、但合计足够时，
+     * 由排队人数最多的节点承办，其余节点的玩家被分配转服（承办节点的玩家原地不动）
+     * @param minPlayers 最少开始人数
+     * @param maxPlayersByType 队列类型 -> 最大人数
+     * @param heartbeatTimeout 节点心跳超时（毫秒）
+     * @param transferTimeout 转服超时（毫秒），超时未到达的分配会被清除
+     * @return 新分配的比赛数量
+     */
+    public int consolidate(int minPlayers, Map<String, Integer> maxPlayersByType, long heartbeatTimeout,
+                           long transferTimeout) throws SQLException {
+        long now = System.currentTimeMillis();
+        long aliveSince = now - heartbeatTimeout;
+        int matches = 0;
+
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                // 清理已下线节点的条目
+                try (PreparedStatement delete = conn.prepareStatement(
+                        "DELETE FROM `pbr_fed_queue` WHERE `node_id` IN " +
+                                "(SELECT `node_id` FROM `pbr_fed_nodes` WHERE `last_heartbeat` < ?)")) {
+                    delete.setLong(1, aliveSince);
+                    delete.executeUpdate();
+                }
+
+                // 清理超时未到达的转服分配
+                try (PreparedStatement delete = conn.prepareStatement(
+                        "DELETE FROM `pbr_fed_queue` WHERE `assigned_at` IS NOT NULL AND `assigned_at` < ?")) {
+                    delete.setLong(1, now - transferTimeout);
+                    delete.executeUpdate();
+                }
+
+                // 队列类型 -> 节点 -> 按加入顺序排列的玩家
+                Map<String, Map<String, List<String>>> waiting = new LinkedHashMap<>();
+                try (PreparedStatement select = conn.prepareStatement(
+                        "SELECT `player_uuid`, `node_id`, `queue_type` FROM `pbr_fed_queue` " +
+                                "WHERE `match_id` IS NULL ORDER BY `joined_at` FOR UPDATE")) {
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            waiting.computeIfAbsent(rs.getString("queue_type"), k -> new LinkedHashMap<>())
+                                    .computeIfAbsent(rs.getString("node_id"), k -> new ArrayList<>())
+                                    .add(rs.getString("player_uuid"));
+                        }
+                    }
+                }
+
+                try (PreparedStatement assign = conn.prepareStatement(
+                        "UPDATE `pbr_fed_queue` SET `match_id` = ?, `target_node` = ?, `assigned_at` = ? WHERE `player_uuid` = ?")) {
+
+                    for (Map.Entry<String, Map<String, List<String>>> typeEntry : waiting.entrySet()) {
+                        Map<String, List<String>> byNode = typeEntry.getValue();
+                        if (byNode.size() < 2) {
+                            continue;
+                        }
+
+                        String hostNode = null;
+                        int total = 0;
+                        int largest = 0;
+                        for (Map.Entry<String, List<String>> nodeEntry : byNode.entrySet()) {
+                            int count = nodeEntry.getValue().size();
+                            total += count;
+                            if (count > largest) {
+                                largest = count;
+                                hostNode = nodeEntry.getKey();
+                            }
+                        }
+
+                        if (largest >= minPlayers || total < minPlayers) {
+                            continue;
+                        }
+
+                        int maxPlayers = maxPlayersByType.getOrDefault(typeEntry.getKey(), 20);
+                        String matchId = UUID.randomUUID().toString();
+                        int seats = maxPlayers - largest;
+
+                        for (Map.Entry<String, List<String>> nodeEntry : byNode.entrySet()) {
+                            if (nodeEntry.getKey().equals(hostNode)) {
+                                continue;
+                            }
+                            for (String uuid : nodeEntry.getValue()) {
+                                if (seats-- <= 0) {
+                                    break;
+                                }
+                                assign.setString(1, matchId);
+                                assign.setString(2, hostNode);
+                                assign.setLong(3, now);
+                                assign.setString(4, uuid);
+                                assign.addBatch();
+                            }
+                        }
+
+                        matches++;
+                    }
+
+                    assign.executeBatch();
+                }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * 获取本节点需要转出的玩家
+     * @param nodeId 节点ID
+     * @return 转服指令列表
+     */
+    public List<Transfer> fetchOutgoing(String nodeId) throws SQLException {
+        List<Transfer> transfers = new ArrayList<>();
+
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT `player_uuid`, `target_node`, `match_id` FROM `pbr_fed_queue` " +
+                             "WHERE `node_id` = ? AND `target_node` IS NOT NULL AND `target_node` <> ?")) {
+            stmt.setString(1, nodeId);
+            stmt.setString(2, nodeId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    transfers.add(new Transfer(UUID.fromString(rs.getString("player_uuid")),
+                            rs.getString("target_node"), rs.getString("match_id")));
+                }
+            }
+        }
+
+        return transfers;
+    }
+
+    /**
+     * 转出的玩家已离开本节点，条目改为由目标节点认领
+     * @param uuid 玩家UUID
+     * @param targetNode 目标节点
+     */
+    public void markTransferred(UUID uuid, String targetNode) throws SQLException {
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE `pbr_fed_queue` SET `node_id` = ? WHERE `player_uuid` = ?")) {
+            stmt.setString(1, targetNode);
+            stmt.setString(2, uuid.toString());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 认领转入本节点的玩家（玩家进入服务器时调用）
+     * @param nodeId 节点ID
+     * @param uuid 玩家UUID
+     * @return 队列类型，玩家不是转入的返回null
+     */
+    public String claimIncoming(String nodeId, UUID uuid) throws SQLException {
+        try (Connection conn = databaseManager.getConnection()) {
+            String queueType = null;
+
+            try (PreparedStatement select = conn.prepareStatement(
+                    "SELECT `queue_type` FROM `pbr_fed_queue` WHERE `player_uuid` = ? AND `target_node` = ?")) {
+                select.setString(1, uuid.toString());
+                select.setString(2, nodeId);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        queueType = rs.getString("queue_type");
+                    }
+                }
+            }
+
+            if (queueType != null) {
+                deleteEntry(conn, uuid);
+            }
+            return queueType;
+        }
+    }
+
+    /**
+     * 删除玩家条目
+     * @param uuid 玩家UUID
+     */
+    public void deleteEntry(UUID uuid) throws SQLException {
+        try (Connection conn = databaseManager.getConnection()) {
+            deleteEntry(conn, uuid);
+        }
+    }
+
+    private void deleteEntry(Connection conn, UUID uuid) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM `pbr_fed_queue` WHERE `player_uuid` = ?")) {
+            stmt.setString(1, uuid.toString());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 节点下线，删除心跳和未分配的条目
+     * @param nodeId 节点ID
+     */
+    public void removeNode(String nodeId) throws SQLException {
+        try (Connection conn = databaseManager.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM `pbr_fed_queue` WHERE `node_id` = ? AND `match_id` IS NULL")) {
+                stmt.setString(1, nodeId);
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM `pbr_fed_nodes` WHERE `node_id` = ?")) {
+                stmt.setString(1, nodeId);
+                stmt.executeUpdate();
+            }
+        }
+
+        plugin.getLogger().info("§7跨服节点已下线: " + nodeId);
+    }
+}
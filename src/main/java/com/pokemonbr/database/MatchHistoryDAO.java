@@ -0,0 +1,231 @@
+package com.pokemonbr.database;
+
+import com.pokemonbr.Main;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * 对局记录数据访问对象
+ * 写入 pbr_game_records 和 pbr_player_game_details，多场对局在同一个事务内批量写入
+ *
+ * 所有方法都会阻塞，只能在异步线程调用
+ * 批量插入依赖连接池的 rewriteBatchedStatements，驱动会把同一批次合并为多行 INSERT
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class MatchHistoryDAO {
+
+    private final Main plugin;
+    private final DatabaseManager databaseManager;
+
+    public MatchHistoryDAO(Main plugin) {
+        this.plugin = plugin;
+        this.databaseManager = plugin.getDatabaseManager();
+    }
+
+    /**
+     * 对局记录类（游戏结束时在主线程生成的快照）
+     */
+    public static class MatchRecord {
+        private final String gameUuid;
+        private final int queueId;
+        private final long startTime;
+        private final long endTime;
+        private final UUID winnerUuid;
+        private final List<PlayerRecord> players;
+
+        public MatchRecord(String gameUuid, int queueId, long startTime, long endTime,
+                           UUID winnerUuid, List<PlayerRecord> players) {
+            this.gameUuid = gameUuid;
+            this.queueId = queueId;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.winnerUuid = winnerUuid;
+            this.players = players;
+        }
+
+        public String getGameUuid() {
+            return gameUuid;
+        }
+
+        public int getQueueId() {
+            return queueId;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public UUID getWinnerUuid() {
+            return winnerUuid;
+        }
+
+        public List<PlayerRecord> getPlayers() {
+            return players;
+        }
+    }
+
+    /**
+     * 玩家对局详情类
+     */
+    public static class PlayerRecord {
+        private final UUID playerUuid;
+        private final int rank;
+        private final int kills;
+        private final int pointsEarned;
+        private final UUID eliminatedBy;
+
+        public PlayerRecord(UUID playerUuid, int rank, int kills, int pointsEarned, UUID eliminatedBy) {
+            this.playerUuid = playerUuid;
+            this.rank = rank;
+            this.kills = kills;
+            this.pointsEarned = pointsEarned;
+            this.eliminatedBy = eliminatedBy;
+        }
+
+        public UUID getPlayerUuid() {
+            return playerUuid;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public int getKills() {
+            return kills;
+        }
+
+        public int getPointsEarned() {
+            return pointsEarned;
+        }
+
+        public UUID getEliminatedBy() {
+            return eliminatedBy;
+        }
+    }
+
+    /**
+     * 在同一个事务内写入一批对局记录
+     * 已存在的对局（上次提交成功但未收到确认）会被跳过，因此失败后整批重试是安全的
+     * @param records 对局记录
+     * @return 实际写入的对局数量
+     * @throws SQLException 写入失败（事务已回滚）
+     */
+    public int insertBatch(List<MatchRecord> records) throws SQLException {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Set<String> existing = findGameIds(conn, records).keySet();
+
+                List<MatchRecord> pending = new ArrayList<>(records.size());
+                for (MatchRecord record : records) {
+                    if (!existing.contains(record.getGameUuid())) {
+                        pending.add(record);
+                    }
+                }
+
+                if (!pending.isEmpty()) {
+                    insertGameRecords(conn, pending);
+                    insertPlayerDetails(conn, pending, findGameIds(conn, pending));
+                }
+
+                conn.commit();
+                return pending.size();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * 批量写入对局
+     */
+    private void insertGameRecords(Connection conn, List<MatchRecord> records) throws SQLException {
+        String sql = "INSERT INTO `pbr_game_records` " +
+                "(`game_uuid`, `queue_id`, `start_time`, `end_time`, `winner_uuid`, `total_players`) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (MatchRecord record : records) {
+                stmt.setString(1, record.getGameUuid());
+                stmt.setInt(2, record.getQueueId());
+                stmt.setTimestamp(3, new Timestamp(record.getStartTime()));
+                stmt.setTimestamp(4, new Timestamp(record.getEndTime()));
+                stmt.setString(5, record.getWinnerUuid() != null ? record.getWinnerUuid().toString() : null);
+                stmt.setInt(6, record.getPlayers().size());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * 批量写入玩家详情
+     */
+    private void insertPlayerDetails(Connection conn, List<MatchRecord> records, Map<String, Integer> gameIds)
+            throws SQLException {
+        String sql = "INSERT INTO `pbr_player_game_details` " +
+                "(`game_id`, `player_uuid`, `rank`, `kills`, `points_earned`, `eliminated_by`) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (MatchRecord record : records) {
+                Integer gameId = gameIds.get(record.getGameUuid());
+                if (gameId == null) {
+                    throw new SQLException("对局记录写入后未找到: " + record.getGameUuid());
+                }
+
+                for (PlayerRecord player : record.getPlayers()) {
+                    stmt.setInt(1, gameId);
+                    stmt.setString(2, player.getPlayerUuid().toString());
+                    stmt.setInt(3, player.getRank());
+                    stmt.setInt(4, player.getKills());
+                    stmt.setInt(5, player.getPointsEarned());
+                    stmt.setString(6, player.getEliminatedBy() != null ? player.getEliminatedBy().toString() : null);
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * 查询对局的自增ID
+     * @return Map<游戏UUID, 游戏ID>
+     */
+    private Map<String, Integer> findGameIds(Connection conn, List<MatchRecord> records) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT `id`, `game_uuid` FROM `pbr_game_records` WHERE `game_uuid` IN (");
+        for (int i = 0; i < records.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        Map<String, Integer> result = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < records.size(); i++) {
+                stmt.setString(i + 1, records.get(i).getGameUuid());
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getString("game_uuid"), rs.getInt("id"));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -141,6 +141,11 @@ public class PlayerDAO {
      * @param data 玩家数据
      */
     public void savePlayerDataAsync(PlayerData data) {
+        // 插件关闭过程中不能再调度任务，直接同步保存
+        if (!plugin.isEnabled()) {
+            savePlayerData(data);
+            return;
+        }
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> savePlayerData(data));
     }
 
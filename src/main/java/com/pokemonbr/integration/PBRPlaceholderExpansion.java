@@ -115,6 +115,8 @@ public class PBRPlaceholderExpansion extends PlaceholderExpansion {
             if (identifier.equals("game_state")) return "无";
             if (identifier.equals("game_shrink_time")) return "0";
             if (identifier.equals("game_border_size")) return "0";
+            if (identifier.equals("game_kill_rank")) return "0";
+            if (identifier.startsWith("game_top_")) return "";
             return null;
         }
 
@@ -166,9 +168,55 @@ public class PBRPlaceholderExpansion extends PlaceholderExpansion {
             return gamePlayer != null ? String.valueOf(gamePlayer.isAlive()) : "false";
         }
 
+        // %pbr_game_kill_rank% - 游戏中击败排名
+        if (identifier.equals("game_kill_rank")) {
+            int slot = game.getSlot(player.getUniqueId());
+            return slot >= 0 ? String.valueOf(game.getLeaderboard().getKillRank(slot)) : "0";
+        }
+
+        // %pbr_game_top_kills_<N>_name% / %pbr_game_top_kills_<N>_kills% - 击败榜第N名
+        // %pbr_game_top_placement_<N>_name% - 名次榜第N名（存活玩家在前，之后按最后淘汰的在前）
+        if (identifier.startsWith("game_top_")) {
+            return getLeaderboardValue(game, identifier.substring("game_top_".length()));
+        }
+
         return null; // 未知变量返回null
     }
 
+    /**
+     * 解析排行榜变量（kills_<N>_name / kills_<N>_kills / placement_<N>_name）
+     */
+    private String getLeaderboardValue(Game game, String key) {
+        String[] parts = key.split("_");
+        if (parts.length != 3) {
+            return null;
+        }
+
+        int position;
+        try {
+            position = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        GamePlayer entry;
+        if (parts[0].equals("kills")) {
+            entry = game.getLeaderboard().getKillLeader(position);
+        } else if (parts[0].equals("placement")) {
+            entry = game.getLeaderboard().getPlacementLeader(position);
+        } else {
+            return null;
+        }
+
+        if (parts[2].equals("name")) {
+            return entry != null ? entry.getName() : "";
+        }
+        if (parts[2].equals("kills")) {
+            return entry != null ? String.valueOf(entry.getKills()) : "0";
+        }
+        return null;
+    }
+
     /**
      * 获取游戏状态显示名称
      */
@@ -176,10 +176,10 @@ public class PixelmonBattleListener implements Listener {
                     loserPlayer.sendMessage(getMessage("battle.defeat-pokemon-removed"));
                     plugin.getLogger().info("玩家 " + loserPlayer.getName() + " 战败，已删除一只宝可梦");
 
-                    // 立即检查宝可梦数量，可能需要淘汰
-                    Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                        checkPlayerPokemonCount(loserPlayer);
-                    }, 10L); // 延迟半秒执行，确保删除完成
+                    // 队伍已变化，下一个 tick 重新统计，队伍变空时淘汰
+                    if (plugin.getPartyStateTracker() != null) {
+                        plugin.getPartyStateTracker().markDirty(loserUUID);
+                    }
                 } else {
                     loserPlayer.sendMessage(getMessage("battle.defeat"));
                 }
@@ -327,34 +327,21 @@ public class PixelmonBattleListener implements Listener {
     }
 
     /**
-     * 检查玩家是否还有宝可梦
-     * 这个方法需要定时执行或在特定事件触发
+     * 玩家队伍变空时处理淘汰（由 PartyStateTracker 在队伍变化事件后调用）
+     * @param player 玩家
      */
-    public void checkPlayerPokemonCount(Player player) {
-        if (!pixelmonAvailable) {
+    public void handleEmptyParty(Player player) {
+        Game game = plugin.getGameManager().getPlayerGame(player);
+        if (game == null || !game.isPlayerAlive(player.getUniqueId())) {
             return;
         }
 
-        try {
-            Game game = plugin.getGameManager().getPlayerGame(player);
-            if (game == null) {
-                return;
-            }
-
-            // 使用反射检查玩家的宝可梦数量
-            // 具体实现需要根据Pixelmon API调整
-            int pokemonCount = getPokemonCount(player);
-
-            if (pokemonCount == 0) {
-                boolean shouldEliminate = shouldEliminateOnNoPokemon(game);
-
-                if (shouldEliminate) {
-                    handlePlayerElimination(game, player.getUniqueId(), null, "背包无宝可梦");
-                }
-            }
+        if (game.getState() != GameState.PLAYING && game.getState() != GameState.FINAL_STAGE) {
+            return;
+        }
 
-        } catch (Exception e) {
-            plugin.getLogger().warning("§c检查宝可梦数量时出错: " + e.getMessage());
+        if (shouldEliminateOnNoPokemon(game)) {
+            handlePlayerElimination(game, player.getUniqueId(), null, "背包无宝可梦");
         }
     }
 
@@ -456,38 +443,6 @@ public class PixelmonBattleListener implements Listener {
         return false;
     }
 
-    /**
-     * 获取玩家的宝可梦数量（使用反射）
-     */
-    private int getPokemonCount(Player player) {
-        try {
-            // 使用Pixelmon API获取玩家的宝可梦存储
-            // 示例代码（需要根据实际API调整）:
-            // PlayerPartyStorage storage = Pixelmon.storageManager.getParty(player.getUniqueId());
-            // return storage.countPokemon();
-
-            // 使用反射实现
-            Class<?> pixelmonClass = Class.forName("com.pixelmonmod.pixelmon.Pixelmon");
-            Object storageManager = pixelmonClass.getField("storageManager").get(null);
-
-            Object partyStorage = storageManager.getClass()
-                    .getMethod("getParty", java.util.UUID.class)
-                    .invoke(storageManager, player.getUniqueId());
-
-            if (partyStorage != null) {
-                Integer count = (Integer) partyStorage.getClass()
-                        .getMethod("countPokemon")
-                        .invoke(partyStorage);
-                return count != null ? count : 0;
-            }
-
-        } catch (Exception e) {
-            plugin.getLogger().warning("§c无法获取玩家宝可梦数量: " + e.getMessage());
-        }
-
-        return 1; // 默认返回1，避免误判
-    }
-
     /**
      * 从战斗参与者对象中获取玩家UUID
      */
@@ -521,6 +476,9 @@ public class PixelmonBattleListener implements Listener {
 
         // 淘汰玩家
         game.eliminatePlayer(victim, killer);
+        if (plugin.getPartyStateTracker() != null) {
+            plugin.getPartyStateTracker().untrack(victim);
+        }
 
         // 广播淘汰消息
         String victimName = victimPlayer != null ? victimPlayer.getName() : "未知玩家";
@@ -6,6 +6,7 @@ import com.pokemonbr.models.GameState;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 /**
@@ -22,6 +23,15 @@ public class PlayerListener implements Listener {
         this.plugin = plugin;
     }
 
+    /**
+     * 监听玩家进入服务器
+     */
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // 跨服转入的玩家自动加入队列
+        plugin.getFederationManager().onPlayerJoin(event.getPlayer());
+    }
+
     /**
      * 监听玩家退出服务器
      */
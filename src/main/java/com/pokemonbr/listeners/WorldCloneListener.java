@@ -0,0 +1,130 @@
+package com.pokemonbr.listeners;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.managers.WorldCloner;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldInitEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+
+/**
+ * 世界克隆监听器
+ * 保护与模板硬链接的游戏世界，阻止任何写回共享区域文件的保存:
+ * 自动保存在世界初始化时关闭，区块卸载时不保存，/save-all 改为只保存其他世界，
+ * 插件关闭时由 WorldTemplateManager 在服务器最终保存前不保存地卸载这些世界
+ *
+ * 服务器打开区域文件后会一直持有文件句柄，此时再替换硬链接也无法让写入落到新文件，
+ * 因此只能阻止保存，而不是在首次写入时断开链接
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldCloneListener implements Listener {
+
+    private final Main plugin;
+
+    public WorldCloneListener(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 世界初始化（加载区块之前）时关闭硬链接世界的自动保存
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onWorldInit(WorldInitEvent event) {
+        if (isLinked(event.getWorld())) {
+            event.getWorld().setAutoSave(false);
+        }
+    }
+
+    /**
+     * 区块卸载时禁止保存硬链接世界的区块
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (event.isSaveChunk() && isLinked(event.getWorld())) {
+            event.setSaveChunk(false);
+        }
+    }
+
+    /**
+     * 拦截控制台（含 RCON 和命令方块）的 /save-all
+     */
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        if (interceptSaveAll(event.getSender(), event.getCommand())) {
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * 拦截玩家执行的 /save-all
+     */
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        String command = event.getMessage().startsWith("/") ? event.getMessage().substring(1) : event.getMessage();
+        if (event.getPlayer().hasPermission("minecraft.command.save-all")
+                && interceptSaveAll(event.getPlayer(), command)) {
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * 存在硬链接世界时，用只保存其他世界的方式代替原版 /save-all（原版会强制保存所有世界）
+     * @param sender 执行者
+     * @param commandLine 指令（不含斜杠）
+     * @return 是否已拦截
+     */
+    private boolean interceptSaveAll(CommandSender sender, String commandLine) {
+        String label = commandLine.trim().split(" ", 2)[0].toLowerCase();
+        if (!label.equals("save-all") && !label.equals("minecraft:save-all")) {
+            return false;
+        }
+
+        int skipped = 0;
+        for (World world : Bukkit.getWorlds()) {
+            if (isLinked(world)) {
+                skipped++;
+            }
+        }
+        if (skipped == 0) {
+            return false;
+        }
+
+        Bukkit.savePlayers();
+        for (World world : Bukkit.getWorlds()) {
+            if (!isLinked(world)) {
+                world.save();
+            }
+        }
+
+        sender.sendMessage(ChatColor.GREEN + "已保存所有世界（跳过 " + skipped + " 个与模板共享区域文件的游戏世界）");
+        plugin.getLogger().info("§e/save-all 已跳过 " + skipped + " 个硬链接游戏世界，避免写入模板区域文件");
+        return true;
+    }
+
+    /**
+     * 硬链接世界仍被保存（如其他插件直接调用 World.save()），模板可能已被修改
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldSave(WorldSaveEvent event) {
+        World world = event.getWorld();
+        if (isLinked(world)) {
+            plugin.getLogger().severe("§c世界 " + world.getName() + " 与模板共享区域文件，但仍被保存（可能由其他插件触发）！"
+                    + "模板区域文件可能已被修改，请检查模板世界，或将 world-copy.clone-mode 改为 reflink/copy");
+        }
+    }
+
+    private boolean isLinked(World world) {
+        WorldCloner cloner = plugin.getWorldTemplateManager().getWorldCloner();
+        return cloner.isLinkedWorld(world.getName());
+    }
+}
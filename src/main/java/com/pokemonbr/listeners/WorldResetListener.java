@@ -0,0 +1,125 @@
+package com.pokemonbr.listeners;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.managers.WorldResetManager;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+
+import java.util.List;
+
+/**
+ * 世界重置监听器
+ * 记录游戏世界中被修改的区块，供对局结束后按区块从模板恢复
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldResetListener implements Listener {
+
+    private final Main plugin;
+
+    public WorldResetListener(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 方块被破坏
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        markBlock(event.getBlock());
+    }
+
+    /**
+     * 方块被放置
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        markBlock(event.getBlock());
+    }
+
+    /**
+     * 实体爆炸（苦力怕、TNT等）
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        markLocation(event.getLocation());
+        markBlocks(event.blockList());
+    }
+
+    /**
+     * 方块爆炸（床、重生锚等）
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        markBlock(event.getBlock());
+        markBlocks(event.blockList());
+    }
+
+    /**
+     * 实体生成（实体随区块一起保存）
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntitySpawn(EntitySpawnEvent event) {
+        markLocation(event.getLocation());
+    }
+
+    /**
+     * 实体死亡（模板中的实体被移除）
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityDeath(EntityDeathEvent event) {
+        markLocation(event.getEntity().getLocation());
+    }
+
+    /**
+     * 区块卸载时写回磁盘，视为已修改
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (event.isSaveChunk()) {
+            getResetManager().markDirty(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+        }
+    }
+
+    /**
+     * 世界被强制保存时所有已加载区块都可能被写回
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldSave(WorldSaveEvent event) {
+        getResetManager().markAllLoaded(event.getWorld());
+    }
+
+    private void markBlocks(List<Block> blocks) {
+        for (Block block : blocks) {
+            markBlock(block);
+        }
+    }
+
+    private void markBlock(Block block) {
+        getResetManager().markDirty(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+    }
+
+    private void markLocation(Location location) {
+        World world = location.getWorld();
+        if (world != null) {
+            getResetManager().markDirty(world, location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        }
+    }
+
+    private WorldResetManager getResetManager() {
+        return plugin.getWorldTemplateManager().getWorldResetManager();
+    }
+}
@@ -7,7 +7,6 @@ import com.pokemonbr.models.ShrinkStage;
 import org.bukkit.*;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 
@@ -25,15 +24,9 @@ public class BorderShrinkManager {
     // 游戏UUID -> 缩圈数据
     private final Map<String, ShrinkData> activeShrinks;
 
-    // 缩圈任务
-    private BukkitTask shrinkTask;
-
     public BorderShrinkManager(Main plugin) {
         this.plugin = plugin;
         this.activeShrinks = new HashMap<>();
-
-        // 启动缩圈任务
-        startShrinkTask();
     }
 
     /**
@@ -56,14 +49,14 @@ public class BorderShrinkManager {
     }
 
     /**
-     * 启动缩圈任务
+     * 更新游戏的缩圈倒计时（由 GameTickScheduler 每秒调用一次）
+     * @param game 游戏实例
      */
-    private void startShrinkTask() {
-        shrinkTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            for (ShrinkData data : new ArrayList<>(activeShrinks.values())) {
-                updateShrink(data);
-            }
-        }, 20L, 20L); // 每秒执行一次
+    public void tickShrink(Game game) {
+        ShrinkData data = activeShrinks.get(game.getGameUuid());
+        if (data != null) {
+            updateShrink(data);
+        }
     }
 
     /**
@@ -128,8 +121,11 @@ public class BorderShrinkManager {
             initialSize = plugin.getConfig().getInt("shrink.initial-size", 500);
         }
 
-        // 读取缩圈中心点（从世界配置）
-        if (worldConfig != null) {
+        // 读取缩圈中心点（优先使用倒计时期间预加载时规划的中心点）
+        if (game.getPlannedBorderCenter() != null) {
+            centerX = game.getPlannedBorderCenter()[0];
+            centerZ = game.getPlannedBorderCenter()[1];
+        } else if (worldConfig != null) {
             String mode = worldConfig.getString("shrink-center.mode", "random");
             if ("random".equals(mode)) {
                 // 随机中心点
@@ -395,9 +391,6 @@ public class BorderShrinkManager {
      * 关闭缩圈管理器
      */
     public void shutdown() {
-        if (shrinkTask != null) {
-            shrinkTask.cancel();
-        }
         activeShrinks.clear();
     }
 }
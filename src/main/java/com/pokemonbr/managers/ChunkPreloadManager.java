@@ -0,0 +1,331 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.MatchQueue;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.*;
+
+/**
+ * 区块预加载管理器
+ * 在队列倒计时期间预先规划出生点和初始边界中心，并分多个tick加载这些位置周围的区块
+ * 加载后的区块持有插件票据，保证开始游戏传送玩家时不会在同一tick同步加载大量区块
+ * 区块加载由 GameTickScheduler 每 tick 驱动，与计分板更新共用同一个时间预算
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class ChunkPreloadManager {
+
+    private final Main plugin;
+
+    // 队列ID -> 预加载计划
+    private final Map<Integer, PreloadPlan> plans;
+
+    public ChunkPreloadManager(Main plugin) {
+        this.plugin = plugin;
+        this.plans = new LinkedHashMap<>();
+    }
+
+    /**
+     * 预加载计划类
+     */
+    private static class PreloadPlan {
+        final int queueId;
+        final World world;
+        final List<Location> spawnPoints;
+        final double[] borderCenter;
+        final Deque<Long> pendingChunks;
+        final Set<Long> ticketedChunks;
+        final long startTime;
+        long loadNanos;
+
+        PreloadPlan(int queueId, World world, List<Location> spawnPoints, double[] borderCenter) {
+            this.queueId = queueId;
+            this.world = world;
+            this.spawnPoints = spawnPoints;
+            this.borderCenter = borderCenter;
+            this.pendingChunks = new ArrayDeque<>();
+            this.ticketedChunks = new HashSet<>();
+            this.startTime = System.currentTimeMillis();
+            this.loadNanos = 0;
+        }
+    }
+
+    /**
+     * 检查预加载是否启用
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return plugin.getConfig().getBoolean("performance.chunk-preload.enabled", true);
+    }
+
+    /**
+     * 开始为队列预加载区块（倒计时开始时调用）
+     * @param queue 匹配队列
+     */
+    public void startPreload(MatchQueue queue) {
+        if (!isEnabled() || !queue.hasWorld() || plans.containsKey(queue.getQueueId())) {
+            return;
+        }
+
+        World world = queue.getWorld();
+        String worldConfigName = queue.getWorldConfigName();
+
+        List<Location> spawnPoints = planSpawnPoints(world, worldConfigName, queue.getMaxPlayers());
+        double[] borderCenter = planBorderCenter(worldConfigName);
+
+        PreloadPlan plan = new PreloadPlan(queue.getQueueId(), world, spawnPoints, borderCenter);
+
+        int spawnRadius = Math.max(0, plugin.getConfig().getInt("performance.chunk-preload.spawn-radius", 2));
+        int borderRadius = Math.max(0, plugin.getConfig().getInt("performance.chunk-preload.border-radius", 3));
+
+        Set<Long> chunks = new LinkedHashSet<>();
+        for (Location spawn : spawnPoints) {
+            addChunksAround(chunks, spawn.getBlockX() >> 4, spawn.getBlockZ() >> 4, spawnRadius);
+        }
+        if (borderCenter != null) {
+            addChunksAround(chunks, (int) Math.floor(borderCenter[0]) >> 4, (int) Math.floor(borderCenter[1]) >> 4, borderRadius);
+        }
+        plan.pendingChunks.addAll(chunks);
+
+        plans.put(queue.getQueueId(), plan);
+
+        plugin.getLogger().info("§7队列 #" + queue.getQueueId() + " 开始预加载区块: " + chunks.size()
+                + " 个 (出生点: " + spawnPoints.size() + ", 世界: " + world.getName() + ")");
+    }
+
+    /**
+     * 在截止时间前加载区块（由 GameTickScheduler 每 tick 调用）
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     * @return 本次加载的区块数量
+     */
+    public int loadChunks(long deadlineNanos) {
+        int loaded = 0;
+
+        for (PreloadPlan plan : plans.values()) {
+            while (!plan.pendingChunks.isEmpty()) {
+                if (System.nanoTime() >= deadlineNanos) {
+                    return loaded;
+                }
+
+                long key = plan.pendingChunks.pollFirst();
+                long start = System.nanoTime();
+
+                // 添加插件票据会同步加载区块，并在票据移除前保持加载
+                if (plan.world.addPluginChunkTicket(chunkX(key), chunkZ(key), plugin)) {
+                    plan.ticketedChunks.add(key);
+                }
+
+                plan.loadNanos += System.nanoTime() - start;
+                loaded++;
+
+                if (plan.pendingChunks.isEmpty()) {
+                    plugin.getLogger().info("§a队列 #" + plan.queueId + " 区块预加载完成: " + plan.ticketedChunks.size()
+                            + " 个 (加载用时 " + plan.loadNanos / 1_000_000 + "ms, 总耗时 "
+                            + (System.currentTimeMillis() - plan.startTime) + "ms)");
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 检查是否还有等待加载的区块
+     * @return 是否有
+     */
+    public boolean hasPendingChunks() {
+        for (PreloadPlan plan : plans.values()) {
+            if (!plan.pendingChunks.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取出队列预先规划的出生点（开始游戏时调用）
+     * @param queueId 队列ID
+     * @return 出生点列表，没有预加载计划时返回null
+     */
+    public List<Location> takeSpawnPoints(int queueId) {
+        PreloadPlan plan = plans.get(queueId);
+        if (plan == null || plan.spawnPoints.isEmpty()) {
+            return null;
+        }
+
+        if (!plan.pendingChunks.isEmpty()) {
+            plugin.getLogger().warning("§e队列 #" + queueId + " 区块未完全预加载 (剩余 " + plan.pendingChunks.size()
+                    + " 个)，剩余区块将在传送时加载");
+        }
+
+        return new ArrayList<>(plan.spawnPoints);
+    }
+
+    /**
+     * 获取队列预先规划的边界中心
+     * @param queueId 队列ID
+     * @return [x, z] 或 null
+     */
+    public double[] getBorderCenter(int queueId) {
+        PreloadPlan plan = plans.get(queueId);
+        return plan != null ? plan.borderCenter : null;
+    }
+
+    /**
+     * 游戏开始后延迟释放区块票据（玩家到达后由玩家自身保持区块加载）
+     * @param queueId 队列ID
+     */
+    public void scheduleRelease(int queueId) {
+        PreloadPlan plan = plans.remove(queueId);
+        if (plan == null) {
+            return;
+        }
+
+        plan.pendingChunks.clear();
+        int releaseDelay = Math.max(0, plugin.getConfig().getInt("performance.chunk-preload.release-delay", 15));
+        Bukkit.getScheduler().runTaskLater(plugin, () -> releaseTickets(plan), releaseDelay * 20L + 1L);
+    }
+
+    /**
+     * 取消队列的预加载并立即释放票据（倒计时取消或队列重置时调用）
+     * @param queueId 队列ID
+     */
+    public void cancel(int queueId) {
+        PreloadPlan plan = plans.remove(queueId);
+        if (plan != null) {
+            plan.pendingChunks.clear();
+            releaseTickets(plan);
+        }
+    }
+
+    /**
+     * 移除计划持有的所有区块票据
+     * @param plan 预加载计划
+     */
+    private void releaseTickets(PreloadPlan plan) {
+        if (Bukkit.getWorld(plan.world.getName()) != null) {
+            for (long key : plan.ticketedChunks) {
+                plan.world.removePluginChunkTicket(chunkX(key), chunkZ(key), plugin);
+            }
+        }
+        plan.ticketedChunks.clear();
+    }
+
+    /**
+     * 规划出生点（与 GameManager 的出生点模式一致）
+     * @param world 游戏世界
+     * @param worldConfigName 世界配置名称
+     * @param count 随机模式下规划的出生点数量
+     * @return 出生点列表
+     */
+    public List<Location> planSpawnPoints(World world, String worldConfigName, int count) {
+        List<Location> spawnPoints = new ArrayList<>();
+        FileConfiguration worldConfig = worldConfigName != null
+                ? plugin.getWorldConfigManager().getWorldConfig(worldConfigName) : null;
+
+        String mode = worldConfig != null ? worldConfig.getString("spawn.mode", "random") : "";
+
+        if ("random".equals(mode)) {
+            int minX = worldConfig.getInt("spawn.random-range.min-x", -200);
+            int maxX = worldConfig.getInt("spawn.random-range.max-x", 200);
+            int minZ = worldConfig.getInt("spawn.random-range.min-z", -200);
+            int maxZ = worldConfig.getInt("spawn.random-range.max-z", 200);
+            int y = worldConfig.getInt("spawn.random-range.y", 100);
+
+            Random random = new Random();
+            for (int i = 0; i < Math.max(1, count); i++) {
+                int x = minX + random.nextInt(maxX - minX + 1);
+                int z = minZ + random.nextInt(maxZ - minZ + 1);
+                spawnPoints.add(new Location(world, x + 0.5, y, z + 0.5));
+            }
+        } else if (("fixed-diagonal".equals(mode) || "fixed".equals(mode)) && worldConfig.contains("spawn.location")) {
+            double x = worldConfig.getDouble("spawn.location.x", 0.0);
+            double y = worldConfig.getDouble("spawn.location.y", 100.0);
+            double z = worldConfig.getDouble("spawn.location.z", 0.0);
+            float yaw = (float) worldConfig.getDouble("spawn.location.yaw", 0.0);
+            float pitch = (float) worldConfig.getDouble("spawn.location.pitch", 0.0);
+            spawnPoints.add(new Location(world, x, y, z, yaw, pitch));
+        } else {
+            spawnPoints.add(world.getSpawnLocation());
+        }
+
+        return spawnPoints;
+    }
+
+    /**
+     * 规划初始边界中心（与 BorderShrinkManager 的中心点模式一致）
+     * @param worldConfigName 世界配置名称
+     * @return [x, z]
+     */
+    private double[] planBorderCenter(String worldConfigName) {
+        FileConfiguration worldConfig = worldConfigName != null
+                ? plugin.getWorldConfigManager().getWorldConfig(worldConfigName) : null;
+
+        if (worldConfig == null) {
+            return new double[]{
+                    plugin.getConfig().getDouble("shrink.center.x", 0.0),
+                    plugin.getConfig().getDouble("shrink.center.z", 0.0)
+            };
+        }
+
+        if ("random".equals(worldConfig.getString("shrink-center.mode", "random"))) {
+            int minX = worldConfig.getInt("shrink-center.min-x", -150);
+            int maxX = worldConfig.getInt("shrink-center.max-x", 150);
+            int minZ = worldConfig.getInt("shrink-center.min-z", -150);
+            int maxZ = worldConfig.getInt("shrink-center.max-z", 150);
+
+            Random random = new Random();
+            return new double[]{
+                    minX + random.nextInt(maxX - minX + 1),
+                    minZ + random.nextInt(maxZ - minZ + 1)
+            };
+        }
+
+        return new double[]{
+                worldConfig.getDouble("shrink-center.fixed.x", 0.0),
+                worldConfig.getDouble("shrink-center.fixed.z", 0.0)
+        };
+    }
+
+    /**
+     * 获取正在预加载的队列数量
+     * @return 队列数量
+     */
+    public int getActivePlanCount() {
+        return plans.size();
+    }
+
+    /**
+     * 停止预加载并释放所有票据
+     */
+    public void shutdown() {
+        for (PreloadPlan plan : plans.values()) {
+            releaseTickets(plan);
+        }
+        plans.clear();
+    }
+
+    private static void addChunksAround(Set<Long> chunks, int centerX, int centerZ, int radius) {
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                chunks.add(chunkKey(x, z));
+            }
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int chunkX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int chunkZ(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,350 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.database.FederationDAO;
+import com.pokemonbr.models.MatchQueue;
+import com.pokemonbr.models.QueueState;
+import com.pokemonbr.models.QueueType;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 跨服队列管理器
+ * 多个服务器挂在同一个代理后面时，各节点把排队玩家发布到共享的 MySQL 表
+ * 通过锁行选出的主节点把分散在各节点、单独凑不齐人数的玩家集中到一个节点开局，
+ * 其他节点收到转服指令后通过代理把玩家传送过去，玩家到达后自动加入队列
+ *
+ * 需要 MySQL 存储模式，节点ID必须与代理中的服务器名称一致
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class FederationManager {
+
+    // 代理插件消息通道
+    private static final String PROXY_CHANNEL = "BungeeCord";
+
+    private final Main plugin;
+    private FederationDAO federationDAO;
+
+    private String nodeId;
+    private boolean enabled;
+    private volatile boolean leader;
+
+    // 同步任务
+    private BukkitTask syncTask;
+
+    // 防止上一轮同步未完成时重复执行
+    private final AtomicBoolean syncing = new AtomicBoolean(false);
+
+    // 正在转出的玩家（等待转服确认和数据库更新完成）
+    private final Set<UUID> transferring = ConcurrentHashMap.newKeySet();
+
+    public FederationManager(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 启动跨服队列（未启用或未使用 MySQL 时不做任何事）
+     */
+    public void start() {
+        if (!plugin.getConfig().getBoolean("federation.enabled", false)) {
+            return;
+        }
+
+        if (!plugin.getDatabaseManager().isMySQLStorage()) {
+            plugin.getLogger().warning("§c跨服队列需要 MySQL 存储模式，已禁用");
+            return;
+        }
+
+        nodeId = plugin.getConfig().getString("federation.node-id", "");
+        if (nodeId == null || nodeId.isEmpty()) {
+            plugin.getLogger().warning("§c未配置 federation.node-id，跨服队列已禁用");
+            return;
+        }
+
+        federationDAO = new FederationDAO(plugin);
+        try {
+            federationDAO.createTables();
+        } catch (SQLException e) {
+            plugin.getLogger().severe("§c跨服队列表创建失败，已禁用: " + e.getMessage());
+            return;
+        }
+
+        plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, PROXY_CHANNEL);
+
+        int interval = Math.max(1, plugin.getConfig().getInt("federation.sync-interval", 5));
+        syncTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sync, 20L * interval, 20L * interval);
+        enabled = true;
+
+        plugin.getLogger().info("§a跨服队列已启用 (节点: " + nodeId + ", 同步间隔: " + interval + " 秒)");
+    }
+
+    /**
+     * 检查跨服队列是否启用
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 本节点当前是否为主节点
+     * @return 是否为主节点
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 同步一轮（主线程收集快照，异步读写数据库，转服指令回到主线程执行）
+     */
+    private void sync() {
+        if (!syncing.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<FederationDAO.QueueEntry> snapshot = collectQueuedPlayers();
+        int onlinePlayers = Bukkit.getOnlinePlayers().size();
+        int minPlayers = plugin.getConfig().getInt("queue.min-players", 2);
+        long leaseMillis = Math.max(1, plugin.getConfig().getLong("federation.leader-lease", 15)) * 1000L;
+        long heartbeatTimeout = Math.max(1, plugin.getConfig().getLong("federation.heartbeat-timeout", 20)) * 1000L;
+        long transferTimeout = Math.max(1, plugin.getConfig().getLong("federation.transfer-timeout", 60)) * 1000L;
+
+        Map<String, Integer> maxPlayersByType = new HashMap<>();
+        for (QueueType type : QueueType.values()) {
+            maxPlayersByType.put(type.getConfigKey(),
+                    plugin.getConfig().getInt("queue.queues." + type.getConfigKey() + ".max-players", 20));
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                federationDAO.heartbeat(nodeId, snapshot.size(), onlinePlayers);
+                federationDAO.publishQueue(nodeId, snapshot);
+
+                boolean wasLeader = leader;
+                leader = federationDAO.tryAcquireLeadership(nodeId, leaseMillis);
+                if (leader && !wasLeader) {
+                    plugin.getLogger().info("§a本节点成为跨服队列主节点: " + nodeId);
+                }
+
+                if (leader) {
+                    int matches = federationDAO.consolidate(minPlayers, maxPlayersByType, heartbeatTimeout, transferTimeout);
+                    if (matches > 0) {
+                        plugin.getLogger().info("§a跨服整合: 新分配 " + matches + " 场比赛");
+                    }
+                }
+
+                List<FederationDAO.Transfer> outgoing = federationDAO.fetchOutgoing(nodeId);
+                if (!outgoing.isEmpty()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> applyTransfers(outgoing));
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("§c跨服队列同步失败: " + e.getMessage());
+            } finally {
+                syncing.set(false);
+            }
+        });
+    }
+
+    /**
+     * 收集本节点在等待中的排队玩家（倒计时中的队列即将开局，不参与整合）
+     * @return 排队玩家列表
+     */
+    private List<FederationDAO.QueueEntry> collectQueuedPlayers() {
+        List<FederationDAO.QueueEntry> entries = new ArrayList<>();
+
+        for (MatchQueue queue : plugin.getQueueManager().getAllQueues()) {
+            QueueState state = queue.getState();
+            if (state != QueueState.CREATING && state != QueueState.WAITING) {
+                continue;
+            }
+
+            for (UUID uuid : queue.getPlayers()) {
+                if (transferring.contains(uuid)) {
+                    continue;
+                }
+                Player player = Bukkit.getPlayer(uuid);
+                if (player != null && player.isOnline()) {
+                    entries.add(new FederationDAO.QueueEntry(uuid, player.getName(),
+                            queue.getQueueType().getConfigKey(), queue.getCreatedAt()));
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * 执行转服指令（主线程）
+     * @param transfers 转服指令列表
+     */
+    private void applyTransfers(List<FederationDAO.Transfer> transfers) {
+        for (FederationDAO.Transfer transfer : transfers) {
+            UUID uuid = transfer.getPlayerUuid();
+            if (!transferring.add(uuid)) {
+                continue;
+            }
+
+            Player player = Bukkit.getPlayer(uuid);
+            MatchQueue queue = player != null ? plugin.getQueueManager().getPlayerQueue(player) : null;
+
+            // 玩家已离线、离开队列或本地队列已开始倒计时，取消这次分配
+            if (player == null || !player.isOnline() || queue == null
+                    || (queue.getState() != QueueState.CREATING && queue.getState() != QueueState.WAITING)) {
+                runAsync(uuid, () -> federationDAO.deleteEntry(uuid));
+                continue;
+            }
+
+            // 玩家留在本地队列，离开本服时由退出监听移出队列
+            player.sendMessage(getMessage("federation.transferring")
+                    .replace("{server}", transfer.getTargetNode()));
+            sendToServer(player, transfer.getTargetNode());
+
+            long confirmTicks = Math.max(1, plugin.getConfig().getLong("federation.transfer-confirm-timeout", 10)) * 20L;
+            Bukkit.getScheduler().runTaskLater(plugin, () -> confirmTransfer(transfer), confirmTicks);
+        }
+    }
+
+    /**
+     * 确认转服结果（主线程）
+     * 玩家已离开本服时条目交给目标节点认领；超时后仍在线说明代理未能传送，
+     * 取消这次分配，玩家继续留在本地队列
+     * @param transfer 转服指令
+     */
+    private void confirmTransfer(FederationDAO.Transfer transfer) {
+        UUID uuid = transfer.getPlayerUuid();
+        Player player = Bukkit.getPlayer(uuid);
+
+        if (player == null || !player.isOnline()) {
+            runAsync(uuid, () -> federationDAO.markTransferred(uuid, transfer.getTargetNode()));
+            return;
+        }
+
+        plugin.getLogger().warning("§e转服未完成，玩家留在本地队列: " + player.getName() + " -> " + transfer.getTargetNode());
+        player.sendMessage(getMessage("federation.transfer-failed")
+                .replace("{server}", transfer.getTargetNode()));
+        runAsync(uuid, () -> federationDAO.deleteEntry(uuid));
+    }
+
+    /**
+     * 玩家进入服务器时检查是否为跨服转入的玩家，是则自动加入转服时指定类型的队列
+     * @param player 玩家
+     */
+    public void onPlayerJoin(Player player) {
+        if (!enabled) {
+            return;
+        }
+
+        UUID uuid = player.getUniqueId();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                String queueType = federationDAO.claimIncoming(nodeId, uuid);
+                if (queueType == null) {
+                    return;
+                }
+
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    Player arrived = Bukkit.getPlayer(uuid);
+                    if (arrived == null || !arrived.isOnline()
+                            || plugin.getQueueManager().isInQueue(arrived) || plugin.getGameManager().isInGame(arrived)) {
+                        return;
+                    }
+
+                    arrived.sendMessage(getMessage("federation.arrived"));
+
+                    // 直接加入主节点合并时指定的队列类型，不重新按本地权限判断或进入评分匹配池
+                    QueueType claimedType = QueueType.fromConfigKey(queueType);
+                    if (claimedType != null) {
+                        plugin.getQueueManager().placeInQueue(arrived, claimedType);
+                    } else {
+                        plugin.getQueueManager().joinQueue(arrived);
+                    }
+                });
+            } catch (SQLException e) {
+                plugin.getLogger().warning("§c跨服转入检查失败: " + player.getName() + " (" + e.getMessage() + ")");
+            }
+        });
+    }
+
+    /**
+     * 通过代理把玩家传送到其他服务器
+     * @param player 玩家
+     * @param server 代理中的服务器名称
+     */
+    private void sendToServer(Player player, String server) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF("Connect");
+            out.writeUTF(server);
+        } catch (IOException e) {
+            plugin.getLogger().warning("§c转服指令生成失败: " + e.getMessage());
+            return;
+        }
+
+        player.sendPluginMessage(plugin, PROXY_CHANNEL, bytes.toByteArray());
+    }
+
+    /**
+     * 异步执行数据库操作，完成后移出转出集合
+     */
+    private void runAsync(UUID uuid, SqlAction action) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                action.run();
+            } catch (SQLException e) {
+                plugin.getLogger().warning("§c跨服队列更新失败: " + uuid + " (" + e.getMessage() + ")");
+            } finally {
+                transferring.remove(uuid);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    /**
+     * 停止同步，释放主节点身份并删除本节点的记录（插件卸载时调用，在关闭数据库之前）
+     */
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+
+        if (syncTask != null) {
+            syncTask.cancel();
+        }
+
+        try {
+            federationDAO.releaseLeadership(nodeId);
+            federationDAO.removeNode(nodeId);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("§c跨服节点注销失败: " + e.getMessage());
+        }
+
+        plugin.getServer().getMessenger().unregisterOutgoingPluginChannel(plugin, PROXY_CHANNEL);
+        enabled = false;
+    }
+
+    private String getMessage(String key) {
+        String prefix = plugin.getConfigManager().getMessagesConfig().getString("prefix", "");
+        String message = plugin.getConfigManager().getMessagesConfig().getString(key, key);
+        return ChatColor.translateAlternateColorCodes('&', prefix + message);
+    }
+}
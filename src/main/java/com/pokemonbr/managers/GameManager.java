@@ -5,7 +5,6 @@ import com.pokemonbr.models.*;
 import org.bukkit.*;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,34 +26,17 @@ public class GameManager {
     // 玩家UUID -> 游戏UUID（快速查找玩家在哪个游戏中）
     private Map<UUID, String> playerGameMap = new ConcurrentHashMap<>();
 
-    // 游戏主循环任务
-    private BukkitTask gameLoopTask;
-
     public GameManager(Main plugin) {
         this.plugin = plugin;
         this.activeGames = new HashMap<>();
         this.playerGameMap = new HashMap<>();
-
-        // 启动游戏主循环
-        startGameLoop();
-    }
-
-    /**
-     * 启动游戏主循环
-     */
-    private void startGameLoop() {
-        gameLoopTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            for (Game game : new ArrayList<>(activeGames.values())) {
-                updateGame(game);
-            }
-        }, 20L, 20L); // 每秒执行一次
     }
 
     /**
-     * 更新游戏状态
+     * 更新游戏状态（由 GameTickScheduler 每秒调用一次，缩圈和边界伤害随后由调度器执行）
      * @param game 游戏实例
      */
-    private void updateGame(Game game) {
+    public void updateGame(Game game) {
         switch (game.getState()) {
             case PREPARING:
                 // 准备阶段已在createGame中处理
@@ -75,14 +57,6 @@ public class GameManager {
                 // 检查游戏是否结束
                 if (game.isGameOver()) {
                     endGame(game);
-                } else {
-                    // 对边界外的玩家造成伤害
-                    plugin.getBorderShrinkManager().damagePlayersOutsideBorder(game);
-
-                    // 定期检查存活玩家的宝可梦数量（每30秒检查一次）
-                    if (game.getGameTime() % 600 == 0) { // 30秒 = 600 ticks
-                        checkAllPlayersPokemonCount(game);
-                    }
                 }
                 break;
 
@@ -90,14 +64,6 @@ public class GameManager {
                 // 最终阶段，检查游戏是否结束
                 if (game.isGameOver()) {
                     endGame(game);
-                } else {
-                    // 对边界外的玩家造成伤害
-                    plugin.getBorderShrinkManager().damagePlayersOutsideBorder(game);
-
-                    // 最终阶段更频繁检查（每15秒检查一次）
-                    if (game.getGameTime() % 300 == 0) { // 15秒 = 300 ticks
-                        checkAllPlayersPokemonCount(game);
-                    }
                 }
                 break;
 
@@ -135,7 +101,9 @@ public class GameManager {
 
         // 创建游戏实例
         Game game = new Game(gameUuid, queue.getQueueId(), gameWorld, queue.getWorldConfigName(), queue.getPlayers());
+        game.setPlannedBorderCenter(plugin.getChunkPreloadManager().getBorderCenter(queue.getQueueId()));
         activeGames.put(gameUuid, game);
+        plugin.getGameTickScheduler().addGame(game);
 
         // 记录玩家-游戏映射
         for (UUID uuid : queue.getPlayers()) {
@@ -172,6 +140,11 @@ public class GameManager {
         // 发放初始物品
         giveInitialItems(game);
 
+        // 跟踪存活玩家的队伍，队伍变空时由事件触发淘汰
+        if (plugin.getPartyStateTracker() != null) {
+            plugin.getPartyStateTracker().trackGame(game);
+        }
+
         // 开始无敌时间
         startInvincibility(game);
     }
@@ -181,6 +154,13 @@ public class GameManager {
      * @param game 游戏实例
      */
     private void teleportPlayersToSpawns(Game game) {
+        // 优先使用倒计时期间预加载过区块的出生点
+        List<Location> plannedSpawns = plugin.getChunkPreloadManager().takeSpawnPoints(game.getQueueId());
+        if (plannedSpawns != null) {
+            teleportPlayersPlanned(game, plannedSpawns);
+            return;
+        }
+
         // 获取世界配置
         FileConfiguration worldConfig = plugin.getWorldConfigManager().getWorldConfig(game.getWorldConfigName());
 
@@ -206,6 +186,20 @@ public class GameManager {
         }
     }
 
+    /**
+     * 传送玩家到预先规划的出生点（出生点数量少于玩家时循环使用）
+     */
+    private void teleportPlayersPlanned(Game game, List<Location> spawns) {
+        int index = 0;
+        for (UUID uuid : game.getAlivePlayers()) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) {
+                player.teleport(spawns.get(index % spawns.size()));
+                index++;
+            }
+        }
+    }
+
     /**
      * 传送所有玩家到世界出生点
      */
@@ -386,6 +380,11 @@ public class GameManager {
 
         // 启动缩圈系统
         plugin.getBorderShrinkManager().initializeShrink(game);
+
+        // 无敌期间队伍已变空的玩家此时开始可以被淘汰
+        if (plugin.getPartyStateTracker() != null) {
+            plugin.getPartyStateTracker().recheckGame(game);
+        }
     }
 
     /**
@@ -393,6 +392,16 @@ public class GameManager {
      * @param game 游戏实例
      */
     private void endGame(Game game) {
+        endGame(game, false);
+    }
+
+    /**
+     * 结束游戏
+     * 插件关闭时插件已被标记为禁用，不能再调度任务，此时只同步结算奖励和对局记录，不播放特效、不延迟清理
+     * @param game 游戏实例
+     * @param shuttingDown 是否因插件关闭而结束
+     */
+    private void endGame(Game game, boolean shuttingDown) {
         game.setState(GameState.ENDING);
         game.setEndTime(System.currentTimeMillis());
 
@@ -400,13 +409,22 @@ public class GameManager {
         broadcastGameEnd(game);
 
         // 播放胜利特效
-        plugin.getVictoryEffectManager().playVictoryEffects(game);
+        if (!shuttingDown) {
+            plugin.getVictoryEffectManager().playVictoryEffects(game);
+        }
 
         // 发放奖励
         plugin.getRewardManager().processGameRewards(game);
 
-        // 保存游戏记录到数据库
-        // TODO: 实现游戏记录保存
+        // 保存游戏记录到数据库（异步批量写入，仅 MySQL 模式）
+        if (plugin.getMatchHistoryWriter() != null) {
+            plugin.getMatchHistoryWriter().submit(game);
+        }
+
+        if (shuttingDown) {
+            game.setState(GameState.FINISHED);
+            return;
+        }
 
         // 延迟清理游戏
         Bukkit.getScheduler().runTaskLater(plugin, () -> {
@@ -448,6 +466,11 @@ public class GameManager {
         // 停止缩圈系统
         plugin.getBorderShrinkManager().stopShrink(game);
 
+        // 停止跟踪队伍状态
+        if (plugin.getPartyStateTracker() != null) {
+            plugin.getPartyStateTracker().untrackGame(game);
+        }
+
         // 传送所有玩家回大厅
         returnPlayersToLobby(game.getPlayers().keySet());
 
@@ -458,6 +481,7 @@ public class GameManager {
 
         // 移除游戏实例
         activeGames.remove(game.getGameUuid());
+        plugin.getGameTickScheduler().removeGame(game);
 
         plugin.getLogger().info("§a游戏 " + game.getGameUuid() + " 已清理");
 
@@ -512,7 +536,16 @@ public class GameManager {
      * @return 是否在游戏中
      */
     public boolean isInGame(Player player) {
-        return playerGameMap.containsKey(player.getUniqueId());
+        return isInGame(player.getUniqueId());
+    }
+
+    /**
+     * 检查玩家是否在游戏中
+     * @param uuid 玩家UUID
+     * @return 是否在游戏中
+     */
+    public boolean isInGame(UUID uuid) {
+        return playerGameMap.containsKey(uuid);
     }
 
     /**
@@ -527,37 +560,26 @@ public class GameManager {
     }
 
     /**
-     * 停止所有进行中的游戏
+     * 停止所有进行中的游戏（插件关闭时必须在关闭对局记录写入器和数据库之前调用）
+     * 只同步结算，不调度任何任务；已进入结束流程的游戏已经结算过，不再重复提交记录和发放奖励
+     * 单局结算失败不影响其他游戏
      */
     public void stopAllGames() {
         for (Game game : new ArrayList<>(activeGames.values())) {
-            endGame(game);
-        }
+            if (game.getState() == GameState.ENDING || game.getState() == GameState.FINISHED) {
+                continue;
+            }
 
-        if (gameLoopTask != null) {
-            gameLoopTask.cancel();
+            try {
+                endGame(game, true);
+            } catch (Exception e) {
+                plugin.getLogger().severe("§c结束游戏 " + game.getGameUuid() + " 时出错: " + e.getMessage());
+            }
         }
 
         plugin.getLogger().info("§a所有游戏已停止");
     }
 
-    /**
-     * 检查所有存活玩家的宝可梦数量
-     * @param game 游戏实例
-     */
-    private void checkAllPlayersPokemonCount(Game game) {
-        // 异步执行检查，避免阻塞主线程
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            for (UUID playerId : new ArrayList<>(game.getAlivePlayers())) {
-                Player player = Bukkit.getPlayer(playerId);
-                if (player != null && player.isOnline()) {
-                    // 调用 PixelmonBattleListener 的检查方法
-                    plugin.getPixelmonBattleListener().checkPlayerPokemonCount(player);
-                }
-            }
-        });
-    }
-
     /**
      * 获取所有活跃游戏
      * @return 游戏列表
@@ -0,0 +1,278 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.Game;
+import com.pokemonbr.models.GameState;
+import com.pokemonbr.models.MatchQueue;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+
+/**
+ * 统一游戏调度器
+ * 取代游戏主循环、缩圈、计分板和队列倒计时各自每秒一次的定时任务
+ * 每 tick 执行一次，把游戏、队列和玩家分散到一秒内的 20 个 tick 上，每个对象仍然每秒更新一次，
+ * 避免所有工作集中在同一个 tick 造成每秒一次的卡顿
+ *
+ * 每个游戏按固定顺序执行: 状态 -> 缩圈 -> 边界伤害，然后加载预加载区块，计分板最后更新
+ * 区块预加载和计分板更新共用每 tick 的时间预算，超出预算的部分顺延到下一个 tick
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class GameTickScheduler {
+
+    // 一秒内的 tick 数
+    private static final int SLOTS = 20;
+
+    // 队列维护（加入速率统计、预测性准备、合并）所在的 tick
+    private static final int MAINTENANCE_SLOT = 10;
+
+    private final Main plugin;
+
+    // 每个 tick 负责的游戏
+    private final List<List<Game>> gameSlots;
+
+    // 游戏UUID -> 所在 tick
+    private final Map<String, Integer> gameSlotIndex;
+
+    // 等待更新计分板的玩家
+    private final Deque<Player> hudBacklog;
+    private final Set<UUID> hudPending;
+
+    // 调度任务
+    private BukkitTask tickTask;
+
+    // 当前 tick 计数
+    private long tickCount;
+
+    // 每 tick 区块预加载和计分板更新的时间预算（纳秒）
+    private long budgetNanos;
+
+    // 运行统计
+    private long maxTickNanos;
+    private long totalTickNanos;
+    private long measuredTicks;
+    private long deferredTicks;
+    private long preloadedChunks;
+
+    public GameTickScheduler(Main plugin) {
+        this.plugin = plugin;
+        this.gameSlots = new ArrayList<>(SLOTS);
+        this.gameSlotIndex = new HashMap<>();
+        this.hudBacklog = new ArrayDeque<>();
+        this.hudPending = new HashSet<>();
+
+        for (int i = 0; i < SLOTS; i++) {
+            gameSlots.add(new ArrayList<>());
+        }
+
+        reloadConfig();
+    }
+
+    /**
+     * 启动调度任务
+     */
+    public void start() {
+        tickTask = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        plugin.getLogger().info("§a统一游戏调度器已启动 (区块预加载/计分板预算: " + (budgetNanos / 1_000_000.0) + "ms/tick)");
+    }
+
+    /**
+     * 重新读取时间预算（兼容旧的 hud-budget-ms 配置）
+     */
+    public void reloadConfig() {
+        double legacyMillis = plugin.getConfig().getDouble("performance.scheduler.hud-budget-ms", 5.0);
+        double budgetMillis = Math.max(0.1, plugin.getConfig().getDouble("performance.scheduler.budget-ms", legacyMillis));
+        budgetNanos = (long) (budgetMillis * 1_000_000);
+    }
+
+    /**
+     * 注册游戏，分配到当前游戏数最少的 tick
+     * @param game 游戏实例
+     */
+    public void addGame(Game game) {
+        if (gameSlotIndex.containsKey(game.getGameUuid())) {
+            return;
+        }
+
+        int slot = 0;
+        for (int i = 1; i < SLOTS; i++) {
+            if (gameSlots.get(i).size() < gameSlots.get(slot).size()) {
+                slot = i;
+            }
+        }
+
+        gameSlots.get(slot).add(game);
+        gameSlotIndex.put(game.getGameUuid(), slot);
+    }
+
+    /**
+     * 移除游戏
+     * @param game 游戏实例
+     */
+    public void removeGame(Game game) {
+        Integer slot = gameSlotIndex.remove(game.getGameUuid());
+        if (slot != null) {
+            gameSlots.get(slot).remove(game);
+        }
+    }
+
+    /**
+     * 每 tick 执行
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        int slot = (int) (tickCount++ % SLOTS);
+
+        tickGames(slot);
+        tickQueues(slot);
+        scheduleHud(slot);
+
+        // 区块预加载先于计分板使用预算（影响开局），两者都超出预算时顺延
+        long deadline = start + budgetNanos;
+        if (loadChunks(deadline) | drainHud(deadline)) {
+            deferredTicks++;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        maxTickNanos = Math.max(maxTickNanos, elapsed);
+        totalTickNanos += elapsed;
+        measuredTicks++;
+    }
+
+    /**
+     * 更新本 tick 负责的游戏（状态 -> 缩圈 -> 边界伤害）
+     */
+    private void tickGames(int slot) {
+        List<Game> games = gameSlots.get(slot);
+        if (games.isEmpty()) {
+            return;
+        }
+
+        // 状态更新可能清理游戏并将其移出调度
+        for (Game game : games.toArray(new Game[0])) {
+            plugin.getGameManager().updateGame(game);
+
+            GameState state = game.getState();
+            if (state != GameState.PLAYING && state != GameState.FINAL_STAGE) {
+                continue;
+            }
+
+            plugin.getBorderShrinkManager().tickShrink(game);
+            plugin.getBorderShrinkManager().damagePlayersOutsideBorder(game);
+        }
+    }
+
+    /**
+     * 更新本 tick 负责的队列倒计时，并在固定 tick 执行队列维护
+     */
+    private void tickQueues(int slot) {
+        QueueManager queueManager = plugin.getQueueManager();
+
+        for (MatchQueue queue : queueManager.getAllQueues()) {
+            if (queue.getQueueId() % SLOTS == slot) {
+                queueManager.tickCountdown(queue);
+            }
+        }
+
+        if (slot == MAINTENANCE_SLOT) {
+            queueManager.tickMaintenance();
+        }
+    }
+
+    /**
+     * 把本 tick 负责的在线玩家加入计分板更新队列
+     */
+    private void scheduleHud(int slot) {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (Math.floorMod(player.getUniqueId().hashCode(), SLOTS) == slot
+                    && hudPending.add(player.getUniqueId())) {
+                hudBacklog.addLast(player);
+            }
+        }
+    }
+
+    /**
+     * 在时间预算内加载预加载区块
+     * @return 是否有区块因超出预算顺延
+     */
+    private boolean loadChunks(long deadline) {
+        ChunkPreloadManager chunkPreloadManager = plugin.getChunkPreloadManager();
+        if (chunkPreloadManager == null) {
+            return false;
+        }
+
+        preloadedChunks += chunkPreloadManager.loadChunks(deadline);
+        return chunkPreloadManager.hasPendingChunks();
+    }
+
+    /**
+     * 在时间预算内更新计分板，剩余的顺延到下一个 tick
+     * @return 是否有计分板因超出预算顺延
+     */
+    private boolean drainHud(long deadline) {
+        ScoreboardManager scoreboardManager = plugin.getScoreboardManager();
+
+        while (!hudBacklog.isEmpty()) {
+            if (System.nanoTime() >= deadline) {
+                return true;
+            }
+
+            Player player = hudBacklog.pollFirst();
+            hudPending.remove(player.getUniqueId());
+            if (player.isOnline()) {
+                scoreboardManager.updatePlayerScoreboard(player);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取运行状态（管理员查看）
+     * @return 状态描述
+     */
+    public List<String> getStatus() {
+        List<String> lines = new ArrayList<>();
+        double avgMillis = measuredTicks == 0 ? 0.0 : totalTickNanos / (double) measuredTicks / 1_000_000.0;
+
+        StringBuilder distribution = new StringBuilder();
+        for (List<Game> games : gameSlots) {
+            distribution.append(games.size()).append(' ');
+        }
+
+        lines.add("游戏数: " + gameSlotIndex.size() + ", 各 tick 分布: " + distribution.toString().trim());
+        lines.add(String.format("平均耗时: %.3fms/tick, 最大: %.3fms", avgMillis, maxTickNanos / 1_000_000.0));
+        lines.add("区块预加载/计分板预算: " + (budgetNanos / 1_000_000.0) + "ms, 超出预算顺延: " + deferredTicks
+                + " 次, 计分板积压: " + hudBacklog.size() + ", 已预加载区块: " + preloadedChunks);
+        return lines;
+    }
+
+    /**
+     * 清空运行统计
+     */
+    public void resetStats() {
+        maxTickNanos = 0;
+        totalTickNanos = 0;
+        measuredTicks = 0;
+        deferredTicks = 0;
+        preloadedChunks = 0;
+    }
+
+    /**
+     * 停止调度任务
+     */
+    public void shutdown() {
+        if (tickTask != null) {
+            tickTask.cancel();
+        }
+        hudBacklog.clear();
+        hudPending.clear();
+        for (List<Game> games : gameSlots) {
+            games.clear();
+        }
+        gameSlotIndex.clear();
+    }
+}
@@ -1,6 +1,8 @@
 package com.pokemonbr.managers;
 
 import com.pokemonbr.Main;
+import com.pokemonbr.models.MatchQueue;
+import com.pokemonbr.models.Party;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
@@ -11,6 +13,7 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * 邀请管理器
  * 管理玩家之间的组队邀请
+ * 接受邀请后双方组成小队，小队作为一个整体加入同一个匹配队列
  *
  * @author l1ang_Y5n
  * @qq 235236127
@@ -25,6 +28,9 @@ public class InviteManager {
     // 邀请过期时间映射
     private final Map<UUID, Long> inviteExpireTime;
 
+    // 小队: 成员UUID -> 小队
+    private final Map<UUID, Party> parties;
+
     // 邀请过期时间（毫秒）
     private static final long INVITE_EXPIRE_TIME = 60000; // 60秒
 
@@ -32,6 +38,7 @@ public class InviteManager {
         this.plugin = plugin;
         this.invites = new ConcurrentHashMap<>();
         this.inviteExpireTime = new ConcurrentHashMap<>();
+        this.parties = new ConcurrentHashMap<>();
 
         // 启动邀请过期检查任务
         startExpireCheckTask();
@@ -75,6 +82,27 @@ public class InviteManager {
             return false;
         }
 
+        // 只有队长可以邀请新成员
+        Party inviterParty = parties.get(inviter.getUniqueId());
+        if (inviterParty != null && !inviterParty.isLeader(inviter.getUniqueId())) {
+            inviter.sendMessage(getMessage("invite.party-leader-only"));
+            return false;
+        }
+
+        // 检查小队人数
+        if (inviterParty != null && inviterParty.size() >= getMaxPartySize()) {
+            inviter.sendMessage(getMessage("invite.party-full")
+                    .replace("{max}", String.valueOf(getMaxPartySize())));
+            return false;
+        }
+
+        // 检查被邀请者是否已在同一小队
+        if (inviterParty != null && inviterParty.contains(invitee.getUniqueId())) {
+            inviter.sendMessage(getMessage("invite.already-in-party")
+                    .replace("{player}", invitee.getName()));
+            return false;
+        }
+
         // 检查被邀请者是否已有待处理的邀请
         if (invites.containsKey(invitee.getUniqueId())) {
             inviter.sendMessage(ChatColor.RED + invitee.getName() + " 已有待处理的邀请！");
@@ -131,28 +159,62 @@ public class InviteManager {
             return false;
         }
 
-        if (plugin.getQueueManager().getPlayerQueue(inviter) != null) {
-            invites.remove(invitee.getUniqueId());
-            inviteExpireTime.remove(invitee.getUniqueId());
-            invitee.sendMessage(ChatColor.RED + inviter.getName() + " 已经在匹配队列中！");
-            return false;
-        }
-
         // 移除邀请记录
         invites.remove(invitee.getUniqueId());
         inviteExpireTime.remove(invitee.getUniqueId());
 
+        // 被邀请者已在队列中时无法组队
+        if (plugin.getQueueManager().isInQueue(invitee)) {
+            invitee.sendMessage(getMessage("queue.already-in-queue"));
+            return false;
+        }
+
+        // 先完成所有检查，再修改小队记录（检查失败时不留下单人小队，也不让被邀请者离开原小队）
+        Party party = parties.get(inviterUUID);
+        if (party != null && party.size() >= getMaxPartySize()) {
+            invitee.sendMessage(getMessage("invite.party-full")
+                    .replace("{max}", String.valueOf(getMaxPartySize())));
+            return false;
+        }
+
+        MatchQueue inviterQueue = plugin.getQueueManager().getPlayerQueue(inviter);
+        if (inviterQueue == null && plugin.getQueueManager().isInQueue(inviter)) {
+            invitee.sendMessage(ChatColor.RED + inviter.getName() + " 正在匹配中，请稍后再试！");
+            return false;
+        }
+
+        // 离开原来的小队
+        if (party == null || parties.get(invitee.getUniqueId()) != party) {
+            leaveParty(invitee.getUniqueId());
+        }
+
+        if (party == null) {
+            party = new Party(inviterUUID);
+            parties.put(inviterUUID, party);
+        }
+
+        party.addMember(invitee.getUniqueId());
+        parties.put(invitee.getUniqueId(), party);
+
         // 发送消息
         invitee.sendMessage(getMessage("invite.accepted")
                 .replace("{player}", inviter.getName()));
         inviter.sendMessage(getMessage("invite.accepted-sender")
                 .replace("{player}", invitee.getName()));
 
-        // 双方加入队列
-        plugin.getQueueManager().joinQueue(inviter);
-        plugin.getQueueManager().joinQueue(invitee);
+        // 队长已在队列中，追加到队长所在的队列
+        if (inviterQueue != null) {
+            if (!plugin.getQueueManager().joinSpecificQueue(invitee, inviterQueue)) {
+                leaveParty(invitee.getUniqueId());
+                invitee.sendMessage(getMessage("invite.party-queue-full")
+                        .replace("{player}", inviter.getName()));
+                return false;
+            }
+            return true;
+        }
 
-        return true;
+        // 小队整体加入队列
+        return plugin.getQueueManager().joinQueueAsParty(inviter, getAvailablePartyMembers(inviter));
     }
 
     /**
@@ -207,7 +269,7 @@ public class InviteManager {
     }
 
     /**
-     * 清除玩家的邀请记录
+     * 清除玩家的邀请记录（同时离开小队）
      * @param player 玩家
      */
     public void clearInvites(Player player) {
@@ -216,6 +278,86 @@ public class InviteManager {
 
         // 同时清除该玩家发出的邀请
         invites.entrySet().removeIf(entry -> entry.getValue().equals(player.getUniqueId()));
+
+        leaveParty(player.getUniqueId());
+    }
+
+    /**
+     * 获取玩家所在小队
+     * @param uuid 玩家UUID
+     * @return 小队 或 null
+     */
+    public Party getParty(UUID uuid) {
+        return parties.get(uuid);
+    }
+
+    /**
+     * 获取队长可以带入队列的小队成员（在线、不在游戏和队列中，队长在前）
+     * 玩家不是队长时只返回玩家自己
+     * @param player 玩家
+     * @return 成员列表
+     */
+    public List<Player> getAvailablePartyMembers(Player player) {
+        List<Player> members = new ArrayList<>();
+        Party party = parties.get(player.getUniqueId());
+
+        if (party == null || !party.isLeader(player.getUniqueId())) {
+            members.add(player);
+            return members;
+        }
+
+        for (UUID uuid : party.getMembers()) {
+            Player member = Bukkit.getPlayer(uuid);
+            if (member == null || !member.isOnline()) {
+                continue;
+            }
+            if (plugin.getGameManager().isInGame(member) || plugin.getQueueManager().isInQueue(member)) {
+                continue;
+            }
+            members.add(member);
+        }
+        return members;
+    }
+
+    /**
+     * 玩家离开小队（队长离开或人数不足两人时解散小队）
+     * @param uuid 玩家UUID
+     */
+    public void leaveParty(UUID uuid) {
+        Party party = parties.remove(uuid);
+        if (party == null) {
+            return;
+        }
+
+        party.removeMember(uuid);
+
+        if (party.isLeader(uuid) || party.size() < 2) {
+            for (UUID member : party.getMembers()) {
+                parties.remove(member);
+                Player player = Bukkit.getPlayer(member);
+                if (player != null && player.isOnline()) {
+                    player.sendMessage(getMessage("invite.party-disbanded"));
+                }
+            }
+            return;
+        }
+
+        Player left = Bukkit.getPlayer(uuid);
+        String name = left != null ? left.getName() : "未知玩家";
+        for (UUID member : party.getMembers()) {
+            Player player = Bukkit.getPlayer(member);
+            if (player != null && player.isOnline()) {
+                player.sendMessage(getMessage("invite.party-member-left").replace("{player}", name));
+            }
+        }
+    }
+
+    /**
+     * 获取小队人数上限
+     * @return 人数上限
+     */
+    private int getMaxPartySize() {
+        return Math.max(2, plugin.getConfig().getInt("queue.party.max-size", 4));
     }
 
     /**
@@ -0,0 +1,156 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 延迟统计
+ * 按阶段记录排队和世界准备各环节的耗时，每个阶段同时按队列类型或世界配置分别统计
+ * 用于评估预热池大小和最少开始人数是否合理
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class LatencyMetrics {
+
+    // 加入队列 -> 进入已绑定世界的队列（按队列类型）
+    public static final String JOIN_TO_ADMIT = "join-to-admit";
+    // 进入队列 -> 开始倒计时（按队列类型）
+    public static final String ADMIT_TO_COUNTDOWN = "admit-to-countdown";
+    // 开始倒计时 -> 游戏开始（按队列类型）
+    public static final String COUNTDOWN_TO_START = "countdown-to-start";
+    // 加入队列 -> 游戏开始传送（按队列类型）
+    public static final String JOIN_TO_START = "join-to-start";
+    // 队列请求世界 -> 世界可用，包含预热池命中（按世界配置）
+    public static final String WORLD_ACQUIRE = "world-acquire";
+    // 世界文件复制（按世界配置）
+    public static final String WORLD_COPY = "world-copy";
+    // 世界加载（按世界配置）
+    public static final String WORLD_LOAD = "world-load";
+
+    private static final String[] STAGES = {
+            JOIN_TO_ADMIT, ADMIT_TO_COUNTDOWN, COUNTDOWN_TO_START, JOIN_TO_START,
+            WORLD_ACQUIRE, WORLD_COPY, WORLD_LOAD
+    };
+
+    // 汇总维度名称
+    private static final String ALL = "all";
+
+    private final Main plugin;
+
+    // 阶段 -> 维度 -> 直方图
+    private final Map<String, Map<String, LatencyHistogram>> histograms;
+
+    // 统计开始时间
+    private volatile long since;
+
+    public LatencyMetrics(Main plugin) {
+        this.plugin = plugin;
+        this.histograms = new ConcurrentHashMap<>();
+        this.since = System.currentTimeMillis();
+
+        for (String stage : STAGES) {
+            histograms.put(stage, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 记录一次耗时（同时计入汇总和指定维度）
+     * @param stage 阶段
+     * @param dimension 维度（队列类型或世界配置名称），null 时只计入汇总
+     * @param millis 耗时（毫秒）
+     */
+    public void record(String stage, String dimension, long millis) {
+        Map<String, LatencyHistogram> byDimension = histograms.computeIfAbsent(stage, k -> new ConcurrentHashMap<>());
+        byDimension.computeIfAbsent(ALL, k -> new LatencyHistogram()).record(millis);
+
+        if (dimension != null) {
+            byDimension.computeIfAbsent(dimension, k -> new LatencyHistogram()).record(millis);
+        }
+    }
+
+    /**
+     * 获取所有阶段名称
+     * @return 阶段名称
+     */
+    public List<String> getStages() {
+        return Arrays.asList(STAGES);
+    }
+
+    /**
+     * 获取阶段的所有维度直方图（汇总在前）
+     * @param stage 阶段
+     * @return Map<维度, 直方图>
+     */
+    public Map<String, LatencyHistogram> getHistograms(String stage) {
+        Map<String, LatencyHistogram> result = new LinkedHashMap<>();
+        Map<String, LatencyHistogram> byDimension = histograms.get(stage);
+        if (byDimension == null) {
+            return result;
+        }
+
+        LatencyHistogram all = byDimension.get(ALL);
+        if (all != null) {
+            result.put(ALL, all);
+        }
+        new TreeMap<>(byDimension).forEach((dimension, histogram) -> {
+            if (!ALL.equals(dimension)) {
+                result.put(dimension, histogram);
+            }
+        });
+        return result;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        for (Map<String, LatencyHistogram> byDimension : histograms.values()) {
+            byDimension.clear();
+        }
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * 导出为 YAML 文件（百分位和非空桶，供外部工具分析）
+     * @return 导出的文件
+     * @throws IOException 写入失败
+     */
+    public File dump() throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("since", since);
+        yaml.set("generated-at", System.currentTimeMillis());
+
+        for (String stage : STAGES) {
+            for (Map.Entry<String, LatencyHistogram> entry : getHistograms(stage).entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                String path = "stages." + stage + "." + entry.getKey() + ".";
+
+                yaml.set(path + "count", histogram.getCount());
+                yaml.set(path + "mean-ms", Math.round(histogram.getMean()));
+                yaml.set(path + "p50-ms", histogram.getValueAtPercentile(50));
+                yaml.set(path + "p90-ms", histogram.getValueAtPercentile(90));
+                yaml.set(path + "p99-ms", histogram.getValueAtPercentile(99));
+                yaml.set(path + "p999-ms", histogram.getValueAtPercentile(99.9));
+                yaml.set(path + "max-ms", histogram.getMax());
+
+                for (Map.Entry<Long, Long> bucket : histogram.getNonEmptyBuckets().entrySet()) {
+                    yaml.set(path + "buckets." + bucket.getKey(), bucket.getValue());
+                }
+            }
+        }
+
+        File file = new File(plugin.getDataFolder(), "latency-metrics.yml");
+        yaml.save(file);
+        return file;
+    }
+}
@@ -0,0 +1,240 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.database.MatchHistoryDAO;
+import com.pokemonbr.database.MatchHistoryDAO.MatchRecord;
+import com.pokemonbr.database.MatchHistoryDAO.PlayerRecord;
+import com.pokemonbr.models.Game;
+import com.pokemonbr.models.GamePlayer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对局记录写入器
+ * 游戏结束时主线程只生成快照并放入有界队列，由单个写入线程把多场对局合并为一个事务批量写入
+ * 队列已满时直接拒绝（不阻塞主线程），积压较多时写入线程不再等待凑批；写入失败按指数退避重试
+ *
+ * 仅在 MySQL 存储模式下启用
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class MatchHistoryWriter {
+
+    // 退避上限（毫秒）
+    private static final long MAX_BACKOFF_MILLIS = 60_000L;
+
+    private final Main plugin;
+    private final MatchHistoryDAO matchHistoryDAO;
+
+    // 等待写入的对局
+    private final BlockingQueue<MatchRecord> queue;
+
+    // 写入线程
+    private final Thread writerThread;
+
+    // 是否已关闭
+    private volatile boolean shutdown;
+
+    // 配置
+    private final int batchSize;
+    private final long batchDelayMillis;
+    private final int maxRetries;
+    private final long retryDelayMillis;
+
+    // 统计
+    private final AtomicLong submitted;
+    private final AtomicLong written;
+    private final AtomicLong rejected;
+    private final AtomicLong dropped;
+    private final AtomicLong retries;
+    private final AtomicLong batches;
+
+    public MatchHistoryWriter(Main plugin) {
+        this.plugin = plugin;
+        this.matchHistoryDAO = new MatchHistoryDAO(plugin);
+
+        int capacity = Math.max(1, plugin.getConfig().getInt("database.match-history.queue-capacity", 256));
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("database.match-history.batch-size", 20));
+        this.batchDelayMillis = Math.max(0, plugin.getConfig().getLong("database.match-history.batch-delay-ms", 500));
+        this.maxRetries = Math.max(0, plugin.getConfig().getInt("database.match-history.max-retries", 5));
+        this.retryDelayMillis = Math.max(1, plugin.getConfig().getLong("database.match-history.retry-delay", 2)) * 1000L;
+
+        this.submitted = new AtomicLong();
+        this.written = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.retries = new AtomicLong();
+        this.batches = new AtomicLong();
+
+        this.writerThread = new Thread(this::runLoop, "PBR-MatchHistory");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+
+        plugin.getLogger().info("§a对局记录写入器已启动 (队列容量: " + capacity + ", 每批: " + batchSize + ")");
+    }
+
+    /**
+     * 提交对局记录（主线程调用，不阻塞）
+     * @param game 已结束的游戏
+     * @return 是否已加入写入队列
+     */
+    public boolean submit(Game game) {
+        if (shutdown) {
+            rejected.incrementAndGet();
+            plugin.getLogger().warning("§c对局记录写入器已关闭，本场记录未保存: " + game.getGameUuid());
+            return false;
+        }
+
+        MatchRecord record = createRecord(game);
+        if (!queue.offer(record)) {
+            rejected.incrementAndGet();
+            plugin.getLogger().warning("§c对局记录写入队列已满，本场记录未保存: " + game.getGameUuid()
+                    + " (积压: " + queue.size() + ")");
+            return false;
+        }
+
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 生成对局快照（写入线程不再访问 Game）
+     */
+    private MatchRecord createRecord(Game game) {
+        List<PlayerRecord> players = new ArrayList<>(game.getTotalPlayerCount());
+        for (GamePlayer gamePlayer : game.getPlayers().values()) {
+            // 存活到最后的玩家没有淘汰排名，记为第1名
+            int rank = gamePlayer.getRank() > 0 ? gamePlayer.getRank() : 1;
+            players.add(new PlayerRecord(gamePlayer.getUuid(), rank, gamePlayer.getKills(),
+                    gamePlayer.getPointsEarned(), gamePlayer.getEliminatedBy()));
+        }
+
+        long endTime = game.getEndTime() > 0 ? game.getEndTime() : System.currentTimeMillis();
+        return new MatchRecord(game.getGameUuid(), game.getQueueId(), game.getStartTime(), endTime,
+                game.getWinner(), players);
+    }
+
+    /**
+     * 写入线程主循环
+     */
+    private void runLoop() {
+        List<MatchRecord> batch = new ArrayList<>(batchSize);
+
+        while (!shutdown || !queue.isEmpty()) {
+            try {
+                MatchRecord first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // 积压不足一批时稍等，让同一时间结束的对局合并到同一个事务
+                if (!shutdown && batchDelayMillis > 0 && queue.size() + 1 < batchSize) {
+                    Thread.sleep(batchDelayMillis);
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+
+            } catch (InterruptedException e) {
+                if (!batch.isEmpty()) {
+                    dropBatch(batch, "写入线程被中断");
+                }
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批记录，失败时按指数退避重试
+     * @param batch 对局记录
+     */
+    private void writeWithRetry(List<MatchRecord> batch) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                int inserted = matchHistoryDAO.insertBatch(batch);
+                written.addAndGet(inserted);
+                batches.incrementAndGet();
+                return;
+
+            } catch (SQLException e) {
+                if (attempt >= maxRetries || shutdown) {
+                    dropBatch(batch, e.getMessage());
+                    return;
+                }
+
+                long delay = Math.min(MAX_BACKOFF_MILLIS, retryDelayMillis << Math.min(attempt, 16));
+                retries.incrementAndGet();
+                plugin.getLogger().warning("§e对局记录写入失败，" + (delay / 1000) + " 秒后重试 ("
+                        + (attempt + 1) + "/" + maxRetries + ", " + batch.size() + " 场): " + e.getMessage());
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * 放弃一批记录
+     */
+    private void dropBatch(List<MatchRecord> batch, String reason) {
+        dropped.addAndGet(batch.size());
+
+        StringBuilder games = new StringBuilder();
+        for (MatchRecord record : batch) {
+            games.append(' ').append(record.getGameUuid());
+        }
+        plugin.getLogger().severe("§c对局记录写入失败，已放弃 " + batch.size() + " 场 (" + reason + "):" + games);
+    }
+
+    /**
+     * 获取等待写入的对局数量
+     * @return 积压数量
+     */
+    public int getBacklog() {
+        return queue.size();
+    }
+
+    /**
+     * 获取写入器状态描述
+     * @return 状态描述
+     */
+    public String getStatus() {
+        return "已提交: " + submitted.get()
+                + ", 已写入: " + written.get()
+                + " (" + batches.get() + " 批)"
+                + ", 积压: " + getBacklog()
+                + ", 重试: " + retries.get()
+                + ", 拒绝(队列满/已关闭): " + rejected.get()
+                + ", 放弃: " + dropped.get();
+    }
+
+    /**
+     * 关闭写入器（必须在关闭数据库之前调用）
+     * 等待积压的记录写完，超时后放弃剩余记录
+     */
+    public void shutdown() {
+        shutdown = true;
+
+        long timeout = Math.max(1, plugin.getConfig().getLong("database.match-history.shutdown-timeout", 10));
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+            plugin.getLogger().warning("§c对局记录写入超时，剩余 " + queue.size() + " 场未保存");
+        }
+        queue.clear();
+    }
+}
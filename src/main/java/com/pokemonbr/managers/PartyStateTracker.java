@@ -0,0 +1,371 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.Game;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 宝可梦队伍状态跟踪
+ * 记录游戏中每名存活玩家的队伍宝可梦数量，只在 Pixelmon 队伍变化、昏厥、放生和战斗结束事件后重新统计，
+ * 队伍变空时立即交给 PixelmonBattleListener 处理淘汰，不再定时扫描所有玩家
+ *
+ * Pixelmon 事件通过反射注册到 Pixelmon.EVENT_BUS，事件只标记玩家，统计统一在主线程的下一个 tick 执行
+ * 读取失败的玩家以未知数量继续跟踪并定期重试；没有注册到任何事件时退回低频的主线程全量扫描
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class PartyStateTracker {
+
+    // 队伍数量暂时无法读取（等待重试）
+    private static final int UNKNOWN_SIZE = -1;
+
+    // 可能影响队伍数量的 Pixelmon 事件（不同版本类名不同，存在的都会注册）
+    private static final String[] PARTY_EVENT_CLASSES = {
+        "com.pixelmonmod.pixelmon.api.events.battles.BattleEndEvent",
+        "com.pixelmonmod.pixelmon.api.events.storage.ChangeStorageEvent",
+        "com.pixelmonmod.pixelmon.api.events.PixelmonFaintEvent",
+        "com.pixelmonmod.pixelmon.api.events.battles.FaintEvent",
+        "com.pixelmonmod.pixelmon.api.events.PokemonReleasedEvent",
+        "com.pixelmonmod.pixelmon.api.events.ReleasePokemonEvent",
+        "com.pixelmonmod.pixelmon.api.events.PokemonReceivedEvent"
+    };
+
+    // 从事件中取出相关玩家的方法名（按顺序尝试）
+    private static final String[] EVENT_ACCESSORS = {
+        "getPlayer", "getPlayers", "getResults", "getPokemon", "getOwner", "getPlayerUUID", "getUUID"
+    };
+
+    // 从玩家、战斗参与者或宝可梦对象中取出UUID的方法名
+    private static final String[] UUID_ACCESSORS = {
+        "getOwnerPlayerUUID", "getUUID", "getUniqueID", "getUniqueId", "getPlayer"
+    };
+
+    private final Main plugin;
+
+    // 玩家UUID -> 队伍宝可梦数量（仅游戏中的存活玩家，读取失败时为 UNKNOWN_SIZE）
+    private final Map<UUID, Integer> partySizes;
+
+    // 等待重新统计的玩家
+    private final Set<UUID> dirtyPlayers;
+
+    // 已输出过读取失败警告的玩家（之后的失败只记录 fine 日志，避免重试刷屏）
+    private final Set<UUID> readFailureWarned;
+
+    // 是否已安排下一个 tick 统计
+    private final AtomicBoolean flushScheduled;
+
+    // 事件类 -> 可用的取值方法
+    private final Map<Class<?>, List<Method>> accessorCache;
+
+    // 队伍存储反射句柄
+    private Object storageManager;
+    private Method getPartyMethod;
+
+    private int registeredEvents;
+
+    // 重试与兜底扫描任务
+    private BukkitTask scanTask;
+    private int scanRounds;
+
+    public PartyStateTracker(Main plugin) {
+        this.plugin = plugin;
+        this.partySizes = new ConcurrentHashMap<>();
+        this.dirtyPlayers = ConcurrentHashMap.newKeySet();
+        this.readFailureWarned = ConcurrentHashMap.newKeySet();
+        this.flushScheduled = new AtomicBoolean(false);
+        this.accessorCache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 注册 Pixelmon 事件
+     * @return 是否至少注册了一个事件
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public boolean start() {
+        try {
+            Class<?> pixelmonClass = Class.forName("com.pixelmonmod.pixelmon.Pixelmon");
+            storageManager = pixelmonClass.getField("storageManager").get(null);
+            getPartyMethod = storageManager.getClass().getMethod("getParty", UUID.class);
+
+            Object eventBus = pixelmonClass.getField("EVENT_BUS").get(null);
+            Class<?> priorityClass = Class.forName("net.minecraftforge.eventbus.api.EventPriority");
+            Object lowest = Enum.valueOf((Class<Enum>) priorityClass, "LOWEST");
+            Method addListener = eventBus.getClass()
+                    .getMethod("addListener", priorityClass, boolean.class, Class.class, Consumer.class);
+
+            Consumer<Object> handler = this::onPartyEvent;
+            for (String className : PARTY_EVENT_CLASSES) {
+                try {
+                    addListener.invoke(eventBus, lowest, false, Class.forName(className), handler);
+                    registeredEvents++;
+                    plugin.getLogger().info("§a✓ 队伍状态事件已注册: " + className);
+                } catch (ClassNotFoundException e) {
+                    // 当前版本没有该事件，继续尝试下一个
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("§c队伍状态事件注册失败: " + e.getMessage());
+        }
+
+        if (registeredEvents == 0) {
+            plugin.getLogger().warning("§c未注册任何队伍状态事件，改为每 " + getFallbackScanInterval() + " 秒扫描一次存活玩家的队伍");
+        }
+
+        startScanTask();
+        return registeredEvents > 0;
+    }
+
+    /**
+     * 启动重试与兜底扫描任务（主线程）
+     * 每次重试读取失败的玩家；未注册任何事件时，每隔兜底间隔重新统计所有存活玩家
+     */
+    private void startScanTask() {
+        long interval = getRetryInterval() * 20L;
+        scanTask = Bukkit.getScheduler().runTaskTimer(plugin, this::scan, interval, interval);
+    }
+
+    /**
+     * 标记需要重新统计的玩家
+     */
+    private void scan() {
+        if (partySizes.isEmpty()) {
+            return;
+        }
+
+        boolean fullScan = false;
+        if (registeredEvents == 0) {
+            int rounds = Math.max(1, getFallbackScanInterval() / getRetryInterval());
+            if (++scanRounds >= rounds) {
+                scanRounds = 0;
+                fullScan = true;
+            }
+        }
+
+        for (Map.Entry<UUID, Integer> entry : partySizes.entrySet()) {
+            if (fullScan || entry.getValue() == UNKNOWN_SIZE) {
+                markDirty(entry.getKey());
+            }
+        }
+    }
+
+    private int getRetryInterval() {
+        return Math.max(1, plugin.getConfig().getInt("elimination.party-check.retry-interval", 5));
+    }
+
+    private int getFallbackScanInterval() {
+        return Math.max(1, plugin.getConfig().getInt("elimination.party-check.fallback-scan-interval", 30));
+    }
+
+    /**
+     * 开始跟踪游戏中的所有存活玩家（游戏开始时在主线程调用）
+     * 读取失败的玩家同样跟踪，由扫描任务重试
+     * @param game 游戏实例
+     */
+    public void trackGame(Game game) {
+        for (UUID uuid : game.getAlivePlayers()) {
+            partySizes.put(uuid, readPartySize(uuid));
+        }
+    }
+
+    /**
+     * 重新统计游戏中所有存活玩家（无敌时间结束、开始允许淘汰时调用一次）
+     * @param game 游戏实例
+     */
+    public void recheckGame(Game game) {
+        for (UUID uuid : game.getAlivePlayers()) {
+            markDirty(uuid);
+        }
+    }
+
+    /**
+     * 停止跟踪游戏中的所有玩家
+     * @param game 游戏实例
+     */
+    public void untrackGame(Game game) {
+        for (UUID uuid : game.getPlayers().keySet()) {
+            untrack(uuid);
+        }
+    }
+
+    /**
+     * 停止跟踪玩家（淘汰或离开游戏时）
+     * @param uuid 玩家UUID
+     */
+    public void untrack(UUID uuid) {
+        partySizes.remove(uuid);
+        dirtyPlayers.remove(uuid);
+        readFailureWarned.remove(uuid);
+    }
+
+    /**
+     * 获取缓存的队伍宝可梦数量
+     * @param uuid 玩家UUID
+     * @return 数量，未跟踪或暂时无法读取时返回-1
+     */
+    public int getPartySize(UUID uuid) {
+        Integer size = partySizes.get(uuid);
+        return size != null ? size : UNKNOWN_SIZE;
+    }
+
+    /**
+     * 标记玩家的队伍已变化，在下一个 tick 重新统计（可在任意线程调用）
+     * @param uuid 玩家UUID
+     */
+    public void markDirty(UUID uuid) {
+        if (uuid == null || !partySizes.containsKey(uuid)) {
+            return;
+        }
+
+        dirtyPlayers.add(uuid);
+        if (flushScheduled.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTask(plugin, this::flush);
+        }
+    }
+
+    /**
+     * 重新统计已标记玩家的队伍（主线程）
+     */
+    private void flush() {
+        flushScheduled.set(false);
+
+        for (Iterator<UUID> it = dirtyPlayers.iterator(); it.hasNext(); ) {
+            UUID uuid = it.next();
+            it.remove();
+
+            if (!partySizes.containsKey(uuid)) {
+                continue;
+            }
+
+            // 读取失败时记为未知，由扫描任务重试
+            int size = readPartySize(uuid);
+            partySizes.put(uuid, size);
+
+            if (size == 0) {
+                Player player = Bukkit.getPlayer(uuid);
+                if (player != null && player.isOnline()) {
+                    plugin.getPixelmonBattleListener().handleEmptyParty(player);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pixelmon 事件回调，只标记相关玩家
+     */
+    private void onPartyEvent(Object event) {
+        try {
+            for (Method accessor : getAccessors(event.getClass())) {
+                collectPlayers(accessor.invoke(event), 0);
+            }
+        } catch (Exception e) {
+            // 事件结构与预期不同时忽略，避免日志刷屏
+        }
+    }
+
+    /**
+     * 获取事件类上可用的取值方法（缓存）
+     */
+    private List<Method> getAccessors(Class<?> eventClass) {
+        return accessorCache.computeIfAbsent(eventClass, type -> {
+            List<Method> methods = new ArrayList<>();
+            for (String name : EVENT_ACCESSORS) {
+                try {
+                    methods.add(type.getMethod(name));
+                } catch (NoSuchMethodException e) {
+                    // 该事件没有此方法
+                }
+            }
+            return methods;
+        });
+    }
+
+    /**
+     * 从事件返回值中找出玩家UUID并标记（支持玩家、UUID、集合、Map的键、战斗参与者和宝可梦）
+     */
+    private void collectPlayers(Object value, int depth) {
+        if (value == null || depth > 2) {
+            return;
+        }
+
+        if (value instanceof UUID) {
+            markDirty((UUID) value);
+        } else if (value instanceof Player) {
+            markDirty(((Player) value).getUniqueId());
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                collectPlayers(element, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            for (Object key : ((Map<?, ?>) value).keySet()) {
+                collectPlayers(key, depth + 1);
+            }
+        } else {
+            for (String name : UUID_ACCESSORS) {
+                try {
+                    Object result = value.getClass().getMethod(name).invoke(value);
+                    if (result != null) {
+                        collectPlayers(result, depth + 1);
+                        return;
+                    }
+                } catch (Exception e) {
+                    // 继续尝试下一个方法
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取玩家队伍中的宝可梦数量（主线程）
+     * @param uuid 玩家UUID
+     * @return 数量，读取失败时返回 UNKNOWN_SIZE
+     */
+    private int readPartySize(UUID uuid) {
+        if (getPartyMethod == null) {
+            return UNKNOWN_SIZE;
+        }
+
+        try {
+            Object party = getPartyMethod.invoke(storageManager, uuid);
+            if (party == null) {
+                return UNKNOWN_SIZE;
+            }
+            Object count = party.getClass().getMethod("countPokemon").invoke(party);
+            return count instanceof Integer ? (Integer) count : UNKNOWN_SIZE;
+        } catch (Exception e) {
+            // 每名玩家只警告一次，重试失败降为 fine
+            if (readFailureWarned.add(uuid)) {
+                plugin.getLogger().warning("§c无法获取玩家宝可梦数量，将定期重试: " + uuid + " (" + e.getMessage() + ")");
+            } else {
+                plugin.getLogger().fine("无法获取玩家宝可梦数量: " + uuid + " (" + e.getMessage() + ")");
+            }
+            return UNKNOWN_SIZE;
+        }
+    }
+
+    public int getRegisteredEventCount() {
+        return registeredEvents;
+    }
+
+    /**
+     * 停止扫描任务并清空跟踪数据
+     */
+    public void shutdown() {
+        if (scanTask != null) {
+            scanTask.cancel();
+            scanTask = null;
+        }
+
+        partySizes.clear();
+        dirtyPlayers.clear();
+        readFailureWarned.clear();
+    }
+}
@@ -0,0 +1,235 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.Game;
+import com.pokemonbr.models.MatchQueue;
+import com.pokemonbr.models.QueueState;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+
+/**
+ * 队列一致性检查
+ * 定期在主线程检查队列、匹配池、游戏和世界之间的状态是否一致，用于在高负载下发现并发问题:
+ * 玩家同时在多个队列、队列映射与队列成员不一致、名额计数偏差、玩家同时在队列和游戏中、
+ * 进行中的队列没有对应游戏、多个队列绑定同一世界、长时间无人认领的孤立世界
+ *
+ * 只报告问题，不做修复，修复仍由各管理器自身的逻辑负责
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class QueueAuditor {
+
+    // 保留的最近问题数量
+    private static final int RECENT_LIMIT = 20;
+
+    private final Main plugin;
+
+    // 检查任务
+    private BukkitTask auditTask;
+
+    // 问题类型 -> 累计次数
+    private final Map<String, Long> violationCounts;
+
+    // 最近发现的问题
+    private final Deque<String> recentViolations;
+
+    // 世界名称 -> 首次发现无人认领的时间
+    private final Map<String, Long> unclaimedWorlds;
+
+    // 累计检查次数
+    private long auditCount;
+
+    public QueueAuditor(Main plugin) {
+        this.plugin = plugin;
+        this.violationCounts = new LinkedHashMap<>();
+        this.recentViolations = new ArrayDeque<>();
+        this.unclaimedWorlds = new HashMap<>();
+    }
+
+    /**
+     * 启动定期检查
+     */
+    public void start() {
+        if (!plugin.getConfig().getBoolean("queue.audit.enabled", true)) {
+            return;
+        }
+
+        long interval = Math.max(1, plugin.getConfig().getLong("queue.audit.interval", 30)) * 20L;
+        auditTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            List<String> violations = audit();
+            for (String violation : violations) {
+                plugin.getLogger().warning("§c[一致性检查] " + violation);
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * 执行一次检查（主线程调用）
+     * @return 本次发现的问题
+     */
+    public List<String> audit() {
+        List<String> violations = new ArrayList<>();
+        QueueManager queueManager = plugin.getQueueManager();
+        GameManager gameManager = plugin.getGameManager();
+
+        Map<UUID, Integer> seenInQueue = new HashMap<>();
+        Map<String, Integer> boundWorlds = new HashMap<>();
+        Set<Integer> gameQueueIds = new HashSet<>();
+        Set<String> gameWorlds = new HashSet<>();
+
+        for (Game game : gameManager.getActiveGames()) {
+            gameQueueIds.add(game.getQueueId());
+            if (game.getGameWorld() != null) {
+                gameWorlds.add(game.getGameWorld().getName());
+            }
+        }
+
+        for (MatchQueue queue : queueManager.getAllQueues()) {
+            int queueId = queue.getQueueId();
+            QueueState state = queue.getState();
+            Set<UUID> players = queue.getPlayers();
+
+            // 名额计数与成员集合
+            if (queue.getPlayerCount() != players.size()) {
+                report(violations, "occupancy-mismatch", "队列 #" + queueId + " 名额计数 "
+                        + queue.getPlayerCount() + " 与成员数 " + players.size() + " 不一致");
+            }
+
+            // 多个队列绑定同一世界
+            String worldName = queue.getWorldName();
+            if (worldName != null) {
+                Integer other = boundWorlds.put(worldName, queueId);
+                if (other != null) {
+                    report(violations, "world-shared", "世界 " + worldName + " 同时绑定到队列 #"
+                            + other + " 和 #" + queueId);
+                }
+            }
+
+            // 进行中的队列必须有对应游戏
+            if (state == QueueState.IN_GAME && !gameQueueIds.contains(queueId)) {
+                report(violations, "queue-without-game", "队列 #" + queueId + " 处于游戏中但没有对应的游戏实例");
+            }
+
+            // 已开始的队列成员已移交给游戏，不再检查队列映射
+            if (state == QueueState.STARTING || state == QueueState.IN_GAME || state == QueueState.RECYCLING) {
+                continue;
+            }
+
+            for (UUID uuid : players) {
+                Integer other = seenInQueue.put(uuid, queueId);
+                if (other != null) {
+                    report(violations, "player-in-two-queues", "玩家 " + uuid + " 同时在队列 #"
+                            + other + " 和 #" + queueId);
+                }
+
+                Integer mapped = queueManager.getPlayerQueueIds().get(uuid);
+                if (mapped == null || mapped != queueId) {
+                    report(violations, "map-mismatch", "玩家 " + uuid + " 在队列 #" + queueId
+                            + " 中，但映射指向 " + (mapped == null ? "无" : "#" + mapped));
+                }
+
+                if (queueManager.getMatchmaker().contains(uuid)) {
+                    report(violations, "queue-and-matchmaker", "玩家 " + uuid + " 同时在队列 #"
+                            + queueId + " 和评分匹配池中");
+                }
+
+                if (gameManager.isInGame(uuid)) {
+                    report(violations, "queue-and-game", "玩家 " + uuid + " 同时在队列 #"
+                            + queueId + " 和游戏中");
+                }
+            }
+        }
+
+        // 映射指向的队列必须存在且包含该玩家
+        for (Map.Entry<UUID, Integer> entry : queueManager.getPlayerQueueIds().entrySet()) {
+            MatchQueue queue = queueManager.getQueue(entry.getValue());
+            if (queue == null) {
+                report(violations, "map-dangling", "玩家 " + entry.getKey() + " 的映射指向不存在的队列 #"
+                        + entry.getValue());
+            } else if (!queue.getPlayers().contains(entry.getKey())) {
+                report(violations, "map-mismatch", "玩家 " + entry.getKey() + " 的映射指向队列 #"
+                        + entry.getValue() + "，但不在该队列中");
+            }
+        }
+
+        checkOrphanWorlds(violations, boundWorlds.keySet(), gameWorlds);
+
+        auditCount++;
+        return violations;
+    }
+
+    /**
+     * 检查孤立世界: 已加载的副本世界既未绑定队列、也不在预热池或游戏中，
+     * 且超过宽限时间（回收前的延迟删除期间属于正常情况）
+     */
+    private void checkOrphanWorlds(List<String> violations, Set<String> boundWorlds, Set<String> gameWorlds) {
+        WorldTemplateManager worldTemplateManager = plugin.getWorldTemplateManager();
+        long grace = Math.max(0, plugin.getConfig().getLong("queue.audit.orphan-world-grace", 120)) * 1000L;
+        long now = System.currentTimeMillis();
+
+        Set<String> unclaimed = new HashSet<>();
+        for (World world : worldTemplateManager.getAllActiveWorlds()) {
+            String worldName = world.getName();
+            if (boundWorlds.contains(worldName) || gameWorlds.contains(worldName)
+                    || worldTemplateManager.getWorldPool().isPooled(worldName)
+                    || worldTemplateManager.isCopying(worldName)) {
+                continue;
+            }
+
+            unclaimed.add(worldName);
+            long since = unclaimedWorlds.computeIfAbsent(worldName, k -> now);
+            if (now - since >= grace) {
+                report(violations, "orphan-world", "世界 " + worldName + " 已 "
+                        + ((now - since) / 1000) + " 秒无人认领");
+            }
+        }
+
+        unclaimedWorlds.keySet().retainAll(unclaimed);
+    }
+
+    /**
+     * 记录一个问题
+     */
+    private void report(List<String> violations, String type, String description) {
+        violations.add(description);
+        violationCounts.merge(type, 1L, Long::sum);
+
+        recentViolations.addFirst(description);
+        while (recentViolations.size() > RECENT_LIMIT) {
+            recentViolations.removeLast();
+        }
+    }
+
+    /**
+     * 获取各类问题的累计次数
+     * @return Map<问题类型, 次数>
+     */
+    public Map<String, Long> getViolationCounts() {
+        return Collections.unmodifiableMap(violationCounts);
+    }
+
+    /**
+     * 获取最近发现的问题（新的在前）
+     * @return 问题描述
+     */
+    public List<String> getRecentViolations() {
+        return new ArrayList<>(recentViolations);
+    }
+
+    public long getAuditCount() {
+        return auditCount;
+    }
+
+    /**
+     * 停止定期检查
+     */
+    public void shutdown() {
+        if (auditTask != null) {
+            auditTask.cancel();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.QueueType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 队列需求统计
+ * 按队列类型统计玩家加入速率（指数加权移动平均），并统计世界从开始准备到可用的耗时
+ * QueueManager 根据两者预测当前队列何时坐满，提前准备下一个队列的世界
+ * 同时累计人数不足队列的合并次数
+ *
+ * 只在主线程调用
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class QueueDemandTracker {
+
+    // 世界准备耗时的平滑系数（每个样本）
+    private static final double PROVISION_ALPHA = 0.3;
+
+    private final Main plugin;
+
+    // 队列类型 -> 本秒内加入次数
+    private final Map<QueueType, Integer> pendingJoins;
+
+    // 队列类型 -> 加入速率（人/秒）
+    private final Map<QueueType, Double> arrivalRates;
+
+    // 世界准备耗时（秒）
+    private double provisionSeconds;
+
+    // 队列合并统计
+    private long mergeCount;
+    private long mergedPlayers;
+    private long worldsReturnedToPool;
+
+    public QueueDemandTracker(Main plugin) {
+        this.plugin = plugin;
+        this.pendingJoins = new EnumMap<>(QueueType.class);
+        this.arrivalRates = new EnumMap<>(QueueType.class);
+        this.provisionSeconds = Math.max(1.0,
+                plugin.getConfig().getDouble("queue.predictive-provisioning.initial-provision-seconds", 10.0));
+
+        for (QueueType type : QueueType.values()) {
+            pendingJoins.put(type, 0);
+            arrivalRates.put(type, 0.0);
+        }
+    }
+
+    /**
+     * 记录一次玩家加入
+     * @param queueType 队列类型
+     */
+    public void recordJoin(QueueType queueType) {
+        pendingJoins.put(queueType, pendingJoins.get(queueType) + 1);
+    }
+
+    /**
+     * 记录一次世界准备耗时
+     * @param millis 耗时（毫秒）
+     */
+    public void recordProvisionTime(long millis) {
+        provisionSeconds += PROVISION_ALPHA * (millis / 1000.0 - provisionSeconds);
+    }
+
+    /**
+     * 记录一次队列合并
+     * @param movedPlayers 转移的玩家数量
+     * @param returnedToPool 释放的世界是否回到预热池
+     */
+    public void recordMerge(int movedPlayers, boolean returnedToPool) {
+        mergeCount++;
+        mergedPlayers += movedPlayers;
+        if (returnedToPool) {
+            worldsReturnedToPool++;
+        }
+    }
+
+    /**
+     * 每秒调用一次，把本秒的加入次数计入移动平均
+     */
+    public void tick() {
+        double window = Math.max(1.0, plugin.getConfig().getDouble("queue.predictive-provisioning.rate-window", 180.0));
+        double alpha = 1.0 - Math.exp(-1.0 / window);
+
+        for (QueueType type : QueueType.values()) {
+            double rate = arrivalRates.get(type);
+            int joins = pendingJoins.put(type, 0);
+            arrivalRates.put(type, rate + alpha * (joins - rate));
+        }
+    }
+
+    /**
+     * 获取加入速率
+     * @param queueType 队列类型
+     * @return 人/秒
+     */
+    public double getArrivalRate(QueueType queueType) {
+        return arrivalRates.get(queueType);
+    }
+
+    /**
+     * 获取加入速率
+     * @param queueType 队列类型
+     * @return 人/分钟
+     */
+    public double getArrivalRatePerMinute(QueueType queueType) {
+        return arrivalRates.get(queueType) * 60.0;
+    }
+
+    /**
+     * 获取平均世界准备耗时
+     * @return 秒
+     */
+    public double getProvisionSeconds() {
+        return provisionSeconds;
+    }
+
+    /**
+     * 获取队列合并次数
+     * @return 合并次数
+     */
+    public long getMergeCount() {
+        return mergeCount;
+    }
+
+    /**
+     * 获取合并时移动的玩家总数
+     * @return 玩家数量
+     */
+    public long getMergedPlayers() {
+        return mergedPlayers;
+    }
+
+    /**
+     * 获取合并后回到预热池的世界数量
+     * @return 世界数量
+     */
+    public long getWorldsReturnedToPool() {
+        return worldsReturnedToPool;
+    }
+}
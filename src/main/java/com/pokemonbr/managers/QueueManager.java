@@ -8,17 +8,18 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 匹配队列管理器
  * 管理基于世界的玩家匹配队列
  * 支持三种队列类型: 普通队列、VIP队列、管理员队列
  * 每个队列绑定一个独立的世界实例
+ * 队列状态由 MatchQueue 原子转换，世界准备完成后统一回到主线程处理
  *
  * @author l1ang_Y5n
  * @qq 235236127
@@ -29,80 +30,125 @@ public class QueueManager {
     private final WorldTemplateManager worldTemplateManager;
 
     // 队列ID -> 队列对象
-    private Map<Integer, MatchQueue> queues = new ConcurrentHashMap<>();
+    private final Map<Integer, MatchQueue> queues;
 
     // 玩家UUID -> 队列ID（快速查找玩家在哪个队列）
-    private Map<UUID, Integer> playerQueueMap = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> playerQueueMap;
 
     // 队列类型 -> 队列索引计数器 (用于自动扩展队列)
-    private final Map<QueueType, Integer> queueIndexCounters;
+    private final Map<QueueType, AtomicInteger> queueIndexCounters;
 
-    // 倒计时任务
-    private BukkitTask countdownTask;
+    // 按队列类型索引的可加入队列（人数多的优先）
+    private final ReadyQueueIndex readyQueues = new ReadyQueueIndex();
+
+    // 计分队列的评分匹配池
+    private final RatingMatchmaker matchmaker;
+
+    // 加入速率与世界准备耗时统计
+    private final QueueDemandTracker demandTracker;
+
+    // 延迟统计
+    private final LatencyMetrics latencyMetrics;
+
+    // 玩家UUID -> 加入时间（进入匹配池或队列）
+    private final Map<UUID, Long> joinTimes;
+
+    // 玩家UUID -> 进入已绑定世界的队列的时间
+    private final Map<UUID, Long> admitTimes;
+
+    // 显示准备标题的最后秒数
+    private static final int READY_TITLE_SECONDS = 5;
+
+    // 预先生成的倒计时消息，下标为剩余秒数（配置重载时重新生成）
+    private String[] countdownFrames;
+
+    // 预先生成的准备标题与副标题，下标为剩余秒数
+    private String readyTitleFrame;
+    private String[] readySubtitleFrames;
 
     // 队列ID计数器
-    private int queueIdCounter = 1;
+    private final AtomicInteger queueIdCounter = new AtomicInteger(1);
 
-    // 正在创建的队列类型集合（防止并发创建）
-    private final Set<QueueType> creatingQueues = ConcurrentHashMap.newKeySet();
+    // 距上次合并检查经过的秒数
+    private int mergeTicks = 0;
 
     public QueueManager(Main plugin, WorldTemplateManager worldTemplateManager) {
         this.plugin = plugin;
         this.worldTemplateManager = worldTemplateManager;
-        this.queues = new HashMap<>();
-        this.playerQueueMap = new HashMap<>();
-        this.queueIndexCounters = new HashMap<>();
+        this.queues = new ConcurrentHashMap<>();
+        this.playerQueueMap = new ConcurrentHashMap<>();
+        this.queueIndexCounters = new ConcurrentHashMap<>();
+        this.joinTimes = new ConcurrentHashMap<>();
+        this.admitTimes = new ConcurrentHashMap<>();
+        this.latencyMetrics = plugin.getLatencyMetrics();
 
         // 初始化队列索引计数器
         for (QueueType type : QueueType.values()) {
-            queueIndexCounters.put(type, 1);
+            queueIndexCounters.put(type, new AtomicInteger(1));
         }
 
-        // 启动倒计时任务
-        startCountdownTask();
+        this.matchmaker = new RatingMatchmaker(plugin, this);
+        this.demandTracker = new QueueDemandTracker(plugin);
+
+        reloadCountdownFrames();
 
         plugin.getLogger().info("§a队列管理器已初始化（多队列类型模式）");
     }
 
     /**
-     * 启动倒计时任务
+     * 更新队列倒计时（由 GameTickScheduler 每秒调用一次，不同队列分散在不同 tick）
+     * @param queue 队列
      */
-    private void startCountdownTask() {
-        countdownTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            for (MatchQueue queue : queues.values()) {
-                if (queue.getState() == QueueState.COUNTDOWN) {
-                    int remaining = queue.decrementCountdown();
-
-                    // 广播倒计时
-                    if (remaining > 0) {
-                        broadcastToQueue(queue, getMessage("queue.countdown")
-                                .replace("{time}", String.valueOf(remaining)));
-
-                        // 显示准备倒计时Title (最后5秒)
-                        if (remaining <= 5) {
-                            for (UUID uuid : queue.getPlayers()) {
-                                Player player = Bukkit.getPlayer(uuid);
-                                if (player != null && player.isOnline()) {
-                                    String title = getMessage("queue.ready-title");
-                                    String subtitle = getMessage("queue.ready-subtitle")
-                                            .replace("{time}", String.valueOf(remaining));
-                                    player.sendTitle(title, subtitle, 10, 20, 10);
-                                }
-                            }
-                        }
-                    } else {
-                        // 倒计时结束，开始游戏
-                        startGame(queue);
+    public void tickCountdown(MatchQueue queue) {
+        if (queue.getState() != QueueState.COUNTDOWN) {
+            return;
+        }
+
+        int remaining = queue.decrementCountdown();
+
+        // 广播倒计时
+        if (remaining > 0) {
+            broadcastToQueue(queue, getCountdownFrame(remaining));
+
+            // 显示准备倒计时Title (最后5秒)
+            if (remaining <= READY_TITLE_SECONDS) {
+                String subtitle = readySubtitleFrames[remaining];
+                for (Player player : queue.getAudience()) {
+                    if (player.isOnline()) {
+                        player.sendTitle(readyTitleFrame, subtitle, 10, 20, 10);
                     }
                 }
             }
-        }, 20L, 20L); // 每秒执行一次
+        } else {
+            // 倒计时结束，开始游戏
+            startGame(queue);
+        }
+    }
+
+    /**
+     * 队列维护（由 GameTickScheduler 每秒调用一次）
+     * 评分匹配成组，统计加入速率并提前准备世界，定期合并人数不足的队列
+     */
+    public void tickMaintenance() {
+        // 评分匹配: 扩大匹配范围并尝试成组
+        matchmaker.tick();
+
+        // 根据加入速率提前准备世界
+        demandTracker.tick();
+        provisionAhead();
+
+        // 定期合并人数不足的队列
+        int mergeInterval = Math.max(1, plugin.getConfig().getInt("queue.merge.interval", 10));
+        if (++mergeTicks >= mergeInterval) {
+            mergeTicks = 0;
+            mergeUnderfilledQueues();
+        }
     }
 
     /**
      * 玩家加入队列
      * 根据权限自动分配到对应队列类型
-     * 如果队列满了，自动扩展新队列
+     * 启用评分匹配的队列类型先进入匹配池，其余直接分配队列
      * @param player 玩家
      * @return 是否成功
      */
@@ -113,6 +159,12 @@ public class QueueManager {
             return false;
         }
 
+        // 队长排队时整个小队一起加入
+        List<Player> partyMembers = plugin.getInviteManager().getAvailablePartyMembers(player);
+        if (partyMembers.size() > 1) {
+            return joinQueueAsParty(player, partyMembers);
+        }
+
         // 检查游玩次数（仅对计分模式队列）
         QueueType targetQueueType = determineQueueType(player);
         if (targetQueueType.isRanked()) {
@@ -123,49 +175,202 @@ public class QueueManager {
             }
         }
 
+        demandTracker.recordJoin(targetQueueType);
+        joinTimes.put(player.getUniqueId(), System.currentTimeMillis());
+
+        // 按评分匹配实力相近的玩家后再组成队列
+        if (matchmaker.appliesTo(targetQueueType)) {
+            matchmaker.enqueue(player, targetQueueType);
+            return true;
+        }
+
+        return placeInQueue(player, targetQueueType);
+    }
+
+    /**
+     * 将玩家分配到指定类型的队列
+     * 没有可加入的队列时，加入同类型正在创建的队列，或创建新队列
+     * @param player 玩家
+     * @param targetQueueType 队列类型
+     * @return 是否成功
+     */
+    public boolean placeInQueue(Player player, QueueType targetQueueType) {
         // 查找可用队列
         MatchQueue availableQueue = findAvailableQueue(targetQueueType);
 
-        // 如果没有可用队列，检查是否正在创建中
+        // 没有可用队列时，先加入正在准备世界的同类型队列
         if (availableQueue == null) {
-            if (creatingQueues.contains(targetQueueType)) {
-                // 有同类型队列正在创建中，提示等待
-                sendMessage(player, "queue.preparing-world");
-                sendMessage(player, "queue.world-creation-in-progress");
-                return true;
+            availableQueue = findCreatingQueue(targetQueueType, 1);
+
+            if (availableQueue == null) {
+                if (!canCreateQueue()) {
+                    // 同时准备的世界已达上限，提示稍后再试
+                    sendMessage(player, "queue.preparing-world");
+                    sendMessage(player, "queue.world-creation-in-progress");
+                    joinTimes.remove(player.getUniqueId());
+                    return false;
+                }
+
+                availableQueue = createNewQueue(targetQueueType);
             }
 
             sendMessage(player, "queue.preparing-world");
-            createNewQueueAsync(player, targetQueueType);
-            return true;
         }
 
-        // 添加到队列
-        if (availableQueue.addPlayer(player)) {
-            playerQueueMap.put(player.getUniqueId(), availableQueue.getQueueId());
+        // 添加到队列（CAS 占用名额，失败说明队列已满或已停止接受玩家）
+        if (!availableQueue.addPlayer(player)) {
+            sendMessage(player, "queue.join-failed");
+            joinTimes.remove(player.getUniqueId());
+            return false;
+        }
 
-            // 发送消息
-            sendMessage(player, "queue.joined",
-                    "{queue}", availableQueue.getFullQueueName(),
-                    "{current}", String.valueOf(availableQueue.getPlayerCount()),
-                    "{max}", String.valueOf(availableQueue.getMaxPlayers()));
+        playerQueueMap.put(player.getUniqueId(), availableQueue.getQueueId());
+        readyQueues.update(availableQueue);
+        joinTimes.putIfAbsent(player.getUniqueId(), System.currentTimeMillis());
+        recordAdmitted(availableQueue, Collections.singletonList(player.getUniqueId()));
+
+        // 发送消息
+        sendMessage(player, "queue.joined",
+                "{queue}", availableQueue.getFullQueueName(),
+                "{current}", String.valueOf(availableQueue.getPlayerCount()),
+                "{max}", String.valueOf(availableQueue.getMaxPlayers()));
+
+        // 如果是计分模式，显示剩余次数
+        if (targetQueueType.isRanked()) {
+            int remaining = plugin.getPlayerDataManager().getRemainingPlays(player);
+            sendMessage(player, "queue.plays-remaining",
+                    "{plays}", String.valueOf(remaining));
+        }
 
-            // 如果是计分模式，显示剩余次数
-            if (targetQueueType.isRanked()) {
-                int remaining = plugin.getPlayerDataManager().getRemainingPlays(player);
-                sendMessage(player, "queue.plays-remaining",
-                        "{plays}", String.valueOf(remaining));
+        // 检查是否达到最小人数（创建中的队列在世界就绪后再检查）
+        if (availableQueue.hasMinPlayers() && availableQueue.getState() == QueueState.WAITING) {
+            startCountdown(availableQueue);
+        }
+
+        return true;
+    }
+
+    /**
+     * 小队整体加入队列
+     * 所有成员一次性占用同一个队列的名额，没有足够名额的队列时创建新队列，保证小队不会被拆散
+     * @param leader 队长
+     * @param members 所有成员（包含队长）
+     * @return 是否成功
+     */
+    public boolean joinQueueAsParty(Player leader, List<Player> members) {
+        for (Player member : members) {
+            if (isInQueue(member)) {
+                sendMessage(leader, "queue.party-member-busy", "{player}", member.getName());
+                return false;
+            }
+        }
+
+        // 取所有成员都有权限的队列类型（枚举顺序: 普通 < VIP < 管理员）
+        QueueType targetQueueType = determineQueueType(leader);
+        for (Player member : members) {
+            QueueType memberType = determineQueueType(member);
+            if (memberType.ordinal() < targetQueueType.ordinal()) {
+                targetQueueType = memberType;
             }
+        }
 
-            // 检查是否达到最小人数
-            if (availableQueue.hasMinPlayers() && availableQueue.getState() == QueueState.WAITING) {
-                startCountdown(availableQueue);
+        // 检查每个成员的游玩次数（仅对计分模式队列）
+        if (targetQueueType.isRanked()) {
+            for (Player member : members) {
+                if (plugin.getPlayerDataManager().getRemainingPlays(member) <= 0) {
+                    sendMessage(member, "queue.no-plays-left");
+                    sendMessage(leader, "queue.party-member-no-plays", "{player}", member.getName());
+                    return false;
+                }
             }
+        }
 
-            return true;
+        int seats = members.size();
+        int maxPlayers = plugin.getConfig().getInt("queue.queues." + targetQueueType.getConfigKey() + ".max-players", 20);
+        if (seats > maxPlayers) {
+            sendMessage(leader, "queue.party-too-large", "{max}", String.valueOf(maxPlayers));
+            return false;
+        }
+
+        List<UUID> uuids = new ArrayList<>(seats);
+        for (Player member : members) {
+            uuids.add(member.getUniqueId());
+        }
+
+        // 依次尝试: 已就绪的队列 -> 正在准备的队列 -> 新队列，名额检查与加入是同一次原子操作
+        MatchQueue queue = readyQueues.peek(targetQueueType, seats);
+        if (queue == null || !queue.addPlayers(uuids)) {
+            queue = findCreatingQueue(targetQueueType, seats);
+
+            if (queue == null || !queue.addPlayers(uuids)) {
+                if (!canCreateQueue()) {
+                    sendMessage(leader, "queue.world-creation-in-progress");
+                    return false;
+                }
+
+                queue = createNewQueue(targetQueueType);
+                if (!queue.addPlayers(uuids)) {
+                    sendMessage(leader, "queue.join-failed");
+                    return false;
+                }
+            }
+        }
+
+        long joinedAt = System.currentTimeMillis();
+        for (UUID uuid : uuids) {
+            playerQueueMap.put(uuid, queue.getQueueId());
+            demandTracker.recordJoin(targetQueueType);
+            joinTimes.put(uuid, joinedAt);
+        }
+        readyQueues.update(queue);
+        recordAdmitted(queue, uuids);
+
+        for (Player member : members) {
+            if (queue.getState() == QueueState.CREATING) {
+                sendMessage(member, "queue.preparing-world");
+            }
+            sendMessage(member, "queue.joined",
+                    "{queue}", queue.getFullQueueName(),
+                    "{current}", String.valueOf(queue.getPlayerCount()),
+                    "{max}", String.valueOf(queue.getMaxPlayers()));
+        }
+
+        plugin.getLogger().info("§7小队 (" + seats + " 人, 队长 " + leader.getName() + ") 加入 "
+                + queue.getFullQueueName() + " (#" + queue.getQueueId() + ")");
+
+        if (queue.hasMinPlayers() && queue.getState() == QueueState.WAITING) {
+            startCountdown(queue);
+        }
+
+        return true;
+    }
+
+    /**
+     * 将玩家加入指定队列（小队成员追加到队长所在队列）
+     * @param player 玩家
+     * @param queue 目标队列
+     * @return 是否成功
+     */
+    public boolean joinSpecificQueue(Player player, MatchQueue queue) {
+        if (isInQueue(player) || queues.get(queue.getQueueId()) != queue || !queue.addPlayer(player)) {
+            return false;
         }
 
-        return false;
+        playerQueueMap.put(player.getUniqueId(), queue.getQueueId());
+        demandTracker.recordJoin(queue.getQueueType());
+        readyQueues.update(queue);
+        joinTimes.put(player.getUniqueId(), System.currentTimeMillis());
+        recordAdmitted(queue, Collections.singletonList(player.getUniqueId()));
+
+        sendMessage(player, "queue.joined",
+                "{queue}", queue.getFullQueueName(),
+                "{current}", String.valueOf(queue.getPlayerCount()),
+                "{max}", String.valueOf(queue.getMaxPlayers()));
+
+        if (queue.hasMinPlayers() && queue.getState() == QueueState.WAITING) {
+            startCountdown(queue);
+        }
+        return true;
     }
 
     /**
@@ -193,27 +398,60 @@ public class QueueManager {
      * @return 可用队列 或 null
      */
     private MatchQueue findAvailableQueue(QueueType queueType) {
+        // 队列必须: 类型匹配、未满、等待中、已绑定世界（由索引维护）
+        return readyQueues.peek(queueType);
+    }
+
+    /**
+     * 查找正在准备世界且剩余名额足够的队列（指定队列类型）
+     * @param queueType 队列类型
+     * @param seats 需要的名额
+     * @return 队列 或 null
+     */
+    private MatchQueue findCreatingQueue(QueueType queueType, int seats) {
+        MatchQueue best = null;
         for (MatchQueue queue : queues.values()) {
-            // 队列必须: 类型匹配、未满、等待中、已绑定世界
-            if (queue.getQueueType() == queueType &&
-                !queue.isFull() &&
-                queue.getState() == QueueState.WAITING &&
-                queue.hasWorld()) {
-                return queue;
+            if (queue.getQueueType() == queueType && queue.getState() == QueueState.CREATING
+                    && queue.getFreeSeats() >= seats) {
+                if (best == null || queue.getPlayerCount() > best.getPlayerCount()) {
+                    best = queue;
+                }
             }
         }
-        return null;
+        return best;
     }
 
     /**
-     * 异步创建新队列并分配世界
-     * @param player 首个玩家
-     * @param queueType 队列类型
+     * 检查是否还能创建新队列（同时准备世界的队列数量有上限）
+     * @return 是否可以创建
      */
-    private void createNewQueueAsync(Player player, QueueType queueType) {
-        // 标记此类型队列正在创建中
-        creatingQueues.add(queueType);
+    private boolean canCreateQueue() {
+        int maxCreations = Math.max(1, plugin.getConfig().getInt("queue.max-concurrent-creations", 2));
+        return countQueues(QueueState.CREATING) < maxCreations;
+    }
 
+    /**
+     * 统计处于指定状态的队列数量
+     * @param state 队列状态
+     * @return 队列数量
+     */
+    private int countQueues(QueueState state) {
+        int count = 0;
+        for (MatchQueue queue : queues.values()) {
+            if (queue.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 创建新队列并异步分配世界
+     * 队列以 CREATING 状态创建，世界准备期间即可接受玩家
+     * @param queueType 队列类型
+     * @return 新队列
+     */
+    private MatchQueue createNewQueue(QueueType queueType) {
         int minPlayers = plugin.getConfig().getInt("queue.min-players", 2);
         String queueConfigPath = "queue.queues." + queueType.getConfigKey();
         int maxPlayers = plugin.getConfig().getInt(queueConfigPath + ".max-players", 20);
@@ -221,13 +459,11 @@ public class QueueManager {
                 plugin.getConfig().getString(queueConfigPath + ".display-name", queueType.getDisplayName()));
 
         // 获取当前队列索引并递增
-        int queueIndex = queueIndexCounters.get(queueType);
-        queueIndexCounters.put(queueType, queueIndex + 1);
+        int queueIndex = queueIndexCounters.get(queueType).getAndIncrement();
 
         // 创建新队列
-        int queueId = queueIdCounter++;
+        int queueId = queueIdCounter.getAndIncrement();
         MatchQueue newQueue = new MatchQueue(queueId, queueType, queueIndex, displayName, minPlayers, maxPlayers);
-        queues.put(queueId, newQueue);
 
         // ⚡ 从地图池随机选择地图
         String worldConfigName = worldTemplateManager.selectRandomWorldConfig();
@@ -238,70 +474,319 @@ public class QueueManager {
             plugin.getLogger().warning("§c队列 #" + queueId + " 未选择地图配置，将使用默认配置");
         }
 
+        queues.put(queueId, newQueue);
+
         plugin.getLogger().info("§e正在为" + newQueue.getFullQueueName() + " (#" + queueId + ") 创建世界副本...");
 
         // 异步复制世界
         CompletableFuture<World> worldFuture;
         if (worldConfigName != null) {
-            // 使用指定的世界配置创建世界
-            worldFuture = worldTemplateManager.createWorldCopyFromConfig(worldConfigName);
+            // 使用指定的世界配置获取世界（优先从预热池取出）
+            worldFuture = worldTemplateManager.acquireWorld(worldConfigName);
         } else {
             // 使用默认配置创建世界
             worldFuture = worldTemplateManager.createWorldCopy();
         }
 
-        worldFuture.thenAccept(world -> {
-            if (world == null) {
-                // 世界创建失败
+        // 无论成功、失败或异常，都只通过这一个入口回到主线程处理
+        long provisionStart = System.currentTimeMillis();
+        worldFuture.whenComplete((world, throwable) ->
                 Bukkit.getScheduler().runTask(plugin, () -> {
-                    creatingQueues.remove(queueType);
-                    queues.remove(queueId);
-                    sendMessage(player, "queue.world-creation-failed");
-                    plugin.getLogger().severe("§c" + newQueue.getFullQueueName() + " 世界创建失败！");
-                });
-                return;
+                    if (world != null) {
+                        long provisionTime = System.currentTimeMillis() - provisionStart;
+                        demandTracker.recordProvisionTime(provisionTime);
+                        latencyMetrics.record(LatencyMetrics.WORLD_ACQUIRE, worldConfigName, provisionTime);
+                    }
+                    onWorldReady(newQueue, world, throwable);
+                }));
+
+        return newQueue;
+    }
+
+    /**
+     * 预测性准备世界（每秒调用）
+     * 按加入速率估算当前可加入队列的剩余名额多久坐满，
+     * 如果会在新世界准备好之前坐满，就提前创建一个空队列开始准备世界
+     * 空队列数量有上限，加入速率过低时回收闲置的空队列
+     */
+    private void provisionAhead() {
+        if (!plugin.getConfig().getBoolean("queue.predictive-provisioning.enabled", false)) {
+            return;
+        }
+
+        String path = "queue.predictive-provisioning.";
+        double minRate = plugin.getConfig().getDouble(path + "min-rate", 2.0);
+        double leadFactor = Math.max(1.0, plugin.getConfig().getDouble(path + "lead-factor", 1.5));
+        int maxSpeculative = Math.max(0, plugin.getConfig().getInt(path + "max-speculative", 1));
+        long idleTimeout = Math.max(0, plugin.getConfig().getLong(path + "idle-timeout", 120)) * 1000L;
+        double leadSeconds = demandTracker.getProvisionSeconds() * leadFactor;
+
+        for (QueueType type : QueueType.values()) {
+            double perMinute = demandTracker.getArrivalRatePerMinute(type);
+
+            // 低峰期回收闲置的空队列
+            if (perMinute < minRate) {
+                recycleIdleQueues(type, idleTimeout);
+                continue;
             }
 
-            // 在主线程绑定世界并添加玩家
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                try {
-                    newQueue.bindWorld(world);
-                    plugin.getLogger().info("§a" + newQueue.getFullQueueName() + " 已绑定世界: " + world.getName());
-
-                    // 添加玩家到队列
-                    if (newQueue.addPlayer(player)) {
-                        playerQueueMap.put(player.getUniqueId(), queueId);
-
-                        sendMessage(player, "queue.joined",
-                                "{queue}", newQueue.getFullQueueName(),
-                                "{current}", String.valueOf(newQueue.getPlayerCount()),
-                                "{max}", String.valueOf(newQueue.getMaxPlayers()));
-
-                        // 如果是计分模式，显示剩余次数
-                        if (queueType.isRanked()) {
-                            int remaining = plugin.getPlayerDataManager().getRemainingPlays(player);
-                            sendMessage(player, "queue.plays-remaining",
-                                    "{plays}", String.valueOf(remaining));
-                        }
-                    } else {
-                        sendMessage(player, "queue.join-failed");
-                    }
-                } finally {
-                    // 无论成功与否，都要移除创建标记
-                    creatingQueues.remove(queueType);
+            // 评分匹配的队列由匹配池成组创建
+            if (matchmaker.appliesTo(type)) {
+                continue;
+            }
+
+            int openSlots = 0;
+            int emptyQueues = 0;
+            for (MatchQueue queue : queues.values()) {
+                if (queue.getQueueType() != type || !queue.getState().isAdmitting()) {
+                    continue;
                 }
-            });
-        }).exceptionally(throwable -> {
-            // 处理异步操作中的异常
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                creatingQueues.remove(queueType);
-                queues.remove(queueId);
-                sendMessage(player, "queue.world-creation-failed");
-                plugin.getLogger().severe("§c" + newQueue.getFullQueueName() + " 世界创建时发生异常: " + throwable.getMessage());
+                openSlots += queue.getMaxPlayers() - queue.getPlayerCount();
+                if (queue.getPlayerCount() == 0) {
+                    emptyQueues++;
+                }
+            }
+
+            double secondsToFill = openSlots / demandTracker.getArrivalRate(type);
+            if (secondsToFill >= leadSeconds || emptyQueues >= maxSpeculative || !canCreateQueue()) {
+                continue;
+            }
+
+            MatchQueue queue = createNewQueue(type);
+            plugin.getLogger().info("§7预测性准备世界: " + queue.getFullQueueName() + " (#" + queue.getQueueId()
+                    + "), 加入速率 " + String.format("%.1f", perMinute) + " 人/分钟, 剩余名额 " + openSlots
+                    + " 预计 " + Math.round(secondsToFill) + " 秒坐满, 世界准备约 "
+                    + Math.round(demandTracker.getProvisionSeconds()) + " 秒");
+        }
+    }
+
+    /**
+     * 回收闲置超时的空队列及其世界
+     * @param queueType 队列类型
+     * @param idleTimeout 闲置超时（毫秒）
+     */
+    private void recycleIdleQueues(QueueType queueType, long idleTimeout) {
+        long now = System.currentTimeMillis();
+
+        for (MatchQueue queue : queues.values()) {
+            if (queue.getQueueType() != queueType || queue.getPlayerCount() > 0
+                    || now - queue.getCreatedAt() < idleTimeout) {
+                continue;
+            }
+
+            // 只回收已就绪的空队列，CAS 保证不会与玩家加入冲突
+            if (!queue.transition(QueueState.WAITING, QueueState.RECYCLING)) {
+                continue;
+            }
+
+            queues.remove(queue.getQueueId());
+            readyQueues.remove(queue);
+
+            String worldName = queue.getWorldName();
+            queue.unbindWorld();
+            if (worldName != null) {
+                worldTemplateManager.recycleWorld(worldName);
+            }
+
+            plugin.getLogger().info("§7回收闲置空队列: " + queue.getFullQueueName() + " (#" + queue.getQueueId() + ")");
+        }
+    }
+
+    /**
+     * 合并人数不足的等待队列
+     * 同类型的等待队列中，把人数少的队列整体并入人数最多、名额足够的队列，
+     * 空出的世界放回预热池或回收，减少低峰期同时加载的世界
+     */
+    private void mergeUnderfilledQueues() {
+        if (!plugin.getConfig().getBoolean("queue.merge.enabled", true)) {
+            return;
+        }
+
+        int minPlayers = plugin.getConfig().getInt("queue.min-players", 2);
+        long minAge = Math.max(0, plugin.getConfig().getLong("queue.merge.min-wait", 30)) * 1000L;
+        long now = System.currentTimeMillis();
+
+        for (QueueType type : QueueType.values()) {
+            List<MatchQueue> candidates = new ArrayList<>();
+            for (MatchQueue queue : queues.values()) {
+                if (queue.getQueueType() == type && queue.getState() == QueueState.WAITING && queue.hasWorld()
+                        && queue.getPlayerCount() > 0 && queue.getPlayerCount() < minPlayers
+                        && now - queue.getCreatedAt() >= minAge) {
+                    candidates.add(queue);
+                }
+            }
+
+            if (candidates.size() < 2) {
+                continue;
+            }
+
+            // 人数最多的队列作为目标，从人数最少的队列开始并入
+            candidates.sort((a, b) -> Integer.compare(b.getPlayerCount(), a.getPlayerCount()));
+            MatchQueue target = candidates.get(0);
+
+            for (int i = candidates.size() - 1; i > 0; i--) {
+                MatchQueue source = candidates.get(i);
+                if (target.getFreeSeats() < source.getPlayerCount()) {
+                    continue;
+                }
+                mergeQueue(source, target);
+
+                if (target.getState() != QueueState.WAITING) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 把源队列的全部玩家并入目标队列，并释放源队列的世界
+     * @param source 源队列
+     * @param target 目标队列
+     */
+    private void mergeQueue(MatchQueue source, MatchQueue target) {
+        List<UUID> movers = new ArrayList<>(source.getPlayers());
+
+        // 整组占用目标队列名额，保证小队不会被拆散
+        if (!target.addPlayers(movers)) {
+            return;
+        }
+
+        if (!source.transition(QueueState.WAITING, QueueState.RECYCLING)) {
+            for (UUID uuid : movers) {
+                target.removePlayer(uuid);
+            }
+            return;
+        }
+
+        for (UUID uuid : movers) {
+            playerQueueMap.put(uuid, target.getQueueId());
+        }
+
+        queues.remove(source.getQueueId());
+        readyQueues.remove(source);
+        readyQueues.update(target);
+        source.clear();
+
+        World world = source.getWorld();
+        source.unbindWorld();
+        boolean pooled = worldTemplateManager.releaseUnusedWorld(source.getWorldConfigName(), world);
+        demandTracker.recordMerge(movers.size(), pooled);
+
+        plugin.getLogger().info("§7队列合并: " + source.getFullQueueName() + " (#" + source.getQueueId() + ", "
+                + movers.size() + " 人) -> " + target.getFullQueueName() + " (#" + target.getQueueId() + ", "
+                + target.getPlayerCount() + " 人), 世界 " + world.getName() + (pooled ? " 已回到预热池" : " 已回收"));
+
+        for (UUID uuid : movers) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) {
+                sendMessage(player, "queue.merged",
+                        "{queue}", target.getFullQueueName(),
+                        "{current}", String.valueOf(target.getPlayerCount()),
+                        "{max}", String.valueOf(target.getMaxPlayers()));
+            }
+        }
+
+        if (target.hasMinPlayers()) {
+            startCountdown(target);
+        }
+    }
+
+    /**
+     * 为评分匹配成组的玩家创建新队列
+     * @param queueType 队列类型
+     * @param players 成组的玩家
+     * @param averageRating 平均评分
+     * @return 是否创建成功（同时准备的世界已达上限时返回false）
+     */
+    public boolean createMatchedQueue(QueueType queueType, List<UUID> players, double averageRating) {
+        if (!canCreateQueue()) {
+            return false;
+        }
+
+        MatchQueue queue = createNewQueue(queueType);
+
+        for (UUID uuid : players) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null || !player.isOnline() || !queue.addPlayer(uuid)) {
+                continue;
+            }
+
+            playerQueueMap.put(uuid, queue.getQueueId());
+            sendMessage(player, "queue.matchmaking-found",
+                    "{queue}", queue.getFullQueueName(),
+                    "{current}", String.valueOf(players.size()));
+            sendMessage(player, "queue.preparing-world");
+        }
+        readyQueues.update(queue);
+
+        plugin.getLogger().info("§a评分匹配成组: " + queue.getFullQueueName() + " (#" + queue.getQueueId() + "), "
+                + queue.getPlayerCount() + " 人, 平均评分 " + Math.round(averageRating));
+        return true;
+    }
+
+    /**
+     * 世界准备完成（主线程）
+     * 成功时绑定世界并进入 WAITING，失败时回收队列并通知已加入的玩家
+     * @param queue 队列
+     * @param world 世界 或 null
+     * @param throwable 异常 或 null
+     */
+    private void onWorldReady(MatchQueue queue, World world, Throwable throwable) {
+        if (world == null || throwable != null) {
+            if (!queue.transition(QueueState.CREATING, QueueState.RECYCLING)) {
+                return;
+            }
+
+            if (throwable != null) {
+                plugin.getLogger().severe("§c" + queue.getFullQueueName() + " 世界创建时发生异常: " + throwable.getMessage());
                 throwable.printStackTrace();
-            });
-            return null;
-        });
+            } else {
+                plugin.getLogger().severe("§c" + queue.getFullQueueName() + " 世界创建失败！");
+            }
+
+            queues.remove(queue.getQueueId());
+            readyQueues.remove(queue);
+
+            for (UUID uuid : queue.getPlayers()) {
+                playerQueueMap.remove(uuid, queue.getQueueId());
+                forgetLatencyMarks(uuid);
+                Player player = Bukkit.getPlayer(uuid);
+                if (player != null && player.isOnline()) {
+                    sendMessage(player, "queue.world-creation-failed");
+                }
+            }
+            queue.clear();
+            return;
+        }
+
+        // 队列已在准备期间被关闭，归还世界
+        if (queue.getState() != QueueState.CREATING) {
+            worldTemplateManager.recycleWorld(world.getName());
+            return;
+        }
+
+        queue.bindWorld(world);
+        queue.transition(QueueState.CREATING, QueueState.WAITING);
+        readyQueues.update(queue);
+        recordAdmitted(queue, queue.getPlayers());
+
+        plugin.getLogger().info("§a" + queue.getFullQueueName() + " 已绑定世界: " + world.getName()
+                + " (已加入 " + queue.getPlayerCount() + " 人)");
+
+        // 通知准备期间加入的玩家
+        for (UUID uuid : queue.getPlayers()) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) {
+                sendMessage(player, "queue.joined",
+                        "{queue}", queue.getFullQueueName(),
+                        "{current}", String.valueOf(queue.getPlayerCount()),
+                        "{max}", String.valueOf(queue.getMaxPlayers()));
+            }
+        }
+
+        if (queue.hasMinPlayers()) {
+            startCountdown(queue);
+        }
     }
 
     /**
@@ -310,16 +795,39 @@ public class QueueManager {
      * @return 是否成功
      */
     public boolean leaveQueue(Player player) {
-        Integer queueId = playerQueueMap.remove(player.getUniqueId());
+        if (matchmaker.remove(player.getUniqueId())) {
+            joinTimes.remove(player.getUniqueId());
+            sendMessage(player, "queue.left");
+            return true;
+        }
 
-        if (queueId == null) {
+        if (!removeFromQueue(player.getUniqueId())) {
             sendMessage(player, "queue.not-in-queue");
             return false;
         }
 
+        sendMessage(player, "queue.left");
+        return true;
+    }
+
+    /**
+     * 将玩家移出所在的匹配队列（不发送消息）
+     * @param uuid 玩家UUID
+     * @return 玩家是否在队列中
+     */
+    public boolean removeFromQueue(UUID uuid) {
+        Integer queueId = playerQueueMap.remove(uuid);
+
+        if (queueId == null) {
+            return false;
+        }
+
+        forgetLatencyMarks(uuid);
+
         MatchQueue queue = queues.get(queueId);
         if (queue != null) {
-            queue.removePlayer(player);
+            queue.removePlayer(uuid);
+            readyQueues.update(queue);
 
             // 如果人数不足，取消倒计时
             if (queue.getState() == QueueState.COUNTDOWN && !queue.hasMinPlayers()) {
@@ -327,7 +835,6 @@ public class QueueManager {
             }
         }
 
-        sendMessage(player, "queue.left");
         return true;
     }
 
@@ -337,12 +844,67 @@ public class QueueManager {
      * @param queue 队列
      */
     private void startCountdown(MatchQueue queue) {
+        if (!queue.transition(QueueState.WAITING, QueueState.COUNTDOWN)) {
+            return;
+        }
+
         int countdownTime = plugin.getConfig().getInt("queue.match-countdown", 30);
-        queue.setState(QueueState.COUNTDOWN);
         queue.setCountdown(countdownTime);
+        readyQueues.update(queue);
+
+        // 每名玩家从进入队列到开始倒计时的等待时间（倒计时取消后重新开始时只统计新进入的玩家）
+        long now = System.currentTimeMillis();
+        queue.setCountdownStartedAt(now);
+        String queueKey = queue.getQueueType().getConfigKey();
+        for (UUID uuid : queue.getPlayers()) {
+            Long admittedAt = admitTimes.get(uuid);
+            if (admittedAt != null && admittedAt > 0) {
+                latencyMetrics.record(LatencyMetrics.ADMIT_TO_COUNTDOWN, queueKey, now - admittedAt);
+                admitTimes.put(uuid, 0L);
+            }
+        }
+
+        // 倒计时期间分批预加载出生点和边界区块
+        plugin.getChunkPreloadManager().startPreload(queue);
+
+        broadcastToQueue(queue, getCountdownFrame(countdownTime));
+    }
+
+    /**
+     * 预先生成倒计时消息和准备标题（初始化和重载配置时调用）
+     * 倒计时任务每秒只按剩余秒数取出现成的消息，不再读取配置或拼接字符串
+     */
+    public void reloadCountdownFrames() {
+        int countdownTime = Math.max(READY_TITLE_SECONDS, plugin.getConfig().getInt("queue.match-countdown", 30));
+        String countdownMessage = getMessage("queue.countdown");
+
+        String[] frames = new String[countdownTime + 1];
+        for (int time = 0; time <= countdownTime; time++) {
+            frames[time] = countdownMessage.replace("{time}", String.valueOf(time));
+        }
+
+        String subtitleMessage = getMessage("queue.ready-subtitle");
+        String[] subtitles = new String[READY_TITLE_SECONDS + 1];
+        for (int time = 0; time <= READY_TITLE_SECONDS; time++) {
+            subtitles[time] = subtitleMessage.replace("{time}", String.valueOf(time));
+        }
 
-        broadcastToQueue(queue, getMessage("queue.countdown")
-                .replace("{time}", String.valueOf(countdownTime)));
+        countdownFrames = frames;
+        readyTitleFrame = getMessage("queue.ready-title");
+        readySubtitleFrames = subtitles;
+    }
+
+    /**
+     * 获取倒计时消息（超出预生成范围时临时生成，如重载后倒计时时长变短之前开始的倒计时）
+     * @param remaining 剩余秒数
+     * @return 消息
+     */
+    private String getCountdownFrame(int remaining) {
+        String[] frames = countdownFrames;
+        if (remaining >= 0 && remaining < frames.length) {
+            return frames[remaining];
+        }
+        return getMessage("queue.countdown").replace("{time}", String.valueOf(remaining));
     }
 
     /**
@@ -350,8 +912,13 @@ public class QueueManager {
      * @param queue 队列
      */
     private void cancelCountdown(MatchQueue queue) {
-        queue.setState(QueueState.WAITING);
+        if (!queue.transition(QueueState.COUNTDOWN, QueueState.WAITING)) {
+            return;
+        }
+
         queue.setCountdown(0);
+        readyQueues.update(queue);
+        plugin.getChunkPreloadManager().cancel(queue.getQueueId());
 
         broadcastToQueue(queue, getMessage("queue.countdown-cancelled"));
     }
@@ -359,15 +926,20 @@ public class QueueManager {
     /**
      * 开始游戏
      * @param queue 队列
+     * @return 是否成功开始
      */
-    private void startGame(MatchQueue queue) {
-        queue.setState(QueueState.PLAYING);
+    private boolean startGame(MatchQueue queue) {
+        // 只有等待中或倒计时中的队列可以开始，保证同一队列只会开始一次
+        if (!queue.transitionTo(QueueState.STARTING)) {
+            return false;
+        }
+        readyQueues.remove(queue);
 
         // 检查世界是否存在
         if (!queue.hasWorld()) {
             plugin.getLogger().severe("§c" + queue.getFullQueueName() + " 未绑定世界，无法开始游戏！");
             resetQueue(queue);
-            return;
+            return false;
         }
 
         // 广播匹配成功
@@ -388,15 +960,27 @@ public class QueueManager {
 
         // 通知游戏管理器创建游戏实例（传递绑定的世界）
         String gameUuid = plugin.getGameManager().createGame(queue, queue.getWorld());
+        if (gameUuid == null) {
+            plugin.getLogger().severe("§c" + queue.getFullQueueName() + " 游戏实例创建失败，队列已重置");
+            resetQueue(queue);
+            return false;
+        }
+
         queue.setGameUuid(gameUuid);
+        queue.transition(QueueState.STARTING, QueueState.IN_GAME);
+
+        // 玩家已传送，稍后释放预加载的区块票据
+        plugin.getChunkPreloadManager().scheduleRelease(queue.getQueueId());
 
         // 清空队列映射
         for (UUID uuid : queue.getPlayers()) {
             playerQueueMap.remove(uuid);
         }
+        recordStarted(queue);
 
         plugin.getLogger().info("§a" + queue.getFullQueueName() + " 已开始游戏（世界: " + queue.getWorldName() + ", 模式: " +
                 (queue.isRankedMode() ? "计分" : "娱乐") + "）");
+        return true;
     }
 
     /**
@@ -410,17 +994,20 @@ public class QueueManager {
             return;
         }
 
+        queue.transitionTo(QueueState.RECYCLING);
+        readyQueues.remove(queue);
+
         String worldName = queue.getWorldName();
 
         // 解除世界绑定
         queue.unbindWorld();
         queue.clear();
 
-        // 异步删除世界
+        // 异步回收世界（启用重置模式时复用，否则删除）
         if (worldName != null) {
             plugin.getLogger().info("§e正在清理队列 #" + queueId + " 的世界: " + worldName);
 
-            worldTemplateManager.deleteWorld(worldName).thenAccept(success -> {
+            worldTemplateManager.recycleWorld(worldName).thenAccept(success -> {
                 if (success) {
                     plugin.getLogger().info("§a队列 #" + queueId + " 世界清理完成");
                 } else {
@@ -431,7 +1018,7 @@ public class QueueManager {
     }
 
     /**
-     * 重置队列（清空玩家并重新进入等待状态）
+     * 重置队列（清空玩家并重新进入等待状态，没有世界的队列直接回收）
      * @param queue 队列
      */
     private void resetQueue(MatchQueue queue) {
@@ -440,10 +1027,27 @@ public class QueueManager {
 
         // 清空映射
         for (UUID uuid : queue.getPlayers()) {
-            playerQueueMap.remove(uuid);
+            playerQueueMap.remove(uuid, queue.getQueueId());
+            forgetLatencyMarks(uuid);
         }
 
+        plugin.getChunkPreloadManager().cancel(queue.getQueueId());
         queue.clear();
+
+        if (queue.hasWorld() && queue.transitionTo(QueueState.WAITING)) {
+            readyQueues.update(queue);
+            return;
+        }
+
+        queue.transitionTo(QueueState.RECYCLING);
+        queues.remove(queue.getQueueId());
+        readyQueues.remove(queue);
+
+        if (queue.hasWorld()) {
+            String worldName = queue.getWorldName();
+            queue.unbindWorld();
+            worldTemplateManager.recycleWorld(worldName);
+        }
     }
 
     /**
@@ -472,9 +1076,7 @@ public class QueueManager {
 
         // 直接开始游戏
         queue.setCountdown(0);
-        startGame(queue);
-
-        return true;
+        return startGame(queue);
     }
 
     /**
@@ -483,7 +1085,7 @@ public class QueueManager {
      * @return 是否在队列
      */
     public boolean isInQueue(Player player) {
-        return playerQueueMap.containsKey(player.getUniqueId());
+        return playerQueueMap.containsKey(player.getUniqueId()) || matchmaker.contains(player.getUniqueId());
     }
 
     /**
@@ -505,15 +1107,73 @@ public class QueueManager {
         return queues.get(queueId);
     }
 
+    /**
+     * 获取玩家与队列的映射（只读）
+     * @return Map<玩家UUID, 队列ID>
+     */
+    public Map<UUID, Integer> getPlayerQueueIds() {
+        return Collections.unmodifiableMap(playerQueueMap);
+    }
+
+    /**
+     * 记录玩家进入已绑定世界的队列（世界未就绪时等绑定世界后再记录）
+     * @param queue 队列
+     * @param uuids 玩家UUID
+     */
+    private void recordAdmitted(MatchQueue queue, Collection<UUID> uuids) {
+        if (!queue.hasWorld()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        String queueKey = queue.getQueueType().getConfigKey();
+        for (UUID uuid : uuids) {
+            Long joinedAt = joinTimes.get(uuid);
+            if (joinedAt != null && admitTimes.putIfAbsent(uuid, now) == null) {
+                latencyMetrics.record(LatencyMetrics.JOIN_TO_ADMIT, queueKey, now - joinedAt);
+            }
+        }
+    }
+
+    /**
+     * 记录游戏开始时的倒计时耗时和玩家总等待时间，并清除玩家的计时
+     * @param queue 队列
+     */
+    private void recordStarted(MatchQueue queue) {
+        long now = System.currentTimeMillis();
+        String queueKey = queue.getQueueType().getConfigKey();
+
+        // 强制开始的队列可能没有经过倒计时
+        if (queue.getCountdownStartedAt() > 0) {
+            latencyMetrics.record(LatencyMetrics.COUNTDOWN_TO_START, queueKey, now - queue.getCountdownStartedAt());
+        }
+
+        for (UUID uuid : queue.getPlayers()) {
+            Long joinedAt = joinTimes.remove(uuid);
+            admitTimes.remove(uuid);
+            if (joinedAt != null) {
+                latencyMetrics.record(LatencyMetrics.JOIN_TO_START, queueKey, now - joinedAt);
+            }
+        }
+    }
+
+    /**
+     * 清除玩家的计时（离开队列或队列被重置时）
+     * @param uuid 玩家UUID
+     */
+    private void forgetLatencyMarks(UUID uuid) {
+        joinTimes.remove(uuid);
+        admitTimes.remove(uuid);
+    }
+
     /**
      * 向队列中的所有玩家广播消息
      * @param queue 队列
      * @param message 消息
      */
     private void broadcastToQueue(MatchQueue queue, String message) {
-        for (UUID uuid : queue.getPlayers()) {
-            Player player = Bukkit.getPlayer(uuid);
-            if (player != null && player.isOnline()) {
+        for (Player player : queue.getAudience()) {
+            if (player.isOnline()) {
                 player.sendMessage(message);
             }
         }
@@ -552,14 +1212,14 @@ public class QueueManager {
      * 停止倒计时任务并清理所有队列
      */
     public void shutdown() {
-        if (countdownTask != null) {
-            countdownTask.cancel();
-        }
+        matchmaker.shutdown();
 
         // 清空所有队列并记录需要删除的世界
         List<String> worldsToDelete = new ArrayList<>();
 
         for (MatchQueue queue : queues.values()) {
+            // 仍在准备世界的队列转为回收状态，世界就绪后不再绑定
+            queue.transitionTo(QueueState.RECYCLING);
             if (queue.hasWorld()) {
                 worldsToDelete.add(queue.getWorldName());
             }
@@ -568,6 +1228,7 @@ public class QueueManager {
 
         queues.clear();
         playerQueueMap.clear();
+        readyQueues.clear();
 
         // 清理所有世界
         for (String worldName : worldsToDelete) {
@@ -576,6 +1237,22 @@ public class QueueManager {
         }
     }
 
+    /**
+     * 获取队列需求统计
+     * @return 队列需求统计
+     */
+    public QueueDemandTracker getDemandTracker() {
+        return demandTracker;
+    }
+
+    /**
+     * 获取评分匹配器
+     * @return 评分匹配器
+     */
+    public RatingMatchmaker getMatchmaker() {
+        return matchmaker;
+    }
+
     /**
      * 获取所有队列
      * @return 队列列表
@@ -0,0 +1,318 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.PlayerData;
+import com.pokemonbr.models.QueueType;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * 评分匹配器
+ * 计分队列的玩家先进入匹配池，按评分（总积分、胜率、场均击败）排序
+ * 匹配范围随等待时间扩大，凑齐实力相近的一组玩家后再创建新的匹配队列
+ * 等待超过上限仍未成组的玩家回到普通排队流程，保证等待时间有上限
+ *
+ * 加入和移除为 O(log n)，成组时从玩家评分位置向两侧查找最近的玩家，只访问组内人数个条目
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class RatingMatchmaker {
+
+    // 评分从低到高，评分相同时先加入的在前
+    private static final Comparator<Ticket> RATING_ORDER = (a, b) -> {
+        int result = Double.compare(a.rating, b.rating);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compare(a.enqueuedAt, b.enqueuedAt);
+        if (result != 0) {
+            return result;
+        }
+        return a.uuid.compareTo(b.uuid);
+    };
+
+    private final Main plugin;
+    private final QueueManager queueManager;
+
+    // 队列类型 -> 按评分排序的匹配池
+    private final Map<QueueType, TreeSet<Ticket>> pools;
+
+    // 玩家UUID -> 匹配票据（按加入顺序，等待最久的在前）
+    private final Map<UUID, Ticket> tickets;
+
+    public RatingMatchmaker(Main plugin, QueueManager queueManager) {
+        this.plugin = plugin;
+        this.queueManager = queueManager;
+        this.pools = new EnumMap<>(QueueType.class);
+        this.tickets = new LinkedHashMap<>();
+
+        for (QueueType type : QueueType.values()) {
+            pools.put(type, new TreeSet<>(RATING_ORDER));
+        }
+    }
+
+    /**
+     * 匹配票据类
+     */
+    private static class Ticket {
+        final UUID uuid;
+        final QueueType queueType;
+        final double rating;
+        final long enqueuedAt;
+
+        Ticket(UUID uuid, QueueType queueType, double rating, long enqueuedAt) {
+            this.uuid = uuid;
+            this.queueType = queueType;
+            this.rating = rating;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 检查评分匹配是否启用
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return plugin.getConfig().getBoolean("queue.matchmaking.enabled", false);
+    }
+
+    /**
+     * 检查队列类型是否使用评分匹配（默认只有计分模式使用）
+     * @param queueType 队列类型
+     * @return 是否使用
+     */
+    public boolean appliesTo(QueueType queueType) {
+        if (!isEnabled()) {
+            return false;
+        }
+        return queueType.isRanked() || !plugin.getConfig().getBoolean("queue.matchmaking.ranked-only", true);
+    }
+
+    /**
+     * 计算玩家评分
+     * @param data 玩家数据
+     * @return 评分
+     */
+    public double calculateRating(PlayerData data) {
+        double pointsWeight = plugin.getConfig().getDouble("queue.matchmaking.weights.points", 1.0);
+        double winRateWeight = plugin.getConfig().getDouble("queue.matchmaking.weights.win-rate", 10.0);
+        double killsWeight = plugin.getConfig().getDouble("queue.matchmaking.weights.average-kills", 50.0);
+
+        return data.getTotalPoints() * pointsWeight
+                + data.getWinRate() * winRateWeight
+                + data.getAverageKills() * killsWeight;
+    }
+
+    /**
+     * 玩家进入匹配池
+     * @param player 玩家
+     * @param queueType 队列类型
+     */
+    public void enqueue(Player player, QueueType queueType) {
+        if (tickets.containsKey(player.getUniqueId())) {
+            return;
+        }
+
+        double rating = calculateRating(plugin.getPlayerDataManager().getPlayerData(player));
+        Ticket ticket = new Ticket(player.getUniqueId(), queueType, rating, System.currentTimeMillis());
+
+        tickets.put(ticket.uuid, ticket);
+        pools.get(queueType).add(ticket);
+
+        player.sendMessage(getMessage("queue.matchmaking-searching")
+                .replace("{rating}", String.valueOf(Math.round(rating))));
+
+        tryMatch(ticket, ticket.enqueuedAt);
+    }
+
+    /**
+     * 将玩家移出匹配池
+     * @param uuid 玩家UUID
+     * @return 玩家是否在匹配池中
+     */
+    public boolean remove(UUID uuid) {
+        Ticket ticket = tickets.remove(uuid);
+        if (ticket == null) {
+            return false;
+        }
+        pools.get(ticket.queueType).remove(ticket);
+        return true;
+    }
+
+    /**
+     * 检查玩家是否在匹配池中
+     * @param uuid 玩家UUID
+     * @return 是否在匹配池
+     */
+    public boolean contains(UUID uuid) {
+        return tickets.containsKey(uuid);
+    }
+
+    /**
+     * 获取指定类型匹配池中的玩家数量
+     * @param queueType 队列类型
+     * @return 玩家数量
+     */
+    public int getPoolSize(QueueType queueType) {
+        return pools.get(queueType).size();
+    }
+
+    /**
+     * 每秒按等待时间从长到短尝试为玩家成组
+     * 由 QueueManager.tickMaintenance() 在统一的每秒维护中调用，不单独占用调度任务
+     */
+    void tick() {
+        if (tickets.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (Ticket ticket : new ArrayList<>(tickets.values())) {
+            // 已在本轮被其他玩家的分组带走
+            if (tickets.get(ticket.uuid) != ticket) {
+                continue;
+            }
+            tryMatch(ticket, now);
+        }
+    }
+
+    /**
+     * 计算票据当前的匹配范围（评分差）
+     * @param ticket 票据
+     * @param now 当前时间
+     * @return 匹配范围，等待超时后不限制
+     */
+    private double getTolerance(Ticket ticket, long now) {
+        long waitedSeconds = (now - ticket.enqueuedAt) / 1000;
+        if (waitedSeconds >= getMaxWait()) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double initial = plugin.getConfig().getDouble("queue.matchmaking.initial-range", 100.0);
+        double widen = plugin.getConfig().getDouble("queue.matchmaking.widen-per-second", 20.0);
+        double max = plugin.getConfig().getDouble("queue.matchmaking.max-range", 1000.0);
+        return Math.min(max, initial + widen * waitedSeconds);
+    }
+
+    private long getMaxWait() {
+        return Math.max(1, plugin.getConfig().getLong("queue.matchmaking.max-wait", 60));
+    }
+
+    /**
+     * 尝试以票据为中心成组
+     * @param ticket 票据
+     * @param now 当前时间
+     */
+    private void tryMatch(Ticket ticket, long now) {
+        QueueType queueType = ticket.queueType;
+        TreeSet<Ticket> pool = pools.get(queueType);
+
+        int minPlayers = Math.max(1, plugin.getConfig().getInt("queue.min-players", 2));
+        int maxPlayers = Math.max(minPlayers,
+                plugin.getConfig().getInt("queue.queues." + queueType.getConfigKey() + ".max-players", 20));
+        int targetSize = Math.max(minPlayers, Math.min(maxPlayers,
+                plugin.getConfig().getInt("queue.matchmaking.target-size", 8)));
+
+        boolean expired = (now - ticket.enqueuedAt) / 1000 >= getMaxWait();
+        List<Ticket> group = collectNearest(pool, ticket, getTolerance(ticket, now), maxPlayers);
+
+        if (group.size() < (expired ? minPlayers : targetSize)) {
+            if (expired) {
+                // 等待超时且整个匹配池都凑不齐，回到普通排队流程
+                fallback(ticket);
+            }
+            return;
+        }
+
+        List<UUID> members = new ArrayList<>(group.size());
+        double ratingSum = 0;
+        for (Ticket member : group) {
+            members.add(member.uuid);
+            ratingSum += member.rating;
+        }
+
+        // 同时准备的世界已达上限时保留票据，下一秒重试
+        if (!queueManager.createMatchedQueue(queueType, members, ratingSum / group.size())) {
+            return;
+        }
+
+        for (Ticket member : group) {
+            tickets.remove(member.uuid);
+            pool.remove(member);
+        }
+    }
+
+    /**
+     * 从票据的评分位置向两侧依次取评分最接近的玩家
+     * @param pool 匹配池
+     * @param center 中心票据
+     * @param tolerance 匹配范围
+     * @param limit 最多人数
+     * @return 分组（包含中心票据）
+     */
+    private List<Ticket> collectNearest(TreeSet<Ticket> pool, Ticket center, double tolerance, int limit) {
+        List<Ticket> group = new ArrayList<>();
+        group.add(center);
+
+        Iterator<Ticket> lower = pool.headSet(center, false).descendingIterator();
+        Iterator<Ticket> upper = pool.tailSet(center, false).iterator();
+        Ticket low = nextWithin(lower, center, tolerance);
+        Ticket high = nextWithin(upper, center, tolerance);
+
+        while (group.size() < limit && (low != null || high != null)) {
+            if (high == null || (low != null && center.rating - low.rating <= high.rating - center.rating)) {
+                group.add(low);
+                low = nextWithin(lower, center, tolerance);
+            } else {
+                group.add(high);
+                high = nextWithin(upper, center, tolerance);
+            }
+        }
+
+        return group;
+    }
+
+    private Ticket nextWithin(Iterator<Ticket> iterator, Ticket center, double tolerance) {
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Ticket next = iterator.next();
+        return Math.abs(next.rating - center.rating) <= tolerance ? next : null;
+    }
+
+    /**
+     * 等待超时的玩家回到普通排队流程
+     * @param ticket 票据
+     */
+    private void fallback(Ticket ticket) {
+        remove(ticket.uuid);
+
+        Player player = Bukkit.getPlayer(ticket.uuid);
+        if (player == null || !player.isOnline()) {
+            return;
+        }
+
+        player.sendMessage(getMessage("queue.matchmaking-expanded"));
+        queueManager.placeInQueue(player, ticket.queueType);
+    }
+
+    /**
+     * 清空匹配池
+     */
+    public void shutdown() {
+        tickets.clear();
+        for (TreeSet<Ticket> pool : pools.values()) {
+            pool.clear();
+        }
+    }
+
+    private String getMessage(String key) {
+        String prefix = plugin.getConfigManager().getMessagesConfig().getString("prefix", "");
+        String message = plugin.getConfigManager().getMessagesConfig().getString(key, key);
+        return ChatColor.translateAlternateColorCodes('&', prefix + message);
+    }
+}
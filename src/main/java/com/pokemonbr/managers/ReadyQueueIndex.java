@@ -0,0 +1,137 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.models.MatchQueue;
+import com.pokemonbr.models.QueueState;
+import com.pokemonbr.models.QueueType;
+
+import java.util.*;
+
+/**
+ * 可加入队列索引
+ * 按队列类型维护所有可加入的队列（等待中、已绑定世界、未满），按人数从多到少排序，
+ * 使玩家优先进入人数最多的队列，减少同时占用的世界数量
+ *
+ * 队列人数或状态变化后必须调用 update()，索引记录的是更新时的人数
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class ReadyQueueIndex {
+
+    // 人数多的在前，人数相同时先创建的在前
+    private static final Comparator<IndexEntry> FILL_ORDER = (a, b) -> {
+        if (a.playerCount != b.playerCount) {
+            return Integer.compare(b.playerCount, a.playerCount);
+        }
+        return Integer.compare(a.queue.getQueueId(), b.queue.getQueueId());
+    };
+
+    // 队列类型 -> 可加入的队列
+    private final Map<QueueType, TreeSet<IndexEntry>> readyQueues;
+
+    // 队列ID -> 当前索引条目
+    private final Map<Integer, IndexEntry> entries;
+
+    public ReadyQueueIndex() {
+        this.readyQueues = new EnumMap<>(QueueType.class);
+        this.entries = new HashMap<>();
+
+        for (QueueType type : QueueType.values()) {
+            readyQueues.put(type, new TreeSet<>(FILL_ORDER));
+        }
+    }
+
+    /**
+     * 索引条目（记录加入索引时的人数，保证排序键不变）
+     */
+    private static class IndexEntry {
+        final MatchQueue queue;
+        final int playerCount;
+
+        IndexEntry(MatchQueue queue, int playerCount) {
+            this.queue = queue;
+            this.playerCount = playerCount;
+        }
+    }
+
+    /**
+     * 检查队列是否可加入
+     * @param queue 队列
+     * @return 是否可加入
+     */
+    public static boolean isJoinable(MatchQueue queue) {
+        return queue.getState() == QueueState.WAITING && queue.hasWorld() && !queue.isFull();
+    }
+
+    /**
+     * 队列人数或状态变化后更新索引
+     * @param queue 队列
+     */
+    public synchronized void update(MatchQueue queue) {
+        IndexEntry old = entries.remove(queue.getQueueId());
+        if (old != null) {
+            readyQueues.get(old.queue.getQueueType()).remove(old);
+        }
+
+        if (isJoinable(queue)) {
+            IndexEntry entry = new IndexEntry(queue, queue.getPlayerCount());
+            entries.put(queue.getQueueId(), entry);
+            readyQueues.get(queue.getQueueType()).add(entry);
+        }
+    }
+
+    /**
+     * 从索引中移除队列
+     * @param queue 队列
+     */
+    public synchronized void remove(MatchQueue queue) {
+        IndexEntry old = entries.remove(queue.getQueueId());
+        if (old != null) {
+            readyQueues.get(old.queue.getQueueType()).remove(old);
+        }
+    }
+
+    /**
+     * 获取指定类型中人数最多的可加入队列
+     * @param queueType 队列类型
+     * @return 队列 或 null
+     */
+    public synchronized MatchQueue peek(QueueType queueType) {
+        TreeSet<IndexEntry> ready = readyQueues.get(queueType);
+        return ready.isEmpty() ? null : ready.first().queue;
+    }
+
+    /**
+     * 获取指定类型中剩余名额足够的人数最多的可加入队列
+     * @param queueType 队列类型
+     * @param seats 需要的名额
+     * @return 队列 或 null
+     */
+    public synchronized MatchQueue peek(QueueType queueType, int seats) {
+        for (IndexEntry entry : readyQueues.get(queueType)) {
+            if (entry.queue.getFreeSeats() >= seats) {
+                return entry.queue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取指定类型可加入的队列数量
+     * @param queueType 队列类型
+     * @return 队列数量
+     */
+    public synchronized int size(QueueType queueType) {
+        return readyQueues.get(queueType).size();
+    }
+
+    /**
+     * 清空索引
+     */
+    public synchronized void clear() {
+        for (TreeSet<IndexEntry> ready : readyQueues.values()) {
+            ready.clear();
+        }
+        entries.clear();
+    }
+}
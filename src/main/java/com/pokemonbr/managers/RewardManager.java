@@ -87,6 +87,7 @@ public class RewardManager {
         }
 
         // 更新玩家数据
+        gamePlayer.setPointsEarned(totalPoints);
         data.addTotalPoints(totalPoints);
         data.addTotalGames(1);
         data.addTotalKills(kills);
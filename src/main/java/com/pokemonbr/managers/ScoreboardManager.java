@@ -7,7 +7,6 @@ import com.pokemonbr.models.MatchQueue;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.scoreboard.*;
 
 import java.util.HashMap;
@@ -25,29 +24,14 @@ public class ScoreboardManager {
 
     private final Main plugin;
     private final Map<UUID, Scoreboard> playerScoreboards;
-    private BukkitTask updateTask;
 
     public ScoreboardManager(Main plugin) {
         this.plugin = plugin;
         this.playerScoreboards = new HashMap<>();
-
-        // 启动计分板更新任务
-        startUpdateTask();
     }
 
     /**
-     * 启动计分板更新任务
-     */
-    private void startUpdateTask() {
-        updateTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                updatePlayerScoreboard(player);
-            }
-        }, 20L, 20L); // 每秒更新一次
-    }
-
-    /**
-     * 更新玩家计分板
+     * 更新玩家计分板（由 GameTickScheduler 分散到各 tick，每名玩家每秒一次）
      */
     public void updatePlayerScoreboard(Player player) {
         // 检查玩家是否在队列中
@@ -119,11 +103,16 @@ public class ScoreboardManager {
 
         // 设置内容
         clearScores(objective);
-        setScore(objective, "§7§m------------------", 9);
-        setScore(objective, "§e存活人数: §a" + game.getAlivePlayerCount(), 8);
-        setScore(objective, "§e你的击败: §a" + gamePlayer.getKills(), 7);
-        setScore(objective, "§e当前排名: §a#" + (game.getTotalPlayerCount() - game.getAlivePlayerCount() + 1), 6);
-        setScore(objective, "§7", 5);
+        // 击败排行（增量维护，不排序）
+        int killRank = game.getLeaderboard().getKillRank(game.getSlot(player.getUniqueId()));
+
+        setScore(objective, "§7§m------------------", 11);
+        setScore(objective, "§e存活人数: §a" + game.getAlivePlayerCount(), 10);
+        setScore(objective, "§e你的击败: §a" + gamePlayer.getKills(), 9);
+        setScore(objective, "§e击败排名: §a#" + killRank, 8);
+        setScore(objective, "§e当前排名: §a#" + (game.getTotalPlayerCount() - game.getAlivePlayerCount() + 1), 7);
+        setScore(objective, "§7", 6);
+        setScore(objective, "§e击败王: " + formatKillLeader(game), 5);
         setScore(objective, "§e下次缩圈: §c" + formatTime(shrinkTime), 4);
         setScore(objective, "§e边界大小: §c" + borderSize, 3);
         setScore(objective, "§7§m------------------", 2);
@@ -144,10 +133,11 @@ public class ScoreboardManager {
 
         // 设置内容
         clearScores(objective);
-        setScore(objective, "§7§m------------------", 9);
-        setScore(objective, "§e存活人数: §a" + game.getAlivePlayerCount(), 8);
-        setScore(objective, "§e你的排名: §7#" + gamePlayer.getRank(), 7);
-        setScore(objective, "§e你的击败: §7" + gamePlayer.getKills(), 6);
+        setScore(objective, "§7§m------------------", 10);
+        setScore(objective, "§e存活人数: §a" + game.getAlivePlayerCount(), 9);
+        setScore(objective, "§e你的排名: §7#" + gamePlayer.getRank(), 8);
+        setScore(objective, "§e你的击败: §7" + gamePlayer.getKills(), 7);
+        setScore(objective, "§e击败王: " + formatKillLeader(game), 6);
         setScore(objective, "§7", 5);
         setScore(objective, "§7输入 /pbr lobby", 4);
         setScore(objective, "§7返回大厅", 3);
@@ -204,6 +194,17 @@ public class ScoreboardManager {
         objective.getScore(text).setScore(score);
     }
 
+    /**
+     * 格式化击败王（无人击败时显示"无"）
+     */
+    private String formatKillLeader(Game game) {
+        GamePlayer leader = game.getLeaderboard().getKillLeader(1);
+        if (leader == null || leader.getKills() == 0) {
+            return "§7无";
+        }
+        return "§a" + leader.getName() + " §7(" + leader.getKills() + ")";
+    }
+
     /**
      * 格式化时间
      */
@@ -228,10 +229,6 @@ public class ScoreboardManager {
      * 关闭计分板管理器
      */
     public void shutdown() {
-        if (updateTask != null) {
-            updateTask.cancel();
-        }
-
         // 清除所有玩家的计分板
         for (Player player : Bukkit.getOnlinePlayers()) {
             removeScoreboard(player);
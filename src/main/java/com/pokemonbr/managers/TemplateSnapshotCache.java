@@ -0,0 +1,315 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模板快照缓存
+ * 将常用模板世界的文件读入堆外内存，克隆时直接从内存写出，
+ * 不再依赖冷磁盘读取；按最近使用顺序淘汰，模板文件修改后自动失效
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class TemplateSnapshotCache {
+
+    private final Main plugin;
+
+    // 模板世界名称 -> 快照（按访问顺序排列，最久未使用的在前）
+    private final LinkedHashMap<String, TemplateSnapshot> snapshots;
+
+    // 模板世界名称 -> 加载锁（同一模板只加载一次）
+    private final Map<String, Object> loadLocks;
+
+    // 超过内存上限无法缓存的模板（避免每次克隆都重新读取）
+    private final Map<String, Long> oversizedTemplates;
+
+    // 当前缓存占用的字节数
+    private long cachedBytes;
+
+    public TemplateSnapshotCache(Main plugin) {
+        this.plugin = plugin;
+        this.snapshots = new LinkedHashMap<>(8, 0.75f, true);
+        this.loadLocks = new ConcurrentHashMap<>();
+        this.oversizedTemplates = new ConcurrentHashMap<>();
+        this.cachedBytes = 0;
+    }
+
+    /**
+     * 模板快照类
+     * 保存模板世界中需要克隆的目录和文件内容
+     */
+    public static class TemplateSnapshot {
+        private final String templateName;
+        private final long fingerprint;
+        private final List<String> directories;
+        private final Map<String, ByteBuffer> files;
+        private final long totalBytes;
+
+        private TemplateSnapshot(String templateName, long fingerprint, List<String> directories,
+                                 Map<String, ByteBuffer> files, long totalBytes) {
+            this.templateName = templateName;
+            this.fingerprint = fingerprint;
+            this.directories = directories;
+            this.files = files;
+            this.totalBytes = totalBytes;
+        }
+
+        public String getTemplateName() {
+            return templateName;
+        }
+
+        /**
+         * 获取目录列表（相对路径，父目录在前）
+         * @return 目录列表
+         */
+        public List<String> getDirectories() {
+            return directories;
+        }
+
+        /**
+         * 获取文件内容（相对路径 -> 只读缓冲区，写出时需使用 duplicate()）
+         * @return 文件内容
+         */
+        public Map<String, ByteBuffer> getFiles() {
+            return files;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * 检查快照缓存是否启用
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return plugin.getConfig().getBoolean("world-copy.snapshot-cache.enabled", false);
+    }
+
+    /**
+     * 获取内存上限（字节）
+     * @return 内存上限
+     */
+    public long getMaxBytes() {
+        return Math.max(0, plugin.getConfig().getLong("world-copy.snapshot-cache.max-memory-mb", 512)) * 1024L * 1024L;
+    }
+
+    /**
+     * 获取模板快照（I/O线程调用）
+     * 缓存不存在或模板已修改时重新读取，模板超过内存上限时返回null
+     * @param templateName 模板世界名称
+     * @param templateFolder 模板世界文件夹
+     * @param folders 需要缓存的子文件夹
+     * @param fileNames 需要缓存的根目录文件
+     * @return 模板快照 或 null（未启用/无法缓存）
+     */
+    public TemplateSnapshot getSnapshot(String templateName, Path templateFolder,
+                                        List<String> folders, List<String> fileNames) throws IOException {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        Object lock = loadLocks.computeIfAbsent(templateName, k -> new Object());
+
+        synchronized (lock) {
+            List<Path> sourceFiles = new ArrayList<>();
+            List<String> directories = new ArrayList<>();
+            long[] sizeAndFingerprint = scanTemplate(templateFolder, folders, fileNames, sourceFiles, directories);
+            long totalBytes = sizeAndFingerprint[0];
+            long fingerprint = sizeAndFingerprint[1];
+
+            TemplateSnapshot cached;
+            synchronized (this) {
+                cached = snapshots.get(templateName);
+            }
+
+            if (cached != null && cached.fingerprint == fingerprint) {
+                return cached;
+            }
+
+            if (cached != null) {
+                plugin.getLogger().info("§e模板已修改，快照失效: " + templateName);
+                invalidate(templateName);
+            }
+
+            long maxBytes = getMaxBytes();
+            if (totalBytes > maxBytes) {
+                Long previous = oversizedTemplates.put(templateName, fingerprint);
+                if (previous == null || previous != fingerprint) {
+                    plugin.getLogger().warning("§e模板 " + templateName + " 大小 " + WorldCloner.formatBytes(totalBytes)
+                            + " 超过快照内存上限 " + WorldCloner.formatBytes(maxBytes) + "，将直接从磁盘复制");
+                }
+                return null;
+            }
+            oversizedTemplates.remove(templateName);
+
+            long startTime = System.nanoTime();
+            TemplateSnapshot snapshot = readSnapshot(templateName, templateFolder, sourceFiles, directories,
+                    totalBytes, fingerprint);
+
+            synchronized (this) {
+                snapshots.put(templateName, snapshot);
+                cachedBytes += snapshot.totalBytes;
+                evictOverLimit(templateName, maxBytes);
+            }
+
+            plugin.getLogger().info("§a模板快照已载入内存: " + templateName + " (" + snapshot.files.size() + " 个文件, "
+                    + WorldCloner.formatBytes(totalBytes) + ", 用时 " + (System.nanoTime() - startTime) / 1_000_000 + "ms)");
+
+            return snapshot;
+        }
+    }
+
+    /**
+     * 扫描模板文件，计算总大小和指纹（文件数量、大小、修改时间）
+     * @return [总字节数, 指纹]
+     */
+    private long[] scanTemplate(Path templateFolder, List<String> folders, List<String> fileNames,
+                                List<Path> sourceFiles, List<String> directories) throws IOException {
+        long[] result = new long[2];
+        result[1] = Files.getLastModifiedTime(templateFolder).toMillis();
+
+        for (String folderName : folders) {
+            Path folder = templateFolder.resolve(folderName);
+            if (!Files.isDirectory(folder)) {
+                continue;
+            }
+
+            Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    directories.add(relativeName(templateFolder, dir));
+                    result[1] = result[1] * 31 + attrs.lastModifiedTime().toMillis();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    sourceFiles.add(file);
+                    result[0] += attrs.size();
+                    result[1] = result[1] * 31 + file.getFileName().hashCode();
+                    result[1] = result[1] * 31 + attrs.size();
+                    result[1] = result[1] * 31 + attrs.lastModifiedTime().toMillis();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        for (String fileName : fileNames) {
+            Path file = templateFolder.resolve(fileName);
+            if (Files.isRegularFile(file)) {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                sourceFiles.add(file);
+                result[0] += attrs.size();
+                result[1] = result[1] * 31 + fileName.hashCode();
+                result[1] = result[1] * 31 + attrs.size();
+                result[1] = result[1] * 31 + attrs.lastModifiedTime().toMillis();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 将模板文件读入堆外内存
+     */
+    private TemplateSnapshot readSnapshot(String templateName, Path templateFolder, List<Path> sourceFiles,
+                                          List<String> directories, long totalBytes, long fingerprint) throws IOException {
+        Map<String, ByteBuffer> files = new LinkedHashMap<>();
+        long readBytes = 0;
+
+        for (Path file : sourceFiles) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("文件过大，无法缓存: " + file);
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+
+                files.put(relativeName(templateFolder, file), buffer.asReadOnlyBuffer());
+                readBytes += buffer.limit();
+            }
+        }
+
+        return new TemplateSnapshot(templateName, fingerprint, Collections.unmodifiableList(directories),
+                Collections.unmodifiableMap(files), readBytes);
+    }
+
+    /**
+     * 淘汰最久未使用的快照直到低于内存上限（不淘汰刚载入的模板）
+     */
+    private void evictOverLimit(String keepTemplate, long maxBytes) {
+        Iterator<Map.Entry<String, TemplateSnapshot>> iterator = snapshots.entrySet().iterator();
+
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, TemplateSnapshot> entry = iterator.next();
+            if (entry.getKey().equals(keepTemplate)) {
+                continue;
+            }
+
+            iterator.remove();
+            cachedBytes -= entry.getValue().totalBytes;
+            plugin.getLogger().info("§7模板快照已淘汰: " + entry.getKey() + " ("
+                    + WorldCloner.formatBytes(entry.getValue().totalBytes) + ")");
+        }
+    }
+
+    /**
+     * 使指定模板的快照失效
+     * @param templateName 模板世界名称
+     */
+    public synchronized void invalidate(String templateName) {
+        TemplateSnapshot removed = snapshots.remove(templateName);
+        if (removed != null) {
+            cachedBytes -= removed.totalBytes;
+        }
+    }
+
+    /**
+     * 清空所有快照（堆外内存在缓冲区被回收后释放）
+     */
+    public synchronized void clear() {
+        snapshots.clear();
+        oversizedTemplates.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * 获取已缓存的模板数量
+     * @return 模板数量
+     */
+    public synchronized int getCachedTemplateCount() {
+        return snapshots.size();
+    }
+
+    /**
+     * 获取当前缓存占用的字节数
+     * @return 字节数
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * 获取相对路径（统一使用 / 分隔）
+     */
+    private static String relativeName(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,534 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.CloneMode;
+import com.pokemonbr.models.PlayableArea;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 世界克隆器
+ * 按配置的克隆方式（完整复制/硬链接/写时复制）将模板世界文件克隆到新世界
+ * 任何方式失败时都会回退为完整复制
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldCloner {
+
+    private final Main plugin;
+
+    // 世界名称 -> 与模板硬链接的区域文件数量
+    private final Map<String, Integer> linkedWorlds;
+
+    // 不支持 reflink 的模板文件夹（避免每次都重新尝试）
+    private final Set<Path> reflinkUnsupported;
+
+    // 并行复制文件的线程池（所有世界复制共享，限制全局并发文件数）
+    private final ExecutorService fileCopyExecutor;
+
+    // 复制统计
+    private final AtomicLong totalCopiedBytes;
+    private final AtomicLong totalCopyNanos;
+    private final AtomicInteger totalCopies;
+    private volatile long lastCopyBytes;
+    private volatile long lastCopyNanos;
+
+    public WorldCloner(Main plugin) {
+        this.plugin = plugin;
+        this.linkedWorlds = new ConcurrentHashMap<>();
+        this.reflinkUnsupported = ConcurrentHashMap.newKeySet();
+        this.totalCopiedBytes = new AtomicLong();
+        this.totalCopyNanos = new AtomicLong();
+        this.totalCopies = new AtomicInteger();
+
+        int parallelFiles = Math.max(1, plugin.getConfig().getInt("world-copy.parallel-files", 4));
+        AtomicInteger threadIndex = new AtomicInteger(1);
+        this.fileCopyExecutor = Executors.newFixedThreadPool(parallelFiles, runnable -> {
+            Thread thread = new Thread(runnable, "PBR-FileCopy-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 获取当前配置的克隆方式
+     * @return 克隆方式
+     */
+    public CloneMode getCloneMode() {
+        return CloneMode.fromConfigKey(plugin.getConfig().getString("world-copy.clone-mode", "copy"));
+    }
+
+    /**
+     * 克隆文件夹
+     * @param source 源文件夹
+     * @param target 目标文件夹
+     * @param targetWorldName 目标世界名称
+     * @return 实际写入的字节数
+     */
+    public long cloneFolder(Path source, Path target, String targetWorldName) throws IOException {
+        return cloneFolder(source, target, targetWorldName, null);
+    }
+
+    /**
+     * 克隆文件夹，只保留与可游玩区域相交的区域文件
+     * 被裁剪的区域文件不存在，服务器会将其视为未生成区块
+     * @param source 源文件夹
+     * @param target 目标文件夹
+     * @param targetWorldName 目标世界名称
+     * @param area 可游玩区域（null表示不裁剪）
+     * @return 实际写入的字节数（链接与 reflink 不计）
+     */
+    public long cloneFolder(Path source, Path target, String targetWorldName, PlayableArea area) throws IOException {
+        switch (getCloneMode()) {
+            case REFLINK:
+                if (reflinkFolder(source, target)) {
+                    // reflink 不产生数据写入，克隆后再删除区域外的文件即可
+                    if (area != null) {
+                        pruneRegionFiles(target, area);
+                    }
+                    return 0;
+                }
+                break;
+
+            case HARDLINK:
+                return linkFolder(source, target, targetWorldName, area);
+
+            default:
+                break;
+        }
+
+        return copyFolder(source, target, area);
+    }
+
+    /**
+     * 检查文件是否应被克隆
+     * @param file 文件
+     * @param area 可游玩区域（null表示不裁剪）
+     * @return 是否克隆
+     */
+    private boolean shouldClone(Path file, PlayableArea area) {
+        return area == null || area.intersectsRegionFile(file.getFileName().toString());
+    }
+
+    /**
+     * 删除与可游玩区域不相交的区域文件
+     * @param folder 区域文件夹
+     * @param area 可游玩区域
+     */
+    private void pruneRegionFiles(Path folder, PlayableArea area) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*.mca")) {
+            for (Path file : stream) {
+                if (!shouldClone(file, area)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 克隆单个文件（level.dat 等会在加载时被写入的文件始终完整复制）
+     * @param source 源文件
+     * @param target 目标文件
+     * @return 写入的字节数
+     */
+    public long cloneFile(Path source, Path target) throws IOException {
+        return transferFile(source, target);
+    }
+
+    /**
+     * 使用硬链接克隆文件夹
+     * 只有区域文件(.mca)会被硬链接，其余文件并行复制
+     * 硬链接失败（如跨分区）时自动回退为复制
+     * @return 复制的字节数
+     */
+    private long linkFolder(Path source, Path target, String targetWorldName, PlayableArea area) throws IOException {
+        final int[] linked = {0};
+        List<Path> filesToCopy = new ArrayList<>();
+
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!shouldClone(file, area)) {
+                    return FileVisitResult.CONTINUE;
+                }
+
+                Path targetFile = target.resolve(source.relativize(file));
+
+                if (file.getFileName().toString().endsWith(".mca")) {
+                    try {
+                        Files.deleteIfExists(targetFile);
+                        Files.createLink(targetFile, file);
+                        linked[0]++;
+                        return FileVisitResult.CONTINUE;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // 回退为复制
+                    }
+                }
+
+                filesToCopy.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        if (linked[0] > 0) {
+            linkedWorlds.merge(targetWorldName, linked[0], Integer::sum);
+        }
+
+        return copyFilesParallel(source, target, filesToCopy);
+    }
+
+    /**
+     * 使用 reflink (FICLONE) 克隆文件夹
+     * Java 无法直接调用 ioctl，因此通过 cp --reflink=always 完成
+     * @return 是否成功（失败时调用方回退为完整复制）
+     */
+    private boolean reflinkFolder(Path source, Path target) {
+        Path templateRoot = source.getParent();
+        if (templateRoot != null && reflinkUnsupported.contains(templateRoot)) {
+            return false;
+        }
+
+        try {
+            Files.createDirectories(target.getParent());
+
+            Process process = new ProcessBuilder("cp", "-R", "--reflink=always",
+                    source.toAbsolutePath().toString(), target.toAbsolutePath().toString())
+                    .redirectErrorStream(true)
+                    .start();
+
+            if (process.waitFor(5, TimeUnit.MINUTES) && process.exitValue() == 0) {
+                return true;
+            }
+
+            process.destroyForcibly();
+        } catch (IOException e) {
+            // 系统中没有 cp 命令
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (templateRoot != null) {
+            reflinkUnsupported.add(templateRoot);
+        }
+        plugin.getLogger().warning("§e当前文件系统不支持 reflink，将使用完整复制: " + source);
+
+        // 清理可能残留的部分文件
+        try {
+            deleteFolder(target);
+        } catch (IOException ignored) {
+        }
+
+        return false;
+    }
+
+    /**
+     * 递归复制文件夹
+     * @param source 源路径
+     * @param target 目标路径
+     * @return 复制的字节数
+     */
+    public long copyFolder(Path source, Path target) throws IOException {
+        return copyFolder(source, target, null);
+    }
+
+    /**
+     * 递归复制文件夹，跳过可游玩区域外的区域文件
+     * 先创建目录结构，再将文件交给并行复制线程池
+     * @param source 源路径
+     * @param target 目标路径
+     * @param area 可游玩区域（null表示不裁剪）
+     * @return 复制的字节数
+     */
+    private long copyFolder(Path source, Path target, PlayableArea area) throws IOException {
+        List<Path> filesToCopy = new ArrayList<>();
+
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path targetDir = target.resolve(source.relativize(dir));
+                Files.createDirectories(targetDir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (shouldClone(file, area)) {
+                    filesToCopy.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return copyFilesParallel(source, target, filesToCopy);
+    }
+
+    /**
+     * 并行复制文件（目录结构需已存在）
+     * @param source 源根路径
+     * @param target 目标根路径
+     * @param files 需要复制的源文件
+     * @return 复制的字节数
+     */
+    private long copyFilesParallel(Path source, Path target, List<Path> files) throws IOException {
+        List<Future<Long>> futures = new ArrayList<>(files.size());
+
+        for (Path file : files) {
+            Path targetFile = target.resolve(source.relativize(file));
+            futures.add(fileCopyExecutor.submit(() -> transferFile(file, targetFile)));
+        }
+
+        return awaitAll(futures);
+    }
+
+    /**
+     * 从内存中的模板快照写出世界文件（并行写入）
+     * @param snapshot 模板快照
+     * @param target 目标世界文件夹
+     * @param area 主世界 region 文件夹的可游玩区域（null表示不裁剪）
+     * @return 写入的字节数
+     */
+    public long writeSnapshot(TemplateSnapshotCache.TemplateSnapshot snapshot, Path target, PlayableArea area) throws IOException {
+        for (String directory : snapshot.getDirectories()) {
+            Files.createDirectories(target.resolve(directory));
+        }
+
+        List<Future<Long>> futures = new ArrayList<>(snapshot.getFiles().size());
+
+        for (Map.Entry<String, ByteBuffer> entry : snapshot.getFiles().entrySet()) {
+            String relativeName = entry.getKey();
+            if (relativeName.startsWith("region/") && !shouldClone(Paths.get(relativeName), area)) {
+                continue;
+            }
+
+            Path targetFile = target.resolve(relativeName);
+            ByteBuffer data = entry.getValue();
+            futures.add(fileCopyExecutor.submit(() -> writeBuffer(data.duplicate(), targetFile)));
+        }
+
+        return awaitAll(futures);
+    }
+
+    /**
+     * 将缓冲区内容写入文件
+     * @param data 数据（会被消耗）
+     * @param target 目标文件
+     * @return 写入的字节数
+     */
+    private long writeBuffer(ByteBuffer data, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = data.remaining();
+
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+
+            return size;
+        }
+    }
+
+    /**
+     * 等待所有文件任务完成
+     * @param futures 文件任务
+     * @return 写入的字节总数
+     */
+    private long awaitAll(List<Future<Long>> futures) throws IOException {
+        long bytes = 0;
+        IOException failure = null;
+
+        // 等待全部完成，即使有文件失败也要等其他任务结束，避免残留写入
+        for (Future<Long> future : futures) {
+            try {
+                bytes += future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause()
+                            : new IOException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("文件复制被中断", e);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * 使用 FileChannel.transferTo 复制文件（由内核完成数据搬运，不经过Java堆）
+     * @param source 源文件
+     * @param target 目标文件
+     * @return 复制的字节数
+     */
+    private long transferFile(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+
+            return size;
+        }
+    }
+
+    /**
+     * 递归删除文件夹（不存在时忽略）
+     * @param folder 文件夹路径
+     */
+    private void deleteFolder(Path folder) throws IOException {
+        if (!Files.exists(folder)) {
+            return;
+        }
+
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 检查世界是否与模板共享区域文件
+     * 这类世界的区块绝不能写回磁盘，否则会修改模板
+     * @param worldName 世界名称
+     * @return 是否共享
+     */
+    public boolean isLinkedWorld(String worldName) {
+        return linkedWorlds.containsKey(worldName);
+    }
+
+    /**
+     * 获取世界硬链接的区域文件数量
+     * @param worldName 世界名称
+     * @return 区域文件数量
+     */
+    public int getLinkedFileCount(String worldName) {
+        return linkedWorlds.getOrDefault(worldName, 0);
+    }
+
+    /**
+     * 世界文件删除后释放记录（删除硬链接不会影响模板）
+     * @param worldName 世界名称
+     */
+    public void releaseWorld(String worldName) {
+        linkedWorlds.remove(worldName);
+    }
+
+    // ==================== 复制统计 ====================
+
+    /**
+     * 记录一次世界复制
+     * @param bytes 写入的字节数
+     * @param durationNanos 用时（纳秒）
+     */
+    public void recordCopy(long bytes, long durationNanos) {
+        totalCopiedBytes.addAndGet(bytes);
+        totalCopyNanos.addAndGet(durationNanos);
+        totalCopies.incrementAndGet();
+        lastCopyBytes = bytes;
+        lastCopyNanos = durationNanos;
+    }
+
+    public long getTotalCopiedBytes() {
+        return totalCopiedBytes.get();
+    }
+
+    public int getTotalCopies() {
+        return totalCopies.get();
+    }
+
+    /**
+     * 获取平均每次复制用时（毫秒）
+     * @return 平均用时
+     */
+    public long getAverageCopyMillis() {
+        int copies = totalCopies.get();
+        return copies > 0 ? totalCopyNanos.get() / copies / 1_000_000 : 0;
+    }
+
+    /**
+     * 获取最近一次复制的速度
+     * @return 字节/秒
+     */
+    public long getLastBytesPerSecond() {
+        return bytesPerSecond(lastCopyBytes, lastCopyNanos);
+    }
+
+    /**
+     * 获取累计平均复制速度
+     * @return 字节/秒
+     */
+    public long getAverageBytesPerSecond() {
+        return bytesPerSecond(totalCopiedBytes.get(), totalCopyNanos.get());
+    }
+
+    /**
+     * 计算速度
+     * @param bytes 字节数
+     * @param durationNanos 用时（纳秒）
+     * @return 字节/秒
+     */
+    public static long bytesPerSecond(long bytes, long durationNanos) {
+        return durationNanos > 0 ? (long) (bytes * 1_000_000_000.0 / durationNanos) : 0;
+    }
+
+    /**
+     * 格式化字节数
+     * @param bytes 字节数
+     * @return 格式化后的字符串
+     */
+    public static String formatBytes(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024) {
+            return String.format("%.2fGB", bytes / (1024.0 * 1024 * 1024));
+        }
+        if (bytes >= 1024L * 1024) {
+            return String.format("%.1fMB", bytes / (1024.0 * 1024));
+        }
+        if (bytes >= 1024) {
+            return String.format("%.1fKB", bytes / 1024.0);
+        }
+        return bytes + "B";
+    }
+
+    /**
+     * 关闭并行复制线程池
+     */
+    public void shutdown() {
+        fileCopyExecutor.shutdown();
+    }
+}
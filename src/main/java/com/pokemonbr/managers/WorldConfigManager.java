@@ -1,6 +1,7 @@
 package com.pokemonbr.managers;
 
 import com.pokemonbr.Main;
+import com.pokemonbr.models.PlayableArea;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -425,6 +426,66 @@ public class WorldConfigManager {
         return config != null && config.getBoolean("world.enabled", false);
     }
 
+    /**
+     * 计算世界配置的可游玩区域（初始边界 + 缩圈中心范围 + 出生范围）
+     * 读取方式与 BorderShrinkManager / GameManager 保持一致
+     * @param worldConfigName 世界配置名称
+     * @return 可游玩区域，配置不存在返回null
+     */
+    public PlayableArea getPlayableArea(String worldConfigName) {
+        FileConfiguration config = worldConfigs.get(worldConfigName);
+        if (config == null) {
+            return null;
+        }
+
+        // 初始边界大小
+        int initialSize;
+        if (config.getBoolean("shrink-stages.override-global", false)) {
+            initialSize = config.getInt("shrink-stages.initial-size", 500);
+        } else {
+            initialSize = plugin.getConfig().getInt("shrink.initial-size", 500);
+        }
+        double half = initialSize / 2.0;
+
+        // 缩圈中心可能出现的范围
+        double centerMinX, centerMinZ, centerMaxX, centerMaxZ;
+        if ("random".equals(config.getString("shrink-center.mode", "random"))) {
+            centerMinX = config.getInt("shrink-center.min-x", -150);
+            centerMaxX = config.getInt("shrink-center.max-x", 150);
+            centerMinZ = config.getInt("shrink-center.min-z", -150);
+            centerMaxZ = config.getInt("shrink-center.max-z", 150);
+        } else {
+            centerMinX = centerMaxX = config.getDouble("shrink-center.fixed.x", 0.0);
+            centerMinZ = centerMaxZ = config.getDouble("shrink-center.fixed.z", 0.0);
+        }
+
+        PlayableArea area = new PlayableArea(centerMinX - half, centerMinZ - half, centerMaxX + half, centerMaxZ + half);
+
+        // 出生范围
+        if ("random".equals(config.getString("spawn.mode", "random"))) {
+            area = area.union(
+                    config.getInt("spawn.random-range.min-x", -200),
+                    config.getInt("spawn.random-range.min-z", -200),
+                    config.getInt("spawn.random-range.max-x", 200),
+                    config.getInt("spawn.random-range.max-z", 200));
+        } else {
+            if (config.contains("spawn.location")) {
+                double x = config.getDouble("spawn.location.x", 0.0);
+                double z = config.getDouble("spawn.location.z", 0.0);
+                area = area.union(x, z, x, z);
+            }
+            if (config.contains("spawn.fixed-diagonal.corner1") && config.contains("spawn.fixed-diagonal.corner2")) {
+                area = area.union(
+                        config.getDouble("spawn.fixed-diagonal.corner1.x", 0.0),
+                        config.getDouble("spawn.fixed-diagonal.corner1.z", 0.0),
+                        config.getDouble("spawn.fixed-diagonal.corner2.x", 0.0),
+                        config.getDouble("spawn.fixed-diagonal.corner2.z", 0.0));
+            }
+        }
+
+        return area;
+    }
+
     /**
      * 获取世界的模板世界名称
      * @param worldConfigName 世界配置名称
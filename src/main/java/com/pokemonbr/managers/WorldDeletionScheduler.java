@@ -0,0 +1,311 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 世界删除调度器
+ * 使用延迟队列代替线程休眠实现删除延迟，由单个删除线程按I/O预算（字节/秒）依次删除世界文件
+ * 文件被占用时稍后重试，大量对局同时结束时不会造成I/O风暴或占满公共线程池
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldDeletionScheduler {
+
+    private final Main plugin;
+    private final WorldTemplateManager worldTemplateManager;
+    private final File serverFolder;
+
+    // 等待删除的世界（按到期时间排序）
+    private final DelayQueue<PendingDeletion> queue;
+
+    // 世界名称 -> 等待中或正在删除的任务（避免重复删除）
+    private final Map<String, PendingDeletion> pending;
+
+    // 删除线程
+    private final Thread deleterThread;
+
+    // 是否已关闭
+    private volatile boolean shutdown;
+
+    // 正在删除的世界名称
+    private volatile String currentWorld;
+
+    // 删除统计
+    private final AtomicInteger deletedWorlds;
+    private final AtomicInteger failedWorlds;
+    private final AtomicLong deletedBytes;
+
+    public WorldDeletionScheduler(Main plugin, WorldTemplateManager worldTemplateManager, File serverFolder) {
+        this.plugin = plugin;
+        this.worldTemplateManager = worldTemplateManager;
+        this.serverFolder = serverFolder;
+        this.queue = new DelayQueue<>();
+        this.pending = new ConcurrentHashMap<>();
+        this.deletedWorlds = new AtomicInteger();
+        this.failedWorlds = new AtomicInteger();
+        this.deletedBytes = new AtomicLong();
+        this.shutdown = false;
+
+        this.deleterThread = new Thread(this::runLoop, "PBR-WorldDelete");
+        this.deleterThread.setDaemon(true);
+        this.deleterThread.start();
+    }
+
+    /**
+     * 删除任务类
+     */
+    private static class PendingDeletion implements Delayed {
+        final String worldName;
+        final boolean unload;
+        final CompletableFuture<Boolean> future;
+        volatile long dueNanos;
+        int attempts;
+
+        PendingDeletion(String worldName, boolean unload, long delayMillis) {
+            this.worldName = worldName;
+            this.unload = unload;
+            this.future = new CompletableFuture<>();
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            this.attempts = 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * 计划删除世界
+     * @param worldName 世界名称
+     * @param delayMillis 延迟（毫秒）
+     * @param unload 删除前是否需要在主线程卸载世界
+     * @return CompletableFuture<Boolean> 是否删除成功（同一世界重复计划时返回同一个结果）
+     */
+    public CompletableFuture<Boolean> schedule(String worldName, long delayMillis, boolean unload) {
+        if (shutdown) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        PendingDeletion deletion = new PendingDeletion(worldName, unload, Math.max(0, delayMillis));
+        PendingDeletion existing = pending.putIfAbsent(worldName, deletion);
+
+        if (existing != null) {
+            return existing.future;
+        }
+
+        queue.put(deletion);
+        return deletion.future;
+    }
+
+    /**
+     * 删除线程主循环
+     */
+    private void runLoop() {
+        while (!shutdown) {
+            PendingDeletion deletion;
+            try {
+                deletion = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            currentWorld = deletion.worldName;
+            try {
+                process(deletion);
+            } finally {
+                currentWorld = null;
+            }
+        }
+    }
+
+    /**
+     * 执行一次删除尝试
+     * @param deletion 删除任务
+     */
+    private void process(PendingDeletion deletion) {
+        deletion.attempts++;
+
+        try {
+            // 在主线程卸载世界
+            if (deletion.unload) {
+                boolean unloaded = Bukkit.getScheduler().callSyncMethod(plugin,
+                        () -> worldTemplateManager.unloadWorldSync(deletion.worldName)).get();
+
+                if (!unloaded) {
+                    retryOrFail(deletion, "世界卸载失败");
+                    return;
+                }
+            }
+
+            File worldFolder = new File(serverFolder, deletion.worldName);
+            if (worldFolder.exists()) {
+                long bytes = deleteThrottled(worldFolder.toPath());
+                plugin.getLogger().info("§a世界已删除: " + deletion.worldName + " (" + WorldCloner.formatBytes(bytes)
+                        + ", 剩余待删除: " + getBacklog() + ")");
+            }
+
+            pending.remove(deletion.worldName);
+            deletedWorlds.incrementAndGet();
+            deletion.future.complete(true);
+
+        } catch (FileSystemException e) {
+            // 文件被占用（如世界尚未完全释放区域文件句柄），稍后重试
+            retryOrFail(deletion, "文件被占用: " + e.getFile());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.remove(deletion.worldName);
+            deletion.future.complete(false);
+
+        } catch (Exception e) {
+            plugin.getLogger().severe("§c世界删除失败: " + deletion.worldName);
+            e.printStackTrace();
+            pending.remove(deletion.worldName);
+            failedWorlds.incrementAndGet();
+            deletion.future.complete(false);
+        }
+    }
+
+    /**
+     * 重新加入队列，超过最大重试次数时放弃
+     * @param deletion 删除任务
+     * @param reason 失败原因
+     */
+    private void retryOrFail(PendingDeletion deletion, String reason) {
+        int maxRetries = plugin.getConfig().getInt("world-management.deletion.max-retries", 5);
+        int retryDelay = plugin.getConfig().getInt("world-management.deletion.retry-delay", 5);
+
+        if (deletion.attempts > maxRetries || shutdown) {
+            plugin.getLogger().severe("§c世界删除失败，已放弃: " + deletion.worldName + " (" + reason
+                    + ", 尝试 " + deletion.attempts + " 次)");
+            pending.remove(deletion.worldName);
+            failedWorlds.incrementAndGet();
+            deletion.future.complete(false);
+            return;
+        }
+
+        plugin.getLogger().warning("§e世界删除将在 " + retryDelay + " 秒后重试: " + deletion.worldName + " (" + reason
+                + ", 第 " + deletion.attempts + "/" + maxRetries + " 次)");
+        deletion.dueNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(1, retryDelay));
+        queue.put(deletion);
+    }
+
+    /**
+     * 按I/O预算递归删除文件夹
+     * @param folder 文件夹
+     * @return 删除的字节数
+     */
+    private long deleteThrottled(Path folder) throws IOException {
+        long budget = Math.max(0, plugin.getConfig().getLong("world-management.deletion.bytes-per-second-mb", 64)) * 1024L * 1024L;
+        long startTime = System.nanoTime();
+        long[] bytes = new long[1];
+
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                bytes[0] += attrs.size();
+                deletedBytes.addAndGet(attrs.size());
+                throttle(bytes[0], budget, startTime);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return bytes[0];
+    }
+
+    /**
+     * 超出I/O预算时休眠
+     * @param bytes 本次已删除字节数
+     * @param budget 预算（字节/秒，0表示不限制）
+     * @param startTime 开始时间（纳秒）
+     */
+    private void throttle(long bytes, long budget, long startTime) throws IOException {
+        if (budget <= 0) {
+            return;
+        }
+
+        long expectedNanos = (long) (bytes * 1_000_000_000.0 / budget);
+        long sleepNanos = expectedNanos - (System.nanoTime() - startTime);
+
+        if (sleepNanos > 1_000_000) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("世界删除被中断", e);
+            }
+        }
+    }
+
+    /**
+     * 检查世界是否在等待删除
+     * @param worldName 世界名称
+     * @return 是否等待删除
+     */
+    public boolean isPending(String worldName) {
+        return pending.containsKey(worldName);
+    }
+
+    /**
+     * 获取待删除世界数量（包括正在删除的世界）
+     * @return 待删除数量
+     */
+    public int getBacklog() {
+        return pending.size();
+    }
+
+    /**
+     * 获取删除调度器状态描述
+     * @return 状态描述
+     */
+    public String getStatus() {
+        String current = currentWorld;
+        return "待删除: " + getBacklog()
+                + (current != null ? ", 正在删除: " + current : "")
+                + ", 已删除: " + deletedWorlds.get()
+                + " (" + WorldCloner.formatBytes(deletedBytes.get()) + ")"
+                + ", 失败: " + failedWorlds.get();
+    }
+
+    /**
+     * 关闭删除调度器
+     * 未完成的删除将被放弃，残留的世界保留在世界清单中，下次启动时回收
+     */
+    public void shutdown() {
+        shutdown = true;
+        deleterThread.interrupt();
+
+        for (PendingDeletion deletion : pending.values()) {
+            deletion.future.complete(false);
+        }
+        pending.clear();
+        queue.clear();
+    }
+}
@@ -11,6 +11,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Comparator;
+import java.util.concurrent.Callable;
 import java.util.stream.Stream;
 
 /**
@@ -45,8 +46,30 @@ public class WorldManager {
                 return false;
             }
 
-            String templatePath = plugin.getConfig().getString("world-restore.template-path", worldName + "_template");
-            File templateFolder = new File(Bukkit.getWorldContainer(), templatePath);
+            // 先保存已加载的世界，保证磁盘上的区块是最新的
+            callSync(() -> {
+                World world = Bukkit.getWorld(worldName);
+                if (world != null) {
+                    world.save();
+                }
+                return true;
+            });
+
+            // 增量快照：只保存变化的区块
+            if (isSnapshotEnabled()) {
+                plugin.getLogger().info("§e正在创建世界快照 " + worldName + "...");
+                WorldSnapshotStore.SnapshotResult result = getSnapshotStore(worldName)
+                        .createSnapshot(worldFolder.toPath(), plugin.getConfig().getInt("world-restore.snapshot.generations", 5));
+                plugin.getLogger().info("§a世界快照完成！" + result);
+
+                // 世界配置的 template-world 仍指向模板文件夹，只同步有变化的文件
+                if (plugin.getConfig().getBoolean("world-restore.snapshot.update-template", true)) {
+                    syncTemplateFolder(worldFolder.toPath(), getTemplateFolder(worldName).toPath());
+                }
+                return true;
+            }
+
+            File templateFolder = getTemplateFolder(worldName);
 
             // 删除旧备份
             if (templateFolder.exists()) {
@@ -60,7 +83,7 @@ public class WorldManager {
 
             return true;
 
-        } catch (IOException e) {
+        } catch (Exception e) {
             plugin.getLogger().severe("§c备份世界失败: " + e.getMessage());
             e.printStackTrace();
             return false;
@@ -80,18 +103,24 @@ public class WorldManager {
         try {
             plugin.getLogger().info("§e正在还原世界 " + worldName + "...");
 
-            // 1. 卸载世界
-            World world = Bukkit.getWorld(worldName);
-            if (world != null) {
+            // 1. 卸载世界（在主线程执行）
+            boolean unloaded = callSync(() -> {
+                World world = Bukkit.getWorld(worldName);
+                if (world == null) {
+                    return true;
+                }
+
                 // 传送所有玩家到默认世界
                 World defaultWorld = Bukkit.getWorlds().get(0);
                 world.getPlayers().forEach(player -> player.teleport(defaultWorld.getSpawnLocation()));
 
                 // 卸载世界
-                if (!Bukkit.unloadWorld(world, false)) {
-                    plugin.getLogger().warning("§c无法卸载世界 " + worldName);
-                    return false;
-                }
+                return Bukkit.unloadWorld(world, false);
+            });
+
+            if (!unloaded) {
+                plugin.getLogger().warning("§c无法卸载世界 " + worldName);
+                return false;
             }
 
             // 2. 等待一段时间确保世界完全卸载
@@ -103,44 +132,167 @@ public class WorldManager {
                 deleteDirectory(worldFolder.toPath());
             }
 
-            // 4. 从模板复制世界
-            String templatePath = plugin.getConfig().getString("world-restore.template-path", worldName + "_template");
-            File templateFolder = new File(Bukkit.getWorldContainer(), templatePath);
+            // 4. 从快照流式还原世界（没有快照时使用旧的模板文件夹）
+            WorldSnapshotStore snapshotStore = getSnapshotStore(worldName);
+            if (isSnapshotEnabled() && snapshotStore.hasSnapshot()) {
+                long startTime = System.currentTimeMillis();
+                long written = snapshotStore.restoreSnapshot(snapshotStore.getLatestGeneration(), worldFolder.toPath());
+                plugin.getLogger().info("§a已从快照还原世界文件 (" + WorldCloner.formatBytes(written) + ", 用时 "
+                        + (System.currentTimeMillis() - startTime) + "ms)");
+                return reloadRestoredWorld(worldName);
+            }
+
+            File templateFolder = getTemplateFolder(worldName);
 
             if (!templateFolder.exists()) {
-                plugin.getLogger().warning("§c未找到世界模板: " + templatePath);
+                plugin.getLogger().warning("§c未找到世界模板: " + templateFolder.getName());
                 plugin.getLogger().warning("§e正在创建世界备份...");
 
                 // 重新加载世界并备份
-                Bukkit.createWorld(new WorldCreator(worldName));
+                callSync(() -> Bukkit.createWorld(new WorldCreator(worldName)) != null);
                 return backupWorld(worldName);
             }
 
             copyDirectory(templateFolder.toPath(), worldFolder.toPath());
 
-            // 5. 重新加载世界
-            Bukkit.createWorld(new WorldCreator(worldName));
+            return reloadRestoredWorld(worldName);
+
+        } catch (Exception e) {
+            plugin.getLogger().severe("§c还原世界失败: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 重新加载还原后的世界并刷新箱子
+     * @param worldName 世界名称
+     * @return 是否成功
+     */
+    private boolean reloadRestoredWorld(String worldName) throws Exception {
+        // 5. 重新加载世界
+        callSync(() -> Bukkit.createWorld(new WorldCreator(worldName)) != null);
 
-            plugin.getLogger().info("§a世界还原完成！");
+        plugin.getLogger().info("§a世界还原完成！");
 
-            // 6. 如果启用了箱子刷新，填充箱子
-            if (plugin.getConfig().getBoolean("world-restore.refresh-chests", true)) {
+        // 6. 如果启用了箱子刷新，填充箱子
+        if (plugin.getConfig().getBoolean("world-restore.refresh-chests", true)) {
+            // 延迟填充，确保世界完全加载
+            Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 World restoredWorld = Bukkit.getWorld(worldName);
                 if (restoredWorld != null) {
-                    // 延迟填充，确保世界完全加载
-                    Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                        plugin.getLootChestManager().fillAllChests(restoredWorld);
-                    }, 40L); // 2秒后填充
+                    plugin.getLootChestManager().fillAllChests(restoredWorld);
                 }
-            }
+            }, 40L); // 2秒后填充
+        }
 
-            return true;
+        return true;
+    }
 
-        } catch (Exception e) {
-            plugin.getLogger().severe("§c还原世界失败: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+    /**
+     * 获取世界的模板文件夹（world-restore.template-path）
+     * @param worldName 世界名称
+     * @return 模板文件夹
+     */
+    private File getTemplateFolder(String worldName) {
+        String templatePath = plugin.getConfig().getString("world-restore.template-path", worldName + "_template");
+        return new File(Bukkit.getWorldContainer(), templatePath);
+    }
+
+    /**
+     * 增量同步模板文件夹
+     * 只复制大小或修改时间不同的文件（保留修改时间供下次比较），并删除世界中已不存在的文件
+     * 替换文件时先删除再创建，硬链接到旧模板的游戏世界不受影响
+     * @param source 世界文件夹
+     * @param target 模板文件夹
+     * @throws IOException IO异常
+     */
+    private void syncTemplateFolder(Path source, Path target) throws IOException {
+        long startTime = System.currentTimeMillis();
+        int[] copied = new int[1];
+        long[] copiedBytes = new long[1];
+        int[] removed = new int[1];
+
+        try (Stream<Path> stream = Files.walk(source)) {
+            stream.forEach(sourcePath -> {
+                try {
+                    Path targetPath = target.resolve(source.relativize(sourcePath).toString());
+
+                    String fileName = sourcePath.getFileName().toString();
+                    if (fileName.equals("session.lock") || fileName.equals("uid.dat")) {
+                        return;
+                    }
+
+                    if (Files.isDirectory(sourcePath)) {
+                        Files.createDirectories(targetPath);
+                        return;
+                    }
+
+                    long size = Files.size(sourcePath);
+                    if (Files.exists(targetPath) && Files.size(targetPath) == size
+                            && Files.getLastModifiedTime(targetPath).equals(Files.getLastModifiedTime(sourcePath))) {
+                        return;
+                    }
+
+                    Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    copied[0]++;
+                    copiedBytes[0] += size;
+                } catch (IOException e) {
+                    plugin.getLogger().warning("§c同步模板文件失败: " + sourcePath + " -> " + e.getMessage());
+                }
+            });
+        }
+
+        // 删除世界中已不存在的文件
+        try (Stream<Path> stream = Files.walk(target)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(targetPath -> {
+                Path sourcePath = source.resolve(target.relativize(targetPath).toString());
+                if (targetPath.equals(target) || Files.exists(sourcePath)
+                        || targetPath.getFileName().toString().equals("session.lock")) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(targetPath);
+                    removed[0]++;
+                } catch (IOException e) {
+                    plugin.getLogger().warning("§c删除模板文件失败: " + targetPath + " -> " + e.getMessage());
+                }
+            });
+        }
+
+        plugin.getLogger().info("§a模板文件夹已同步: " + target.getFileName() + " (更新 " + copied[0] + " 个文件, "
+                + WorldCloner.formatBytes(copiedBytes[0]) + ", 删除 " + removed[0] + " 个, 用时 "
+                + (System.currentTimeMillis() - startTime) + "ms)");
+    }
+
+    /**
+     * 检查是否使用增量快照备份
+     * @return 是否启用
+     */
+    private boolean isSnapshotEnabled() {
+        return plugin.getConfig().getBoolean("world-restore.snapshot.enabled", true);
+    }
+
+    /**
+     * 获取世界的快照存储
+     * @param worldName 世界名称
+     * @return 快照存储
+     */
+    public WorldSnapshotStore getSnapshotStore(String worldName) {
+        File snapshotsFolder = new File(plugin.getDataFolder(), "snapshots");
+        return new WorldSnapshotStore(plugin, new File(snapshotsFolder, worldName).toPath());
+    }
+
+    /**
+     * 在主线程执行操作（已在主线程时直接执行）
+     * @param task 操作
+     * @return 操作结果
+     */
+    private boolean callSync(Callable<Boolean> task) throws Exception {
+        if (Bukkit.isPrimaryThread()) {
+            return task.call();
         }
+        return Bukkit.getScheduler().callSyncMethod(plugin, task).get();
     }
 
     /**
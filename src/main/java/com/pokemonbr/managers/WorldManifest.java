@@ -0,0 +1,224 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.ManagedWorldState;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * 世界清单
+ * 持久化记录 WorldTemplateManager 创建的所有世界副本及其状态和来源模板
+ * 服务器崩溃后，启动时根据清单回收残留的世界文件夹并恢复世界计数器
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldManifest {
+
+    private final Main plugin;
+    private final File manifestFile;
+
+    // 世界名称 -> 清单条目
+    private final Map<String, ManifestEntry> entries;
+
+    // 下一个世界编号
+    private int counter;
+
+    public WorldManifest(Main plugin) {
+        this.plugin = plugin;
+        this.manifestFile = new File(plugin.getDataFolder(), "world-manifest.yml");
+        this.entries = new LinkedHashMap<>();
+        this.counter = 1;
+
+        load();
+    }
+
+    /**
+     * 清单条目类
+     */
+    public static class ManifestEntry {
+        private final String templateWorld;
+        private final String worldConfigName;
+        private final long createdAt;
+        private ManagedWorldState state;
+
+        ManifestEntry(String templateWorld, String worldConfigName, long createdAt, ManagedWorldState state) {
+            this.templateWorld = templateWorld;
+            this.worldConfigName = worldConfigName;
+            this.createdAt = createdAt;
+            this.state = state;
+        }
+
+        public String getTemplateWorld() {
+            return templateWorld;
+        }
+
+        public String getWorldConfigName() {
+            return worldConfigName;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public ManagedWorldState getState() {
+            return state;
+        }
+    }
+
+    /**
+     * 从文件加载清单
+     */
+    private void load() {
+        if (!manifestFile.exists()) {
+            return;
+        }
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(manifestFile);
+        counter = Math.max(1, config.getInt("counter", 1));
+
+        ConfigurationSection worlds = config.getConfigurationSection("worlds");
+        if (worlds != null) {
+            for (String worldName : worlds.getKeys(false)) {
+                ConfigurationSection section = worlds.getConfigurationSection(worldName);
+                if (section == null) {
+                    continue;
+                }
+
+                entries.put(worldName, new ManifestEntry(
+                        section.getString("template"),
+                        section.getString("world-config"),
+                        section.getLong("created-at", 0),
+                        ManagedWorldState.fromName(section.getString("state"))));
+            }
+        }
+
+        plugin.getLogger().info("§7世界清单已加载: " + entries.size() + " 个世界记录, 计数器: " + counter);
+    }
+
+    /**
+     * 将清单写入文件（先写临时文件再原子替换，避免崩溃时清单损坏）
+     */
+    private void save() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("counter", counter);
+
+        for (Map.Entry<String, ManifestEntry> entry : entries.entrySet()) {
+            String path = "worlds." + entry.getKey() + ".";
+            ManifestEntry value = entry.getValue();
+            config.set(path + "template", value.templateWorld);
+            config.set(path + "world-config", value.worldConfigName);
+            config.set(path + "created-at", value.createdAt);
+            config.set(path + "state", value.state.name());
+        }
+
+        try {
+            plugin.getDataFolder().mkdirs();
+            Path target = manifestFile.toPath();
+            Path temp = target.resolveSibling(manifestFile.getName() + ".tmp");
+            Files.write(temp, config.saveToString().getBytes(StandardCharsets.UTF_8));
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("§c世界清单保存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分配下一个世界编号
+     * @return 世界编号
+     */
+    public synchronized int nextCounter() {
+        int value = counter++;
+        save();
+        return value;
+    }
+
+    /**
+     * 确保计数器不小于指定值（用于跳过磁盘上已存在的世界文件夹）
+     * @param minimum 最小值
+     */
+    public synchronized void ensureCounterAtLeast(int minimum) {
+        if (counter < minimum) {
+            counter = minimum;
+            save();
+        }
+    }
+
+    /**
+     * 记录新创建的世界
+     * @param worldName 世界名称
+     * @param templateWorld 模板世界名称
+     * @param worldConfigName 世界配置名称
+     */
+    public synchronized void recordCopying(String worldName, String templateWorld, String worldConfigName) {
+        entries.put(worldName, new ManifestEntry(templateWorld, worldConfigName, System.currentTimeMillis(),
+                ManagedWorldState.COPYING));
+        save();
+    }
+
+    /**
+     * 更新世界状态
+     * @param worldName 世界名称
+     * @param state 新状态
+     */
+    public synchronized void setState(String worldName, ManagedWorldState state) {
+        ManifestEntry entry = entries.get(worldName);
+        if (entry != null && entry.state != state) {
+            entry.state = state;
+            save();
+        }
+    }
+
+    /**
+     * 世界文件删除后移除记录
+     * @param worldName 世界名称
+     */
+    public synchronized void remove(String worldName) {
+        if (entries.remove(worldName) != null) {
+            save();
+        }
+    }
+
+    /**
+     * 检查世界是否在清单中
+     * @param worldName 世界名称
+     * @return 是否存在
+     */
+    public synchronized boolean contains(String worldName) {
+        return entries.containsKey(worldName);
+    }
+
+    /**
+     * 获取所有记录的副本
+     * @return Map<世界名称, 清单条目>
+     */
+    public synchronized Map<String, ManifestEntry> getEntries() {
+        return new LinkedHashMap<>(entries);
+    }
+
+    /**
+     * 统计处于指定状态的世界数量
+     * @param state 状态
+     * @return 世界数量
+     */
+    public synchronized int countByState(ManagedWorldState state) {
+        int count = 0;
+        for (ManifestEntry entry : entries.values()) {
+            if (entry.state == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
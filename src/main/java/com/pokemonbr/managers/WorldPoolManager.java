@@ -0,0 +1,326 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * 世界预热池管理器
+ * 为每个已启用的世界配置预先复制并加载若干世界副本
+ * 新队列创建时直接取出已就绪的世界，取出后在后台自动补充
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldPoolManager {
+
+    private final Main plugin;
+    private final WorldTemplateManager worldTemplateManager;
+
+    // 世界配置名称 -> 已就绪的世界
+    private final Map<String, Deque<World>> readyWorlds;
+
+    // 正在补充的世界配置（每个配置同一时间只复制一个世界）
+    private final Set<String> refillingConfigs;
+
+    // 世界配置名称 -> 已取出且对局结束后会重置回池的世界
+    private final Map<String, Set<String>> pendingReturns;
+
+    // 是否已关闭
+    private volatile boolean shutdown;
+
+    public WorldPoolManager(Main plugin, WorldTemplateManager worldTemplateManager) {
+        this.plugin = plugin;
+        this.worldTemplateManager = worldTemplateManager;
+        this.readyWorlds = new ConcurrentHashMap<>();
+        this.refillingConfigs = ConcurrentHashMap.newKeySet();
+        this.pendingReturns = new ConcurrentHashMap<>();
+        this.shutdown = false;
+    }
+
+    /**
+     * 检查预热池是否启用
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return plugin.getConfig().getBoolean("world-pool.enabled", true);
+    }
+
+    /**
+     * 启动预热池（延迟后开始补充）
+     */
+    public void start() {
+        if (!isEnabled()) {
+            plugin.getLogger().info("§7世界预热池未启用");
+            return;
+        }
+
+        int startupDelay = plugin.getConfig().getInt("world-pool.startup-delay", 5);
+        Bukkit.getScheduler().runTaskLater(plugin, this::refillAll, Math.max(1, startupDelay) * 20L);
+
+        plugin.getLogger().info("§a世界预热池将在 " + startupDelay + " 秒后开始预热");
+    }
+
+    /**
+     * 从预热池取出一个世界（主线程调用）
+     * 可重置的世界记为待归还，补充时计入目标数量，避免重置完成后因池已满被删除
+     * @param worldConfigName 世界配置名称
+     * @return 已加载的世界，池中没有可用世界时返回null
+     */
+    public World checkout(String worldConfigName) {
+        if (worldConfigName == null) {
+            return null;
+        }
+
+        Deque<World> pool = readyWorlds.get(worldConfigName);
+        World world = null;
+
+        while (pool != null && (world = pool.pollFirst()) != null) {
+            // 跳过已被卸载的世界
+            if (Bukkit.getWorld(world.getName()) != null) {
+                break;
+            }
+            world = null;
+        }
+
+        if (world != null) {
+            expectReturn(worldConfigName, world.getName());
+        }
+
+        // 取出后在后台补充
+        refill(worldConfigName);
+
+        return world;
+    }
+
+    /**
+     * 记录已取出的世界将在对局结束后重置回池
+     * 不可重置的世界不记录（对局结束后会被删除）
+     * @param worldConfigName 世界配置名称
+     * @param worldName 世界名称
+     */
+    public void expectReturn(String worldConfigName, String worldName) {
+        if (worldConfigName == null || !worldTemplateManager.getWorldResetManager().canReset(worldName)) {
+            return;
+        }
+        pendingReturns.computeIfAbsent(worldConfigName, k -> ConcurrentHashMap.newKeySet()).add(worldName);
+    }
+
+    /**
+     * 取消世界的待归还记录（世界改为删除时调用，可在任意线程调用）
+     * 之前因等待该世界而少补充的数量会重新补上
+     * @param worldName 世界名称
+     */
+    public void cancelReturn(String worldName) {
+        for (Map.Entry<String, Set<String>> entry : pendingReturns.entrySet()) {
+            if (!entry.getValue().remove(worldName) || shutdown) {
+                continue;
+            }
+
+            String worldConfigName = entry.getKey();
+            if (Bukkit.isPrimaryThread()) {
+                refill(worldConfigName);
+            } else {
+                Bukkit.getScheduler().runTask(plugin, () -> refill(worldConfigName));
+            }
+        }
+    }
+
+    /**
+     * 获取指定世界配置待归还的世界数量
+     * @param worldConfigName 世界配置名称
+     * @return 待归还数量
+     */
+    public int getPendingReturnCount(String worldConfigName) {
+        Set<String> pending = pendingReturns.get(worldConfigName);
+        return pending != null ? pending.size() : 0;
+    }
+
+    /**
+     * 将已重置的世界放回预热池（主线程调用）
+     * 池已满时优先淘汰一个新复制的世界（重置世界只需恢复修改过的区块，复用成本更低）
+     * 预热池未启用时每个世界配置最多保留一个重置后的世界
+     * @param worldConfigName 世界配置名称
+     * @param world 已加载的世界
+     * @return 是否被接收，未接收时由调用方删除世界
+     */
+    public boolean offer(String worldConfigName, World world) {
+        if (worldConfigName != null && world != null) {
+            Set<String> pending = pendingReturns.get(worldConfigName);
+            if (pending != null) {
+                pending.remove(world.getName());
+            }
+        }
+
+        if (shutdown || worldConfigName == null || world == null) {
+            return false;
+        }
+
+        int capacity = isEnabled() ? computeTargetSizes().getOrDefault(worldConfigName, 0) : 1;
+        Deque<World> pool = readyWorlds.computeIfAbsent(worldConfigName, k -> new ConcurrentLinkedDeque<>());
+
+        if (pool.size() >= capacity) {
+            // 新复制的世界排在队尾，放回的世界本身未重置过时不做替换
+            World fresh = pool.peekLast();
+            if (capacity <= 0 || fresh == null
+                    || worldTemplateManager.getWorldResetManager().getResetCount(world.getName()) == 0
+                    || worldTemplateManager.getWorldResetManager().getResetCount(fresh.getName()) > 0
+                    || !pool.removeLastOccurrence(fresh)) {
+                return false;
+            }
+
+            plugin.getLogger().info("§7预热池已满，删除新复制的世界以保留重置世界: " + fresh.getName()
+                    + " (配置: " + worldConfigName + ")");
+            worldTemplateManager.deleteWorld(fresh.getName());
+        }
+
+        // 重置的世界优先取出，新复制的世界留在后面
+        pool.addFirst(world);
+        plugin.getLogger().info("§a重置世界已回到预热池: " + world.getName() + " (配置: " + worldConfigName + ", "
+                + pool.size() + "/" + capacity + ")");
+        return true;
+    }
+
+    /**
+     * 根据地图权重计算每个世界配置的目标预热数量
+     * @return Map<世界配置名称, 目标数量>
+     */
+    public Map<String, Integer> computeTargetSizes() {
+        Map<String, Integer> targets = new HashMap<>();
+        Map<String, Integer> worldWeights = plugin.getWorldConfigManager().getEnabledWorldsWithWeight();
+
+        if (worldWeights.isEmpty()) {
+            return targets;
+        }
+
+        int poolSize = Math.max(0, plugin.getConfig().getInt("world-pool.size", 2));
+        int minPerWorld = Math.max(0, plugin.getConfig().getInt("world-pool.min-per-world", 1));
+
+        int totalWeight = 0;
+        for (int weight : worldWeights.values()) {
+            totalWeight += Math.max(0, weight);
+        }
+
+        for (Map.Entry<String, Integer> entry : worldWeights.entrySet()) {
+            int share = totalWeight > 0
+                    ? (int) Math.round((double) poolSize * Math.max(0, entry.getValue()) / totalWeight)
+                    : 0;
+            targets.put(entry.getKey(), Math.max(minPerWorld, share));
+        }
+
+        return targets;
+    }
+
+    /**
+     * 补充所有世界配置的预热世界
+     */
+    public void refillAll() {
+        if (shutdown || !isEnabled()) {
+            return;
+        }
+
+        Set<String> configNames = new HashSet<>(computeTargetSizes().keySet());
+        configNames.addAll(readyWorlds.keySet());
+
+        for (String worldConfigName : configNames) {
+            refill(worldConfigName);
+        }
+    }
+
+    /**
+     * 补充指定世界配置的预热世界（超出目标数量的世界将被删除）
+     * @param worldConfigName 世界配置名称
+     */
+    private void refill(String worldConfigName) {
+        if (shutdown || !isEnabled()) {
+            return;
+        }
+
+        int target = computeTargetSizes().getOrDefault(worldConfigName, 0);
+        Deque<World> pool = readyWorlds.computeIfAbsent(worldConfigName, k -> new ConcurrentLinkedDeque<>());
+
+        // 权重降低或地图被禁用时释放多余的世界
+        while (pool.size() > target) {
+            World surplus = pool.pollLast();
+            if (surplus == null) {
+                break;
+            }
+            plugin.getLogger().info("§7预热池释放多余世界: " + surplus.getName() + " (配置: " + worldConfigName + ")");
+            worldTemplateManager.deleteWorld(surplus.getName());
+        }
+
+        // 对局结束后会重置回池的世界计入目标数量
+        int pending = getPendingReturnCount(worldConfigName);
+        if (pool.size() + pending >= target || !refillingConfigs.add(worldConfigName)) {
+            return;
+        }
+
+        plugin.getLogger().info("§e预热池正在补充世界 (配置: " + worldConfigName + ", "
+                + pool.size() + "/" + target + ", 待归还: " + pending + ")");
+
+        worldTemplateManager.createWorldCopyFromConfig(worldConfigName).whenComplete((world, throwable) -> {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                refillingConfigs.remove(worldConfigName);
+
+                if (world == null) {
+                    // 失败后不立即重试，等待下次取出或重载时再补充
+                    plugin.getLogger().warning("§c预热池补充世界失败 (配置: " + worldConfigName + ")");
+                    return;
+                }
+
+                if (shutdown) {
+                    worldTemplateManager.deleteWorld(world.getName());
+                    return;
+                }
+
+                pool.addLast(world);
+                plugin.getLogger().info("§a预热世界已就绪: " + world.getName() + " (配置: " + worldConfigName + ", "
+                        + pool.size() + "/" + target + ")");
+
+                // 继续补充直到达到目标数量
+                refill(worldConfigName);
+            });
+        });
+    }
+
+    /**
+     * 获取指定世界配置当前就绪的世界数量
+     * @param worldConfigName 世界配置名称
+     * @return 就绪数量
+     */
+    public int getReadyCount(String worldConfigName) {
+        Deque<World> pool = readyWorlds.get(worldConfigName);
+        return pool != null ? pool.size() : 0;
+    }
+
+    /**
+     * 检查世界是否在预热池中待命
+     * @param worldName 世界名称
+     * @return 是否在池中
+     */
+    public boolean isPooled(String worldName) {
+        for (Deque<World> pool : readyWorlds.values()) {
+            for (World world : pool) {
+                if (world.getName().equals(worldName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 关闭预热池
+     * 池中的世界仍在活跃世界列表中，由 WorldTemplateManager.cleanup() 统一删除
+     */
+    public void shutdown() {
+        shutdown = true;
+        readyWorlds.clear();
+        refillingConfigs.clear();
+        pendingReturns.clear();
+    }
+}
@@ -0,0 +1,394 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.models.PlayableArea;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 世界重置管理器
+ * 记录游戏世界在对局中被修改的区块，对局结束后只从模板恢复这些区块，
+ * 使同一个世界实例可以被同一世界配置的下一个队列复用
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldResetManager {
+
+    // 区域文件扇区大小
+    private static final int SECTOR_BYTES = 4096;
+
+    // 区域文件头大小（位置表 + 时间戳表）
+    private static final int HEADER_BYTES = SECTOR_BYTES * 2;
+
+    private final Main plugin;
+
+    // 世界名称 -> 跟踪数据
+    private final Map<String, TrackedWorld> trackedWorlds;
+
+    public WorldResetManager(Main plugin) {
+        this.plugin = plugin;
+        this.trackedWorlds = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 世界跟踪数据类
+     */
+    private static class TrackedWorld {
+        final String worldConfigName;
+        final String templateWorld;
+        final Set<Long> dirtyChunks;
+        int resetCount;
+
+        TrackedWorld(String worldConfigName, String templateWorld) {
+            this.worldConfigName = worldConfigName;
+            this.templateWorld = templateWorld;
+            this.dirtyChunks = ConcurrentHashMap.newKeySet();
+            this.resetCount = 0;
+        }
+    }
+
+    /**
+     * 检查重置模式是否启用
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return plugin.getConfig().getBoolean("world-management.reset-mode.enabled", false);
+    }
+
+    /**
+     * 开始跟踪世界的区块修改
+     * @param worldName 世界名称
+     * @param worldConfigName 世界配置名称
+     * @param templateWorld 模板世界名称
+     */
+    public void track(String worldName, String worldConfigName, String templateWorld) {
+        trackedWorlds.put(worldName, new TrackedWorld(worldConfigName, templateWorld));
+    }
+
+    /**
+     * 停止跟踪世界（世界被删除时调用）
+     * @param worldName 世界名称
+     */
+    public void untrack(String worldName) {
+        trackedWorlds.remove(worldName);
+    }
+
+    /**
+     * 检查世界是否被跟踪
+     * @param worldName 世界名称
+     * @return 是否被跟踪
+     */
+    public boolean isTracked(String worldName) {
+        return trackedWorlds.containsKey(worldName);
+    }
+
+    /**
+     * 标记区块已被修改
+     * @param world 世界
+     * @param chunkX 区块X坐标
+     * @param chunkZ 区块Z坐标
+     */
+    public void markDirty(World world, int chunkX, int chunkZ) {
+        TrackedWorld tracked = trackedWorlds.get(world.getName());
+        if (tracked != null) {
+            tracked.dirtyChunks.add(chunkKey(chunkX, chunkZ));
+        }
+    }
+
+    /**
+     * 标记世界中所有已加载区块为已修改（世界被强制保存时调用）
+     * @param world 世界
+     */
+    public void markAllLoaded(World world) {
+        TrackedWorld tracked = trackedWorlds.get(world.getName());
+        if (tracked == null) {
+            return;
+        }
+
+        for (Chunk chunk : world.getLoadedChunks()) {
+            tracked.dirtyChunks.add(chunkKey(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    /**
+     * 检查世界是否可以重置复用
+     * @param worldName 世界名称
+     * @return 是否可以重置
+     */
+    public boolean canReset(String worldName) {
+        TrackedWorld tracked = trackedWorlds.get(worldName);
+        if (!isEnabled() || tracked == null) {
+            return false;
+        }
+
+        int maxResets = plugin.getConfig().getInt("world-management.reset-mode.max-resets", 20);
+        return tracked.resetCount < maxResets;
+    }
+
+    /**
+     * 获取世界的世界配置名称
+     * @param worldName 世界名称
+     * @return 世界配置名称 或 null
+     */
+    public String getWorldConfigName(String worldName) {
+        TrackedWorld tracked = trackedWorlds.get(worldName);
+        return tracked != null ? tracked.worldConfigName : null;
+    }
+
+    /**
+     * 获取世界的模板世界名称
+     * @param worldName 世界名称
+     * @return 模板世界名称 或 null
+     */
+    public String getTemplateWorld(String worldName) {
+        TrackedWorld tracked = trackedWorlds.get(worldName);
+        return tracked != null ? tracked.templateWorld : null;
+    }
+
+    /**
+     * 获取已修改的区块数量
+     * @param worldName 世界名称
+     * @return 区块数量
+     */
+    public int getDirtyChunkCount(String worldName) {
+        TrackedWorld tracked = trackedWorlds.get(worldName);
+        return tracked != null ? tracked.dirtyChunks.size() : 0;
+    }
+
+    /**
+     * 获取世界已被重置的次数
+     * @param worldName 世界名称
+     * @return 重置次数
+     */
+    public int getResetCount(String worldName) {
+        TrackedWorld tracked = trackedWorlds.get(worldName);
+        return tracked != null ? tracked.resetCount : 0;
+    }
+
+    /**
+     * 从模板恢复世界文件（在I/O线程调用，世界必须已卸载）
+     * 只恢复被修改的区块，删除对局中新生成的区域文件，并还原 level.dat 和 data 文件夹
+     * @param serverFolder 服务器世界目录
+     * @param worldName 世界名称
+     * @param area 克隆时使用的区域裁剪范围（null表示未裁剪）
+     * @param cloner 世界克隆器
+     * @return 恢复的区块数量
+     */
+    public int restoreWorldFiles(File serverFolder, String worldName, PlayableArea area, WorldCloner cloner) throws IOException {
+        TrackedWorld tracked = trackedWorlds.get(worldName);
+        if (tracked == null) {
+            throw new IOException("世界未被跟踪: " + worldName);
+        }
+
+        Path templateFolder = new File(serverFolder, tracked.templateWorld).toPath();
+        Path worldFolder = new File(serverFolder, worldName).toPath();
+        Path templateRegion = templateFolder.resolve("region");
+        Path worldRegion = worldFolder.resolve("region");
+
+        // 按区域文件分组
+        Map<String, List<Integer>> regionChunks = new HashMap<>();
+        for (long key : tracked.dirtyChunks) {
+            int chunkX = (int) (key >> 32);
+            int chunkZ = (int) key;
+            String fileName = "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca";
+            regionChunks.computeIfAbsent(fileName, k -> new ArrayList<>())
+                    .add((chunkX & 31) + (chunkZ & 31) * 32);
+        }
+
+        int restored = 0;
+
+        for (Map.Entry<String, List<Integer>> entry : regionChunks.entrySet()) {
+            Path worldFile = worldRegion.resolve(entry.getKey());
+            Path templateFile = templateRegion.resolve(entry.getKey());
+
+            if (!Files.exists(worldFile)) {
+                continue;
+            }
+
+            // 模板中不存在或克隆时被裁剪的区域文件，直接删除
+            if (!Files.exists(templateFile) || (area != null && !area.intersectsRegionFile(entry.getKey()))) {
+                Files.delete(worldFile);
+                continue;
+            }
+
+            // 与模板硬链接的文件从未被写入
+            if (Files.isSameFile(templateFile, worldFile)) {
+                continue;
+            }
+
+            try {
+                restored += restoreChunkEntries(templateFile, worldFile, entry.getValue());
+            } catch (IOException e) {
+                // 区域文件异常时回退为整个文件复制
+                plugin.getLogger().warning("§e区块恢复失败，改为复制整个区域文件: " + entry.getKey() + " (" + e.getMessage() + ")");
+                Files.copy(templateFile, worldFile, StandardCopyOption.REPLACE_EXISTING);
+                restored += entry.getValue().size();
+            }
+        }
+
+        // 删除对局中新生成的区域文件
+        if (Files.isDirectory(worldRegion)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldRegion, "*.mca")) {
+                for (Path file : stream) {
+                    String fileName = file.getFileName().toString();
+                    if (!Files.exists(templateRegion.resolve(fileName))
+                            || (area != null && !area.intersectsRegionFile(fileName))) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+
+        // 兴趣点数据由服务器重新生成（克隆时也不会复制）
+        deleteFolder(worldFolder.resolve("poi"));
+
+        // 还原世界级数据（时间、天气、世界边界等保存在 level.dat 中）
+        for (String fileName : Arrays.asList("level.dat", "level.dat_old")) {
+            Path templateFile = templateFolder.resolve(fileName);
+            if (Files.exists(templateFile)) {
+                cloner.cloneFile(templateFile, worldFolder.resolve(fileName));
+            }
+        }
+
+        Path templateData = templateFolder.resolve("data");
+        deleteFolder(worldFolder.resolve("data"));
+        if (Files.isDirectory(templateData)) {
+            cloner.copyFolder(templateData, worldFolder.resolve("data"));
+        }
+
+        tracked.dirtyChunks.clear();
+        tracked.resetCount++;
+
+        return restored;
+    }
+
+    /**
+     * 从模板区域文件恢复指定的区块条目
+     * 新数据能放入原位置时原地覆盖，否则追加到文件末尾
+     * @param templateFile 模板区域文件
+     * @param worldFile 世界区域文件
+     * @param chunkIndexes 区块在区域内的索引 (x & 31) + (z & 31) * 32
+     * @return 恢复的区块数量
+     */
+    private int restoreChunkEntries(Path templateFile, Path worldFile, List<Integer> chunkIndexes) throws IOException {
+        try (FileChannel source = FileChannel.open(templateFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(worldFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            if (source.size() < HEADER_BYTES || target.size() < HEADER_BYTES) {
+                throw new IOException("区域文件头不完整");
+            }
+
+            ByteBuffer sourceHeader = readFully(source, 0, HEADER_BYTES);
+            ByteBuffer targetHeader = readFully(target, 0, HEADER_BYTES);
+
+            long appendSector = Math.max(2, (target.size() + SECTOR_BYTES - 1) / SECTOR_BYTES);
+
+            for (int index : chunkIndexes) {
+                int sourceLocation = sourceHeader.getInt(index * 4);
+                int sourceTimestamp = sourceHeader.getInt(SECTOR_BYTES + index * 4);
+
+                // 模板中该区块未生成，清除条目后由服务器重新生成
+                if (sourceLocation == 0) {
+                    targetHeader.putInt(index * 4, 0);
+                    targetHeader.putInt(SECTOR_BYTES + index * 4, 0);
+                    continue;
+                }
+
+                int sourceOffset = sourceLocation >>> 8;
+                int sourceCount = sourceLocation & 0xFF;
+                ByteBuffer data = readFully(source, (long) sourceOffset * SECTOR_BYTES, sourceCount * SECTOR_BYTES);
+
+                // 超大区块存储在外部 .mcc 文件中，交给整文件复制处理
+                if ((data.get(4) & 0x80) != 0) {
+                    throw new IOException("区块数据存储在外部文件中");
+                }
+
+                int targetLocation = targetHeader.getInt(index * 4);
+                int targetOffset = targetLocation >>> 8;
+                int targetCount = targetLocation & 0xFF;
+
+                long writeSector;
+                if (targetOffset >= 2 && targetCount >= sourceCount) {
+                    writeSector = targetOffset;
+                } else {
+                    writeSector = appendSector;
+                    appendSector += sourceCount;
+                }
+
+                writeFully(target, writeSector * SECTOR_BYTES, data);
+                targetHeader.putInt(index * 4, (int) (writeSector << 8) | sourceCount);
+                targetHeader.putInt(SECTOR_BYTES + index * 4, sourceTimestamp);
+            }
+
+            targetHeader.rewind();
+            writeFully(target, 0, targetHeader);
+            target.force(false);
+        }
+
+        return chunkIndexes.size();
+    }
+
+    /**
+     * 从文件指定位置读取固定长度的数据
+     */
+    private ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("区域文件长度不足");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 将数据完整写入文件指定位置
+     */
+    private void writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * 递归删除文件夹（不存在时忽略）
+     */
+    private void deleteFolder(Path folder) throws IOException {
+        if (!Files.exists(folder)) {
+            return;
+        }
+
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, java.nio.file.attribute.BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 将区块坐标编码为长整型
+     */
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
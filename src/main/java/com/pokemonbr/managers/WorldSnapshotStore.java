@@ -0,0 +1,515 @@
+package com.pokemonbr.managers;
+
+import com.pokemonbr.Main;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 世界快照存储
+ * 以内容寻址方式增量保存世界：区域文件按区块拆分并按哈希去重，只有变化的区块会被写入
+ * 每次备份生成一个快照代，保留最近N代，未被引用的数据在备份后清理
+ *
+ * 存储结构:
+ *   objects/ab/abcdef...   区块数据（保持区域文件中的压缩格式）或 gzip 压缩的普通文件
+ *   generations/*.snap     快照代清单（gzip 压缩）
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class WorldSnapshotStore {
+
+    // 区域文件扇区大小
+    private static final int SECTOR_BYTES = 4096;
+
+    // 区域文件每个文件包含的区块数
+    private static final int CHUNKS_PER_REGION = 1024;
+
+    // 清单文件标识与版本
+    private static final int MANIFEST_MAGIC = 0x50425253;
+    private static final int MANIFEST_VERSION = 1;
+
+    // 清单条目类型
+    private static final byte TYPE_FILE = 0;
+    private static final byte TYPE_REGION = 1;
+
+    private final Main plugin;
+    private final Path storeFolder;
+    private final Path objectsFolder;
+    private final Path generationsFolder;
+
+    public WorldSnapshotStore(Main plugin, Path storeFolder) {
+        this.plugin = plugin;
+        this.storeFolder = storeFolder;
+        this.objectsFolder = storeFolder.resolve("objects");
+        this.generationsFolder = storeFolder.resolve("generations");
+    }
+
+    /**
+     * 快照清单中的文件条目
+     */
+    private static class FileEntry {
+        final String path;
+        final byte type;
+        final long size;
+        final long modified;
+        // 普通文件的内容哈希
+        String hash;
+        // 区域文件每个区块的哈希与时间戳（未生成的区块哈希为空字符串）
+        String[] chunkHashes;
+        int[] timestamps;
+
+        FileEntry(String path, byte type, long size, long modified) {
+            this.path = path;
+            this.type = type;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * 备份统计结果
+     */
+    public static class SnapshotResult {
+        public int files;
+        public int reusedFiles;
+        public int chunks;
+        public int newChunks;
+        public long writtenBytes;
+        public long durationMillis;
+
+        @Override
+        public String toString() {
+            return "文件: " + files + " (未变化 " + reusedFiles + "), 区块: " + chunks + " (新增 " + newChunks + "), 写入: "
+                    + WorldCloner.formatBytes(writtenBytes) + ", 用时 " + durationMillis + "ms";
+        }
+    }
+
+    /**
+     * 检查是否存在快照
+     * @return 是否存在
+     */
+    public boolean hasSnapshot() {
+        return getLatestGeneration() != null;
+    }
+
+    /**
+     * 获取最新的快照代
+     * @return 快照代文件 或 null
+     */
+    public Path getLatestGeneration() {
+        List<Path> generations = listGenerations();
+        return generations.isEmpty() ? null : generations.get(generations.size() - 1);
+    }
+
+    /**
+     * 列出所有快照代（从旧到新）
+     * @return 快照代文件列表
+     */
+    public List<Path> listGenerations() {
+        List<Path> generations = new ArrayList<>();
+        if (!Files.isDirectory(generationsFolder)) {
+            return generations;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(generationsFolder, "*.snap")) {
+            for (Path file : stream) {
+                generations.add(file);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("§c读取快照列表失败: " + e.getMessage());
+        }
+
+        Collections.sort(generations);
+        return generations;
+    }
+
+    /**
+     * 创建新的快照代
+     * 与上一代大小和修改时间相同的文件直接复用，其余文件按区块计算哈希，只保存新的数据
+     * @param worldFolder 世界文件夹
+     * @param keepGenerations 保留的快照代数量
+     * @return 备份统计
+     */
+    public SnapshotResult createSnapshot(Path worldFolder, int keepGenerations) throws IOException {
+        long startTime = System.currentTimeMillis();
+        SnapshotResult result = new SnapshotResult();
+
+        Files.createDirectories(objectsFolder);
+        Files.createDirectories(generationsFolder);
+
+        // 上一代的条目，用于跳过未变化的文件
+        Map<String, FileEntry> previous = new HashMap<>();
+        Path latest = getLatestGeneration();
+        if (latest != null) {
+            for (FileEntry entry : readManifest(latest)) {
+                previous.put(entry.path, entry);
+            }
+        }
+
+        List<FileEntry> entries = new ArrayList<>();
+        MessageDigest digest = newDigest();
+
+        Files.walkFileTree(worldFolder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String fileName = file.getFileName().toString();
+                if (fileName.equals("session.lock") || fileName.equals("uid.dat")) {
+                    return FileVisitResult.CONTINUE;
+                }
+
+                String relative = worldFolder.relativize(file).toString().replace('\\', '/');
+                long modified = attrs.lastModifiedTime().toMillis();
+                result.files++;
+
+                FileEntry old = previous.get(relative);
+                if (old != null && old.size == attrs.size() && old.modified == modified) {
+                    entries.add(old);
+                    result.reusedFiles++;
+                    if (old.type == TYPE_REGION) {
+                        result.chunks += countChunks(old);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                if (fileName.endsWith(".mca") && attrs.size() >= SECTOR_BYTES * 2) {
+                    entries.add(storeRegionFile(file, relative, attrs.size(), modified, digest, result));
+                } else {
+                    entries.add(storePlainFile(file, relative, attrs.size(), modified, digest, result));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        writeManifest(generationsFolder.resolve(String.format("%013d.snap", System.currentTimeMillis())), entries);
+        pruneGenerations(Math.max(1, keepGenerations));
+
+        result.durationMillis = System.currentTimeMillis() - startTime;
+        return result;
+    }
+
+    /**
+     * 将区域文件拆分为区块保存
+     */
+    private FileEntry storeRegionFile(Path file, String relative, long size, long modified,
+                                      MessageDigest digest, SnapshotResult result) throws IOException {
+        FileEntry entry = new FileEntry(relative, TYPE_REGION, size, modified);
+        entry.chunkHashes = new String[CHUNKS_PER_REGION];
+        entry.timestamps = new int[CHUNKS_PER_REGION];
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, SECTOR_BYTES * 2);
+
+            for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                int location = header.getInt(i * 4);
+                entry.timestamps[i] = header.getInt(SECTOR_BYTES + i * 4);
+                entry.chunkHashes[i] = "";
+
+                int offset = location >>> 8;
+                int count = location & 0xFF;
+                if (location == 0 || offset < 2 || (long) (offset + count) * SECTOR_BYTES > channel.size()) {
+                    continue;
+                }
+
+                ByteBuffer lengthBuffer = readFully(channel, (long) offset * SECTOR_BYTES, 4);
+                int length = lengthBuffer.getInt(0);
+                if (length <= 0 || length > count * SECTOR_BYTES - 4) {
+                    continue;
+                }
+
+                // 区块数据（压缩类型 + 已压缩的数据），按原样保存
+                ByteBuffer payload = readFully(channel, (long) offset * SECTOR_BYTES + 4, length);
+                byte[] data = new byte[length];
+                payload.get(data);
+
+                String hash = hash(digest, data);
+                entry.chunkHashes[i] = hash;
+                result.chunks++;
+
+                if (writeObject(hash, data, false)) {
+                    result.newChunks++;
+                    result.writtenBytes += data.length;
+                }
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * 保存普通文件（gzip 压缩）
+     */
+    private FileEntry storePlainFile(Path file, String relative, long size, long modified,
+                                     MessageDigest digest, SnapshotResult result) throws IOException {
+        FileEntry entry = new FileEntry(relative, TYPE_FILE, size, modified);
+        byte[] data = Files.readAllBytes(file);
+        entry.hash = hash(digest, data);
+
+        if (writeObject(entry.hash, data, true)) {
+            result.writtenBytes += data.length;
+        }
+
+        return entry;
+    }
+
+    /**
+     * 从快照还原世界文件夹（目标文件夹需为空或不存在）
+     * 区域文件直接由区块数据流式重建，不经过中间副本
+     * @param generation 快照代文件
+     * @param targetFolder 目标世界文件夹
+     * @return 写入的字节数
+     */
+    public long restoreSnapshot(Path generation, Path targetFolder) throws IOException {
+        long written = 0;
+
+        for (FileEntry entry : readManifest(generation)) {
+            Path target = targetFolder.resolve(entry.path);
+            Files.createDirectories(target.getParent());
+
+            if (entry.type == TYPE_REGION) {
+                written += restoreRegionFile(entry, target);
+            } else {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(objectPath(entry.hash)))) {
+                    written += Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * 由区块数据重建区域文件（区块按顺序紧密排列）
+     */
+    private long restoreRegionFile(FileEntry entry, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(SECTOR_BYTES * 2);
+            int sector = 2;
+
+            for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                header.putInt(SECTOR_BYTES + i * 4, entry.timestamps[i]);
+
+                String hash = entry.chunkHashes[i];
+                if (hash.isEmpty()) {
+                    continue;
+                }
+
+                byte[] data = Files.readAllBytes(objectPath(hash));
+                int sectors = (data.length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES;
+
+                ByteBuffer chunk = ByteBuffer.allocate(sectors * SECTOR_BYTES);
+                chunk.putInt(data.length);
+                chunk.put(data);
+                chunk.rewind();
+                writeFully(out, (long) sector * SECTOR_BYTES, chunk);
+
+                header.putInt(i * 4, (sector << 8) | sectors);
+                sector += sectors;
+            }
+
+            header.rewind();
+            writeFully(out, 0, header);
+            return (long) sector * SECTOR_BYTES;
+        }
+    }
+
+    /**
+     * 删除超出保留数量的旧快照代，并清理不再被引用的数据
+     * @param keepGenerations 保留数量
+     */
+    private void pruneGenerations(int keepGenerations) throws IOException {
+        List<Path> generations = listGenerations();
+        if (generations.size() <= keepGenerations) {
+            return;
+        }
+
+        for (Path old : generations.subList(0, generations.size() - keepGenerations)) {
+            Files.deleteIfExists(old);
+        }
+
+        // 标记仍被引用的数据
+        Set<String> referenced = new HashSet<>();
+        for (Path generation : listGenerations()) {
+            for (FileEntry entry : readManifest(generation)) {
+                if (entry.type == TYPE_REGION) {
+                    for (String hash : entry.chunkHashes) {
+                        if (!hash.isEmpty()) {
+                            referenced.add(hash);
+                        }
+                    }
+                } else {
+                    referenced.add(entry.hash);
+                }
+            }
+        }
+
+        // 清除未引用的数据
+        int removed = 0;
+        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(objectsFolder)) {
+            for (Path prefix : prefixes) {
+                try (DirectoryStream<Path> objects = Files.newDirectoryStream(prefix)) {
+                    for (Path object : objects) {
+                        if (!referenced.contains(object.getFileName().toString())) {
+                            Files.delete(object);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (removed > 0) {
+            plugin.getLogger().info("§7已清理 " + removed + " 个不再引用的快照数据 (" + storeFolder.getFileName() + ")");
+        }
+    }
+
+    /**
+     * 写入数据对象（已存在时跳过）
+     * @return 是否写入了新对象
+     */
+    private boolean writeObject(String hash, byte[] data, boolean compress) throws IOException {
+        Path object = objectPath(hash);
+        if (Files.exists(object)) {
+            return false;
+        }
+
+        Files.createDirectories(object.getParent());
+        Path temp = object.resolveSibling(hash + ".tmp");
+
+        try (OutputStream out = compress
+                ? new GZIPOutputStream(Files.newOutputStream(temp))
+                : Files.newOutputStream(temp)) {
+            out.write(data);
+        }
+
+        Files.move(temp, object, StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    private Path objectPath(String hash) {
+        return objectsFolder.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * 写入快照清单
+     */
+    private void writeManifest(Path file, List<FileEntry> entries) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeInt(MANIFEST_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(entries.size());
+
+            for (FileEntry entry : entries) {
+                out.writeUTF(entry.path);
+                out.writeByte(entry.type);
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+
+                if (entry.type == TYPE_REGION) {
+                    for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                        out.writeInt(entry.timestamps[i]);
+                        out.writeUTF(entry.chunkHashes[i]);
+                    }
+                } else {
+                    out.writeUTF(entry.hash);
+                }
+            }
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 读取快照清单
+     */
+    private List<FileEntry> readManifest(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MANIFEST_MAGIC || in.readInt() != MANIFEST_VERSION) {
+                throw new IOException("无法识别的快照清单: " + file.getFileName());
+            }
+
+            in.readLong();
+            int count = in.readInt();
+            List<FileEntry> entries = new ArrayList<>(count);
+
+            for (int n = 0; n < count; n++) {
+                FileEntry entry = new FileEntry(in.readUTF(), in.readByte(), in.readLong(), in.readLong());
+
+                if (entry.type == TYPE_REGION) {
+                    entry.chunkHashes = new String[CHUNKS_PER_REGION];
+                    entry.timestamps = new int[CHUNKS_PER_REGION];
+                    for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                        entry.timestamps[i] = in.readInt();
+                        entry.chunkHashes[i] = in.readUTF();
+                    }
+                } else {
+                    entry.hash = in.readUTF();
+                }
+
+                entries.add(entry);
+            }
+
+            return entries;
+        }
+    }
+
+    private static int countChunks(FileEntry entry) {
+        int count = 0;
+        for (String hash : entry.chunkHashes) {
+            if (!hash.isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-1 不可用", e);
+        }
+    }
+
+    private static String hash(MessageDigest digest, byte[] data) {
+        byte[] bytes = digest.digest(data);
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("区域文件长度不足");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.pokemonbr.managers;
 
 import com.pokemonbr.Main;
+import com.pokemonbr.models.CloneMode;
+import com.pokemonbr.models.ManagedWorldState;
+import com.pokemonbr.models.PlayableArea;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.WorldCreator;
@@ -11,7 +14,8 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 世界模板管理器
@@ -22,6 +26,13 @@ import java.util.concurrent.CompletableFuture;
  */
 public class WorldTemplateManager {
 
+    // 需要克隆的世界文件夹与文件（标准Minecraft世界结构）
+    private static final List<String> WORLD_FOLDERS = Arrays.asList("region", "DIM-1", "DIM1", "data", "datapacks");
+    private static final List<String> WORLD_FILES = Arrays.asList("level.dat", "level.dat_old");
+
+    // 未指定世界配置时的延迟统计维度
+    private static final String DEFAULT_WORLD_CONFIG = "default";
+
     private final Main plugin;
     private final File serverFolder;
 
@@ -31,8 +42,8 @@ public class WorldTemplateManager {
     // 世界副本前缀
     private String worldPrefix;
 
-    // 当前世界计数器
-    private int worldCounter;
+    // 世界清单（持久化世界副本记录与计数器）
+    private final WorldManifest manifest;
 
     // 活跃的世界列表 <世界名称, World对象>
     private final Map<String, World> activeWorlds;
@@ -40,24 +51,200 @@ public class WorldTemplateManager {
     // 正在复制的世界列表
     private final Set<String> copyingWorlds;
 
+    // 世界预热池
+    private final WorldPoolManager worldPool;
+
+    // 世界克隆器
+    private final WorldCloner worldCloner;
+
+    // 世界重置管理器
+    private final WorldResetManager worldResetManager;
+
+    // 模板快照缓存
+    private final TemplateSnapshotCache snapshotCache;
+
+    // 世界删除调度器
+    private final WorldDeletionScheduler deletionScheduler;
+
+    // 世界文件I/O专用线程池（避免大文件复制占用公共 ForkJoin 线程池）
+    private final ThreadPoolExecutor ioExecutor;
+
     public WorldTemplateManager(Main plugin) {
         this.plugin = plugin;
         this.serverFolder = plugin.getServer().getWorldContainer();
-        this.activeWorlds = new HashMap<>();
-        this.copyingWorlds = new HashSet<>();
+        this.activeWorlds = new ConcurrentHashMap<>();
+        this.copyingWorlds = ConcurrentHashMap.newKeySet();
+        this.ioExecutor = createIoExecutor();
+        this.worldCloner = new WorldCloner(plugin);
+        this.worldResetManager = new WorldResetManager(plugin);
+        this.snapshotCache = new TemplateSnapshotCache(plugin);
+        this.deletionScheduler = new WorldDeletionScheduler(plugin, this, serverFolder);
+        this.worldPool = new WorldPoolManager(plugin, this);
+        this.manifest = new WorldManifest(plugin);
 
         loadConfig();
+
+        // 恢复世界计数器并在后台回收上次运行残留的世界
+        resumeCounter();
+        collectOrphanWorlds();
+
+        // 启动世界预热池
+        worldPool.start();
     }
 
     /**
      * 加载配置
      */
     private void loadConfig() {
+        worldPrefix = plugin.getConfig().getString("world-management.world-prefix", "pbr_game_");
+        templateWorldName = plugin.getConfig().getString("world-management.default-template", "pbr_template");
+
         // 不再从 worlds.yml 读取配置，改为从 WorldConfigManager 读取
         plugin.getLogger().info("§a世界模板管理器已初始化");
         plugin.getLogger().info("§7世界模板将从各自的配置文件中读取");
     }
 
+    /**
+     * 恢复世界计数器，跳过清单和磁盘上已存在的世界编号
+     */
+    private void resumeCounter() {
+        int next = 1;
+
+        Set<String> names = new HashSet<>(manifest.getEntries().keySet());
+        String[] folders = serverFolder.list();
+        if (folders != null) {
+            names.addAll(Arrays.asList(folders));
+        }
+
+        for (String name : names) {
+            int number = parseWorldNumber(name);
+            if (number >= next) {
+                next = number + 1;
+            }
+        }
+
+        manifest.ensureCounterAtLeast(next);
+    }
+
+    /**
+     * 回收上次运行残留的世界（服务器崩溃或未正常关闭时留下）
+     * 启动时所有清单中的世界都已失效，交给删除调度器在后台按I/O预算删除
+     */
+    private void collectOrphanWorlds() {
+        Set<String> orphans = new LinkedHashSet<>(manifest.getEntries().keySet());
+
+        // 清单之外符合命名规则的世界文件夹（例如清单建立之前创建的世界）
+        if (plugin.getConfig().getBoolean("world-management.orphan-gc.scan-folders", true)) {
+            File[] folders = serverFolder.listFiles(File::isDirectory);
+            if (folders != null) {
+                for (File folder : folders) {
+                    if (parseWorldNumber(folder.getName()) > 0 && new File(folder, "level.dat").exists()) {
+                        orphans.add(folder.getName());
+                    }
+                }
+            }
+        }
+
+        if (orphans.isEmpty()) {
+            return;
+        }
+
+        plugin.getLogger().warning("§e发现 " + orphans.size() + " 个残留的游戏世界，将在后台回收: " + orphans);
+
+        for (String worldName : orphans) {
+            if (!manifest.contains(worldName)) {
+                manifest.recordCopying(worldName, null, null);
+            }
+            scheduleDeletion(worldName, 0, Bukkit.getWorld(worldName) != null);
+        }
+    }
+
+    /**
+     * 解析世界名称中的编号
+     * @param worldName 世界名称
+     * @return 编号，不符合 前缀+数字 格式时返回-1
+     */
+    private int parseWorldNumber(String worldName) {
+        if (worldPrefix == null || worldPrefix.isEmpty() || !worldName.startsWith(worldPrefix)
+                || worldName.length() == worldPrefix.length()) {
+            return -1;
+        }
+
+        String suffix = worldName.substring(worldPrefix.length());
+        for (int i = 0; i < suffix.length(); i++) {
+            if (!Character.isDigit(suffix.charAt(i))) {
+                return -1;
+            }
+        }
+
+        try {
+            return Integer.parseInt(suffix);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 生成新的世界名称
+     * @return 世界名称
+     */
+    private String nextWorldName() {
+        return worldPrefix + manifest.nextCounter();
+    }
+
+    /**
+     * 世界复制结束后更新状态，失败时清理残留文件
+     * @param worldName 世界名称
+     * @param world 加载的世界（失败时为null）
+     */
+    private void finishCopy(String worldName, World world) {
+        copyingWorlds.remove(worldName);
+
+        if (world != null) {
+            manifest.setState(worldName, ManagedWorldState.ACTIVE);
+        } else {
+            scheduleDeletion(worldName, 0, false);
+        }
+    }
+
+    /**
+     * 创建世界文件I/O线程池
+     * 线程数与等待队列均有上限，队列满时拒绝新的世界复制请求
+     * @return 线程池
+     */
+    private ThreadPoolExecutor createIoExecutor() {
+        int threads = Math.max(1, plugin.getConfig().getInt("world-copy.io-threads", 2));
+        int queueSize = Math.max(1, plugin.getConfig().getInt("world-copy.io-queue-size", 32));
+        AtomicInteger threadIndex = new AtomicInteger(1);
+
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "PBR-WorldIO-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 在世界I/O线程池中执行世界复制任务
+     * @param newWorldName 新世界名称
+     * @param task 复制任务
+     * @return CompletableFuture<World> 世界对象，线程池已满时返回null
+     */
+    private CompletableFuture<World> submitWorldTask(String newWorldName, java.util.function.Supplier<World> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, ioExecutor);
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().warning("§c世界I/O队列已满，拒绝复制: " + newWorldName
+                    + " (等待中: " + ioExecutor.getQueue().size() + ")");
+            copyingWorlds.remove(newWorldName);
+            manifest.remove(newWorldName);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     /**
      * 检查模板世界是否存在
      * @return 是否存���
@@ -78,8 +265,7 @@ public class WorldTemplateManager {
         }
 
         // 生成新的世界名称
-        String newWorldName = worldPrefix + worldCounter;
-        worldCounter++;
+        String newWorldName = nextWorldName();
 
         // 检查世界是否已在复制中
         if (copyingWorlds.contains(newWorldName)) {
@@ -88,6 +274,7 @@ public class WorldTemplateManager {
         }
 
         copyingWorlds.add(newWorldName);
+        manifest.recordCopying(newWorldName, templateWorldName, null);
 
         plugin.getLogger().info("§e正在复制世界: " + templateWorldName + " -> " + newWorldName);
 
@@ -95,14 +282,17 @@ public class WorldTemplateManager {
         boolean asyncMode = plugin.getConfig().getString("world-copy.mode", "async").equalsIgnoreCase("async");
 
         if (asyncMode) {
-            // 异步复制
-            return CompletableFuture.supplyAsync(() -> {
+            // 异步复制（使用世界I/O线程池）
+            return submitWorldTask(newWorldName, () -> {
                 try {
                     copyWorld(templateWorldName, newWorldName);
 
                     // 在主线程加载世界
                     World world = Bukkit.getScheduler().callSyncMethod(plugin, () -> {
-                        return loadWorld(newWorldName);
+                        long loadStart = System.currentTimeMillis();
+                        World loaded = loadWorld(newWorldName);
+                        recordLoadTime(null, loadStart);
+                        return loaded;
                     }).get();
 
                     if (world != null) {
@@ -110,13 +300,13 @@ public class WorldTemplateManager {
                         plugin.getLogger().info("§a世界复制并加载成功: " + newWorldName);
                     }
 
-                    copyingWorlds.remove(newWorldName);
+                    finishCopy(newWorldName, world);
                     return world;
 
                 } catch (Exception e) {
                     plugin.getLogger().severe("§c世界复制失败: " + e.getMessage());
                     e.printStackTrace();
-                    copyingWorlds.remove(newWorldName);
+                    finishCopy(newWorldName, null);
                     return null;
                 }
             });
@@ -134,20 +324,22 @@ public class WorldTemplateManager {
     private World createWorldCopySync(String newWorldName) {
         try {
             copyWorld(templateWorldName, newWorldName);
+            long loadStart = System.currentTimeMillis();
             World world = loadWorld(newWorldName);
+            recordLoadTime(null, loadStart);
 
             if (world != null) {
                 activeWorlds.put(newWorldName, world);
                 plugin.getLogger().info("§a世界复制并加载成功: " + newWorldName);
             }
 
-            copyingWorlds.remove(newWorldName);
+            finishCopy(newWorldName, world);
             return world;
 
         } catch (Exception e) {
             plugin.getLogger().severe("§c世界复制失败: " + e.getMessage());
             e.printStackTrace();
-            copyingWorlds.remove(newWorldName);
+            finishCopy(newWorldName, null);
             return null;
         }
     }
@@ -158,6 +350,18 @@ public class WorldTemplateManager {
      * @param targetWorldName 目标世界名称
      */
     private void copyWorld(String sourceWorldName, String targetWorldName) throws IOException {
+        copyWorld(sourceWorldName, targetWorldName, null);
+    }
+
+    /**
+     * 复制世界文件（按世界配置的可游玩区域裁剪主世界区域文件）
+     * @param sourceWorldName 源世界名称
+     * @param targetWorldName 目标世界名称
+     * @param worldConfigName 世界配置名称（null表示不裁剪）
+     */
+    private void copyWorld(String sourceWorldName, String targetWorldName, String worldConfigName) throws IOException {
+        long startTime = System.nanoTime();
+        long copiedBytes = 0;
         File sourceFolder = new File(serverFolder, sourceWorldName);
         File targetFolder = new File(serverFolder, targetWorldName);
 
@@ -168,59 +372,82 @@ public class WorldTemplateManager {
         if (targetFolder.exists()) {
             plugin.getLogger().warning("§e目标世界已存在，将被删除: " + targetWorldName);
             deleteWorldFiles(targetFolder);
+            worldCloner.releaseWorld(targetWorldName);
         }
 
         // 创建目标文件夹
         targetFolder.mkdirs();
 
-        // 使用默认的文件夹和文件列表（标准Minecraft世界结构）
-        List<String> folders = Arrays.asList("region", "DIM-1", "DIM1", "data", "datapacks");
-        List<String> files = Arrays.asList("level.dat", "level.dat_old");
+        // 计算需要保留的区域范围
+        PlayableArea area = getPruningArea(worldConfigName);
 
-        // 复制文件夹
-        for (String folderName : folders) {
-            File sourceSubFolder = new File(sourceFolder, folderName);
-            File targetSubFolder = new File(targetFolder, folderName);
+        // 完整复制模式下优先从内存中的模板快照写出
+        TemplateSnapshotCache.TemplateSnapshot snapshot = worldCloner.getCloneMode() == CloneMode.COPY
+                ? snapshotCache.getSnapshot(sourceWorldName, sourceFolder.toPath(), WORLD_FOLDERS, WORLD_FILES)
+                : null;
 
-            if (sourceSubFolder.exists()) {
-                copyFolder(sourceSubFolder.toPath(), targetSubFolder.toPath());
+        if (snapshot != null) {
+            copiedBytes = worldCloner.writeSnapshot(snapshot, targetFolder.toPath(), area);
+        } else {
+            // 复制文件夹（仅裁剪主世界的 region 文件夹）
+            for (String folderName : WORLD_FOLDERS) {
+                File sourceSubFolder = new File(sourceFolder, folderName);
+                File targetSubFolder = new File(targetFolder, folderName);
+
+                if (sourceSubFolder.exists()) {
+                    copiedBytes += worldCloner.cloneFolder(sourceSubFolder.toPath(), targetSubFolder.toPath(), targetWorldName,
+                            "region".equals(folderName) ? area : null);
+                }
             }
-        }
 
-        // 复制文件
-        for (String fileName : files) {
-            File sourceFile = new File(sourceFolder, fileName);
-            File targetFile = new File(targetFolder, fileName);
+            // 复制文件
+            for (String fileName : WORLD_FILES) {
+                File sourceFile = new File(sourceFolder, fileName);
+                File targetFile = new File(targetFolder, fileName);
 
-            if (sourceFile.exists()) {
-                Files.copy(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                if (sourceFile.exists()) {
+                    copiedBytes += worldCloner.cloneFile(sourceFile.toPath(), targetFile.toPath());
+                }
             }
         }
 
-        plugin.getLogger().info("§a世界文件复制完成: " + targetWorldName);
+        long durationNanos = System.nanoTime() - startTime;
+        worldCloner.recordCopy(copiedBytes, durationNanos);
+        plugin.getLatencyMetrics().record(LatencyMetrics.WORLD_COPY,
+                worldConfigName != null ? worldConfigName : DEFAULT_WORLD_CONFIG, durationNanos / 1_000_000);
+
+        plugin.getLogger().info("§a世界文件复制完成: " + targetWorldName + " (方式: "
+                + (snapshot != null ? "内存快照" : worldCloner.getCloneMode().getConfigKey())
+                + (worldCloner.isLinkedWorld(targetWorldName)
+                        ? ", 硬链接区域文件: " + worldCloner.getLinkedFileCount(targetWorldName) : "")
+                + (area != null ? ", 保留区域: " + area : "") + ")");
+        plugin.getLogger().info("§7复制 " + WorldCloner.formatBytes(copiedBytes) + ", 用时 "
+                + (durationNanos / 1_000_000) + "ms, 速度 "
+                + WorldCloner.formatBytes(WorldCloner.bytesPerSecond(copiedBytes, durationNanos)) + "/s");
     }
 
     /**
-     * 递归复制文件夹
-     * @param source 源路径
-     * @param target 目标路径
+     * 获取区域文件裁剪范围
+     * 在可游玩区域基础上向外扩展视距，保证边界附近加载的区块仍来自模板
+     * @param worldConfigName 世界配置名称
+     * @return 裁剪范围，未启用或无法计算时返回null（不裁剪）
      */
-    private void copyFolder(Path source, Path target) throws IOException {
-        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                Path targetDir = target.resolve(source.relativize(dir));
-                Files.createDirectories(targetDir);
-                return FileVisitResult.CONTINUE;
-            }
+    private PlayableArea getPruningArea(String worldConfigName) {
+        if (worldConfigName == null || !plugin.getConfig().getBoolean("world-copy.region-pruning.enabled", false)) {
+            return null;
+        }
 
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                Path targetFile = target.resolve(source.relativize(file));
-                Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
-                return FileVisitResult.CONTINUE;
-            }
-        });
+        PlayableArea area = plugin.getWorldConfigManager().getPlayableArea(worldConfigName);
+        if (area == null) {
+            return null;
+        }
+
+        int marginChunks = plugin.getConfig().getInt("world-copy.region-pruning.margin-chunks", -1);
+        if (marginChunks < 0) {
+            marginChunks = Bukkit.getViewDistance();
+        }
+
+        return area.expand(marginChunks * 16);
     }
 
     /**
@@ -257,54 +484,199 @@ public class WorldTemplateManager {
 
     /**
      * 删除世界（异步）
+     * 在删除延迟后由删除调度器卸载世界并删除文件
      * @param worldName 世界名称
      */
     public CompletableFuture<Boolean> deleteWorld(String worldName) {
         // 使用主配置文件的删除延迟设置
         int deleteDelay = plugin.getConfig().getInt("world-management.delete-delay", 10);
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // 延迟删除
-                Thread.sleep(deleteDelay * 1000L);
+        return scheduleDeletion(worldName, deleteDelay * 1000L, true);
+    }
 
-                // 在主线程卸载世界
-                Bukkit.getScheduler().callSyncMethod(plugin, () -> {
-                    World world = activeWorlds.remove(worldName);
+    /**
+     * 提交世界删除任务，删除完成后释放克隆与重置记录并移出世界清单
+     * @param worldName 世界名称
+     * @param delayMillis 延迟（毫秒）
+     * @param unload 删除前是否需要卸载世界
+     * @return CompletableFuture<Boolean> 是否删除成功
+     */
+    private CompletableFuture<Boolean> scheduleDeletion(String worldName, long delayMillis, boolean unload) {
+        manifest.setState(worldName, ManagedWorldState.PENDING_DELETE);
+        worldPool.cancelReturn(worldName);
 
-                    if (world != null) {
-                        // 踢出所有玩家
-                        world.getPlayers().forEach(player -> {
-                            String lobbyWorld = plugin.getConfig().getString("queue.lobby-world", "world");
-                            World lobby = Bukkit.getWorld(lobbyWorld);
-                            if (lobby != null) {
-                                player.teleport(lobby.getSpawnLocation());
-                            }
-                        });
-
-                        // 卸载世界
-                        Bukkit.unloadWorld(world, false);
-                        plugin.getLogger().info("§a世界已卸载: " + worldName);
-                    }
+        return deletionScheduler.schedule(worldName, delayMillis, unload).thenApply(success -> {
+            worldCloner.releaseWorld(worldName);
+            worldResetManager.untrack(worldName);
+
+            // 删除失败的世界保留在清单中，下次启动时再回收
+            if (success) {
+                manifest.remove(worldName);
+            }
+            return success;
+        });
+    }
+
+    /**
+     * 卸载世界并将其中的玩家传送回大厅（主线程调用）
+     * 未被跟踪但仍已加载的世界（例如 /reload 后回收的残留世界）同样会被卸载
+     * @param worldName 世界名称
+     * @return 是否卸载成功（世界未加载时也返回true）
+     */
+    public boolean unloadWorldSync(String worldName) {
+        World world = activeWorlds.remove(worldName);
+        if (world == null) {
+            world = Bukkit.getWorld(worldName);
+        }
+
+        if (world == null) {
+            return true;
+        }
+
+        // 踢出所有玩家
+        world.getPlayers().forEach(player -> {
+            String lobbyWorld = plugin.getConfig().getString("queue.lobby-world", "world");
+            World lobby = Bukkit.getWorld(lobbyWorld);
+            if (lobby != null) {
+                player.teleport(lobby.getSpawnLocation());
+            }
+        });
+
+        // 卸载世界
+        boolean unloaded = Bukkit.unloadWorld(world, false);
+        if (unloaded) {
+            plugin.getLogger().info("§a世界已卸载: " + worldName);
+        }
+        return unloaded;
+    }
+
+    /**
+     * 不保存地卸载所有与模板硬链接的世界（插件关闭时调用，必须早于服务器关闭时的最终保存）
+     */
+    private void unloadLinkedWorlds() {
+        for (World world : new ArrayList<>(Bukkit.getWorlds())) {
+            String worldName = world.getName();
+            if (!worldCloner.isLinkedWorld(worldName)) {
+                continue;
+            }
+
+            if (!unloadWorldSync(worldName)) {
+                plugin.getLogger().severe("§c硬链接世界卸载失败，服务器关闭时的保存可能写入模板: " + worldName);
+            }
+        }
+    }
+
+    /**
+     * 释放未开始过游戏的世界（队列合并后空出的世界）
+     * 世界未被玩家修改，直接放回预热池；预热池已满时按正常流程回收
+     * @param worldConfigName 世界配置名称
+     * @param world 世界
+     * @return 是否回到预热池
+     */
+    public boolean releaseUnusedWorld(String worldConfigName, World world) {
+        if (worldPool.offer(worldConfigName, world)) {
+            return true;
+        }
+        recycleWorld(world.getName());
+        return false;
+    }
 
-                    return true;
-                }).get();
+    /**
+     * 回收游戏世界（异步）
+     * 启用重置模式时只从模板恢复被修改的区块，并将世界放回预热池供下一局使用；
+     * 无法重置时回退为删除世界
+     * @param worldName 世界名称
+     * @return CompletableFuture<Boolean> 是否回收或删除成功
+     */
+    public CompletableFuture<Boolean> recycleWorld(String worldName) {
+        if (!worldResetManager.canReset(worldName)) {
+            return deleteWorld(worldName);
+        }
 
-                // 删除世界文件
-                File worldFolder = new File(serverFolder, worldName);
-                if (worldFolder.exists()) {
-                    deleteWorldFiles(worldFolder);
-                    plugin.getLogger().info("§a世界已删除: " + worldName);
+        int deleteDelay = plugin.getConfig().getInt("world-management.delete-delay", 10);
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            String worldConfigName = worldResetManager.getWorldConfigName(worldName);
+            String templateWorld = worldResetManager.getTemplateWorld(worldName);
+            int dirtyChunks = worldResetManager.getDirtyChunkCount(worldName);
+
+            if (worldConfigName == null || !unloadWorldSync(worldName)) {
+                plugin.getLogger().warning("§e世界无法重置，改为删除: " + worldName);
+                World world = Bukkit.getWorld(worldName);
+                if (world != null) {
+                    activeWorlds.put(worldName, world);
                 }
+                deleteWorld(worldName).thenAccept(result::complete);
+                return;
+            }
 
-                return true;
+            PlayableArea area = getPruningArea(worldConfigName);
 
-            } catch (Exception e) {
-                plugin.getLogger().severe("§c世界删除失败: " + worldName);
-                e.printStackTrace();
-                return false;
+            try {
+                ioExecutor.execute(() -> {
+                    try {
+                        long startTime = System.nanoTime();
+                        int restored = worldResetManager.restoreWorldFiles(serverFolder, worldName, area, worldCloner);
+                        long durationMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+                        plugin.getLogger().info("§a世界已从模板重置: " + worldName + " (恢复区块: " + restored
+                                + "/" + dirtyChunks + ", 用时 " + durationMillis + "ms, 第 "
+                                + worldResetManager.getResetCount(worldName) + " 次重置)");
+
+                        Bukkit.getScheduler().runTask(plugin, () ->
+                                result.complete(reloadResetWorld(worldName, worldConfigName, templateWorld)));
+
+                    } catch (Exception e) {
+                        plugin.getLogger().severe("§c世界重置失败，改为删除: " + worldName + " (" + e.getMessage() + ")");
+                        scheduleDeletion(worldName, 0, false).thenAccept(result::complete);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                plugin.getLogger().warning("§c世界I/O队列已满，放弃重置: " + worldName);
+                deleteWorld(worldName).thenAccept(result::complete);
             }
-        });
+        }, Math.max(1, deleteDelay) * 20L);
+
+        return result;
+    }
+
+    /**
+     * 重新加载已重置的世界并放回预热池（主线程调用）
+     * @param worldName 世界名称
+     * @param worldConfigName 世界配置名称
+     * @param templateWorld 模板世界名称
+     * @return 是否成功
+     */
+    private boolean reloadResetWorld(String worldName, String worldConfigName, String templateWorld) {
+        long loadStart = System.currentTimeMillis();
+        World world = loadWorldWithTemplate(worldName, templateWorld);
+        recordLoadTime(worldConfigName, loadStart);
+
+        if (world == null) {
+            deleteWorld(worldName);
+            return false;
+        }
+
+        activeWorlds.put(worldName, world);
+
+        // 预热池已满时删除多余的世界
+        if (!worldPool.offer(worldConfigName, world)) {
+            plugin.getLogger().info("§7预热池已满，删除重置后的世界: " + worldName);
+            deleteWorld(worldName);
+        }
+
+        return true;
+    }
+
+    /**
+     * 记录世界加载耗时
+     * @param worldConfigName 世界配置名称（null表示默认配置）
+     * @param loadStart 开始加载的时间
+     */
+    private void recordLoadTime(String worldConfigName, long loadStart) {
+        plugin.getLatencyMetrics().record(LatencyMetrics.WORLD_LOAD,
+                worldConfigName != null ? worldConfigName : DEFAULT_WORLD_CONFIG, System.currentTimeMillis() - loadStart);
     }
 
     /**
@@ -367,9 +739,105 @@ public class WorldTemplateManager {
     public void cleanup() {
         plugin.getLogger().info("§e正在清理所有游戏世界...");
 
+        // 停止预热池补充，池中世界随活跃世界一起删除
+        worldPool.shutdown();
+
+        // 立即卸载并删除，删除调度器按I/O预算依次处理
         for (String worldName : new ArrayList<>(activeWorlds.keySet())) {
-            deleteWorld(worldName);
+            scheduleDeletion(worldName, 0, true);
+        }
+    }
+
+    /**
+     * 获取世界克隆器
+     * @return 世界克隆器
+     */
+    public WorldCloner getWorldCloner() {
+        return worldCloner;
+    }
+
+    /**
+     * 获取世界重置管理器
+     * @return 世界重置管理器
+     */
+    public WorldResetManager getWorldResetManager() {
+        return worldResetManager;
+    }
+
+    /**
+     * 获取模板快照缓存
+     * @return 模板快照缓存
+     */
+    public TemplateSnapshotCache getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    /**
+     * 获取世界清单
+     * @return 世界清单
+     */
+    public WorldManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * 获取世界删除调度器
+     * @return 世界删除调度器
+     */
+    public WorldDeletionScheduler getDeletionScheduler() {
+        return deletionScheduler;
+    }
+
+    /**
+     * 获取世界预热池
+     * @return 世界预热池
+     */
+    public WorldPoolManager getWorldPool() {
+        return worldPool;
+    }
+
+    /**
+     * 获取指定世界配置的游戏世界（优先从预热池取出）
+     * 预热池为空时回退为即时复制
+     * @param worldConfigName 世界配置名称
+     * @return CompletableFuture<World> 世界对象
+     */
+    public CompletableFuture<World> acquireWorld(String worldConfigName) {
+        World pooledWorld = worldPool.checkout(worldConfigName);
+
+        if (pooledWorld != null) {
+            plugin.getLogger().info("§a从预热池取出世界: " + pooledWorld.getName() + " (配置: " + worldConfigName + ")");
+            return CompletableFuture.completedFuture(pooledWorld);
         }
+
+        // 预热池为空时即时复制的世界同样会重置回池
+        return createWorldCopyFromConfig(worldConfigName).thenApply(world -> {
+            if (world != null) {
+                worldPool.expectReturn(worldConfigName, world.getName());
+            }
+            return world;
+        });
+    }
+
+    /**
+     * 获取世界I/O线程池状态描述
+     * @return 状态描述
+     */
+    public String getIoExecutorStatus() {
+        return "线程: " + ioExecutor.getActiveCount() + "/" + ioExecutor.getMaximumPoolSize()
+                + ", 等待: " + ioExecutor.getQueue().size()
+                + ", 已完成: " + ioExecutor.getCompletedTaskCount();
+    }
+
+    /**
+     * 关闭世界I/O线程池与删除调度器（插件卸载时调用）
+     */
+    public void shutdown() {
+        unloadLinkedWorlds();
+        ioExecutor.shutdown();
+        deletionScheduler.shutdown();
+        worldCloner.shutdown();
+        snapshotCache.clear();
     }
 
     // ==================== 新增：多地图模板支持 ====================
@@ -459,8 +927,7 @@ public class WorldTemplateManager {
         }
 
         // 生成新的世界名称
-        String newWorldName = worldPrefix + worldCounter;
-        worldCounter++;
+        String newWorldName = nextWorldName();
 
         // 检查世界是否已在复制中
         if (copyingWorlds.contains(newWorldName)) {
@@ -469,6 +936,7 @@ public class WorldTemplateManager {
         }
 
         copyingWorlds.add(newWorldName);
+        manifest.recordCopying(newWorldName, templateWorld, worldConfigName);
 
         plugin.getLogger().info("§e正在复制世界: " + templateWorld + " -> " + newWorldName + " (配置: " + worldConfigName + ")");
 
@@ -476,14 +944,18 @@ public class WorldTemplateManager {
         boolean asyncMode = plugin.getConfig().getString("world-copy.mode", "async").equalsIgnoreCase("async");
 
         if (asyncMode) {
-            // 异步复制
-            return CompletableFuture.supplyAsync(() -> {
+            // 异步复制（使用世界I/O线程池）
+            return submitWorldTask(newWorldName, () -> {
                 try {
-                    copyWorld(templateWorld, newWorldName);
+                    copyWorld(templateWorld, newWorldName, worldConfigName);
+                    worldResetManager.track(newWorldName, worldConfigName, templateWorld);
 
                     // 在主线程加载世界
                     World world = Bukkit.getScheduler().callSyncMethod(plugin, () -> {
-                        return loadWorldWithTemplate(newWorldName, templateWorld);
+                        long loadStart = System.currentTimeMillis();
+                        World loaded = loadWorldWithTemplate(newWorldName, templateWorld);
+                        recordLoadTime(worldConfigName, loadStart);
+                        return loaded;
                     }).get();
 
                     if (world != null) {
@@ -491,13 +963,13 @@ public class WorldTemplateManager {
                         plugin.getLogger().info("§a世界复制并加载成功: " + newWorldName + " (配置: " + worldConfigName + ")");
                     }
 
-                    copyingWorlds.remove(newWorldName);
+                    finishCopy(newWorldName, world);
                     return world;
 
                 } catch (Exception e) {
                     plugin.getLogger().severe("§c世界复制失败: " + e.getMessage());
                     e.printStackTrace();
-                    copyingWorlds.remove(newWorldName);
+                    finishCopy(newWorldName, null);
                     return null;
                 }
             });
@@ -516,21 +988,24 @@ public class WorldTemplateManager {
      */
     private World createWorldCopySyncWithTemplate(String newWorldName, String templateWorld, String worldConfigName) {
         try {
-            copyWorld(templateWorld, newWorldName);
+            copyWorld(templateWorld, newWorldName, worldConfigName);
+            worldResetManager.track(newWorldName, worldConfigName, templateWorld);
+            long loadStart = System.currentTimeMillis();
             World world = loadWorldWithTemplate(newWorldName, templateWorld);
+            recordLoadTime(worldConfigName, loadStart);
 
             if (world != null) {
                 activeWorlds.put(newWorldName, world);
                 plugin.getLogger().info("§a世界复制并加载成功: " + newWorldName + " (配置: " + worldConfigName + ")");
             }
 
-            copyingWorlds.remove(newWorldName);
+            finishCopy(newWorldName, world);
             return world;
 
         } catch (Exception e) {
             plugin.getLogger().severe("§c世界复制失败: " + e.getMessage());
             e.printStackTrace();
-            copyingWorlds.remove(newWorldName);
+            finishCopy(newWorldName, null);
             return null;
         }
     }
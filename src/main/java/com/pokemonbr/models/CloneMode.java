@@ -0,0 +1,52 @@
+package com.pokemonbr.models;
+
+/**
+ * 世界克隆方式枚举
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public enum CloneMode {
+    /**
+     * 完整复制 - 逐字节复制所有文件（兼容所有文件系统）
+     */
+    COPY("copy"),
+
+    /**
+     * 硬链接 - 区域文件与模板共享磁盘数据，游戏世界的区块不会被保存
+     */
+    HARDLINK("hardlink"),
+
+    /**
+     * 写时复制 - 使用文件系统的 reflink (FICLONE)，需 Btrfs/XFS 等文件系统支持
+     */
+    REFLINK("reflink");
+
+    private final String configKey;
+
+    CloneMode(String configKey) {
+        this.configKey = configKey;
+    }
+
+    /**
+     * 获取配置文件中的键名
+     * @return 配置键
+     */
+    public String getConfigKey() {
+        return configKey;
+    }
+
+    /**
+     * 根据配置键名获取克隆方式
+     * @param configKey 配置键
+     * @return 克隆方式，未知时返回 COPY
+     */
+    public static CloneMode fromConfigKey(String configKey) {
+        for (CloneMode mode : values()) {
+            if (mode.configKey.equalsIgnoreCase(configKey)) {
+                return mode;
+            }
+        }
+        return COPY;
+    }
+}
@@ -22,34 +22,72 @@ public class Game {
     private final String worldConfigName;  // 世界配置名称（例如: flyfortress）
 
     private GameState state;
-    private final Map<UUID, GamePlayer> players;
-    private final List<UUID> alivePlayersCache;
+
+    // 玩家名单按加入顺序分配固定槽位，游戏期间不再变化
+    private final UUID[] slotUuids;
+    private final GamePlayer[] slotPlayers;
+    private final Map<UUID, Integer> slotIndex;
+
+    // 存活槽位、击败数和排名（按槽位索引）
+    private final BitSet aliveSlots;
+    private final int[] slotKills;
+    private final int[] slotRanks;
+    private int aliveCount;
+
+    // 实时排行
+    private final GameLeaderboard leaderboard;
+
+    // 只读视图（创建一次，遍历时不复制）
+    private final Map<UUID, GamePlayer> playersView;
+    private final Collection<UUID> aliveView;
 
     private int invincibilityTime;
     private int currentShrinkStage;
     private long startTime;
     private long endTime;
 
+    // 倒计时期间预先规划的初始边界中心 [x, z]（未规划时为null）
+    private double[] plannedBorderCenter;
+
     public Game(String gameUuid, int queueId, World gameWorld, String worldConfigName, Set<UUID> playerUuids) {
         this.gameUuid = gameUuid;
         this.queueId = queueId;
         this.gameWorld = gameWorld;
         this.worldConfigName = worldConfigName;
         this.state = GameState.PREPARING;
-        this.players = new HashMap<>();
-        this.alivePlayersCache = new ArrayList<>();
 
         // 初始化玩家数据
+        Map<UUID, GamePlayer> players = new LinkedHashMap<>();
         for (UUID uuid : playerUuids) {
             Player player = Bukkit.getPlayer(uuid);
             if (player != null && player.isOnline()) {
                 String name = player.getName();
-                GamePlayer gamePlayer = new GamePlayer(uuid, name);
-                players.put(uuid, gamePlayer);
-                alivePlayersCache.add(uuid);
+                players.put(uuid, new GamePlayer(uuid, name));
             }
         }
 
+        int size = players.size();
+        this.slotUuids = new UUID[size];
+        this.slotPlayers = new GamePlayer[size];
+        this.slotIndex = new HashMap<>(size * 2);
+        this.aliveSlots = new BitSet(size);
+        this.slotKills = new int[size];
+        this.slotRanks = new int[size];
+
+        int slot = 0;
+        for (GamePlayer gamePlayer : players.values()) {
+            slotUuids[slot] = gamePlayer.getUuid();
+            slotPlayers[slot] = gamePlayer;
+            slotIndex.put(gamePlayer.getUuid(), slot);
+            slot++;
+        }
+        aliveSlots.set(0, size);
+        this.aliveCount = size;
+        this.leaderboard = new GameLeaderboard(this, size);
+
+        this.playersView = Collections.unmodifiableMap(players);
+        this.aliveView = new AliveView();
+
         this.invincibilityTime = 0;
         this.currentShrinkStage = 0;
         this.startTime = System.currentTimeMillis();
@@ -62,25 +100,30 @@ public class Game {
      * @param killer 击败者UUID（可为null）
      */
     public void eliminatePlayer(UUID victim, UUID killer) {
-        GamePlayer gamePlayer = players.get(victim);
-        if (gamePlayer == null || !gamePlayer.isAlive()) {
+        Integer slot = slotIndex.get(victim);
+        if (slot == null || !aliveSlots.get(slot)) {
             return;
         }
 
-        // 更新存活列表
-        alivePlayersCache.remove(victim);
+        // 更新存活槽位
+        aliveSlots.clear(slot);
+        aliveCount--;
 
         // 计算当前排名（倒序，最后存活的是第1名）
-        int currentRank = alivePlayersCache.size() + 1;
+        int currentRank = aliveCount + 1;
+        slotRanks[slot] = currentRank;
+        leaderboard.onEliminated(slot);
 
         // 淘汰玩家
-        gamePlayer.eliminate(killer, currentRank);
+        slotPlayers[slot].eliminate(killer, currentRank);
 
         // 如果有击败者，增加击杀数
         if (killer != null) {
-            GamePlayer killerPlayer = players.get(killer);
-            if (killerPlayer != null) {
-                killerPlayer.addKill();
+            Integer killerSlot = slotIndex.get(killer);
+            if (killerSlot != null) {
+                slotKills[killerSlot]++;
+                slotPlayers[killerSlot].addKill();
+                leaderboard.onKill(killerSlot, slotKills[killerSlot]);
             }
         }
     }
@@ -99,7 +142,7 @@ public class Game {
      * @return 存活数量
      */
     public int getAlivePlayerCount() {
-        return alivePlayersCache.size();
+        return aliveCount;
     }
 
     /**
@@ -108,7 +151,8 @@ public class Game {
      * @return GamePlayer 或 null
      */
     public GamePlayer getGamePlayer(UUID uuid) {
-        return players.get(uuid);
+        Integer slot = slotIndex.get(uuid);
+        return slot != null ? slotPlayers[slot] : null;
     }
 
     /**
@@ -117,8 +161,63 @@ public class Game {
      * @return 是否存活
      */
     public boolean isPlayerAlive(UUID uuid) {
-        GamePlayer gamePlayer = players.get(uuid);
-        return gamePlayer != null && gamePlayer.isAlive();
+        Integer slot = slotIndex.get(uuid);
+        return slot != null && aliveSlots.get(slot);
+    }
+
+    /**
+     * 获取玩家的槽位索引
+     * @param uuid 玩家UUID
+     * @return 槽位索引，不在游戏中返回-1
+     */
+    public int getSlot(UUID uuid) {
+        Integer slot = slotIndex.get(uuid);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * 获取槽位上的玩家数据
+     * @param slot 槽位索引
+     * @return GamePlayer
+     */
+    public GamePlayer getGamePlayerAt(int slot) {
+        return slotPlayers[slot];
+    }
+
+    /**
+     * 获取槽位上玩家的击败数
+     * @param slot 槽位索引
+     * @return 击败数
+     */
+    public int getKillsAt(int slot) {
+        return slotKills[slot];
+    }
+
+    /**
+     * 获取槽位上玩家的最终排名
+     * @param slot 槽位索引
+     * @return 排名，仍存活时为0
+     */
+    public int getRankAt(int slot) {
+        return slotRanks[slot];
+    }
+
+    /**
+     * 检查槽位上的玩家是否存活
+     * @param slot 槽位索引
+     * @return 是否存活
+     */
+    public boolean isAliveAt(int slot) {
+        return aliveSlots.get(slot);
+    }
+
+    /**
+     * 获取从指定槽位开始的下一个存活槽位
+     * @param fromSlot 起始槽位（包含）
+     * @return 槽位索引，没有时返回-1
+     */
+    public int nextAliveSlot(int fromSlot) {
+        return aliveSlots.nextSetBit(fromSlot);
     }
 
     /**
@@ -126,7 +225,7 @@ public class Game {
      * @return 是否结束
      */
     public boolean isGameOver() {
-        return alivePlayersCache.size() <= 1;
+        return aliveCount <= 1;
     }
 
     /**
@@ -134,8 +233,8 @@ public class Game {
      * @return 胜利者UUID 或 null
      */
     public UUID getWinner() {
-        if (alivePlayersCache.size() == 1) {
-            return alivePlayersCache.get(0);
+        if (aliveCount == 1) {
+            return slotUuids[aliveSlots.nextSetBit(0)];
         }
         return null;
     }
@@ -145,10 +244,7 @@ public class Game {
      * @return 前三名列表（按排名排序）
      */
     public List<GamePlayer> getTopThreePlayers() {
-        return players.values().stream()
-                .sorted(Comparator.comparingInt(GamePlayer::getRank))
-                .limit(3)
-                .collect(java.util.stream.Collectors.toList());
+        return leaderboard.getTopByPlacement(3);
     }
 
     /**
@@ -156,7 +252,7 @@ public class Game {
      * @param message 消息
      */
     public void broadcastMessage(String message) {
-        for (UUID uuid : players.keySet()) {
+        for (UUID uuid : slotUuids) {
             Player player = Bukkit.getPlayer(uuid);
             if (player != null && player.isOnline()) {
                 player.sendMessage(message);
@@ -169,7 +265,7 @@ public class Game {
      * @param message 消息
      */
     public void broadcastToAlivePlayers(String message) {
-        for (UUID uuid : alivePlayersCache) {
+        for (UUID uuid : aliveView) {
             Player player = Bukkit.getPlayer(uuid);
             if (player != null && player.isOnline()) {
                 player.sendMessage(message);
@@ -212,12 +308,25 @@ public class Game {
         this.state = state;
     }
 
+    /**
+     * 获取所有玩家（只读视图，不复制）
+     * @return Map<玩家UUID, GamePlayer>
+     */
     public Map<UUID, GamePlayer> getPlayers() {
-        return new HashMap<>(players);
+        return playersView;
+    }
+
+    /**
+     * 获取存活玩家（只读视图，不复制）
+     * 遍历期间淘汰玩家是安全的，被淘汰的玩家不会再出现在后续遍历中
+     * @return 存活玩家UUID
+     */
+    public Collection<UUID> getAlivePlayers() {
+        return aliveView;
     }
 
-    public List<UUID> getAlivePlayers() {
-        return new ArrayList<>(alivePlayersCache);
+    public GameLeaderboard getLeaderboard() {
+        return leaderboard;
     }
 
     public int getInvincibilityTime() {
@@ -255,6 +364,14 @@ public class Game {
         this.endTime = endTime;
     }
 
+    public double[] getPlannedBorderCenter() {
+        return plannedBorderCenter;
+    }
+
+    public void setPlannedBorderCenter(double[] plannedBorderCenter) {
+        this.plannedBorderCenter = plannedBorderCenter;
+    }
+
     /**
      * 获取游戏进行时间（以tick为单位，20tick=1秒）
      * @return 游戏进行时间
@@ -268,7 +385,7 @@ public class Game {
     }
 
     public int getTotalPlayerCount() {
-        return players.size();
+        return slotUuids.length;
     }
 
     @Override
@@ -277,8 +394,50 @@ public class Game {
                 "gameUuid='" + gameUuid + '\'' +
                 ", queueId=" + queueId +
                 ", state=" + state +
-                ", alivePlayers=" + alivePlayersCache.size() + "/" + players.size() +
+                ", alivePlayers=" + aliveCount + "/" + slotUuids.length +
                 ", duration=" + getGameDuration() + "s" +
                 '}';
     }
+
+    /**
+     * 存活玩家视图，按槽位顺序遍历存活位
+     */
+    private class AliveView extends AbstractCollection<UUID> {
+
+        @Override
+        public Iterator<UUID> iterator() {
+            return new Iterator<UUID>() {
+                private int next = aliveSlots.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    // 跳过遍历过程中被淘汰的槽位
+                    while (next >= 0 && !aliveSlots.get(next)) {
+                        next = aliveSlots.nextSetBit(next + 1);
+                    }
+                    return next >= 0;
+                }
+
+                @Override
+                public UUID next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    UUID uuid = slotUuids[next];
+                    next = aliveSlots.nextSetBit(next + 1);
+                    return uuid;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return aliveCount;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof UUID && isPlayerAlive((UUID) o);
+        }
+    }
 }
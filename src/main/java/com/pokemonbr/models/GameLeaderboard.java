@@ -0,0 +1,155 @@
+package com.pokemonbr.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游戏内实时排行
+ * 随淘汰和击败增量维护，按名次和按击败数取前 K 名都只需 O(K)，渲染时不再排序
+ *
+ * 名次: 存活玩家并列最前，之后按淘汰顺序倒序（最后淘汰的名次最高）
+ * 击败: 槽位按击败数降序排列，击败数只会加一，
+ * 因此每次击败只需与同击败数区间的第一个槽位交换，再把区间起点后移一位
+ *
+ * 只在主线程更新
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class GameLeaderboard {
+
+    private final Game game;
+
+    // 按淘汰先后记录的槽位
+    private final int[] eliminationOrder;
+    private int eliminatedCount;
+
+    // 按击败数降序排列的槽位，以及槽位 -> 所在位置
+    private final int[] killOrder;
+    private final int[] killPosition;
+
+    // 击败数 -> 击败数高于它的玩家数量（即该击败数区间的起点）
+    private final int[] killBucketStart;
+
+    public GameLeaderboard(Game game, int size) {
+        this.game = game;
+        this.eliminationOrder = new int[size];
+        this.killOrder = new int[size];
+        this.killPosition = new int[size];
+        this.killBucketStart = new int[Math.max(1, size)];
+
+        for (int slot = 0; slot < size; slot++) {
+            killOrder[slot] = slot;
+            killPosition[slot] = slot;
+        }
+    }
+
+    /**
+     * 记录淘汰
+     * @param slot 被淘汰者槽位
+     */
+    void onEliminated(int slot) {
+        eliminationOrder[eliminatedCount++] = slot;
+    }
+
+    /**
+     * 记录击败（击败数已加一之后调用）
+     * @param slot 击败者槽位
+     * @param kills 新的击败数
+     */
+    void onKill(int slot, int kills) {
+        int previous = kills - 1;
+        if (previous >= killBucketStart.length) {
+            return;
+        }
+
+        // 与原区间的第一个槽位交换，区间起点后移后该槽位就落入新区间的末尾
+        int target = killBucketStart[previous];
+        int position = killPosition[slot];
+        int other = killOrder[target];
+
+        killOrder[target] = slot;
+        killPosition[slot] = target;
+        killOrder[position] = other;
+        killPosition[other] = position;
+
+        killBucketStart[previous]++;
+    }
+
+    /**
+     * 按名次获取前 K 名
+     * @param limit 数量
+     * @return 玩家列表（存活玩家在前，之后按最后淘汰的在前）
+     */
+    public List<GamePlayer> getTopByPlacement(int limit) {
+        List<GamePlayer> result = new ArrayList<>(Math.max(0, limit));
+
+        for (int slot = game.nextAliveSlot(0); slot >= 0 && result.size() < limit; slot = game.nextAliveSlot(slot + 1)) {
+            result.add(game.getGamePlayerAt(slot));
+        }
+        for (int i = eliminatedCount - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(game.getGamePlayerAt(eliminationOrder[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 按击败数获取前 K 名
+     * @param limit 数量
+     * @return 玩家列表（击败数相同时顺序不固定）
+     */
+    public List<GamePlayer> getTopByKills(int limit) {
+        int count = Math.min(Math.max(0, limit), killOrder.length);
+        List<GamePlayer> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(game.getGamePlayerAt(killOrder[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 获取按击败数排第 N 的玩家
+     * @param position 名次（从1开始）
+     * @return GamePlayer 或 null
+     */
+    public GamePlayer getKillLeader(int position) {
+        if (position < 1 || position > killOrder.length) {
+            return null;
+        }
+        return game.getGamePlayerAt(killOrder[position - 1]);
+    }
+
+    /**
+     * 获取按名次排第 N 的玩家
+     * @param position 名次（从1开始）
+     * @return GamePlayer 或 null
+     */
+    public GamePlayer getPlacementLeader(int position) {
+        List<GamePlayer> top = getTopByPlacement(position);
+        return top.size() >= position ? top.get(position - 1) : null;
+    }
+
+    /**
+     * 获取最近被淘汰的玩家（最近的在前，用于击败播报）
+     * @param limit 数量
+     * @return 玩家列表
+     */
+    public List<GamePlayer> getRecentEliminations(int limit) {
+        int count = Math.min(Math.max(0, limit), eliminatedCount);
+        List<GamePlayer> result = new ArrayList<>(count);
+        for (int i = eliminatedCount - 1; i >= eliminatedCount - count; i--) {
+            result.add(game.getGamePlayerAt(eliminationOrder[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 获取槽位的击败排名（并列时取最高名次）
+     * @param slot 槽位
+     * @return 排名（从1开始）
+     */
+    public int getKillRank(int slot) {
+        int kills = game.getKillsAt(slot);
+        return (kills < killBucketStart.length ? killBucketStart[kills] : 0) + 1;
+    }
+}
@@ -18,6 +18,7 @@ public class GamePlayer {
     private boolean spectating;
     private int kills;
     private int rank;
+    private int pointsEarned;
     private UUID eliminatedBy;
     private long joinTime;
     private long eliminationTime;
@@ -29,6 +30,7 @@ public class GamePlayer {
         this.spectating = false;
         this.kills = 0;
         this.rank = 0;
+        this.pointsEarned = 0;
         this.eliminatedBy = null;
         this.joinTime = System.currentTimeMillis();
         this.eliminationTime = 0;
@@ -104,6 +106,14 @@ public class GamePlayer {
         this.rank = rank;
     }
 
+    public int getPointsEarned() {
+        return pointsEarned;
+    }
+
+    public void setPointsEarned(int pointsEarned) {
+        this.pointsEarned = pointsEarned;
+    }
+
     public UUID getEliminatedBy() {
         return eliminatedBy;
     }
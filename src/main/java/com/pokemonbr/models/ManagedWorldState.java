@@ -0,0 +1,38 @@
+package com.pokemonbr.models;
+
+/**
+ * 游戏世界副本状态枚举（记录在世界清单中）
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public enum ManagedWorldState {
+    /**
+     * 复制中 - 正在从模板复制文件
+     */
+    COPYING,
+
+    /**
+     * 活跃 - 已加载，在预热池中或正在游戏
+     */
+    ACTIVE,
+
+    /**
+     * 待删除 - 已计划删除但尚未完成
+     */
+    PENDING_DELETE;
+
+    /**
+     * 根据名称获取状态
+     * @param name 状态名称
+     * @return 状态，未知时返回 PENDING_DELETE（按孤立世界回收）
+     */
+    public static ManagedWorldState fromName(String name) {
+        for (ManagedWorldState state : values()) {
+            if (state.name().equalsIgnoreCase(name)) {
+                return state;
+            }
+        }
+        return PENDING_DELETE;
+    }
+}
@@ -1,13 +1,18 @@
 package com.pokemonbr.models;
 
+import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 匹配队列模型
  * 每个队列绑定一个世界实例
+ * 状态通过 CAS 原子转换，玩家加入通过 CAS 占用名额，可在任意线程安全调用
  *
  * @author l1ang_Y5n
  * @qq 235236127
@@ -16,9 +21,10 @@ public class MatchQueue {
 
     private final int queueId;
     private final Set<UUID> players;
-    private QueueState state;
-    private int countdown;
-    private String gameUuid;
+    private final AtomicReference<QueueState> state;
+    private final AtomicInteger occupancy;
+    private volatile int countdown;
+    private volatile String gameUuid;
 
     private final int minPlayers;
     private final int maxPlayers;
@@ -31,25 +37,42 @@ public class MatchQueue {
     private final String displayName;
 
     // 世界绑定
-    private World world;
-    private String worldName;
+    private volatile World world;
+    private volatile String worldName;
 
     // 世界配置名称（用于多地图支持）
     private String worldConfigName;
 
+    // 队列创建时间
+    private final long createdAt;
+
+    // 最近一次开始倒计时的时间（0 表示未开始）
+    private volatile long countdownStartedAt;
+
+    // 成员变化版本号，成员变化时递增
+    private final AtomicInteger membershipVersion;
+
+    // 在线成员缓存（成员变化后重新解析）
+    private volatile List<Player> audience;
+    private volatile int audienceVersion;
+
     public MatchQueue(int queueId, QueueType queueType, int queueIndex, String displayName, int minPlayers, int maxPlayers) {
         this.queueId = queueId;
         this.queueType = queueType;
         this.queueIndex = queueIndex;
         this.displayName = displayName;
-        this.players = new HashSet<>();
-        this.state = QueueState.WAITING;
+        this.players = ConcurrentHashMap.newKeySet();
+        this.state = new AtomicReference<>(QueueState.CREATING);
+        this.occupancy = new AtomicInteger(0);
+        this.membershipVersion = new AtomicInteger(0);
+        this.audienceVersion = -1;
         this.countdown = 0;
         this.minPlayers = minPlayers;
         this.maxPlayers = maxPlayers;
         this.gameUuid = null;
         this.world = null;
         this.worldName = null;
+        this.createdAt = System.currentTimeMillis();
     }
 
     /**
@@ -83,15 +106,97 @@ public class MatchQueue {
      * @return 是否成功
      */
     public boolean addPlayer(Player player) {
-        if (players.size() >= maxPlayers) {
+        return addPlayer(player.getUniqueId());
+    }
+
+    /**
+     * 添加玩家到队列（先通过 CAS 占用名额，再加入玩家集合）
+     * @param uuid 玩家UUID
+     * @return 是否成功
+     */
+    public boolean addPlayer(UUID uuid) {
+        while (true) {
+            int current = occupancy.get();
+            if (current >= maxPlayers || !state.get().isAdmitting()) {
+                return false;
+            }
+            if (occupancy.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        // 重复加入时归还名额
+        if (!players.add(uuid)) {
+            occupancy.decrementAndGet();
+            return false;
+        }
+        membershipVersion.incrementAndGet();
+
+        // 占用名额期间队列已停止接受玩家，撤销加入
+        if (!state.get().isAdmitting()) {
+            if (players.remove(uuid)) {
+                occupancy.decrementAndGet();
+                membershipVersion.incrementAndGet();
+            }
             return false;
         }
 
-        if (state != QueueState.WAITING && state != QueueState.COUNTDOWN) {
+        return true;
+    }
+
+    /**
+     * 整组添加玩家（一次 CAS 占用全部名额，要么全部加入，要么都不加入）
+     * @param uuids 玩家UUID列表
+     * @return 是否成功
+     */
+    public boolean addPlayers(Collection<UUID> uuids) {
+        int seats = uuids.size();
+        if (seats == 0) {
+            return true;
+        }
+
+        for (UUID uuid : uuids) {
+            if (players.contains(uuid)) {
+                return false;
+            }
+        }
+
+        while (true) {
+            int current = occupancy.get();
+            if (current + seats > maxPlayers || !state.get().isAdmitting()) {
+                return false;
+            }
+            if (occupancy.compareAndSet(current, current + seats)) {
+                break;
+            }
+        }
+
+        List<UUID> added = new ArrayList<>(seats);
+        for (UUID uuid : uuids) {
+            if (!players.add(uuid)) {
+                break;
+            }
+            added.add(uuid);
+        }
+        membershipVersion.incrementAndGet();
+
+        // 有玩家重复加入，或占用名额期间队列已停止接受玩家，整组撤销
+        if (added.size() != seats || !state.get().isAdmitting()) {
+            players.removeAll(added);
+            occupancy.addAndGet(-seats);
+            membershipVersion.incrementAndGet();
             return false;
         }
 
-        return players.add(player.getUniqueId());
+        return true;
+    }
+
+    /**
+     * 获取剩余名额
+     * @return 剩余名额
+     */
+    public int getFreeSeats() {
+        return Math.max(0, maxPlayers - occupancy.get());
     }
 
     /**
@@ -100,7 +205,47 @@ public class MatchQueue {
      * @return 是否成功
      */
     public boolean removePlayer(Player player) {
-        return players.remove(player.getUniqueId());
+        return removePlayer(player.getUniqueId());
+    }
+
+    /**
+     * 移除玩家
+     * @param uuid 玩家UUID
+     * @return 是否成功
+     */
+    public boolean removePlayer(UUID uuid) {
+        if (players.remove(uuid)) {
+            occupancy.decrementAndGet();
+            membershipVersion.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取在线成员（缓存解析结果，成员不变时不再逐个查找玩家，主线程调用）
+     * 发送前仍需检查 isOnline()，成员离线到离开队列之间可能有短暂延迟
+     * @return 在线成员（只读）
+     */
+    public List<Player> getAudience() {
+        int version = membershipVersion.get();
+        List<Player> cached = audience;
+        if (cached != null && audienceVersion == version) {
+            return cached;
+        }
+
+        List<Player> resolved = new ArrayList<>(players.size());
+        for (UUID uuid : players) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null) {
+                resolved.add(player);
+            }
+        }
+
+        cached = Collections.unmodifiableList(resolved);
+        audience = cached;
+        audienceVersion = version;
+        return cached;
     }
 
     /**
@@ -126,7 +271,7 @@ public class MatchQueue {
      * @return 人数
      */
     public int getPlayerCount() {
-        return players.size();
+        return occupancy.get();
     }
 
     /**
@@ -134,7 +279,7 @@ public class MatchQueue {
      * @return 是否已满
      */
     public boolean isFull() {
-        return players.size() >= maxPlayers;
+        return occupancy.get() >= maxPlayers;
     }
 
     /**
@@ -142,19 +287,48 @@ public class MatchQueue {
      * @return 是否达到
      */
     public boolean hasMinPlayers() {
-        return players.size() >= minPlayers;
+        return occupancy.get() >= minPlayers;
     }
 
     /**
-     * 清空队列
+     * 清空队列玩家（不改变队列状态）
      */
     public void clear() {
-        players.clear();
-        state = QueueState.WAITING;
+        for (UUID uuid : players) {
+            removePlayer(uuid);
+        }
         countdown = 0;
+        countdownStartedAt = 0;
         gameUuid = null;
     }
 
+    /**
+     * 原子地从指定状态转换到目标状态
+     * @param expected 期望的当前状态
+     * @param next 目标状态
+     * @return 是否转换成功（当前状态不符或转换非法时返回false）
+     */
+    public boolean transition(QueueState expected, QueueState next) {
+        return expected.canTransitionTo(next) && state.compareAndSet(expected, next);
+    }
+
+    /**
+     * 原子地从当前状态转换到目标状态
+     * @param next 目标状态
+     * @return 是否转换成功（当前状态不允许转换到目标状态时返回false）
+     */
+    public boolean transitionTo(QueueState next) {
+        while (true) {
+            QueueState current = state.get();
+            if (!current.canTransitionTo(next)) {
+                return false;
+            }
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
     /**
      * 递减倒计时
      * @return 剩余倒计时
@@ -177,11 +351,7 @@ public class MatchQueue {
     }
 
     public QueueState getState() {
-        return state;
-    }
-
-    public void setState(QueueState state) {
-        this.state = state;
+        return state.get();
     }
 
     public int getCountdown() {
@@ -228,6 +398,18 @@ public class MatchQueue {
         return displayName;
     }
 
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getCountdownStartedAt() {
+        return countdownStartedAt;
+    }
+
+    public void setCountdownStartedAt(long countdownStartedAt) {
+        this.countdownStartedAt = countdownStartedAt;
+    }
+
     /**
      * 获取完整队列名称 (如"普通队列 #2")
      * @return 完整队列名称
@@ -269,8 +451,8 @@ public class MatchQueue {
                 "queueId=" + queueId +
                 ", queueType=" + queueType.getDisplayName() +
                 ", queueIndex=" + queueIndex +
-                ", players=" + players.size() + "/" + maxPlayers +
-                ", state=" + state +
+                ", players=" + occupancy.get() + "/" + maxPlayers +
+                ", state=" + state.get() +
                 ", countdown=" + countdown +
                 ", world=" + (worldName != null ? worldName : "none") +
                 '}';
@@ -0,0 +1,88 @@
+package com.pokemonbr.models;
+
+import java.util.*;
+
+/**
+ * 组队模型
+ * 由邀请组成的玩家小队，排队时作为一个整体加入同一个匹配队列
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class Party {
+
+    private final UUID leader;
+    private final Set<UUID> members;
+    private final long createdAt;
+
+    public Party(UUID leader) {
+        this.leader = leader;
+        this.members = new LinkedHashSet<>();
+        this.members.add(leader);
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 添加成员
+     * @param uuid 玩家UUID
+     * @return 是否成功
+     */
+    public boolean addMember(UUID uuid) {
+        return members.add(uuid);
+    }
+
+    /**
+     * 移除成员
+     * @param uuid 玩家UUID
+     * @return 是否成功
+     */
+    public boolean removeMember(UUID uuid) {
+        return members.remove(uuid);
+    }
+
+    /**
+     * 检查玩家是否在小队中
+     * @param uuid 玩家UUID
+     * @return 是否在小队
+     */
+    public boolean contains(UUID uuid) {
+        return members.contains(uuid);
+    }
+
+    /**
+     * 检查玩家是否为队长
+     * @param uuid 玩家UUID
+     * @return 是否为队长
+     */
+    public boolean isLeader(UUID uuid) {
+        return leader.equals(uuid);
+    }
+
+    public UUID getLeader() {
+        return leader;
+    }
+
+    /**
+     * 获取所有成员（队长在前）
+     * @return 成员列表
+     */
+    public List<UUID> getMembers() {
+        return new ArrayList<>(members);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Party{" +
+                "leader=" + leader +
+                ", members=" + members.size() +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.pokemonbr.models;
+
+/**
+ * 可游玩区域
+ * 世界中缩圈范围与出生范围的外接矩形（方块坐标）
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class PlayableArea {
+
+    private final int minX;
+    private final int minZ;
+    private final int maxX;
+    private final int maxZ;
+
+    public PlayableArea(double minX, double minZ, double maxX, double maxZ) {
+        this.minX = (int) Math.floor(Math.min(minX, maxX));
+        this.minZ = (int) Math.floor(Math.min(minZ, maxZ));
+        this.maxX = (int) Math.ceil(Math.max(minX, maxX));
+        this.maxZ = (int) Math.ceil(Math.max(minZ, maxZ));
+    }
+
+    /**
+     * 合并另一个矩形区域
+     * @return 同时包含两个区域的新区域
+     */
+    public PlayableArea union(double otherMinX, double otherMinZ, double otherMaxX, double otherMaxZ) {
+        return new PlayableArea(
+                Math.min(minX, Math.min(otherMinX, otherMaxX)),
+                Math.min(minZ, Math.min(otherMinZ, otherMaxZ)),
+                Math.max(maxX, Math.max(otherMinX, otherMaxX)),
+                Math.max(maxZ, Math.max(otherMinZ, otherMaxZ)));
+    }
+
+    /**
+     * 向四周扩展
+     * @param blocks 扩展的方块数
+     * @return 扩展后的新区域
+     */
+    public PlayableArea expand(int blocks) {
+        return new PlayableArea(minX - blocks, minZ - blocks, maxX + blocks, maxZ + blocks);
+    }
+
+    /**
+     * 检查区域文件是否与可游玩区域相交
+     * 每个区域文件覆盖 32x32 个区块（512x512 方块）
+     * @param regionX 区域X坐标
+     * @param regionZ 区域Z坐标
+     * @return 是否相交
+     */
+    public boolean intersectsRegion(int regionX, int regionZ) {
+        return regionX >= Math.floorDiv(minX, 512) && regionX <= Math.floorDiv(maxX, 512)
+                && regionZ >= Math.floorDiv(minZ, 512) && regionZ <= Math.floorDiv(maxZ, 512);
+    }
+
+    /**
+     * 检查区域文件名（r.X.Z.mca）是否与可游玩区域相交
+     * 无法解析的文件名视为相交（保留）
+     * @param fileName 区域文件名
+     * @return 是否相交
+     */
+    public boolean intersectsRegionFile(String fileName) {
+        String[] parts = fileName.split("\\.");
+        if (parts.length != 4 || !"r".equals(parts[0]) || !"mca".equals(parts[3])) {
+            return true;
+        }
+
+        try {
+            return intersectsRegion(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayableArea{" +
+                "x=" + minX + "~" + maxX +
+                ", z=" + minZ + "~" + maxZ +
+                '}';
+    }
+}
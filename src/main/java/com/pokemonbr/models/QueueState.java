@@ -2,11 +2,18 @@ package com.pokemonbr.models;
 
 /**
  * 队列状态枚举
+ * 队列生命周期: CREATING → WAITING → COUNTDOWN → STARTING → IN_GAME → RECYCLING
+ * 状态只能通过 MatchQueue 的原子转换改变，非法转换会被拒绝
  *
  * @author l1ang_Y5n
  * @qq 235236127
  */
 public enum QueueState {
+    /**
+     * 创建中 - 正在准备世界，玩家可以预先加入
+     */
+    CREATING,
+
     /**
      * 等待中 - 等待玩家加入
      */
@@ -17,13 +24,48 @@ public enum QueueState {
      */
     COUNTDOWN,
 
+    /**
+     * 开始中 - 正在创建游戏实例，不再接受玩家
+     */
+    STARTING,
+
     /**
      * 游戏中 - 游戏正在进行
      */
-    PLAYING,
+    IN_GAME,
+
+    /**
+     * 回收中 - 游戏已结束或队列创建失败，世界正在回收
+     */
+    RECYCLING;
+
+    /**
+     * 检查是否可以转换到目标状态
+     * @param next 目标状态
+     * @return 是否允许
+     */
+    public boolean canTransitionTo(QueueState next) {
+        switch (this) {
+            case CREATING:
+                return next == WAITING || next == RECYCLING;
+            case WAITING:
+                return next == COUNTDOWN || next == STARTING || next == RECYCLING;
+            case COUNTDOWN:
+                return next == WAITING || next == STARTING || next == RECYCLING;
+            case STARTING:
+                return next == IN_GAME || next == WAITING || next == RECYCLING;
+            case IN_GAME:
+                return next == RECYCLING;
+            default:
+                return false;
+        }
+    }
 
     /**
-     * 已结束 - 游戏已结束
+     * 检查此状态下是否接受玩家加入
+     * @return 是否接受
      */
-    FINISHED
+    public boolean isAdmitting() {
+        return this == CREATING || this == WAITING || this == COUNTDOWN;
+    }
 }
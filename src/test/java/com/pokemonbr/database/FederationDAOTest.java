@@ -0,0 +1,158 @@
+package com.pokemonbr.database;
+
+import com.pokemonbr.Main;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 跨服队列数据访问对象测试
+ * 使用 H2 的 MySQL 兼容模式代替共享的 MySQL
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class FederationDAOTest {
+
+    private static final AtomicInteger DATABASE_ID = new AtomicInteger();
+
+    private static final Map<String, Integer> MAX_PLAYERS = Collections.singletonMap("normal", 20);
+
+    private String url;
+    private FederationDAO federationDAO;
+
+    @Before
+    public void setUp() throws SQLException {
+        url = "jdbc:h2:mem:federation" + DATABASE_ID.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+        DatabaseManager databaseManager = mock(DatabaseManager.class);
+        when(databaseManager.getConnection()).thenAnswer(invocation -> DriverManager.getConnection(url));
+
+        Main plugin = mock(Main.class);
+        when(plugin.getDatabaseManager()).thenReturn(databaseManager);
+
+        federationDAO = new FederationDAO(plugin);
+        federationDAO.createTables();
+    }
+
+    @Test
+    public void createTablesIsRepeatableAndCreatesNodeIndex() throws SQLException {
+        federationDAO.createTables();
+
+        int indexes = 0;
+        try (Connection conn = DriverManager.getConnection(url);
+             ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, "pbr_fed_queue", false, false)) {
+            while (rs.next()) {
+                if ("idx_fed_queue_node".equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    indexes++;
+                }
+            }
+        }
+        assertEquals(1, indexes);
+    }
+
+    @Test
+    public void leadershipIsExclusiveUntilReleased() throws SQLException {
+        assertTrue(federationDAO.tryAcquireLeadership("node-a", 15_000));
+        assertFalse(federationDAO.tryAcquireLeadership("node-b", 15_000));
+
+        // 持有者续约
+        assertTrue(federationDAO.tryAcquireLeadership("node-a", 15_000));
+        assertFalse(federationDAO.tryAcquireLeadership("node-b", 15_000));
+
+        federationDAO.releaseLeadership("node-a");
+        assertTrue(federationDAO.tryAcquireLeadership("node-b", 15_000));
+        assertFalse(federationDAO.tryAcquireLeadership("node-a", 15_000));
+    }
+
+    @Test
+    public void expiredLeaseCanBeTakenOver() throws SQLException {
+        // 负租约等价于已过期（数据库时钟精度可能只有秒）
+        assertTrue(federationDAO.tryAcquireLeadership("node-a", -5_000));
+        assertTrue(federationDAO.tryAcquireLeadership("node-b", 15_000));
+        assertFalse(federationDAO.tryAcquireLeadership("node-a", 15_000));
+    }
+
+    @Test
+    public void consolidateMovesSmallerNodesToLargestNode() throws SQLException {
+        UUID hostFirst = UUID.randomUUID();
+        UUID hostSecond = UUID.randomUUID();
+        UUID remote = UUID.randomUUID();
+
+        federationDAO.heartbeat("node-a", 2, 2);
+        federationDAO.heartbeat("node-b", 1, 1);
+        federationDAO.publishQueue("node-a", Arrays.asList(
+                entry(hostFirst, "HostFirst", 1L), entry(hostSecond, "HostSecond", 2L)));
+        federationDAO.publishQueue("node-b", Collections.singletonList(entry(remote, "Remote", 3L)));
+
+        assertEquals(1, federationDAO.consolidate(3, MAX_PLAYERS, 60_000, 60_000));
+
+        // 承办节点的玩家原地不动
+        assertTrue(federationDAO.fetchOutgoing("node-a").isEmpty());
+
+        List<FederationDAO.Transfer> outgoing = federationDAO.fetchOutgoing("node-b");
+        assertEquals(1, outgoing.size());
+        assertEquals(remote, outgoing.get(0).getPlayerUuid());
+        assertEquals("node-a", outgoing.get(0).getTargetNode());
+        assertNotNull(outgoing.get(0).getMatchId());
+
+        // 已分配的玩家不会再次参与整合
+        assertEquals(0, federationDAO.consolidate(3, MAX_PLAYERS, 60_000, 60_000));
+    }
+
+    @Test
+    public void consolidateSkipsWhenOneNodeCanStartAlone() throws SQLException {
+        federationDAO.heartbeat("node-a", 2, 2);
+        federationDAO.heartbeat("node-b", 1, 1);
+        federationDAO.publishQueue("node-a", Arrays.asList(
+                entry(UUID.randomUUID(), "A1", 1L), entry(UUID.randomUUID(), "A2", 2L)));
+        federationDAO.publishQueue("node-b", Collections.singletonList(entry(UUID.randomUUID(), "B1", 3L)));
+
+        assertEquals(0, federationDAO.consolidate(2, MAX_PLAYERS, 60_000, 60_000));
+        assertTrue(federationDAO.fetchOutgoing("node-b").isEmpty());
+    }
+
+    @Test
+    public void claimIncomingOnlyOnTargetNodeAndOnlyOnce() throws SQLException {
+        UUID remote = UUID.randomUUID();
+
+        federationDAO.heartbeat("node-a", 2, 2);
+        federationDAO.heartbeat("node-b", 1, 1);
+        federationDAO.publishQueue("node-a", Arrays.asList(
+                entry(UUID.randomUUID(), "A1", 1L), entry(UUID.randomUUID(), "A2", 2L)));
+        federationDAO.publishQueue("node-b", Collections.singletonList(entry(remote, "Remote", 3L)));
+        federationDAO.consolidate(3, MAX_PLAYERS, 60_000, 60_000);
+
+        federationDAO.markTransferred(remote, "node-a");
+        assertTrue(federationDAO.fetchOutgoing("node-b").isEmpty());
+
+        assertNull(federationDAO.claimIncoming("node-b", remote));
+        assertEquals("normal", federationDAO.claimIncoming("node-a", remote));
+        assertNull(federationDAO.claimIncoming("node-a", remote));
+    }
+
+    @Test
+    public void claimIncomingIgnoresUnassignedPlayers() throws SQLException {
+        UUID local = UUID.randomUUID();
+
+        federationDAO.heartbeat("node-a", 1, 1);
+        federationDAO.publishQueue("node-a", Collections.singletonList(entry(local, "Local", 1L)));
+
+        assertNull(federationDAO.claimIncoming("node-a", local));
+    }
+
+    private static FederationDAO.QueueEntry entry(UUID uuid, String name, long joinedAt) {
+        return new FederationDAO.QueueEntry(uuid, name, "normal", joinedAt);
+    }
+}
@@ -0,0 +1,1096 @@
+package com.pokemonbr.simulation;
+
+import com.pokemonbr.Main;
+import com.pokemonbr.database.DatabaseManager;
+import com.pokemonbr.listeners.PlayerListener;
+import com.pokemonbr.managers.*;
+import com.pokemonbr.models.Game;
+import com.pokemonbr.models.GameState;
+import com.pokemonbr.models.MatchQueue;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 无头队列/游戏负载模拟
+ * 在虚拟时钟上驱动真实的 QueueManager、GameManager、GameTickScheduler、QueueAuditor、WorldPoolManager 和 PlayerListener，
+ * 世界复制、区块预加载、计分板、奖励等外部依赖用替身代替
+ * 世界替身按 WorldTemplateManager 的线程模型工作: 复制和重置文件在工作线程执行，加载世界回到主线程，
+ * 重置失败时在工作线程改为删除
+ *
+ * 每虚拟秒按场景概率让玩家加入/退出队列、掉线/重连，在进行中的游戏里随机淘汰玩家，
+ * 然后与插件的实际状态对账；运行结束后停止加入，等待游戏结束、让剩余玩家退出，最后检查泄漏
+ * 关闭场景则在游戏进行中按服务端顺序禁用插件（先标记禁用，再调用 onDisable，最后取消插件的任务），
+ * 检查进行中的游戏都只结算一次、结算在保存数据和关闭写入器之前完成，且插件禁用后没有再提交任务
+ *
+ * 插件内部按真实时间计算的部分（延迟统计、加入速率、合并最短等待、评分匹配的等待时间）
+ * 在模拟中看到的是压缩后的时间，默认配置会关闭或清零这些阈值
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class QueueSimulation {
+
+    private static final int TICKS_PER_SECOND = 20;
+
+    // 排空阶段结束后继续运行的时间，让延迟任务执行完
+    private static final int SETTLE_SECONDS = 60;
+
+    // 模拟使用的地图配置名称
+    private static final String WORLD_CONFIG = "sim_arena";
+
+    // 模拟准备的世界名称前缀（都可以从模板重置）
+    private static final String WORLD_PREFIX = "pbr_sim_";
+
+    // 重置世界文件的耗时
+    private static final int RESET_SECONDS = 2;
+
+    private final SimulationScenario scenario;
+    private final SimulationReport report;
+    private final Random random;
+    private final VirtualScheduler scheduler;
+
+    private final YamlConfiguration config;
+    private final YamlConfiguration messages;
+    private final Logger logger;
+    private final List<String> severeSamples;
+    private final World lobbyWorld;
+
+    // 玩家
+    private final List<SimulatedPlayer> players;
+    private final Map<UUID, SimulatedPlayer> playersById;
+    private final Map<UUID, Player> onlinePlayers;
+
+    // 队长UUID -> 小队成员（队长在前）
+    private final Map<UUID, List<SimulatedPlayer>> parties;
+
+    // 世界名称 -> 已交给插件的世界
+    private final Map<String, World> liveWorlds;
+    private final Set<String> copyingWorlds;
+    private final Map<String, Long> unclaimedSince;
+    private final Set<String> reportedOrphans;
+    private int nextWorldId;
+
+    // 已卸载、正在工作线程重置文件的世界，以及每个世界的重置次数
+    private final Set<String> resettingWorlds;
+    private final Map<String, Integer> resetCounts;
+
+    // 游戏UUID -> 发放奖励、提交对局记录的次数
+    private final Map<String, Integer> rewardCounts;
+    private final Map<String, Integer> historyCounts;
+
+    // 插件是否启用，以及关闭流程进行到哪一步
+    private volatile boolean pluginEnabled;
+    private boolean playerDataSaved;
+    private boolean historyWriterClosed;
+    private boolean databaseClosed;
+
+    // 游戏UUID -> 开始 tick
+    private final Map<String, Long> gameStartTicks;
+    private final Set<String> reportedStuckGames;
+
+    // 被测组件
+    private final Main plugin;
+    private final WorldPoolManager worldPool;
+    private final QueueManager queueManager;
+    private final GameManager gameManager;
+    private final QueueAuditor auditor;
+    private final PlayerListener playerListener;
+
+    public QueueSimulation(SimulationScenario scenario) {
+        this.scenario = scenario;
+        this.report = new SimulationReport(scenario.getName());
+        this.random = new Random(scenario.getSeed());
+        this.scheduler = new VirtualScheduler();
+
+        this.config = loadResource("config.yml");
+        this.messages = loadResource("messages.yml");
+        this.severeSamples = new ArrayList<>();
+        this.logger = createLogger();
+        this.lobbyWorld = createWorld(config.getString("queue.lobby-world", "world"));
+
+        this.players = new ArrayList<>(scenario.getPlayers());
+        this.playersById = new HashMap<>();
+        this.onlinePlayers = new LinkedHashMap<>();
+        this.parties = new HashMap<>();
+
+        this.liveWorlds = new LinkedHashMap<>();
+        this.copyingWorlds = new HashSet<>();
+        this.unclaimedSince = new HashMap<>();
+        this.reportedOrphans = new HashSet<>();
+        this.resettingWorlds = new HashSet<>();
+        this.resetCounts = new ConcurrentHashMap<>();
+
+        this.rewardCounts = new HashMap<>();
+        this.historyCounts = new HashMap<>();
+        this.pluginEnabled = true;
+
+        this.gameStartTicks = new HashMap<>();
+        this.reportedStuckGames = new HashSet<>();
+
+        applyConfigOverrides();
+        createPlayers();
+
+        SimulatedServer.install(this);
+
+        // 按插件启动顺序创建组件，每个组件创建后再交给插件替身
+        this.plugin = createPlugin();
+        this.worldPool = plugin.getWorldTemplateManager().getWorldPool();
+
+        LatencyMetrics latencyMetrics = new LatencyMetrics(plugin);
+        when(plugin.getLatencyMetrics()).thenReturn(latencyMetrics);
+
+        GameTickScheduler gameTickScheduler = new GameTickScheduler(plugin);
+        when(plugin.getGameTickScheduler()).thenReturn(gameTickScheduler);
+
+        this.queueManager = new QueueManager(plugin, plugin.getWorldTemplateManager());
+        when(plugin.getQueueManager()).thenReturn(queueManager);
+
+        this.gameManager = new GameManager(plugin);
+        when(plugin.getGameManager()).thenReturn(gameManager);
+
+        this.auditor = new QueueAuditor(plugin);
+        when(plugin.getQueueAuditor()).thenReturn(auditor);
+
+        this.playerListener = new PlayerListener(plugin);
+
+        // 关闭流程直接读取插件字段
+        setPluginField("configManager", plugin.getConfigManager());
+        setPluginField("playerDataManager", plugin.getPlayerDataManager());
+        setPluginField("worldTemplateManager", plugin.getWorldTemplateManager());
+        setPluginField("chunkPreloadManager", plugin.getChunkPreloadManager());
+        setPluginField("borderShrinkManager", plugin.getBorderShrinkManager());
+        setPluginField("matchHistoryWriter", plugin.getMatchHistoryWriter());
+        setPluginField("databaseManager", mockDatabaseManager());
+        setPluginField("gameManager", gameManager);
+        setPluginField("gameTickScheduler", gameTickScheduler);
+
+        gameTickScheduler.start();
+    }
+
+    /**
+     * 运行模拟
+     * @return 模拟结果
+     */
+    public SimulationReport run() {
+        long wallStart = System.currentTimeMillis();
+
+        // 正常运行
+        long end = (long) scenario.getDurationSeconds() * TICKS_PER_SECOND;
+        while (scheduler.getCurrentTick() < end) {
+            step(true);
+        }
+
+        if (scenario.isShutdownAtEnd()) {
+            shutdown();
+        } else {
+            drainAndSettle();
+        }
+
+        report.virtualTicks = scheduler.getCurrentTick();
+        report.wallMillis = System.currentTimeMillis() - wallStart;
+        report.addViolationCounts(auditor.getViolationCounts());
+        scheduler.shutdown();
+
+        for (Throwable failure : scheduler.getFailures()) {
+            report.violation("task-exception", String.valueOf(failure));
+        }
+        if (!scheduler.getFailures().isEmpty()) {
+            scheduler.getFailures().get(0).printStackTrace();
+        }
+        for (String rejection : scheduler.getRejections()) {
+            report.violation("scheduled-while-disabled", rejection);
+        }
+        for (String call : scheduler.getThreadViolations()) {
+            report.violation("off-main-thread", call);
+        }
+
+        // 注入的世界创建失败会产生对应数量的严重日志
+        long unexpectedSevere = report.severeLogs - report.worldsFailed;
+        if (unexpectedSevere > 0) {
+            report.violation("severe-log", unexpectedSevere + " 条意外的严重日志，例如: " + severeSamples);
+        }
+        return report;
+    }
+
+    /**
+     * 停止加入并等待进行中的游戏结束，让剩余玩家退出后检查泄漏
+     */
+    private void drainAndSettle() {
+        // 排空: 停止加入，等待进行中的游戏结束
+        long drainEnd = scheduler.getCurrentTick() + (long) scenario.getDrainSeconds() * TICKS_PER_SECOND;
+        while (scheduler.getCurrentTick() < drainEnd && !gameManager.getActiveGames().isEmpty()) {
+            step(false);
+        }
+        if (!gameManager.getActiveGames().isEmpty()) {
+            report.violation("drain-timeout", gameManager.getActiveGames().size() + " 局游戏在排空时间内没有结束");
+        }
+
+        // 剩余的排队玩家退出（人数不足的队列不会开局）
+        for (SimulatedPlayer sim : players) {
+            if (sim.isOnline() && isQueued(sim.getUuid()) && queueManager.leaveQueue(sim.getPlayer())) {
+                sim.setState(SimulatedPlayer.State.IDLE);
+                report.leaves++;
+            }
+        }
+
+        long settleEnd = scheduler.getCurrentTick() + (long) SETTLE_SECONDS * TICKS_PER_SECOND;
+        while (scheduler.getCurrentTick() < settleEnd) {
+            step(false);
+        }
+
+        checkLeaks();
+    }
+
+    /**
+     * 在游戏进行中禁用插件（与服务端顺序一致: 先标记禁用，再调用 onDisable，最后取消插件的任务）
+     * 禁用前未进入结束流程的游戏都必须在关闭流程中结算且只结算一次
+     */
+    private void shutdown() {
+        List<Game> liveGames = new ArrayList<>();
+        for (Game game : gameManager.getActiveGames()) {
+            if (game.getState() != GameState.ENDING && game.getState() != GameState.FINISHED) {
+                liveGames.add(game);
+            }
+        }
+
+        pluginEnabled = false;
+        plugin.onDisable();
+        scheduler.cancelTasks(plugin);
+
+        for (Game game : liveGames) {
+            String gameUuid = game.getGameUuid();
+            int rewards = rewardCounts.getOrDefault(gameUuid, 0);
+            int history = historyCounts.getOrDefault(gameUuid, 0);
+            if (rewards != 1 || history != 1) {
+                report.violation("shutdown-settlement", "游戏 " + gameUuid + " 关闭时结算次数异常 (奖励: " + rewards
+                        + ", 对局记录: " + history + ")");
+            }
+            if (game.getState() != GameState.FINISHED) {
+                report.violation("shutdown-state", "游戏 " + gameUuid + " 关闭后状态为 " + game.getState());
+            }
+        }
+        report.gamesSettledOnShutdown = liveGames.size();
+
+        if (!databaseClosed) {
+            report.violation("shutdown-database", "关闭流程没有关闭数据库连接");
+        }
+    }
+
+    /**
+     * 推进一个 tick（每秒额外执行一次玩家操作、对账和检查）
+     * @param joinsOpen 是否允许加入队列
+     */
+    private void step(boolean joinsOpen) {
+        long started = System.nanoTime();
+        scheduler.tick();
+
+        long tick = scheduler.getCurrentTick();
+        if (tick % TICKS_PER_SECOND != 0) {
+            report.recordTickCost(System.nanoTime() - started);
+            return;
+        }
+
+        simulatePlayers(tick, joinsOpen);
+        eliminatePlayers();
+        report.recordTickCost(System.nanoTime() - started);
+
+        reconcile(tick);
+        checkGames(tick);
+        checkWorlds(tick);
+
+        if ((tick / TICKS_PER_SECOND) % Math.max(1, scenario.getAuditIntervalSeconds()) == 0) {
+            auditor.audit();
+            report.audits++;
+        }
+    }
+
+    // ==================== 玩家行为 ====================
+
+    /**
+     * 按场景概率执行玩家操作
+     */
+    private void simulatePlayers(long tick, boolean joinsOpen) {
+        double joinChance = joinsOpen ? scenario.getJoinChance(tick / TICKS_PER_SECOND) : 0;
+
+        for (SimulatedPlayer sim : players) {
+            switch (sim.getState()) {
+                case OFFLINE:
+                    if (tick >= sim.getReconnectAt()) {
+                        reconnect(sim);
+                    }
+                    continue;
+
+                case IDLE:
+                    // 小队成员跟随队长加入
+                    if (sim.isPartyLeader() && random.nextDouble() < joinChance) {
+                        join(sim, tick);
+                    }
+                    break;
+
+                case WAITING:
+                    if (random.nextDouble() < scenario.getLeaveChance()) {
+                        leave(sim);
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+
+            if (random.nextDouble() < scenario.getDisconnectChance()) {
+                disconnect(sim, tick);
+            }
+        }
+    }
+
+    private void join(SimulatedPlayer sim, long tick) {
+        report.joinAttempts++;
+        if (queueManager.joinQueue(sim.getPlayer())) {
+            report.joinsAccepted++;
+            sim.setState(SimulatedPlayer.State.WAITING);
+            sim.setWaitingSince(tick);
+        } else {
+            report.joinsRejected++;
+        }
+    }
+
+    private void leave(SimulatedPlayer sim) {
+        if (queueManager.leaveQueue(sim.getPlayer())) {
+            report.leaves++;
+            sim.setState(SimulatedPlayer.State.IDLE);
+        }
+    }
+
+    private void disconnect(SimulatedPlayer sim, long tick) {
+        // 与服务端一致: 退出事件触发时玩家仍在线
+        playerListener.onPlayerQuit(new PlayerQuitEvent(sim.getPlayer(), "quit"));
+
+        sim.setOnline(false);
+        sim.setState(SimulatedPlayer.State.OFFLINE);
+        sim.setReconnectAt(tick + (long) scenario.getReconnectSeconds() * TICKS_PER_SECOND);
+        onlinePlayers.remove(sim.getUuid());
+        report.disconnects++;
+    }
+
+    private void reconnect(SimulatedPlayer sim) {
+        sim.setOnline(true);
+        sim.setState(SimulatedPlayer.State.IDLE);
+        sim.consumeDropNotice();
+        onlinePlayers.put(sim.getUuid(), sim.getPlayer());
+        report.reconnects++;
+    }
+
+    /**
+     * 每局进行中的游戏按概率淘汰一名存活玩家（与对战监听器相同的淘汰入口）
+     */
+    private void eliminatePlayers() {
+        for (Game game : new ArrayList<>(gameManager.getActiveGames())) {
+            GameState state = game.getState();
+            if (state != GameState.PLAYING && state != GameState.FINAL_STAGE) {
+                continue;
+            }
+            if (random.nextDouble() >= scenario.getEliminationChance()) {
+                continue;
+            }
+
+            List<UUID> alive = new ArrayList<>(game.getAlivePlayers());
+            if (alive.size() <= 1) {
+                continue;
+            }
+
+            UUID victim = alive.remove(random.nextInt(alive.size()));
+            UUID killer = random.nextBoolean() ? alive.get(random.nextInt(alive.size())) : null;
+            game.eliminatePlayer(victim, killer);
+            report.eliminations++;
+        }
+    }
+
+    // ==================== 对账与检查 ====================
+
+    /**
+     * 与插件的实际状态对账
+     * 排队 -> 游戏中记录等待时间；排队 -> 空闲（不是模拟器让玩家退出的）必须收到过通知
+     */
+    private void reconcile(long tick) {
+        for (SimulatedPlayer sim : players) {
+            UUID uuid = sim.getUuid();
+            boolean queued = isQueued(uuid);
+            boolean inGame = gameManager.isInGame(uuid);
+            boolean notified = sim.consumeDropNotice();
+
+            if (!sim.isOnline()) {
+                if (queued) {
+                    report.violation("offline-in-queue", "离线玩家 " + uuid + " 仍在队列或匹配池中");
+                }
+                continue;
+            }
+
+            if (queued && inGame) {
+                report.violation("queue-and-game", "玩家 " + uuid + " 同时在队列和游戏中");
+            }
+
+            SimulatedPlayer.State previous = sim.getState();
+            if (inGame) {
+                if (previous == SimulatedPlayer.State.WAITING) {
+                    report.recordWait(tick - sim.getWaitingSince());
+                }
+                sim.setState(SimulatedPlayer.State.IN_GAME);
+
+            } else if (queued) {
+                if (previous != SimulatedPlayer.State.WAITING) {
+                    sim.setState(SimulatedPlayer.State.WAITING);
+                    sim.setWaitingSince(tick);
+                }
+
+            } else {
+                if (previous == SimulatedPlayer.State.WAITING) {
+                    if (notified) {
+                        report.notifiedDrops++;
+                    } else {
+                        report.violation("silent-drop", "玩家 " + uuid + " 被移出队列但没有收到任何通知");
+                    }
+                }
+                sim.setState(SimulatedPlayer.State.IDLE);
+            }
+        }
+    }
+
+    /**
+     * 统计开局与结束，检查卡住的游戏
+     */
+    private void checkGames(long tick) {
+        Set<String> active = new HashSet<>();
+        long maxTicks = (long) scenario.getMaxGameSeconds() * TICKS_PER_SECOND;
+
+        for (Game game : gameManager.getActiveGames()) {
+            String gameUuid = game.getGameUuid();
+            active.add(gameUuid);
+
+            Long startedAt = gameStartTicks.get(gameUuid);
+            if (startedAt == null) {
+                gameStartTicks.put(gameUuid, tick);
+                report.gamesStarted++;
+                report.playersServed += game.getTotalPlayerCount();
+            } else if (tick - startedAt > maxTicks && reportedStuckGames.add(gameUuid)) {
+                report.violation("stuck-game", "游戏 " + gameUuid + " 已进行 " + ((tick - startedAt) / TICKS_PER_SECOND)
+                        + " 秒 (状态: " + game.getState() + ", 存活: " + game.getAlivePlayerCount() + ")");
+            }
+        }
+
+        Iterator<String> iterator = gameStartTicks.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!active.contains(iterator.next())) {
+                iterator.remove();
+                report.gamesFinished++;
+            }
+        }
+    }
+
+    /**
+     * 检查孤立世界: 已交给插件的世界既没有绑定队列、不在游戏中也不在预热池中，且超过宽限时间（按虚拟时间）
+     */
+    private void checkWorlds(long tick) {
+        Set<String> claimed = getClaimedWorlds(true);
+        long grace = (long) scenario.getOrphanGraceSeconds() * TICKS_PER_SECOND;
+
+        for (String worldName : liveWorlds.keySet()) {
+            if (claimed.contains(worldName) || worldPool.isPooled(worldName)) {
+                unclaimedSince.remove(worldName);
+                continue;
+            }
+
+            long since = unclaimedSince.computeIfAbsent(worldName, k -> tick);
+            if (tick - since >= grace && reportedOrphans.add(worldName)) {
+                report.violation("orphan-world", "世界 " + worldName + " 已 " + ((tick - since) / TICKS_PER_SECOND)
+                        + " 秒无人认领");
+            }
+        }
+        unclaimedSince.keySet().retainAll(liveWorlds.keySet());
+    }
+
+    /**
+     * 排空后的泄漏检查
+     */
+    private void checkLeaks() {
+        if (!gameManager.getActiveGames().isEmpty()) {
+            report.violation("game-leak", gameManager.getActiveGames().size() + " 局游戏没有被清理");
+        }
+        if (!queueManager.getPlayerQueueIds().isEmpty()) {
+            report.violation("queue-map-leak", queueManager.getPlayerQueueIds().size() + " 名玩家仍有队列映射");
+        }
+
+        for (SimulatedPlayer sim : players) {
+            if (queueManager.getMatchmaker().contains(sim.getUuid())) {
+                report.violation("matchmaker-leak", "玩家 " + sim.getUuid() + " 仍在评分匹配池中");
+            }
+        }
+
+        for (MatchQueue queue : queueManager.getAllQueues()) {
+            if (queue.getPlayerCount() > 0) {
+                report.violation("queue-not-empty", queue.getFullQueueName() + " (#" + queue.getQueueId() + ") 仍有 "
+                        + queue.getPlayerCount() + " 人");
+            }
+        }
+
+        // 预热池和空闲队列持有世界属于正常情况，其余仍未归还的世界都是泄漏
+        Set<String> claimed = getClaimedWorlds(false);
+        for (String worldName : liveWorlds.keySet()) {
+            if (worldPool.isPooled(worldName)) {
+                report.pooledWorlds++;
+            } else if (claimed.contains(worldName)) {
+                report.idleQueueWorlds++;
+            } else {
+                report.violation("world-leak", "世界 " + worldName + " 没有归还");
+            }
+        }
+        if (!copyingWorlds.isEmpty()) {
+            report.violation("world-copy-pending", copyingWorlds.size() + " 个世界仍在准备中");
+        }
+        if (!resettingWorlds.isEmpty()) {
+            report.violation("world-reset-pending", resettingWorlds.size() + " 个世界仍在重置中");
+        }
+
+        // 只有空闲队列持有的世界还会回到预热池，其余待归还记录都应已随删除取消
+        int pendingReturns = worldPool.getPendingReturnCount(WORLD_CONFIG);
+        if (pendingReturns > report.idleQueueWorlds) {
+            report.violation("pool-return-leak", "预热池仍在等待 " + pendingReturns + " 个世界归还，空闲队列只持有 "
+                    + report.idleQueueWorlds + " 个");
+        }
+    }
+
+    /**
+     * 获取被队列（以及游戏）占用的世界
+     */
+    private Set<String> getClaimedWorlds(boolean includeGames) {
+        Set<String> claimed = new HashSet<>();
+        for (MatchQueue queue : queueManager.getAllQueues()) {
+            if (queue.getWorldName() != null) {
+                claimed.add(queue.getWorldName());
+            }
+        }
+        if (includeGames) {
+            for (Game game : gameManager.getActiveGames()) {
+                if (game.getGameWorld() != null) {
+                    claimed.add(game.getGameWorld().getName());
+                }
+            }
+        }
+        return claimed;
+    }
+
+    private boolean isQueued(UUID uuid) {
+        return queueManager.getPlayerQueueIds().containsKey(uuid) || queueManager.getMatchmaker().contains(uuid);
+    }
+
+    // ==================== 世界替身 ====================
+
+    /**
+     * 准备世界: 与 WorldTemplateManager 一致，在工作线程复制文件，通过 callSyncMethod 在主线程加载世界，
+     * 在工作线程完成；按场景耗时在虚拟时钟上完成，按失败概率返回 null
+     */
+    private CompletableFuture<World> provisionWorld() {
+        scheduler.checkPrimaryThread("WorldTemplateManager.createWorldCopy");
+
+        String worldName = WORLD_PREFIX + (++nextWorldId);
+        CompletableFuture<World> future = new CompletableFuture<>();
+        boolean fail = random.nextDouble() < scenario.getWorldFailureRate();
+        long delay = (long) (scenario.getProvisionSeconds() + random.nextInt(scenario.getProvisionJitterSeconds() + 1))
+                * TICKS_PER_SECOND;
+
+        copyingWorlds.add(worldName);
+        report.worldsAcquired++;
+
+        scheduler.runAsyncLater(() -> {
+            try {
+                future.complete(Bukkit.getScheduler().callSyncMethod(plugin, () -> loadWorld(worldName, fail)).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.complete(null);
+            } catch (ExecutionException e) {
+                future.completeExceptionally(e.getCause());
+            }
+        }, delay);
+
+        return future;
+    }
+
+    /**
+     * 在主线程加载复制好的世界
+     */
+    private World loadWorld(String worldName, boolean fail) {
+        copyingWorlds.remove(worldName);
+        if (fail) {
+            report.worldsFailed++;
+            return null;
+        }
+
+        World world = createWorld(worldName);
+        liveWorlds.put(worldName, world);
+        report.peakWorlds = Math.max(report.peakWorlds, liveWorlds.size());
+        return world;
+    }
+
+    /**
+     * 从预热池或即时复制获取世界（与 WorldTemplateManager.acquireWorld 一致）
+     */
+    private CompletableFuture<World> acquireWorld(String worldConfigName) {
+        World pooledWorld = worldPool.checkout(worldConfigName);
+        if (pooledWorld != null) {
+            return CompletableFuture.completedFuture(pooledWorld);
+        }
+
+        return provisionWorld().thenApply(world -> {
+            if (world != null) {
+                worldPool.expectReturn(worldConfigName, world.getName());
+            }
+            return world;
+        });
+    }
+
+    /**
+     * 回收世界（与 WorldTemplateManager.recycleWorld 一致）
+     * 删除延迟后在主线程卸载世界，在工作线程重置文件；成功后回到主线程重新加载并放回预热池，
+     * 失败时在工作线程取消待归还记录并改为删除
+     */
+    private CompletableFuture<Boolean> recycleWorld(String worldName) {
+        scheduler.checkPrimaryThread("WorldTemplateManager.recycleWorld");
+        if (!worldName.startsWith(WORLD_PREFIX)) {
+            return deleteWorld(worldName, "recycleWorld");
+        }
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        boolean fail = random.nextDouble() < scenario.getResetFailureRate();
+        long delay = (long) Math.max(1, config.getInt("world-management.delete-delay", 10)) * TICKS_PER_SECOND;
+
+        scheduler.runLater(() -> {
+            World world = liveWorlds.remove(worldName);
+            if (world == null) {
+                report.violation("world-double-release", "recycleWorld 归还了未持有的世界: " + worldName);
+                result.complete(false);
+                return;
+            }
+            unclaimedSince.remove(worldName);
+            resettingWorlds.add(worldName);
+
+            scheduler.runAsyncLater(() -> {
+                if (fail) {
+                    worldPool.cancelReturn(worldName);
+                    scheduler.runLater(() -> {
+                        resettingWorlds.remove(worldName);
+                        report.worldResetsFailed++;
+                        report.worldsReleased++;
+                        result.complete(true);
+                    }, 1);
+                    return;
+                }
+
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    resettingWorlds.remove(worldName);
+                    liveWorlds.put(worldName, world);
+                    resetCounts.merge(worldName, 1, Integer::sum);
+                    report.worldsReset++;
+
+                    if (!worldPool.offer(WORLD_CONFIG, world)) {
+                        deleteWorld(worldName, "recycleWorld");
+                    }
+                    result.complete(true);
+                });
+            }, (long) RESET_SECONDS * TICKS_PER_SECOND);
+        }, delay);
+
+        return result;
+    }
+
+    /**
+     * 释放未开始过游戏的世界（与 WorldTemplateManager.releaseUnusedWorld 一致）
+     */
+    private boolean releaseUnusedWorld(String worldConfigName, World world) {
+        if (worldPool.offer(worldConfigName, world)) {
+            return true;
+        }
+        recycleWorld(world.getName());
+        return false;
+    }
+
+    /**
+     * 删除世界（可在任意线程调用，与 WorldTemplateManager 一致在调用线程取消待归还记录）
+     */
+    private CompletableFuture<Boolean> deleteWorld(String worldName, String via) {
+        worldPool.cancelReturn(worldName);
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        scheduler.runLater(() -> future.complete(releaseWorld(worldName, via)), TICKS_PER_SECOND);
+        return future;
+    }
+
+    /**
+     * 归还世界（删除完成）
+     * @return 是否归还成功
+     */
+    private boolean releaseWorld(String worldName, String via) {
+        if (liveWorlds.remove(worldName) == null) {
+            report.violation("world-double-release", via + " 归还了未持有的世界: " + worldName);
+            return false;
+        }
+
+        unclaimedSince.remove(worldName);
+        report.worldsReleased++;
+        return true;
+    }
+
+    /**
+     * 世界替身: 除名称外的方法只能在主线程调用
+     */
+    private World createWorld(String worldName) {
+        return Stubs.of(World.class, (method, args) -> {
+            if ("getName".equals(method.getName())) {
+                return worldName;
+            }
+            scheduler.checkPrimaryThread("World." + method.getName());
+            return Stubs.DEFAULT;
+        });
+    }
+
+    // ==================== 插件替身 ====================
+
+    /**
+     * 创建插件替身，外部依赖全部替换为不做任何事的替身
+     * 关闭流程（onDisable）执行插件的真实代码，奖励、对局记录、玩家数据和数据库替身记录调用顺序
+     */
+    private Main createPlugin() {
+        Main plugin = mock(Main.class, withSettings().stubOnly());
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getLogger()).thenReturn(logger);
+        when(plugin.getName()).thenReturn("PokemonBattleRoyale");
+        when(plugin.isEnabled()).thenAnswer(invocation -> pluginEnabled);
+        when(plugin.getServer()).thenReturn(Bukkit.getServer());
+        doCallRealMethod().when(plugin).onDisable();
+
+        ConfigManager configManager = mock(ConfigManager.class, withSettings().stubOnly());
+        when(configManager.getMessagesConfig()).thenReturn(messages);
+        when(plugin.getConfigManager()).thenReturn(configManager);
+
+        // 不预加载出生点，使用世界配置中的固定出生点
+        ChunkPreloadManager chunkPreloadManager = mock(ChunkPreloadManager.class, withSettings().stubOnly());
+        when(chunkPreloadManager.takeSpawnPoints(anyInt())).thenReturn(null);
+        when(plugin.getChunkPreloadManager()).thenReturn(chunkPreloadManager);
+
+        YamlConfiguration worldConfig = new YamlConfiguration();
+        worldConfig.set("spawn.mode", "fixed");
+        worldConfig.set("spawn.location.x", 0.5);
+        worldConfig.set("spawn.location.y", 100.0);
+        worldConfig.set("spawn.location.z", 0.5);
+        WorldConfigManager worldConfigManager = mock(WorldConfigManager.class, withSettings().stubOnly());
+        when(worldConfigManager.getWorldConfig(anyString())).thenReturn(worldConfig);
+        when(worldConfigManager.getEnabledWorldsWithWeight()).thenAnswer(invocation -> {
+            scheduler.checkPrimaryThread("WorldConfigManager.getEnabledWorldsWithWeight");
+            return Collections.singletonMap(WORLD_CONFIG, 1);
+        });
+        when(plugin.getWorldConfigManager()).thenReturn(worldConfigManager);
+
+        PlayerDataManager playerDataManager = mock(PlayerDataManager.class, withSettings().stubOnly());
+        when(playerDataManager.getRemainingPlays(any(Player.class))).thenReturn(Integer.MAX_VALUE);
+        when(playerDataManager.getPlayerData(any(Player.class))).thenAnswer(invocation ->
+                playersById.get(invocation.<Player>getArgument(0).getUniqueId()).getPlayerData());
+        doAnswer(invocation -> playerDataSaved = true).when(playerDataManager).saveAllCachedData();
+        when(plugin.getPlayerDataManager()).thenReturn(playerDataManager);
+
+        InviteManager inviteManager = mock(InviteManager.class, withSettings().stubOnly());
+        when(inviteManager.getAvailablePartyMembers(any(Player.class))).thenAnswer(invocation ->
+                getAvailablePartyMembers(invocation.getArgument(0)));
+        when(plugin.getInviteManager()).thenReturn(inviteManager);
+
+        // 替身必须在 when() 之外创建，否则会打断正在进行的打桩
+        WorldTemplateManager worldTemplateManager = createWorldTemplateManager(plugin);
+        when(plugin.getWorldTemplateManager()).thenReturn(worldTemplateManager);
+
+        BorderShrinkManager borderShrinkManager = mock(BorderShrinkManager.class, withSettings().stubOnly());
+        when(plugin.getBorderShrinkManager()).thenReturn(borderShrinkManager);
+
+        LootChestManager lootChestManager = mock(LootChestManager.class, withSettings().stubOnly());
+        when(plugin.getLootChestManager()).thenReturn(lootChestManager);
+
+        VictoryEffectManager victoryEffectManager = mock(VictoryEffectManager.class, withSettings().stubOnly());
+        when(plugin.getVictoryEffectManager()).thenReturn(victoryEffectManager);
+
+        RewardManager rewardManager = mock(RewardManager.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            Game game = invocation.getArgument(0);
+            if (playerDataSaved) {
+                report.violation("reward-after-save", "游戏 " + game.getGameUuid() + " 在保存玩家数据之后才发放奖励");
+            }
+            countSettlement(rewardCounts, game, "奖励");
+            return null;
+        }).when(rewardManager).processGameRewards(any(Game.class));
+        when(plugin.getRewardManager()).thenReturn(rewardManager);
+
+        MatchHistoryWriter matchHistoryWriter = mock(MatchHistoryWriter.class, withSettings().stubOnly());
+        when(matchHistoryWriter.submit(any(Game.class))).thenAnswer(invocation -> {
+            Game game = invocation.getArgument(0);
+            if (historyWriterClosed) {
+                report.violation("history-after-shutdown", "游戏 " + game.getGameUuid() + " 在写入器关闭之后才提交对局记录");
+            }
+            countSettlement(historyCounts, game, "对局记录");
+            return true;
+        });
+        doAnswer(invocation -> {
+            if (databaseClosed) {
+                report.violation("history-after-database", "对局记录写入器在数据库关闭之后才关闭");
+            }
+            historyWriterClosed = true;
+            return null;
+        }).when(matchHistoryWriter).shutdown();
+        when(plugin.getMatchHistoryWriter()).thenReturn(matchHistoryWriter);
+
+        ScoreboardManager scoreboardManager = mock(ScoreboardManager.class, withSettings().stubOnly());
+        when(plugin.getScoreboardManager()).thenReturn(scoreboardManager);
+        return plugin;
+    }
+
+    /**
+     * 世界模板管理器替身: 准备、回收、删除世界都只在内存中记账，预热池使用真实的 WorldPoolManager
+     */
+    private WorldTemplateManager createWorldTemplateManager(Main plugin) {
+        WorldTemplateManager manager = mock(WorldTemplateManager.class, withSettings().stubOnly());
+        WorldPoolManager pool = new WorldPoolManager(plugin, manager);
+
+        WorldResetManager resetManager = mock(WorldResetManager.class, withSettings().stubOnly());
+        when(resetManager.canReset(anyString())).thenAnswer(invocation ->
+                invocation.<String>getArgument(0).startsWith(WORLD_PREFIX));
+        when(resetManager.getResetCount(anyString())).thenAnswer(invocation ->
+                resetCounts.getOrDefault(invocation.<String>getArgument(0), 0));
+
+        when(manager.selectRandomWorldConfig()).thenReturn(WORLD_CONFIG);
+        when(manager.acquireWorld(anyString())).thenAnswer(invocation -> acquireWorld(invocation.getArgument(0)));
+        when(manager.createWorldCopy()).thenAnswer(invocation -> provisionWorld());
+        when(manager.createWorldCopyFromConfig(anyString())).thenAnswer(invocation -> provisionWorld());
+        when(manager.releaseUnusedWorld(anyString(), any(World.class))).thenAnswer(invocation ->
+                releaseUnusedWorld(invocation.getArgument(0), invocation.getArgument(1)));
+        when(manager.recycleWorld(anyString())).thenAnswer(invocation -> recycleWorld(invocation.getArgument(0)));
+        when(manager.deleteWorld(anyString())).thenAnswer(invocation ->
+                deleteWorld(invocation.getArgument(0), "deleteWorld"));
+        when(manager.getAllActiveWorlds()).thenAnswer(invocation -> new ArrayList<>(liveWorlds.values()));
+        when(manager.isCopying(anyString())).thenAnswer(invocation ->
+                copyingWorlds.contains(invocation.<String>getArgument(0)));
+        when(manager.getWorldPool()).thenReturn(pool);
+        when(manager.getWorldResetManager()).thenReturn(resetManager);
+        doAnswer(invocation -> {
+            pool.shutdown();
+            return null;
+        }).when(manager).shutdown();
+        return manager;
+    }
+
+    /**
+     * 数据库替身: 只记录是否已关闭
+     */
+    private DatabaseManager mockDatabaseManager() {
+        DatabaseManager databaseManager = mock(DatabaseManager.class, withSettings().stubOnly());
+        doAnswer(invocation -> databaseClosed = true).when(databaseManager).close();
+        return databaseManager;
+    }
+
+    /**
+     * 记录一次结算，同一局游戏重复结算视为问题
+     */
+    private void countSettlement(Map<String, Integer> counts, Game game, String what) {
+        int count = counts.merge(game.getGameUuid(), 1, Integer::sum);
+        if (count > 1) {
+            report.violation("double-settlement", "游戏 " + game.getGameUuid() + " 的" + what + "被处理了 " + count + " 次");
+        }
+    }
+
+    /**
+     * 设置插件字段（关闭流程不经过 getter）
+     */
+    private void setPluginField(String name, Object value) {
+        try {
+            Field field = Main.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(plugin, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法设置插件字段: " + name, e);
+        }
+    }
+
+    /**
+     * 与 InviteManager 相同的规则: 队长带上在线、不在游戏和队列中的成员，其他玩家只返回自己
+     */
+    private List<Player> getAvailablePartyMembers(Player player) {
+        List<SimulatedPlayer> party = parties.get(player.getUniqueId());
+        if (party == null) {
+            return new ArrayList<>(Collections.singletonList(player));
+        }
+
+        List<Player> members = new ArrayList<>(party.size());
+        for (SimulatedPlayer member : party) {
+            if (member.isOnline() && !gameManager.isInGame(member.getUuid()) && !isQueued(member.getUuid())) {
+                members.add(member.getPlayer());
+            }
+        }
+        return members;
+    }
+
+    // ==================== 初始化 ====================
+
+    /**
+     * 模拟默认配置（关闭依赖真实时间的阈值），再应用场景覆盖
+     */
+    private void applyConfigOverrides() {
+        config.set("queue.merge.min-wait", 0);
+        config.set("queue.audit.enabled", false);
+        config.set("queue.predictive-provisioning.enabled", false);
+        config.set("global.fill-on-start", false);
+        config.set("spawn.initial-items", Collections.emptyList());
+        config.set("spawn.invincibility-duration", 10);
+
+        for (Map.Entry<String, Object> entry : scenario.getConfigOverrides().entrySet()) {
+            config.set(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 创建玩家，按比例组成小队（连续编号的玩家为同一小队，第一个是队长）
+     */
+    private void createPlayers() {
+        // 世界创建失败、队列重置，以及评分匹配超时后回到普通排队时没有可用队列
+        Set<String> dropNotices = new HashSet<>();
+        dropNotices.add(getMessage("queue.world-creation-failed"));
+        dropNotices.add(getMessage("queue.reset"));
+        dropNotices.add(getMessage("queue.world-creation-in-progress"));
+        dropNotices.add(getMessage("queue.join-failed"));
+
+        for (int i = 0; i < scenario.getPlayers(); i++) {
+            SimulatedPlayer sim = new SimulatedPlayer(i, random.nextDouble() < scenario.getVipFraction(), dropNotices,
+                    scheduler);
+            players.add(sim);
+            playersById.put(sim.getUuid(), sim);
+            onlinePlayers.put(sim.getUuid(), sim.getPlayer());
+        }
+
+        for (int i = 0; i < players.size(); ) {
+            if (random.nextDouble() >= scenario.getPartyFraction() || scenario.getMaxPartySize() < 2) {
+                i++;
+                continue;
+            }
+
+            int size = Math.min(players.size() - i, 2 + random.nextInt(scenario.getMaxPartySize() - 1));
+            SimulatedPlayer leader = players.get(i);
+            List<SimulatedPlayer> party = new ArrayList<>(players.subList(i, i + size));
+            for (SimulatedPlayer member : party) {
+                member.setPartyLeader(leader);
+            }
+            parties.put(leader.getUuid(), party);
+            i += size;
+        }
+    }
+
+    /**
+     * 与 QueueManager 相同的消息格式
+     */
+    private String getMessage(String key) {
+        String prefix = messages.getString("prefix", "");
+        return ChatColor.translateAlternateColorCodes('&', prefix + messages.getString(key, key));
+    }
+
+    /**
+     * 插件日志只计数，不输出（设置 -Dpbr.simulation.verbose=true 时输出）
+     */
+    private Logger createLogger() {
+        Logger simulationLogger = Logger.getLogger("PBR-Simulation." + scenario.getName());
+        simulationLogger.setUseParentHandlers(Boolean.getBoolean("pbr.simulation.verbose"));
+        for (Handler handler : simulationLogger.getHandlers()) {
+            simulationLogger.removeHandler(handler);
+        }
+
+        simulationLogger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel() == Level.SEVERE) {
+                    report.severeLogs++;
+                    if (severeSamples.size() < 5) {
+                        severeSamples.add(record.getMessage());
+                    }
+                } else if (record.getLevel() == Level.WARNING) {
+                    report.warnings++;
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return simulationLogger;
+    }
+
+    private static YamlConfiguration loadResource(String name) {
+        InputStream in = QueueSimulation.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("缺少资源文件: " + name);
+        }
+
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return YamlConfiguration.loadConfiguration(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==================== 模拟服务端查询 ====================
+
+    VirtualScheduler getScheduler() {
+        return scheduler;
+    }
+
+    Player getOnlinePlayer(UUID uuid) {
+        return onlinePlayers.get(uuid);
+    }
+
+    Collection<Player> getOnlinePlayers() {
+        return onlinePlayers.values();
+    }
+
+    World getWorld(String worldName) {
+        return lobbyWorld.getName().equals(worldName) ? lobbyWorld : liveWorlds.get(worldName);
+    }
+
+    List<World> getLoadedWorlds() {
+        List<World> worlds = new ArrayList<>(liveWorlds.size() + 1);
+        worlds.add(lobbyWorld);
+        worlds.addAll(liveWorlds.values());
+        return worlds;
+    }
+}
@@ -0,0 +1,91 @@
+package com.pokemonbr.simulation;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 队列/游戏负载模拟测试
+ * 每个场景打印吞吐、尾延迟和一致性检查结果，任何一致性问题都会使测试失败
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class QueueSimulationTest {
+
+    @Test
+    public void steadyArrivals() {
+        SimulationReport report = run(new SimulationScenario("steady")
+                .players(2000)
+                .duration(1200)
+                .joinChance(0.002)
+                .leaveChance(0.001)
+                .config("queue.max-concurrent-creations", 4));
+
+        assertTrue("应当有游戏完成", report.getGamesFinished() > 0);
+        assertTrue("应当有玩家等待后开局", report.getWaitTime().getCount() > 0);
+    }
+
+    @Test
+    public void burstWithChurnAndWorldFailures() {
+        SimulationReport report = run(new SimulationScenario("burst-churn")
+                .players(5000)
+                .duration(600)
+                .burst(60, 0.05)
+                .joinChance(0.003)
+                .leaveChance(0.005)
+                .disconnects(0.001, 45)
+                .worldFailureRate(0.05)
+                .resetFailureRate(0.2)
+                .provision(6, 10)
+                .config("queue.max-concurrent-creations", 6));
+
+        assertTrue("应当有游戏完成", report.getGamesFinished() > 0);
+        assertTrue("应当有世界重置回预热池", report.getWorldsReset() > 0);
+    }
+
+    @Test
+    public void partiesWithMatchmaking() {
+        SimulationReport report = run(new SimulationScenario("parties-matchmaking")
+                .players(1500)
+                .duration(900)
+                .joinChance(0.004)
+                .parties(0.3, 4)
+                .disconnects(0.0005, 30)
+                .config("queue.max-concurrent-creations", 4)
+                .config("queue.matchmaking.enabled", true)
+                .config("queue.matchmaking.target-size", 8));
+
+        assertTrue("应当有游戏完成", report.getGamesFinished() > 0);
+    }
+
+    @Test
+    public void shutdownWithLiveGames() {
+        SimulationReport report = new QueueSimulation(new SimulationScenario("shutdown")
+                .players(1500)
+                .duration(300)
+                .burst(60, 0.05)
+                .joinChance(0.01)
+                .resetFailureRate(0.2)
+                .config("queue.max-concurrent-creations", 4)
+                .shutdownAtEnd()).run();
+        System.out.println(report);
+
+        assertEquals("一致性问题:\n" + report, Collections.emptyMap(), report.getViolations());
+        assertTrue("关闭时应当有进行中的游戏", report.getGamesSettledOnShutdown() > 0);
+    }
+
+    /**
+     * 运行场景并检查通用不变量
+     */
+    private SimulationReport run(SimulationScenario scenario) {
+        SimulationReport report = new QueueSimulation(scenario).run();
+        System.out.println(report);
+
+        assertEquals("一致性问题:\n" + report, Collections.emptyMap(), report.getViolations());
+        assertEquals("所有开始的游戏都应结束", report.getGamesStarted(), report.getGamesFinished());
+        return report;
+    }
+}
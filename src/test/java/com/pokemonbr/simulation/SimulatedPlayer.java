@@ -0,0 +1,183 @@
+package com.pokemonbr.simulation;
+
+import com.pokemonbr.models.PlayerData;
+import com.pokemonbr.models.QueueType;
+import org.bukkit.GameMode;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 模拟玩家
+ * Player 替身只实现插件用到的方法（UUID、名称、在线状态、权限、消息），其余返回默认值
+ * 除服务端允许异步调用的方法外，在非主线程调用都会被记录为线程违规
+ * 模拟器记录的状态（空闲、排队、游戏中、离线）在每秒对账时与插件的实际状态比较
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+final class SimulatedPlayer {
+
+    /**
+     * 模拟器观察到的玩家状态
+     */
+    enum State {
+        IDLE,
+        WAITING,
+        IN_GAME,
+        OFFLINE
+    }
+
+    // 所有玩家共用的背包替身（发放初始物品时只会清空）
+    private static final PlayerInventory INVENTORY = Stubs.of(PlayerInventory.class);
+
+    private final UUID uuid;
+    private final String name;
+    private final boolean vip;
+    private final PlayerData playerData;
+    private final Player player;
+
+    // 插件发给玩家的"被移出队列"通知（世界创建失败、队列重置）
+    private final Set<String> dropNotices;
+
+    private final VirtualScheduler scheduler;
+
+    private State state;
+    private boolean online;
+
+    // 进入排队状态的 tick
+    private long waitingSince;
+
+    // 重新上线的 tick
+    private long reconnectAt;
+
+    // 上次对账后是否收到过移出队列通知
+    private volatile boolean dropNotified;
+
+    // 所在小队的队长（没有小队时为自己）
+    private SimulatedPlayer partyLeader;
+
+    SimulatedPlayer(int index, boolean vip, Set<String> dropNotices, VirtualScheduler scheduler) {
+        this.uuid = new UUID(0x5B5L, index);
+        this.name = "Sim" + index;
+        this.vip = vip;
+        this.dropNotices = dropNotices;
+        this.scheduler = scheduler;
+        this.playerData = new PlayerData(uuid, name);
+        this.player = Stubs.of(Player.class, this::answer);
+        this.state = State.IDLE;
+        this.online = true;
+        this.partyLeader = this;
+    }
+
+    /**
+     * Player 替身的行为
+     */
+    private Object answer(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getUniqueId":
+                return uuid;
+            case "getName":
+            case "getDisplayName":
+            case "getPlayerListName":
+                return name;
+            case "isOnline":
+            case "isValid":
+                return online;
+            case "hasPermission":
+                return vip && QueueType.VIP.getPermission().equals(args[0]);
+            case "sendMessage":
+                Object message = args[0];
+                if (message instanceof String && dropNotices.contains(message)) {
+                    dropNotified = true;
+                }
+                return null;
+            default:
+                break;
+        }
+
+        scheduler.checkPrimaryThread("Player." + method.getName());
+
+        switch (method.getName()) {
+            case "isOp":
+                return false;
+            case "getGameMode":
+                return GameMode.SURVIVAL;
+            case "getInventory":
+                return INVENTORY;
+            case "teleport":
+                return true;
+            default:
+                return Stubs.DEFAULT;
+        }
+    }
+
+    /**
+     * 读取并清除移出队列通知标记
+     * @return 上次对账后是否收到过通知
+     */
+    boolean consumeDropNotice() {
+        boolean notified = dropNotified;
+        dropNotified = false;
+        return notified;
+    }
+
+    boolean isPartyLeader() {
+        return partyLeader == this;
+    }
+
+    UUID getUuid() {
+        return uuid;
+    }
+
+    Player getPlayer() {
+        return player;
+    }
+
+    PlayerData getPlayerData() {
+        return playerData;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    boolean isOnline() {
+        return online;
+    }
+
+    void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    long getWaitingSince() {
+        return waitingSince;
+    }
+
+    void setWaitingSince(long waitingSince) {
+        this.waitingSince = waitingSince;
+    }
+
+    long getReconnectAt() {
+        return reconnectAt;
+    }
+
+    void setReconnectAt(long reconnectAt) {
+        this.reconnectAt = reconnectAt;
+    }
+
+    SimulatedPlayer getPartyLeader() {
+        return partyLeader;
+    }
+
+    void setPartyLeader(SimulatedPlayer partyLeader) {
+        this.partyLeader = partyLeader;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pokemonbr.simulation;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * 模拟服务端
+ * Bukkit 的静态服务端每个 JVM 只能设置一次，因此注册一个固定的替身，
+ * 由它把调用转发给当前正在运行的模拟（调度器、在线玩家、大厅世界）
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+final class SimulatedServer {
+
+    private static final Logger LOGGER = Logger.getLogger("PBR-Simulation");
+
+    private static final PluginManager PLUGIN_MANAGER = Stubs.of(PluginManager.class);
+
+    private static final Server SERVER = Stubs.of(Server.class, SimulatedServer::dispatch);
+
+    // 当前正在运行的模拟
+    private static QueueSimulation current;
+
+    private SimulatedServer() {
+    }
+
+    /**
+     * 注册模拟服务端，并把调用转发给指定模拟
+     * @param simulation 模拟
+     */
+    static synchronized void install(QueueSimulation simulation) {
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(SERVER);
+        } else if (Bukkit.getServer() != SERVER) {
+            throw new IllegalStateException("Bukkit 已设置了其他服务端实例: " + Bukkit.getServer());
+        }
+        current = simulation;
+    }
+
+    /**
+     * 分发 Server 的调用
+     */
+    private static Object dispatch(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+                return "PBR-Simulation";
+            case "getVersion":
+                return "simulation";
+            case "getBukkitVersion":
+                return "1.16.5-R0.1-SNAPSHOT";
+            case "getLogger":
+                return LOGGER;
+            case "getPluginManager":
+                return PLUGIN_MANAGER;
+            default:
+                break;
+        }
+
+        QueueSimulation simulation = current;
+        if (simulation == null) {
+            return Stubs.DEFAULT;
+        }
+
+        switch (method.getName()) {
+            case "getScheduler":
+                return simulation.getScheduler().getBukkitScheduler();
+            case "isPrimaryThread":
+                return simulation.getScheduler().isPrimaryThread();
+            case "getPlayer":
+                return args[0] instanceof UUID ? simulation.getOnlinePlayer((UUID) args[0]) : null;
+            case "getOnlinePlayers":
+                return Collections.unmodifiableCollection(simulation.getOnlinePlayers());
+            case "getWorld":
+                return args[0] instanceof String ? simulation.getWorld((String) args[0]) : null;
+            case "getWorlds":
+                return Collections.<World>unmodifiableList(simulation.getLoadedWorlds());
+            default:
+                return Stubs.DEFAULT;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.pokemonbr.simulation;
+
+import com.pokemonbr.managers.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模拟结果
+ * 吞吐（入队、开局、结束）、尾延迟（等待时间、每 tick 主线程耗时）与一致性问题
+ *
+ * 等待时间以虚拟时间计（毫秒记录，按秒输出），主线程耗时以真实时间计（微秒）
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class SimulationReport {
+
+    // 每种问题保留的示例数量
+    private static final int SAMPLE_LIMIT = 5;
+
+    private final String scenarioName;
+
+    // 入队后到开局的虚拟等待时间（毫秒）
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+
+    // 每 tick 主线程耗时（微秒）
+    private final LatencyHistogram tickCost = new LatencyHistogram();
+
+    // 问题类型 -> 次数，以及示例
+    private final Map<String, Long> violations = new LinkedHashMap<>();
+    private final Map<String, List<String>> violationSamples = new LinkedHashMap<>();
+
+    long virtualTicks;
+    long wallMillis;
+
+    long joinAttempts;
+    long joinsAccepted;
+    long joinsRejected;
+    long leaves;
+    long disconnects;
+    long reconnects;
+    long notifiedDrops;
+
+    long gamesStarted;
+    long gamesFinished;
+    long playersServed;
+    long eliminations;
+
+    long worldsAcquired;
+    long worldsFailed;
+    long worldsReleased;
+    long worldsReset;
+    long worldResetsFailed;
+    int peakWorlds;
+    int idleQueueWorlds;
+    int pooledWorlds;
+
+    int gamesSettledOnShutdown;
+
+    long audits;
+    long warnings;
+    long severeLogs;
+
+    SimulationReport(String scenarioName) {
+        this.scenarioName = scenarioName;
+    }
+
+    /**
+     * 记录一个一致性问题
+     * @param type 问题类型
+     * @param description 描述
+     */
+    void violation(String type, String description) {
+        violations.merge(type, 1L, Long::sum);
+
+        List<String> samples = violationSamples.computeIfAbsent(type, k -> new ArrayList<>());
+        if (samples.size() < SAMPLE_LIMIT) {
+            samples.add(description);
+        }
+    }
+
+    /**
+     * 合并一致性检查器累计的问题
+     * @param counts 问题类型 -> 次数
+     */
+    void addViolationCounts(Map<String, Long> counts) {
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            violations.merge("audit:" + entry.getKey(), entry.getValue(), Long::sum);
+        }
+    }
+
+    void recordWait(long ticks) {
+        waitTime.record(ticks * 50L);
+    }
+
+    void recordTickCost(long nanos) {
+        tickCost.record(nanos / 1000L);
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    public Map<String, Long> getViolations() {
+        return Collections.unmodifiableMap(violations);
+    }
+
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    public LatencyHistogram getTickCost() {
+        return tickCost;
+    }
+
+    public long getJoinsAccepted() {
+        return joinsAccepted;
+    }
+
+    public long getGamesStarted() {
+        return gamesStarted;
+    }
+
+    public long getGamesFinished() {
+        return gamesFinished;
+    }
+
+    public long getPlayersServed() {
+        return playersServed;
+    }
+
+    public long getWorldsAcquired() {
+        return worldsAcquired;
+    }
+
+    public long getWorldsReleased() {
+        return worldsReleased;
+    }
+
+    public long getWorldsReset() {
+        return worldsReset;
+    }
+
+    public int getGamesSettledOnShutdown() {
+        return gamesSettledOnShutdown;
+    }
+
+    /**
+     * 每虚拟小时结束的游戏数
+     */
+    public double getGamesPerHour() {
+        return virtualTicks == 0 ? 0 : gamesFinished * 72_000.0 / virtualTicks;
+    }
+
+    /**
+     * 格式化输出
+     */
+    @Override
+    public String toString() {
+        long virtualSeconds = virtualTicks / 20;
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("==== 队列模拟: ").append(scenarioName).append(" ====\n");
+        sb.append(String.format("虚拟时长: %d 秒 (%d tick), 实际耗时: %d ms (%.0f 倍速)%n",
+                virtualSeconds, virtualTicks, wallMillis,
+                wallMillis == 0 ? 0.0 : virtualSeconds * 1000.0 / wallMillis));
+        sb.append(String.format("入队: 尝试 %d, 成功 %d, 拒绝 %d | 主动退出 %d, 掉线 %d, 重连 %d, 被通知移出 %d%n",
+                joinAttempts, joinsAccepted, joinsRejected, leaves, disconnects, reconnects, notifiedDrops));
+        sb.append(String.format("游戏: 开始 %d, 结束 %d (%.1f 局/虚拟小时), 服务玩家 %d 人次, 淘汰 %d%n",
+                gamesStarted, gamesFinished, getGamesPerHour(), playersServed, eliminations));
+        sb.append(String.format("等待时间 (入队->开局, 虚拟秒): p50=%.1f p90=%.1f p99=%.1f max=%.1f (样本 %d)%n",
+                waitTime.getValueAtPercentile(50) / 1000.0, waitTime.getValueAtPercentile(90) / 1000.0,
+                waitTime.getValueAtPercentile(99) / 1000.0, waitTime.getMax() / 1000.0, waitTime.getCount()));
+        sb.append(String.format("主线程每 tick 耗时 (微秒): p50=%d p99=%d p99.9=%d max=%d%n",
+                tickCost.getValueAtPercentile(50), tickCost.getValueAtPercentile(99),
+                tickCost.getValueAtPercentile(99.9), tickCost.getMax()));
+        sb.append(String.format("世界: 申请 %d, 注入失败 %d, 归还 %d, 重置 %d (失败 %d), 峰值占用 %d, 结束时空闲队列持有 %d, 预热池 %d%n",
+                worldsAcquired, worldsFailed, worldsReleased, worldsReset, worldResetsFailed, peakWorlds,
+                idleQueueWorlds, pooledWorlds));
+        if (gamesSettledOnShutdown > 0) {
+            sb.append(String.format("关闭: 结算进行中的游戏 %d 局%n", gamesSettledOnShutdown));
+        }
+        sb.append(String.format("一致性检查: %d 次, 警告日志 %d, 严重日志 %d%n", audits, warnings, severeLogs));
+
+        if (violations.isEmpty()) {
+            sb.append("问题: 无\n");
+        } else {
+            sb.append("问题:\n");
+            for (Map.Entry<String, Long> entry : violations.entrySet()) {
+                sb.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+                for (String sample : violationSamples.getOrDefault(entry.getKey(), Collections.emptyList())) {
+                    sb.append("    - ").append(sample).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
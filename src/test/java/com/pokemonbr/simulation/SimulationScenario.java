@@ -0,0 +1,253 @@
+package com.pokemonbr.simulation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 模拟场景参数
+ * 概率都按"每虚拟秒"计算，时间都以虚拟秒为单位
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class SimulationScenario {
+
+    private final String name;
+
+    // 玩家数量与时长
+    private int players = 1000;
+    private int durationSeconds = 1800;
+    private int drainSeconds = 900;
+
+    // 空闲玩家每秒加入队列的概率（开场高峰期间使用 burstJoinChance）
+    private double joinChance = 0.01;
+    private int burstSeconds;
+    private double burstJoinChance;
+
+    // 排队玩家每秒主动退出的概率
+    private double leaveChance = 0.001;
+
+    // 在线玩家每秒掉线的概率，以及掉线后多久重新上线
+    private double disconnectChance;
+    private int reconnectSeconds = 30;
+
+    // 每局游戏每秒淘汰一名存活玩家的概率
+    private double eliminationChance = 0.3;
+
+    // VIP 玩家比例、组队玩家比例与小队人数上限
+    private double vipFraction = 0.1;
+    private double partyFraction;
+    private int maxPartySize = 4;
+
+    // 世界准备耗时（基础值 + 随机抖动）与失败概率
+    private int provisionSeconds = 8;
+    private int provisionJitterSeconds = 4;
+    private double worldFailureRate;
+
+    // 回收世界时重置文件失败（改为删除）的概率
+    private double resetFailureRate;
+
+    // 运行结束时不排空，而是在游戏进行中禁用插件
+    private boolean shutdownAtEnd;
+
+    // 一致性检查间隔、孤立世界宽限时间、单局最长时间
+    private int auditIntervalSeconds = 5;
+    private int orphanGraceSeconds = 30;
+    private int maxGameSeconds = 1200;
+
+    private long seed = 20240601L;
+
+    // 覆盖 config.yml 中的配置
+    private final Map<String, Object> configOverrides = new LinkedHashMap<>();
+
+    public SimulationScenario(String name) {
+        this.name = name;
+    }
+
+    public SimulationScenario players(int players) {
+        this.players = players;
+        return this;
+    }
+
+    public SimulationScenario duration(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+        return this;
+    }
+
+    public SimulationScenario drain(int drainSeconds) {
+        this.drainSeconds = drainSeconds;
+        return this;
+    }
+
+    public SimulationScenario joinChance(double joinChance) {
+        this.joinChance = joinChance;
+        return this;
+    }
+
+    public SimulationScenario burst(int burstSeconds, double burstJoinChance) {
+        this.burstSeconds = burstSeconds;
+        this.burstJoinChance = burstJoinChance;
+        return this;
+    }
+
+    public SimulationScenario leaveChance(double leaveChance) {
+        this.leaveChance = leaveChance;
+        return this;
+    }
+
+    public SimulationScenario disconnects(double disconnectChance, int reconnectSeconds) {
+        this.disconnectChance = disconnectChance;
+        this.reconnectSeconds = reconnectSeconds;
+        return this;
+    }
+
+    public SimulationScenario eliminationChance(double eliminationChance) {
+        this.eliminationChance = eliminationChance;
+        return this;
+    }
+
+    public SimulationScenario vipFraction(double vipFraction) {
+        this.vipFraction = vipFraction;
+        return this;
+    }
+
+    public SimulationScenario parties(double partyFraction, int maxPartySize) {
+        this.partyFraction = partyFraction;
+        this.maxPartySize = maxPartySize;
+        return this;
+    }
+
+    public SimulationScenario provision(int provisionSeconds, int provisionJitterSeconds) {
+        this.provisionSeconds = provisionSeconds;
+        this.provisionJitterSeconds = provisionJitterSeconds;
+        return this;
+    }
+
+    public SimulationScenario worldFailureRate(double worldFailureRate) {
+        this.worldFailureRate = worldFailureRate;
+        return this;
+    }
+
+    public SimulationScenario resetFailureRate(double resetFailureRate) {
+        this.resetFailureRate = resetFailureRate;
+        return this;
+    }
+
+    public SimulationScenario shutdownAtEnd() {
+        this.shutdownAtEnd = true;
+        return this;
+    }
+
+    public SimulationScenario auditInterval(int auditIntervalSeconds) {
+        this.auditIntervalSeconds = auditIntervalSeconds;
+        return this;
+    }
+
+    public SimulationScenario maxGameSeconds(int maxGameSeconds) {
+        this.maxGameSeconds = maxGameSeconds;
+        return this;
+    }
+
+    public SimulationScenario seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SimulationScenario config(String path, Object value) {
+        configOverrides.put(path, value);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getDrainSeconds() {
+        return drainSeconds;
+    }
+
+    /**
+     * 获取指定时刻空闲玩家的加入概率
+     * @param second 虚拟秒
+     * @return 概率
+     */
+    public double getJoinChance(long second) {
+        return second < burstSeconds ? burstJoinChance : joinChance;
+    }
+
+    public double getLeaveChance() {
+        return leaveChance;
+    }
+
+    public double getDisconnectChance() {
+        return disconnectChance;
+    }
+
+    public int getReconnectSeconds() {
+        return reconnectSeconds;
+    }
+
+    public double getEliminationChance() {
+        return eliminationChance;
+    }
+
+    public double getVipFraction() {
+        return vipFraction;
+    }
+
+    public double getPartyFraction() {
+        return partyFraction;
+    }
+
+    public int getMaxPartySize() {
+        return maxPartySize;
+    }
+
+    public int getProvisionSeconds() {
+        return provisionSeconds;
+    }
+
+    public int getProvisionJitterSeconds() {
+        return provisionJitterSeconds;
+    }
+
+    public double getWorldFailureRate() {
+        return worldFailureRate;
+    }
+
+    public double getResetFailureRate() {
+        return resetFailureRate;
+    }
+
+    public boolean isShutdownAtEnd() {
+        return shutdownAtEnd;
+    }
+
+    public int getAuditIntervalSeconds() {
+        return auditIntervalSeconds;
+    }
+
+    public int getOrphanGraceSeconds() {
+        return orphanGraceSeconds;
+    }
+
+    public int getMaxGameSeconds() {
+        return maxGameSeconds;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Map<String, Object> getConfigOverrides() {
+        return configOverrides;
+    }
+}
@@ -0,0 +1,119 @@
+package com.pokemonbr.simulation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 接口替身
+ * 每 tick 都会被大量调用的接口（玩家、世界、服务端、调度器）用 JDK 动态代理实现，
+ * 避免模拟框架为每次调用记录调用位置带来的开销
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+final class Stubs {
+
+    /**
+     * 处理器返回此值时按返回类型给出默认值
+     */
+    static final Object DEFAULT = new Object();
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private Stubs() {
+    }
+
+    /**
+     * 方法处理器
+     */
+    interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * 创建接口替身
+     * @param type 接口
+     * @param handler 方法处理器
+     * @return 替身（equals/hashCode 按对象身份）
+     */
+    static <T> T of(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            int parameters = method.getParameterCount();
+            switch (method.getName()) {
+                case "equals":
+                    if (parameters == 1) {
+                        return self == args[0];
+                    }
+                    break;
+                case "hashCode":
+                    if (parameters == 0) {
+                        return System.identityHashCode(self);
+                    }
+                    break;
+                case "toString":
+                    if (parameters == 0) {
+                        return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            Object result = handler.invoke(method, args == null ? NO_ARGS : args);
+            return result == DEFAULT ? defaultValue(method.getReturnType()) : result;
+        });
+        return type.cast(proxy);
+    }
+
+    /**
+     * 所有方法都返回默认值的接口替身
+     */
+    static <T> T of(Class<T> type) {
+        return of(type, (method, args) -> DEFAULT);
+    }
+
+    /**
+     * 返回类型的默认值（集合返回空集合）
+     */
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == List.class || type == Collection.class) {
+            return Collections.emptyList();
+        }
+        if (type == Set.class) {
+            return Collections.emptySet();
+        }
+        if (type == Map.class) {
+            return Collections.emptyMap();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,419 @@
+package com.pokemonbr.simulation;
+
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 虚拟时钟调度器
+ * 用 tick 计数代替真实时间，按到期 tick 和提交顺序执行任务，同一种子下每次运行结果相同
+ *
+ * 对外提供 BukkitScheduler 的替身: runTask / runTaskLater / runTaskTimer 及其异步版本、
+ * scheduleSync*、callSyncMethod、cancelTask 都映射到同一个任务队列
+ *
+ * 与服务端相同的线程规则:
+ * - 创建调度器的线程是主线程，同步任务在主线程执行
+ * - 异步任务在独立的工作线程执行，主线程等待其完成（保证结果可复现），
+ *   等待期间处理工作线程通过 callSyncMethod 提交的调用，因此阻塞等待主线程结果的代码不会死锁
+ * - 插件已禁用时提交任务抛出 IllegalPluginAccessException，并记录下来供检查
+ *
+ * @author l1ang_Y5n
+ * @qq 235236127
+ */
+public class VirtualScheduler {
+
+    // 任务按到期 tick 排序，同一 tick 内按提交顺序执行
+    private final PriorityQueue<VirtualTask> tasks;
+
+    // 任务ID -> 未结束的任务
+    private final Map<Integer, VirtualTask> activeTasks;
+
+    // 任务抛出的异常（调度器不会因此停止，与服务端行为一致）
+    private final List<Throwable> failures;
+
+    // 插件禁用后仍尝试提交的任务（调用方法 + 调用位置）
+    private final List<String> rejections;
+
+    // 在非主线程调用了只能在主线程使用的方法
+    private final List<String> threadViolations;
+
+    // 工作线程提交、等待主线程执行的调用
+    private final BlockingQueue<Runnable> mainThreadQueue;
+
+    private final Thread mainThread;
+    private final ExecutorService asyncWorker;
+    private final BukkitScheduler bukkitScheduler;
+
+    private long currentTick;
+    private long nextSequence;
+    private int nextTaskId;
+    private long executedTasks;
+
+    public VirtualScheduler() {
+        this.tasks = new PriorityQueue<>(Comparator.<VirtualTask>comparingLong(task -> task.dueTick)
+                .thenComparingLong(task -> task.sequence));
+        this.activeTasks = new HashMap<>();
+        this.failures = Collections.synchronizedList(new ArrayList<>());
+        this.rejections = Collections.synchronizedList(new ArrayList<>());
+        this.threadViolations = Collections.synchronizedList(new ArrayList<>());
+        this.mainThreadQueue = new LinkedBlockingQueue<>();
+        this.nextTaskId = 1;
+        this.mainThread = Thread.currentThread();
+        this.asyncWorker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PBR-Simulation-Async");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.bukkitScheduler = Stubs.of(BukkitScheduler.class, this::dispatch);
+    }
+
+    /**
+     * 推进一个 tick，执行所有到期的任务
+     * @return 本 tick 执行的任务数量
+     */
+    public int tick() {
+        currentTick++;
+        int executed = 0;
+
+        VirtualTask task;
+        while ((task = pollDue()) != null) {
+            try {
+                if (task.sync) {
+                    task.execute();
+                } else {
+                    runAsync(task);
+                }
+            } catch (Throwable throwable) {
+                failures.add(throwable);
+            }
+            executed++;
+
+            synchronized (this) {
+                if (task.period > 0 && !task.cancelled) {
+                    task.dueTick = currentTick + task.period;
+                    task.sequence = nextSequence++;
+                    tasks.add(task);
+                } else {
+                    activeTasks.remove(task.taskId);
+                }
+            }
+        }
+
+        drainMainThreadQueue();
+        executedTasks += executed;
+        return executed;
+    }
+
+    /**
+     * 取出下一个到期且未取消的任务
+     */
+    private synchronized VirtualTask pollDue() {
+        while (!tasks.isEmpty() && tasks.peek().dueTick <= currentTick) {
+            VirtualTask task = tasks.poll();
+            if (!task.cancelled) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在工作线程执行异步任务，等待期间处理提交到主线程的调用
+     */
+    private void runAsync(VirtualTask task) throws Throwable {
+        Future<?> future = asyncWorker.submit(() -> {
+            try {
+                task.execute();
+            } catch (Throwable throwable) {
+                failures.add(throwable);
+            }
+        });
+
+        while (!future.isDone()) {
+            Runnable call = mainThreadQueue.poll(1, TimeUnit.MILLISECONDS);
+            if (call != null) {
+                call.run();
+            }
+        }
+        future.get();
+    }
+
+    private void drainMainThreadQueue() {
+        Runnable call;
+        while ((call = mainThreadQueue.poll()) != null) {
+            call.run();
+        }
+    }
+
+    /**
+     * 在指定 tick 之后于主线程执行（模拟中的外部事件，例如世界复制完成）
+     * @param action 任务
+     * @param delay 延迟 tick
+     */
+    public void runLater(Runnable action, long delay) {
+        schedule(null, action, delay, 0, true);
+    }
+
+    /**
+     * 在指定 tick 之后于工作线程执行（模拟中的文件 I/O）
+     * @param action 任务
+     * @param delay 延迟 tick
+     */
+    public void runAsyncLater(Runnable action, long delay) {
+        schedule(null, action, delay, 0, false);
+    }
+
+    /**
+     * 检查当前线程是否为主线程
+     * @return 是否为主线程
+     */
+    public boolean isPrimaryThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    /**
+     * 记录只能在主线程调用的方法是否在其他线程被调用
+     * @param call 调用描述
+     */
+    public void checkPrimaryThread(String call) {
+        if (!isPrimaryThread()) {
+            String calledClass = call.substring(0, call.indexOf('.'));
+            threadViolations.add(call + " 在线程 " + Thread.currentThread().getName() + " 调用，位置: "
+                    + callSite(calledClass));
+        }
+    }
+
+    /**
+     * 分发 BukkitScheduler 的调用
+     */
+    private Object dispatch(Method method, Object[] args) {
+        String name = method.getName();
+
+        switch (name) {
+            case "cancelTask":
+                cancel((Integer) args[0]);
+                return null;
+            case "cancelTasks":
+                cancelTasks((Plugin) args[0]);
+                return null;
+            case "isQueued":
+            case "isCurrentlyRunning":
+                synchronized (this) {
+                    return activeTasks.containsKey((Integer) args[0]);
+                }
+            case "getPendingTasks":
+                synchronized (this) {
+                    return new ArrayList<BukkitTask>(activeTasks.values());
+                }
+            case "getActiveWorkers":
+                return Collections.emptyList();
+            default:
+                break;
+        }
+
+        if (!name.startsWith("run") && !name.startsWith("schedule") && !"callSyncMethod".equals(name)) {
+            return Stubs.DEFAULT;
+        }
+
+        // 与服务端一致: 禁用的插件不能再提交任务
+        Plugin owner = (Plugin) args[0];
+        if (owner != null && !owner.isEnabled()) {
+            rejections.add(name + " <- " + callSite(null));
+            throw new IllegalPluginAccessException("Plugin attempted to register task while disabled");
+        }
+
+        if ("callSyncMethod".equals(name)) {
+            return callSync((Callable<?>) args[1]);
+        }
+
+        // 与服务端一致: 周期小于 1 按 1 处理，延迟小于 1 在下一个 tick 执行
+        boolean repeating = name.contains("Timer") || name.contains("Repeating");
+        long delay = args.length > 2 ? (Long) args[2] : 0L;
+        long period = repeating ? Math.max(1L, (Long) args[3]) : 0L;
+        VirtualTask task = schedule(owner, args[1], delay, period, !name.contains("Async"));
+
+        Class<?> returnType = method.getReturnType();
+        if (returnType == int.class) {
+            return task.taskId;
+        }
+        return returnType == void.class ? null : task;
+    }
+
+    /**
+     * 加入任务队列（可在任意线程调用）
+     */
+    private synchronized VirtualTask schedule(Plugin owner, Object action, long delay, long period, boolean sync) {
+        VirtualTask task = new VirtualTask(nextTaskId++, owner, action, period, sync);
+        task.dueTick = currentTick + Math.max(1L, delay);
+        task.sequence = nextSequence++;
+
+        tasks.add(task);
+        activeTasks.put(task.taskId, task);
+        return task;
+    }
+
+    /**
+     * 取消任务
+     */
+    private synchronized void cancel(int taskId) {
+        VirtualTask task = activeTasks.get(taskId);
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * 取消插件的所有任务（与服务端一致，插件禁用后由服务端调用）
+     * @param plugin 插件
+     */
+    public synchronized void cancelTasks(Plugin plugin) {
+        for (VirtualTask task : new ArrayList<>(activeTasks.values())) {
+            if (task.owner == plugin) {
+                task.cancel();
+            }
+        }
+    }
+
+    /**
+     * 在主线程执行调用
+     * 主线程调用时与服务端一样排到下一个 tick；工作线程调用时由正在等待的主线程立即执行
+     */
+    private Future<Object> callSync(Callable<?> callable) {
+        FutureTask<Object> future = new FutureTask<>(callable::call);
+        if (isPrimaryThread()) {
+            schedule(null, future, 0, 0, true);
+        } else {
+            mainThreadQueue.add(future);
+        }
+        return future;
+    }
+
+    /**
+     * 调用位置（跳过模拟框架、反射代理以及被调用类本身的栈帧）
+     * @param calledClass 被调用类的简单名称，可为 null
+     */
+    private static String callSite(String calledClass) {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith("com.pokemonbr.") && !className.startsWith("com.pokemonbr.simulation.")
+                    && (calledClass == null || !className.endsWith("." + calledClass))) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * 停止工作线程
+     */
+    public void shutdown() {
+        asyncWorker.shutdownNow();
+    }
+
+    public BukkitScheduler getBukkitScheduler() {
+        return bukkitScheduler;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public synchronized int getPendingTaskCount() {
+        return activeTasks.size();
+    }
+
+    public long getExecutedTasks() {
+        return executedTasks;
+    }
+
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+
+    public List<String> getRejections() {
+        return rejections;
+    }
+
+    public List<String> getThreadViolations() {
+        return threadViolations;
+    }
+
+    /**
+     * 虚拟任务
+     */
+    private final class VirtualTask implements BukkitTask {
+        private final int taskId;
+        private final Plugin owner;
+        private final Object action;
+        private final long period;
+        private final boolean sync;
+
+        private long dueTick;
+        private long sequence;
+        private volatile boolean cancelled;
+
+        private VirtualTask(int taskId, Plugin owner, Object action, long period, boolean sync) {
+            this.taskId = taskId;
+            this.owner = owner;
+            this.action = action;
+            this.period = period;
+            this.sync = sync;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void execute() {
+            if (action instanceof Runnable) {
+                ((Runnable) action).run();
+            } else {
+                ((Consumer<BukkitTask>) action).accept(this);
+            }
+        }
+
+        @Override
+        public int getTaskId() {
+            return taskId;
+        }
+
+        @Override
+        public Plugin getOwner() {
+            return owner;
+        }
+
+        @Override
+        public boolean isSync() {
+            return sync;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            synchronized (VirtualScheduler.this) {
+                activeTasks.remove(taskId);
+            }
+        }
+    }
+}